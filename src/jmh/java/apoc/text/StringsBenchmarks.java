@@ -0,0 +1,134 @@
+package apoc.text;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Arrays.asList;
+
+/**
+ * per call cost of the regex based text functions, each `*Uncached` benchmark is the previous implementation
+ * which compiles the regex on every call, run with `./gradlew jmh -Pjmh.include=StringsBenchmarks`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StringsBenchmarks {
+
+    private static final String TEXT = "Neo4j APOC procedures: 2019-03-14, version 3.4.0.8 for the graph database";
+    private static final String REGEX = "[^a-zA-Z0-9]+";
+
+    private final Strings strings = new Strings();
+
+    @Benchmark
+    public String regreplace() {
+        return strings.regreplace(TEXT, REGEX, "_");
+    }
+
+    @Benchmark
+    public String regreplaceUncached() {
+        return TEXT.replaceAll(REGEX, "_");
+    }
+
+    @Benchmark
+    public List<String> split() {
+        return strings.split(TEXT, ",\\s*", 0L);
+    }
+
+    @Benchmark
+    public List<String> splitUncached() {
+        return new ArrayList<>(asList(TEXT.split(",\\s*", 0)));
+    }
+
+    @Benchmark
+    public List<List<String>> regexGroups() {
+        return strings.regexGroups(TEXT, "(\\d+)-(\\d+)-(\\d+)");
+    }
+
+    @Benchmark
+    public void regexGroupsUncached(Blackhole bh) {
+        Matcher matcher = Pattern.compile("(\\d+)-(\\d+)-(\\d+)").matcher(TEXT);
+        while (matcher.find()) {
+            for (int i = 0; i <= matcher.groupCount(); i++) {
+                bh.consume(matcher.group(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public long bytes() throws UnsupportedEncodingException {
+        long sum = 0;
+        for (Long b : strings.bytes(TEXT, "UTF-8")) {
+            sum += b;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long bytesBoxed() throws UnsupportedEncodingException {
+        byte[] bytes = TEXT.getBytes("UTF-8");
+        List<Long> result = new ArrayList<>(bytes.length);
+        for (byte b : bytes) {
+            result.add((long) b & 0xFFL);
+        }
+        long sum = 0;
+        for (Long b : result) {
+            sum += b;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public String slug() {
+        return strings.slug(TEXT, "-");
+    }
+
+    @Benchmark
+    public String slugUncached() {
+        return TEXT.trim().replaceAll("[\\W\\s]+", "-");
+    }
+
+    @Benchmark
+    public String camelCase() {
+        return strings.camelCase(TEXT);
+    }
+
+    @Benchmark
+    public String camelCaseUncached() {
+        String text = TEXT.replaceAll("\\W|_+", " ");
+        StringBuilder output = new StringBuilder();
+        for (String part : text.split("(\\s+)")) {
+            output.append(StringUtils.capitalize(part.toLowerCase()));
+        }
+        return output.substring(0, 1).toLowerCase() + output.substring(1);
+    }
+
+    @Benchmark
+    public String toUpperCase() {
+        return strings.toUpperCase(TEXT);
+    }
+
+    @Benchmark
+    public String toUpperCaseUncached() {
+        StringBuilder output = new StringBuilder();
+        for (String part : TEXT.split("(?=[^a-z0-9]+)")) {
+            part = part.trim().toUpperCase().replaceAll("[^A-Z0-9]+", "");
+            if (part.length() > 0) {
+                if (output.length() > 0) {
+                    output.append("_");
+                }
+                output.append(part);
+            }
+        }
+        return output.toString();
+    }
+}
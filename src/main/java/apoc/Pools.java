@@ -1,17 +1,25 @@
 package apoc;
 
+import apoc.pools.MonitoredThreadPoolExecutor;
 import apoc.util.Util;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -27,6 +35,23 @@ public class Pools {
 
     static final String CONFIG_JOBS_SCHEDULED_NUM_THREADS = "jobs.scheduled.num_threads";
     static final String CONFIG_JOBS_POOL_NUM_THREADS = "jobs.pool.num_threads";
+    static final String CONFIG_JOBS_POOL_PREFIX = "jobs.pool.";
+
+    // names of the pools of the subsystems, each can be configured with apoc.jobs.pool.<name>.num_threads/queue_size/policy
+    public static final String PERIODIC = "periodic";
+    public static final String GROUPING = "grouping";
+    public static final String WARMUP = "warmup";
+    public static final String CYPHER = "cypher";
+    public static final String BATCH = "batch";
+    public static final String ALGO = "algo";
+    public static final String TRIGGER = "trigger";
+    public static final String TTL = "ttl";
+    public static final String META = "meta";
+    public static final String EXPORT = "export";
+
+    public static final String POLICY_BLOCK = "block";
+    public static final String POLICY_CALLER_RUNS = "caller_runs";
+    public static final String POLICY_ABORT = "abort";
 
     public final static int DEFAULT_SCHEDULED_THREADS = Runtime.getRuntime().availableProcessors() / 4;
     public final static int DEFAULT_POOL_THREADS = Runtime.getRuntime().availableProcessors() * 2;
@@ -36,6 +61,8 @@ public class Pools {
     public final static ScheduledExecutorService SCHEDULED = createScheduledPool();
     public static JobScheduler NEO4J_SCHEDULER = null;
 
+    private static final Map<String, ExecutorService> NAMED = new ConcurrentHashMap<>();
+
     static {
         for (ExecutorService service : Arrays.asList(SINGLE, DEFAULT, SCHEDULED)) {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -55,8 +82,65 @@ public class Pools {
     public static ExecutorService createDefaultPool() {
         int threads = getNoThreadsInDefaultPool();
         int queueSize = threads * 25;
-        return new ThreadPoolExecutor(threads / 2, threads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
-                new CallerBlocksPolicy());
+        return new MonitoredThreadPoolExecutor("default", threads / 2, threads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+                POLICY_BLOCK, new CallerBlocksPolicy());
+    }
+
+    /**
+     * Bounded pool for the named subsystem, created on first use, so that e.g. a heavy apoc.nodes.group call
+     * doesn't starve apoc.periodic.iterate. Size, queue size and rejection policy (block, caller_runs, abort) default
+     * to the settings of the default pool and can be configured with apoc.jobs.pool.&lt;name&gt;.num_threads/queue_size/policy.
+     */
+    public static ExecutorService pool(String name) {
+        return NAMED.computeIfAbsent(name, Pools::createNamedPool);
+    }
+
+    /**
+     * Work-stealing pool for CPU bound algorithms, its parallelism can be configured with apoc.jobs.pool.&lt;name&gt;.num_threads
+     */
+    public static ForkJoinPool forkJoinPool(String name) {
+        ExecutorService pool = NAMED.computeIfAbsent(name, (n) -> addShutdownHook(new ForkJoinPool(getNoThreadsInPool(n, Runtime.getRuntime().availableProcessors()))));
+        if (!(pool instanceof ForkJoinPool)) throw new IllegalArgumentException("Pool " + name + " is not a fork-join pool");
+        return (ForkJoinPool) pool;
+    }
+
+    private static ExecutorService createNamedPool(String name) {
+        int threads = getNoThreadsInPool(name, getNoThreadsInDefaultPool());
+        int queueSize = Util.toInteger(ApocConfiguration.get(CONFIG_JOBS_POOL_PREFIX + name + ".queue_size", threads * 25));
+        String policy = ApocConfiguration.get(CONFIG_JOBS_POOL_PREFIX + name + ".policy", POLICY_BLOCK).toString().trim().toLowerCase();
+        RejectedExecutionHandler handler;
+        switch (policy) {
+            case POLICY_BLOCK: handler = new CallerBlocksPolicy(); break;
+            case POLICY_CALLER_RUNS: handler = new ThreadPoolExecutor.CallerRunsPolicy(); break;
+            case POLICY_ABORT: handler = new ThreadPoolExecutor.AbortPolicy(); break;
+            default: throw new IllegalArgumentException("Unknown rejection policy " + policy + " for pool " + name + ", use one of " + Arrays.asList(POLICY_BLOCK, POLICY_CALLER_RUNS, POLICY_ABORT));
+        }
+        return addShutdownHook(new MonitoredThreadPoolExecutor(name, Math.max(1, threads / 2), threads, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), policy, handler));
+    }
+
+    private static <T extends ExecutorService> T addShutdownHook(T service) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                service.shutdown();
+                service.awaitTermination(10,TimeUnit.SECONDS);
+            } catch(Exception ignore) {
+                //
+            }
+        }));
+        return service;
+    }
+
+    /**
+     * all pools by name, including the default, single and scheduled pools
+     */
+    public static Map<String, ExecutorService> list() {
+        Map<String, ExecutorService> pools = new LinkedHashMap<>();
+        pools.put("default", DEFAULT);
+        pools.put("single", SINGLE);
+        pools.put("scheduled", SCHEDULED);
+        pools.putAll(new TreeMap<>(NAMED));
+        return Collections.unmodifiableMap(pools);
     }
 
     static class CallerBlocksPolicy implements RejectedExecutionHandler {
@@ -94,13 +178,18 @@ public class Pools {
         Integer maxThreads = Util.toInteger(ApocConfiguration.get(CONFIG_JOBS_POOL_NUM_THREADS, DEFAULT_POOL_THREADS));
         return Math.max(1, maxThreads == null ? DEFAULT_POOL_THREADS : maxThreads);
     }
+    static int getNoThreadsInPool(String name, int defaultThreads) {
+        Integer maxThreads = Util.toInteger(ApocConfiguration.get(CONFIG_JOBS_POOL_PREFIX + name + ".num_threads", defaultThreads));
+        return Math.max(1, maxThreads == null ? defaultThreads : maxThreads);
+    }
     public static int getNoThreadsInScheduledPool() {
         Integer maxThreads = Util.toInteger(ApocConfiguration.get(CONFIG_JOBS_SCHEDULED_NUM_THREADS, DEFAULT_SCHEDULED_THREADS));
         return Math.max(1, maxThreads == null ? DEFAULT_POOL_THREADS : maxThreads);
     }
 
     private static ExecutorService createSinglePool() {
-        return Executors.newSingleThreadExecutor();
+        return new MonitoredThreadPoolExecutor("single", 1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                POLICY_ABORT, new ThreadPoolExecutor.AbortPolicy());
     }
 
     private static ScheduledExecutorService createScheduledPool() {
@@ -108,7 +197,7 @@ public class Pools {
     }
 
     public static <T> Future<Void> processBatch(List<T> batch, GraphDatabaseService db, Consumer<T> action) {
-        return DEFAULT.submit((Callable<Void>) () -> {
+        return pool(BATCH).submit((Callable<Void>) () -> {
                 try (Transaction tx = db.beginTx()) {
                     batch.forEach(action);
                     tx.success();
@@ -3,6 +3,8 @@ package apoc.algo;
 import org.neo4j.procedure.*;
 import apoc.Pools;
 import apoc.algo.algorithms.*;
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.GraphRegistry;
 import apoc.result.NodeScore;
 import apoc.util.Util;
 import org.neo4j.graphalgo.impl.centrality.BetweennessCentrality;
@@ -21,10 +23,10 @@ import org.neo4j.logging.Log;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import java.util.stream.Stream;
 
 import static apoc.algo.algorithms.AlgoUtils.SETTING_BATCH_SIZE;
+import static apoc.algo.algorithms.AlgoUtils.SETTING_GRAPH;
 import static apoc.algo.algorithms.AlgoUtils.SETTING_WEIGHTED;
 
 public class Centrality {
@@ -42,7 +44,6 @@ public class Centrality {
     public TerminationGuard guard;
 
 
-    static final ExecutorService pool = Pools.DEFAULT;
 
     @Deprecated
     @Procedure("apoc.algo.betweenness")
@@ -81,8 +82,8 @@ public class Centrality {
 
     @Deprecated
     @Procedure(value = "apoc.algo.betweennessCypher",mode = Mode.WRITE)
-    @Description("CALL apoc.algo.betweennessCypher(node_cypher,rel_cypher,write) - calculates betweeness " +
-    " centrality based on cypher input")
+    @Description("CALL apoc.algo.betweennessCypher({node_cypher,rel_cypher,write,graph}) - calculates betweeness " +
+    " centrality based on cypher input or on the graph projection loaded with apoc.algo.graph.load")
     public Stream<apoc.algo.algorithms.AlgorithmInterface.Statistics> betweennessCypher(
             @Name("config") Map<String, Object> config) {
         String nodeCypher = AlgoUtils.getCypher(config, AlgoUtils.SETTING_CYPHER_NODE, AlgoUtils.DEFAULT_CYPHER_NODE);
@@ -93,34 +94,43 @@ public class Centrality {
         int concurrency = ((Number) config.getOrDefault("concurrency",Pools.getNoThreadsInDefaultPool())).intValue();
         String property = (String) config.getOrDefault("property","betweenness_centrality");
 
+        String graphName = (String) config.get(SETTING_GRAPH);
+
         long beforeReading = System.currentTimeMillis();
-        log.info("BetweennessCypher: Reading data into local ds");
         apoc.algo.algorithms.BetweennessCentrality betweennessCentrality =
-                new apoc.algo.algorithms.BetweennessCentrality(dbAPI, pool, log, guard);
-
-        boolean success = betweennessCentrality.readNodeAndRelCypherData(
-                relCypher, nodeCypher, weight, batchSize, concurrency);
-        if (!success) {
-            String errorMsg = "Failure while reading cypher queries. Make sure the results are ordered.";
-            log.info(errorMsg);
-            throw new RuntimeException(errorMsg);
-        }
-        long afterReading = System.currentTimeMillis();
+                new apoc.algo.algorithms.BetweennessCentrality(dbAPI, Pools.forkJoinPool(Pools.ALGO), log, guard);
+
+        try (CsrGraph graph = graphName == null ? null : GraphRegistry.acquire(graphName)) {
+            if (graph != null) {
+                log.info("BetweennessCypher: Using graph projection " + graphName);
+                betweennessCentrality.useGraph(graph);
+            } else {
+                log.info("BetweennessCypher: Reading data into local ds");
+                boolean success = betweennessCentrality.readNodeAndRelCypherData(
+                        relCypher, nodeCypher, weight, batchSize, concurrency);
+                if (!success) {
+                    String errorMsg = "Failure while reading cypher queries. Make sure the results are ordered.";
+                    log.info(errorMsg);
+                    throw new RuntimeException(errorMsg);
+                }
+            }
+            long afterReading = System.currentTimeMillis();
 
-        log.info("BetweennessCypher: Graph stored in local ds in " + (afterReading - beforeReading) + " milliseconds");
-        log.info("BetweennessCypher: Number of nodes: " + betweennessCentrality.numberOfNodes());
-        log.info("BetweennessCypher: Number of relationships: " + betweennessCentrality.numberOfRels());
+            log.info("BetweennessCypher: Graph stored in local ds in " + (afterReading - beforeReading) + " milliseconds");
+            log.info("BetweennessCypher: Number of nodes: " + betweennessCentrality.numberOfNodes());
+            log.info("BetweennessCypher: Number of relationships: " + betweennessCentrality.numberOfRels());
 
 
-        betweennessCentrality.computeUnweightedParallel();
+            betweennessCentrality.computeUnweightedParallel();
 
-        long afterComputation = System.currentTimeMillis();
-        log.info("BetweennessCypher: Computations took " + (afterComputation - afterReading) + " milliseconds");
+            long afterComputation = System.currentTimeMillis();
+            log.info("BetweennessCypher: Computations took " + (afterComputation - afterReading) + " milliseconds");
 
-        if (shouldWrite) {
-            betweennessCentrality.writeResultsToDB(property);
-            long afterWrite = System.currentTimeMillis();
-            log.info("BetweennessCypher: Writeback took " + (afterWrite - afterComputation) + " milliseconds");
+            if (shouldWrite) {
+                betweennessCentrality.writeResultsToDB(property);
+                long afterWrite = System.currentTimeMillis();
+                log.info("BetweennessCypher: Writeback took " + (afterWrite - afterComputation) + " milliseconds");
+            }
         }
 
         return Stream.of(betweennessCentrality.getStatistics());
@@ -0,0 +1,78 @@
+package apoc.algo;
+
+import apoc.Pools;
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.CsrGraphLoader;
+import apoc.algo.graph.GraphRegistry;
+import apoc.util.Util;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.*;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class GraphProjections {
+
+    @Context
+    public GraphDatabaseAPI db;
+
+    @Context
+    public Log log;
+
+    @Context
+    public TerminationGuard guard;
+
+    @Procedure("apoc.algo.graph.load")
+    @Description("CALL apoc.algo.graph.load(name, {label, relationshipType:'A|B', direction:'OUTGOING', weight:'property', defaultWeight:1, partitionSize:1000000}) YIELD name, nodes, relationships, bytes, loadMillis - loads a named, off-heap projection of the graph that the algorithms can use with the `graph` config")
+    public Stream<GraphInfo> load(@Name("name") String name, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        CsrGraphLoader loader = new CsrGraphLoader(db, Pools.forkJoinPool(Pools.ALGO), guard)
+                .withLabel((String) config.get("label"))
+                .withRelationshipType((String) config.get("relationshipType"))
+                .withDirection(Util.parseDirection((String) config.getOrDefault("direction", "OUTGOING")))
+                .withWeight((String) config.get("weight"), Util.toInteger(config.getOrDefault("defaultWeight", 1)))
+                .withPartitionSize(Util.toLong(config.getOrDefault("partitionSize", CsrGraphLoader.DEFAULT_PARTITION_SIZE)));
+        CsrGraph graph = loader.load(name);
+        GraphRegistry.put(graph);
+        log.info("Loaded graph projection %s with %d nodes and %d relationships in %d ms", name, graph.nodeCount(), graph.relationshipCount(), graph.getLoadMillis());
+        return Stream.of(new GraphInfo(graph));
+    }
+
+    @Procedure("apoc.algo.graph.list")
+    @Description("CALL apoc.algo.graph.list() YIELD name, nodes, relationships, bytes, loadMillis - lists the loaded graph projections")
+    public Stream<GraphInfo> list() {
+        return GraphRegistry.list().stream().sorted(Comparator.comparing(CsrGraph::getName)).map(GraphInfo::new);
+    }
+
+    @Procedure("apoc.algo.graph.remove")
+    @Description("CALL apoc.algo.graph.remove(name) YIELD name, nodes, relationships, bytes, loadMillis - removes the graph projection and frees its memory once it is no longer used")
+    public Stream<GraphInfo> remove(@Name("name") String name) {
+        CsrGraph graph = GraphRegistry.remove(name);
+        return graph == null ? Stream.empty() : Stream.of(new GraphInfo(graph));
+    }
+
+    public static class GraphInfo {
+        public String name;
+        public String label;
+        public String relationshipType;
+        public String direction;
+        public String weight;
+        public long nodes;
+        public long relationships;
+        public long bytes;
+        public long loadMillis;
+
+        public GraphInfo(CsrGraph graph) {
+            this.name = graph.getName();
+            this.label = graph.getLabel();
+            this.relationshipType = graph.getRelationshipType();
+            this.direction = graph.getDirection().name();
+            this.weight = graph.getWeightProperty();
+            this.nodes = graph.nodeCount();
+            this.relationships = graph.relationshipCount();
+            this.bytes = graph.bytes();
+            this.loadMillis = graph.getLoadMillis();
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package apoc.algo;
 
 import apoc.Pools;
+import apoc.algo.algorithms.AlgoUtils;
+import apoc.algo.community.ArrayLabelPropagation;
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.CsrGraphLoader;
+import apoc.algo.graph.GraphRegistry;
+import apoc.algo.graph.Partitions;
 import apoc.util.Util;
 import org.neo4j.graphdb.*;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static apoc.util.Util.parseDirection;
 
@@ -16,6 +24,8 @@ public class LabelPropagation {
     @Context
     public GraphDatabaseService db;
     @Context
+    public GraphDatabaseAPI api;
+    @Context
     public TerminationGuard guard;
 
     @Context
@@ -83,6 +93,57 @@ public class LabelPropagation {
         }
     }
 
+    @Procedure(name = "apoc.algo.labelPropagation", mode = Mode.WRITE)
+    @Description("CALL apoc.algo.labelPropagation({graph, label, relationshipType:'A|B', direction:'BOTH', weight, partitionProperty:'partition', iterations:20, mode:'sync', write:true, batchSize:10000, partitionSize}) YIELD nodes, iterations, converged, communities, loadMillis, computeMillis, writeMillis, property - label propagation in parallel over in-memory partitions, written once at the end")
+    public Stream<LabelPropagationResult> labelPropagation(@Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        String name = (String) config.get(AlgoUtils.SETTING_GRAPH);
+        String weightKey = (String) config.get(AlgoUtils.SETTING_WEIGHTED);
+        String property = (String) config.getOrDefault("partitionProperty", "partition");
+        long iterations = Util.toLong(config.getOrDefault("iterations", 20));
+        boolean async = "async".equalsIgnoreCase((String) config.getOrDefault("mode", "sync"));
+        boolean write = Util.toBoolean(config.getOrDefault(AlgoUtils.SETTING_WRITE, true));
+        long batchSize = Util.toLong(config.getOrDefault(AlgoUtils.SETTING_BATCH_SIZE, 10000));
+        long partitionSize = Util.toLong(config.getOrDefault("partitionSize", Partitions.DEFAULT_PARTITION_SIZE));
+
+        try (CsrGraph graph = GraphRegistry.acquire(name, () -> new CsrGraphLoader(api, Pools.forkJoinPool(Pools.ALGO), guard)
+                .withLabel((String) config.get("label"))
+                .withRelationshipType((String) config.get("relationshipType"))
+                .withDirection(parseDirection((String) config.getOrDefault("direction", "BOTH")))
+                .withWeight(weightKey, 1)
+                .withPartitionSize(partitionSize)
+                .load("labelPropagation"))) {
+            ArrayLabelPropagation algo = new ArrayLabelPropagation(graph, new Partitions(api, Pools.forkJoinPool(Pools.ALGO), guard, partitionSize), async);
+            algo.load(property, weightKey);
+            algo.compute((int) Math.min(Integer.MAX_VALUE, iterations));
+            LabelPropagationResult result = new LabelPropagationResult();
+            result.nodes = graph.nodeCount();
+            result.iterations = algo.iterations;
+            result.converged = algo.converged;
+            result.communities = algo.communities();
+            result.loadMillis = graph.getLoadMillis() + algo.loadMillis;
+            result.computeMillis = algo.computeMillis;
+            result.property = property;
+            if (write) {
+                long start = System.currentTimeMillis();
+                algo.write(new Partitions(api, Pools.forkJoinPool(Pools.ALGO), guard, batchSize), property);
+                result.writeMillis = System.currentTimeMillis() - start;
+            }
+            log.info("Label propagation of %d nodes took %d iterations in %d ms", result.nodes, result.iterations, result.computeMillis);
+            return Stream.of(result);
+        }
+    }
+
+    public static class LabelPropagationResult {
+        public long nodes;
+        public long iterations;
+        public boolean converged;
+        public long communities;
+        public long loadMillis;
+        public long computeMillis;
+        public long writeMillis;
+        public String property;
+    }
+
     private Future<Void> clusterBatch(List<Node> batch, String partitionKey, RelationshipType relationshipType, Direction direction, String weightKey) {
         return Pools.processBatch(batch, db, (node) -> {
             Map<Object, Double> votes = new HashMap<>();
@@ -5,6 +5,8 @@ import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.procedure.*;
 import apoc.Pools;
 import apoc.algo.algorithms.AlgoUtils;
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.GraphRegistry;
 import apoc.algo.pagerank.PageRankArrayStorageParallelCypher;
 import apoc.algo.pagerank.PageRankArrayStorageParallelSPI;
 import apoc.result.NodeScore;
@@ -16,7 +18,8 @@ import org.neo4j.logging.Log;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static apoc.algo.algorithms.AlgoUtils.*;
@@ -26,7 +29,6 @@ public class PageRank {
     private static final String SETTING_PAGE_RANK_ITERATIONS = "iterations";
     private static final String SETTING_PAGE_RANK_TYPES = "types";
 
-    static final ExecutorService pool = Pools.DEFAULT;
     static final Long DEFAULT_PAGE_RANK_ITERATIONS = 20L;
 
     @Context
@@ -55,11 +57,17 @@ public class PageRank {
     @Deprecated
     @Procedure("apoc.algo.pageRankWithConfig")
     @Description(
-            "CALL apoc.algo.pageRankWithConfig(nodes,{iterations:_,types:_}) YIELD node, score, info - calculates page rank" +
-                    " for given nodes")
+            "CALL apoc.algo.pageRankWithConfig(nodes,{iterations:_,types:_,graph:_}) YIELD node, score, info - calculates page rank" +
+                    " for given nodes, on the graph projection loaded with apoc.algo.graph.load if graph is given")
     public Stream<NodeScore> pageRankWithConfig(
             @Name("nodes") List<Node> nodes,
             @Name("config") Map<String, Object> config) {
+            String graphName = (String) config.get(SETTING_GRAPH);
+            if (graphName != null) {
+                Long iterations = (Long) config.getOrDefault(SETTING_PAGE_RANK_ITERATIONS, DEFAULT_PAGE_RANK_ITERATIONS);
+                return pageRankOnGraph(iterations.intValue(), graphName, null,
+                        pageRank -> nodes.stream().map(node -> new NodeScore(node, pageRank.getResult(node.getId()))).collect(Collectors.toList())).stream();
+            }
             return innerPageRank(
                     (Long) config.getOrDefault(SETTING_PAGE_RANK_ITERATIONS, DEFAULT_PAGE_RANK_ITERATIONS),
                     nodes,
@@ -68,17 +76,22 @@ public class PageRank {
     @Deprecated
     @Procedure(value = "apoc.algo.pageRankStats",mode = Mode.WRITE)
     @Description(
-            "CALL apoc.algo.pageRankStats({iterations:_,types:_,write:true,...}) YIELD nodeCount - calculates page rank on graph " +
-                    " for given nodes and potentially writes back")
+            "CALL apoc.algo.pageRankStats({iterations:_,types:_,write:true,graph:_,...}) YIELD nodeCount - calculates page rank on graph " +
+                    " for given nodes and potentially writes back, on the graph projection loaded with apoc.algo.graph.load if graph is given")
     public Stream<PageRankStatistics> pageRankStats(@Name("config") Map<String, Object> config) {
         Long iterations = (Long) config.getOrDefault(SETTING_PAGE_RANK_ITERATIONS, DEFAULT_PAGE_RANK_ITERATIONS);
+        String graphName = (String) config.get(SETTING_GRAPH);
+        if (graphName != null) {
+            boolean write = (boolean) config.getOrDefault(SETTING_WRITE, DEFAULT_PAGE_RANK_WRITE);
+            return Stream.of(pageRankOnGraph(iterations.intValue(), graphName, write ? "pagerank" : null, PageRankArrayStorageParallelCypher::getStatistics));
+        }
         RelationshipType[] types = Util.typesAndDirectionsToTypesArray((String) config.getOrDefault(SETTING_PAGE_RANK_TYPES, ""));
         return innerPageRankStats(iterations.intValue(), config, types);
     }
 
     @Deprecated
     @Procedure(value = "apoc.algo.pageRankWithCypher",mode = Mode.WRITE)
-    @Description("CALL apoc.algo.pageRankWithCypher({iterations,node_cypher,rel_cypher,write,property,numCpu}) - calculates page rank based on cypher input")
+    @Description("CALL apoc.algo.pageRankWithCypher({iterations,node_cypher,rel_cypher,write,property,numCpu,graph}) - calculates page rank based on cypher input or on the graph projection loaded with apoc.algo.graph.load")
     public Stream<PageRankStatistics> pageRankWithCypher(
             @Name("config") Map<String, Object> config) {
         Long iterations = (Long) config.getOrDefault(SETTING_PAGE_RANK_ITERATIONS, DEFAULT_PAGE_RANK_ITERATIONS);
@@ -90,38 +103,65 @@ public class PageRank {
         int concurrency = ((Number) config.getOrDefault("concurrency",Pools.getNoThreadsInDefaultPool())).intValue();
         String property = (String) config.getOrDefault("property","pagerank");
 
+        String graphName = (String) config.get(SETTING_GRAPH);
+
         long beforeReading = System.currentTimeMillis();
-        log.info("Pagerank: Reading data into local ds");
-        PageRankArrayStorageParallelCypher pageRank = new PageRankArrayStorageParallelCypher(db, guard, pool, log);
-        boolean success = pageRank.readNodeAndRelCypherData(
-                relCypher, nodeCypher,weight, batchSize, concurrency);
-        if (!success) {
-            String errorMsg = "Failure while reading cypher queries. Make sure the results are ordered.";
-            log.info(errorMsg);
-            throw new RuntimeException(errorMsg);
-        }
-        long afterReading = System.currentTimeMillis();
+        PageRankArrayStorageParallelCypher pageRank = new PageRankArrayStorageParallelCypher(db, guard, Pools.forkJoinPool(Pools.ALGO), log);
+        try (CsrGraph graph = graphName == null ? null : GraphRegistry.acquire(graphName)) {
+            if (graph != null) {
+                log.info("Pagerank: Using graph projection " + graphName);
+                pageRank.useGraph(graph);
+            } else {
+                log.info("Pagerank: Reading data into local ds");
+                boolean success = pageRank.readNodeAndRelCypherData(
+                        relCypher, nodeCypher, weight, batchSize, concurrency);
+                if (!success) {
+                    String errorMsg = "Failure while reading cypher queries. Make sure the results are ordered.";
+                    log.info(errorMsg);
+                    throw new RuntimeException(errorMsg);
+                }
+            }
+            long afterReading = System.currentTimeMillis();
 
-        log.info("Pagerank: Graph stored in local ds in " + (afterReading - beforeReading) + " milliseconds");
-        log.info("Pagerank: Number of nodes: " + pageRank.numberOfNodes());
-        log.info("Pagerank: Number of relationships: " + pageRank.numberOfRels());
+            log.info("Pagerank: Graph stored in local ds in " + (afterReading - beforeReading) + " milliseconds");
+            log.info("Pagerank: Number of nodes: " + pageRank.numberOfNodes());
+            log.info("Pagerank: Number of relationships: " + pageRank.numberOfRels());
 
-        pageRank.compute(iterations.intValue());
+            pageRank.compute(iterations.intValue());
 
-        long afterComputation = System.currentTimeMillis();
-        log.info("Pagerank: Computations took " + (afterComputation - afterReading) + " milliseconds");
+            long afterComputation = System.currentTimeMillis();
+            log.info("Pagerank: Computations took " + (afterComputation - afterReading) + " milliseconds");
 
-        if (shouldWrite) {
-            pageRank.writeResultsToDB(property);
-            long afterWrite = System.currentTimeMillis();
-            log.info("Pagerank: Writeback took " + (afterWrite - afterComputation) + " milliseconds");
+            if (shouldWrite) {
+                pageRank.writeResultsToDB(property);
+                long afterWrite = System.currentTimeMillis();
+                log.info("Pagerank: Writeback took " + (afterWrite - afterComputation) + " milliseconds");
+            }
         }
         return Stream.of(pageRank.getStatistics());
     }
 
+    /**
+     * computes the page rank on the projection instead of scanning the store, the types of the projection replace the types config
+     * @param property to write the results to or null
+     * @param results reads the results while the projection is still acquired, as the node id mapping is released with it
+     */
+    private <T> T pageRankOnGraph(int iterations, String graphName, String property, Function<PageRankArrayStorageParallelCypher, T> results) {
+        PageRankArrayStorageParallelCypher pageRank = new PageRankArrayStorageParallelCypher(db, guard, Pools.forkJoinPool(Pools.ALGO), log);
+        try (CsrGraph graph = GraphRegistry.acquire(graphName)) {
+            log.info("Pagerank: Using graph projection " + graphName);
+            pageRank.useGraph(graph);
+            pageRank.compute(iterations);
+            if (property != null) {
+                pageRank.writeResultsToDB(property);
+            }
+            return results.apply(pageRank);
+        }
+    }
+
     private Stream<NodeScore> innerPageRank(Long iterations, List<Node> nodes, RelationshipType... types) {
         try {
-            PageRankArrayStorageParallelSPI pageRank = new PageRankArrayStorageParallelSPI(db, ktx, guard, pool);
+            PageRankArrayStorageParallelSPI pageRank = new PageRankArrayStorageParallelSPI(db, ktx, guard, Pools.forkJoinPool(Pools.ALGO));
             pageRank.compute(iterations.intValue(), types);
             return nodes.stream().map(node -> new NodeScore(node, pageRank.getResult(node.getId())));
         } catch (Exception e) {
@@ -132,7 +172,7 @@ public class PageRank {
     }
     private Stream<PageRankStatistics> innerPageRankStats(int iterations, Map<String,Object> config, RelationshipType... types) {
         try {
-            PageRankArrayStorageParallelSPI pageRank = new PageRankArrayStorageParallelSPI(db, ktx, guard, pool);
+            PageRankArrayStorageParallelSPI pageRank = new PageRankArrayStorageParallelSPI(db, ktx, guard, Pools.forkJoinPool(Pools.ALGO));
             pageRank.compute(iterations, types);
             if ((boolean)config.getOrDefault(SETTING_WRITE, DEFAULT_PAGE_RANK_WRITE)) {
                 pageRank.writeResultsToDB();
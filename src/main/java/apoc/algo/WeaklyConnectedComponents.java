@@ -1,18 +1,20 @@
 package apoc.algo;
 
-import apoc.algo.wcc.CCVar;
+import apoc.Pools;
+import apoc.algo.algorithms.AlgoUtils;
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.GraphRegistry;
+import apoc.algo.graph.Partitions;
+import apoc.algo.wcc.Components;
 import apoc.result.CCResult;
-import org.neo4j.collection.primitive.Primitive;
-import org.neo4j.collection.primitive.PrimitiveLongIterator;
-import org.neo4j.collection.primitive.PrimitiveLongSet;
-import org.neo4j.graphdb.*;
+import apoc.util.Util;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
-import org.neo4j.procedure.Context;
-import org.neo4j.procedure.Description;
-import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class WeaklyConnectedComponents {
@@ -23,72 +25,126 @@ public class WeaklyConnectedComponents {
 	@Context
 	public Log log;
 
+	@Context
+	public GraphDatabaseAPI api;
+
+	@Context
+	public TerminationGuard guard;
+
 	@Deprecated
 	@Procedure("apoc.algo.wcc")
 	@Description("CALL apoc.algo.wcc() YIELD number of weakly connected components")
 	public Stream<CCResult> wcc() {
-		List<List<CCVar>> results = new LinkedList<List<CCVar>>();
-		ResourceIterator<Node> nodes = db.getAllNodes().iterator();
-		PrimitiveLongSet allNodes = Primitive.longSet(0);
-		while (nodes.hasNext()) {
-			Node node = nodes.next();
-			if (node.getDegree() == 0) {
-				List<CCVar> result = new LinkedList<CCVar>();
-                result.add(new CCVar(node.getId()+"",node.getLabels().iterator().next().name()));
-                results.add(result);
-			} else {
-				allNodes.add(node.getId());
+		Components components = Components.scan(api, partitions(Collections.emptyMap()), null, null);
+		Map<Long, List<Long>> nodesByComponent = new LinkedHashMap<>();
+		components.elements().forEach(element ->
+				nodesByComponent.computeIfAbsent(components.componentId(element), k -> new ArrayList<>()).add(components.nodeId(element)));
+		return nodesByComponent.values().stream().map(nodeIds -> new CCResult(nodeIds, labelCounts(nodeIds)));
+	}
+
+	private Map<String, Long> labelCounts(List<Long> nodeIds) {
+		Map<String, Long> counts = new HashMap<>();
+		for (Long id : nodeIds) {
+			Iterator<Label> labels = db.getNodeById(id).getLabels().iterator();
+			if (labels.hasNext()) counts.merge(labels.next().name(), 1L, Long::sum);
+		}
+		return counts;
+	}
+
+	@Procedure("apoc.algo.wcc.stream")
+	@Description("CALL apoc.algo.wcc.stream({graph, label, relationshipType:'A|B', partitionSize}) YIELD nodeId, componentId - computes the weakly connected components in parallel and streams the component of each node")
+	public Stream<ComponentResult> stream(@Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+		CsrGraph graph = graph(config);
+		try {
+			Components components = components(config, graph);
+			return components.elements().mapToObj(element -> new ComponentResult(components.nodeId(element), components.componentId(element)))
+					.onClose(() -> { if (graph != null) graph.close(); });
+		} catch (RuntimeException e) {
+			if (graph != null) graph.close();
+			throw e;
+		}
+	}
+
+	@Procedure("apoc.algo.wcc.sizes")
+	@Description("CALL apoc.algo.wcc.sizes({graph, label, relationshipType:'A|B', partitionSize}) YIELD componentId, size - computes the weakly connected components in parallel and streams their sizes")
+	public Stream<ComponentSize> sizes(@Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+		try (CsrGraph graph = graph(config)) {
+			Components components = components(config, graph);
+			int[] sizes = components.sizes();
+			List<ComponentSize> result = new ArrayList<>();
+			for (int root = 0; root < sizes.length; root++) {
+				if (sizes[root] > 0) result.add(new ComponentSize(components.nodeId(root), sizes[root]));
 			}
+			return result.stream();
 		}
-		nodes.close();
-
-		PrimitiveLongIterator it = allNodes.iterator();
-		while (it.hasNext()) {
-			try {
-				long n = it.next();
-				List<CCVar> result = new LinkedList<CCVar>();
-				PrimitiveLongIterator reachableIDs = go(db.getNodeById(n), Direction.BOTH,result).iterator();
-				while (reachableIDs.hasNext()) {
-					long id = (long) reachableIDs.next();
-					allNodes.remove(id);
-				}
-				results.add(result);
-
-			} catch (NoSuchElementException e) {
-				break;
+	}
+
+	@Procedure(value = "apoc.algo.wcc.write", mode = Mode.WRITE)
+	@Description("CALL apoc.algo.wcc.write({graph, label, relationshipType:'A|B', partitionSize, writeProperty:'component', batchSize:10000}) YIELD nodes, components, largestComponent, computeMillis, writeMillis, property - computes the weakly connected components in parallel and writes the component id to each node in batches")
+	public Stream<WriteResult> write(@Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+		String property = (String) config.getOrDefault("writeProperty", "component");
+		long batchSize = Util.toLong(config.getOrDefault("batchSize", 10000));
+		try (CsrGraph graph = graph(config)) {
+			Components components = components(config, graph);
+			WriteResult result = new WriteResult();
+			result.property = property;
+			result.computeMillis = components.computeMillis;
+			for (int size : components.sizes()) {
+				if (size == 0) continue;
+				result.nodes += size;
+				result.components++;
+				result.largestComponent = Math.max(result.largestComponent, size);
 			}
-			it = allNodes.iterator();
+			long start = System.currentTimeMillis();
+			components.write(new Partitions(api, Pools.forkJoinPool(Pools.ALGO), guard, batchSize), property);
+			result.writeMillis = System.currentTimeMillis() - start;
+			return Stream.of(result);
 		}
-		allNodes.close();
-		return results.stream().map((x) ->new CCResult( x.stream().map((z) -> new Long(z.getId())).collect(Collectors.toList()), x.stream().collect(Collectors.groupingBy(CCVar::getType)).entrySet().stream().collect(Collectors.toMap(
-                e -> e.getKey(),
-                e -> e.getValue().size()))
-            ));
 	}
 
-	private PrimitiveLongSet go(Node node, Direction direction, List<CCVar> result) {
+	private CsrGraph graph(Map<String, Object> config) {
+		String name = (String) config.get(AlgoUtils.SETTING_GRAPH);
+		return name == null ? null : GraphRegistry.acquire(name);
+	}
 
-		PrimitiveLongSet visitedIDs = Primitive.longSet(0);
-		Stack<Node> frontierList = new Stack<Node>();
+	private Partitions partitions(Map<String, Object> config) {
+		long partitionSize = Util.toLong(config.getOrDefault("partitionSize", Partitions.DEFAULT_PARTITION_SIZE));
+		return new Partitions(api, Pools.forkJoinPool(Pools.ALGO), guard, partitionSize);
+	}
 
-		frontierList.push(node);
-		visitedIDs.add(node.getId());
-		result.add(new CCVar(node.getId()+"",node.getLabels().iterator().next().name()));
+	private Components components(Map<String, Object> config, CsrGraph graph) {
+		Components components = graph != null ? Components.fromGraph(graph, partitions(config))
+				: Components.scan(api, partitions(config), (String) config.get("label"), (String) config.get("relationshipType"));
+		log.info("Computed weakly connected components in %d ms", components.computeMillis);
+		return components;
+	}
 
+	public static class ComponentResult {
+		public final long nodeId;
+		public final long componentId;
 
-		while (!frontierList.isEmpty()) {
-			node = frontierList.pop();
-			Iterator<Relationship> itR = node.getRelationships(direction).iterator();
-			while (itR.hasNext()) {
-				Node child = itR.next().getOtherNode(node);
-				if (visitedIDs.contains(child.getId())) {
-					continue;
-				}
-				visitedIDs.add(child.getId());
-				frontierList.push(child);
-				result.add(new CCVar(child.getId()+"",child.getLabels().iterator().next().name()));
-			}
+		public ComponentResult(long nodeId, long componentId) {
+			this.nodeId = nodeId;
+			this.componentId = componentId;
 		}
-		return visitedIDs;
+	}
+
+	public static class ComponentSize {
+		public final long componentId;
+		public final long size;
+
+		public ComponentSize(long componentId, long size) {
+			this.componentId = componentId;
+			this.size = size;
+		}
+	}
+
+	public static class WriteResult {
+		public long nodes;
+		public long components;
+		public long largestComponent;
+		public long computeMillis;
+		public long writeMillis;
+		public String property;
 	}
 }
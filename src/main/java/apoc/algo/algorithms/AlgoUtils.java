@@ -25,6 +25,7 @@ public class AlgoUtils {
     public static final String SETTING_WRITE = "write";
     public static final String SETTING_WEIGHTED = "weight";
     public static final String SETTING_BATCH_SIZE = "batchSize";
+    public static final String SETTING_GRAPH = "graph";
 
     public static final String DEFAULT_CYPHER_REL =
             "MATCH (s)-[r]->(t) RETURN id(s) as source, id(t) as target, 1 as weight";
@@ -1,6 +1,9 @@
 package apoc.algo.algorithms;
 
 import apoc.Pools;
+import apoc.algo.graph.ArrayTopology;
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.Topology;
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
@@ -15,11 +18,12 @@ public class BetweennessCentrality implements AlgorithmInterface {
     public static final int WRITE_BATCH=100_000;
     public final int MINIMUM_BATCH_SIZE =10_000 ;
     private Algorithm algorithm;
+    private CsrGraph graph;
     private Log log;
     GraphDatabaseAPI db;
     ExecutorService pool;
     private int nodeCount;
-    private int relCount;
+    private long relCount;
     private Statistics stats = new Statistics();
 
     private PrimitiveIntObjectMap intermediateBcPerThread;
@@ -40,8 +44,8 @@ public class BetweennessCentrality implements AlgorithmInterface {
     @Override
     public double getResult(long node) {
         float val = -1;
-        int logicalIndex = algorithm.getAlgoNodeId((int)node);
-        if (logicalIndex >= 0 && betweennessCentrality.length >= logicalIndex) {
+        int logicalIndex = graph != null ? graph.toDenseId(node) : algorithm.getAlgoNodeId((int)node);
+        if (logicalIndex >= 0 && betweennessCentrality.length > logicalIndex) {
             val = betweennessCentrality[logicalIndex];
         }
         return val;
@@ -59,7 +63,22 @@ public class BetweennessCentrality implements AlgorithmInterface {
 
     @Override
     public long getMappedNode(int algoId) {
-        return algorithm.getMappedNode(algoId);
+        return graph != null ? graph.toNodeId(algoId) : algorithm.getMappedNode(algoId);
+    }
+
+    /**
+     * use the loaded graph projection instead of reading the graph with cypher
+     */
+    public void useGraph(CsrGraph graph) {
+        this.graph = graph;
+        this.nodeCount = graph.nodeCount();
+        this.relCount = graph.relationshipCount();
+        stats.nodes = nodeCount;
+        stats.relationships = relCount;
+    }
+
+    private Topology topology() {
+        return graph != null ? graph : new ArrayTopology(nodeCount, algorithm.sourceDegreeData, algorithm.sourceChunkStartingIndex, algorithm.relationshipTarget, null);
     }
 
     public boolean readNodeAndRelCypherData(String relCypher, String nodeCypher, Number weight, Number batchSize, int concurrency) {
@@ -82,18 +101,16 @@ public class BetweennessCentrality implements AlgorithmInterface {
     }
 
     public void computeUnweightedSeq() {
-        computeUnweightedSeq(algorithm.sourceDegreeData,
-                algorithm.sourceChunkStartingIndex,
-                algorithm.relationshipTarget);
+        computeUnweightedSeq(topology());
     }
 
-    private void computeUnweightedSeq(int[] sourceDegreeData, int[] sourceChunkStartingIndex, int[] relationshipTarget) {
+    private void computeUnweightedSeq(Topology topology) {
         betweennessCentrality = new float[nodeCount];
         Arrays.fill(betweennessCentrality, 0);
         long before = System.currentTimeMillis();
         int start = 0;
         int end = nodeCount;
-        processNodesInBatch(-1, start, end, sourceDegreeData, sourceChunkStartingIndex, relationshipTarget);
+        processNodesInBatch(-1, start, end, topology);
         long after = System.currentTimeMillis();
         long difference = after - before;
         log.info("Computations took " + difference + " milliseconds");
@@ -101,14 +118,16 @@ public class BetweennessCentrality implements AlgorithmInterface {
     }
 
     public void computeUnweightedParallel() {
-        computeUnweightedParallel(algorithm.sourceDegreeData,
-                algorithm.sourceChunkStartingIndex,
-                algorithm.relationshipTarget);
+        computeUnweightedParallel(topology());
     }
 
     public void computeUnweightedParallel(int [] sourceDegreeData,
                                   int [] sourceChunkStartingIndex,
                                   int [] relationshipTarget) {
+        computeUnweightedParallel(new ArrayTopology(nodeCount, sourceDegreeData, sourceChunkStartingIndex, relationshipTarget, null));
+    }
+
+    public void computeUnweightedParallel(Topology topology) {
         betweennessCentrality = new float[nodeCount];
         Arrays.fill(betweennessCentrality, 0);
         long before = System.currentTimeMillis();
@@ -137,7 +156,7 @@ public class BetweennessCentrality implements AlgorithmInterface {
             Future future = pool.submit(new Runnable() {
                 @Override
                 public void run() {
-                    processNodesInBatch(threadBatchNo, start, end, sourceDegreeData, sourceChunkStartingIndex, relationshipTarget);
+                    processNodesInBatch(threadBatchNo, start, end, topology);
                 }
             });
             nodeIter = end;
@@ -171,9 +190,7 @@ public class BetweennessCentrality implements AlgorithmInterface {
     private void processNodesInBatch(int threadBatchNo,
                                      int start,
                                      int end,
-                                     int [] sourceDegreeData,
-                                     int [] sourceChunkStartingIndex,
-                                     int [] relationshipTarget) {
+                                     Topology topology) {
         Stack<Integer> stack = new Stack<>(); // S
         Queue<Integer> queue = new LinkedList<>();
 
@@ -191,7 +208,7 @@ public class BetweennessCentrality implements AlgorithmInterface {
         for (int source = start; source < end; source++) {
 
             processedNode++;
-            if (sourceDegreeData[source] == 0) {
+            if (topology.degree(source) == 0) {
                 continue;
             }
 
@@ -209,11 +226,12 @@ public class BetweennessCentrality implements AlgorithmInterface {
                 stack.push(nodeDequeued);
 
                 // For each neighbour of dequeued.
-                int chunkIndex = sourceChunkStartingIndex[nodeDequeued];
-                int degree = sourceDegreeData[nodeDequeued];
+                long chunkIndex = topology.offset(nodeDequeued);
+                int degree = topology.degree(nodeDequeued);
 
                 for (int j = 0; j < degree; j++) {
-                    int target = relationshipTarget[chunkIndex + j];
+                    int target = topology.target(chunkIndex + j);
+                    if (target < 0) continue;
 
                     if (distance[target] < 0) {
                         queue.add(target);
@@ -0,0 +1,172 @@
+package apoc.algo.community;
+
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.Partitions;
+import apoc.algo.graph.PropertyWriter;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Label propagation over a graph projection that keeps the partition of each node in a long[] indexed by dense node id.
+ *
+ * Each node takes the partition with the highest vote of its neighbours, a vote is the relationship weight times
+ * the weight of the neighbour. Ties keep the current partition or else take the smallest one.
+ * Synchronous updates compute the next partitions from the previous ones and are deterministic,
+ * asynchronous updates change the partitions in place, which converges faster but depends on the scheduling.
+ * Both process chunks of nodes in parallel and stop as soon as no partition changes.
+ */
+public class ArrayLabelPropagation {
+    private final CsrGraph graph;
+    private final Partitions chunks;
+    private final boolean async;
+
+    private long[] partitions;
+    private double[] nodeWeights;
+
+    public int iterations;
+    public boolean converged;
+    public long loadMillis, computeMillis;
+
+    public ArrayLabelPropagation(CsrGraph graph, Partitions chunks, boolean async) {
+        this.graph = graph;
+        this.chunks = chunks;
+        this.async = async;
+    }
+
+    /**
+     * reads the initial partition (a numeric property, the node id otherwise) and the node weight of each node
+     */
+    public void load(String partitionKey, String weightKey) {
+        long start = System.currentTimeMillis();
+        int nodeCount = graph.nodeCount();
+        partitions = new long[nodeCount];
+        nodeWeights = weightKey == null ? null : new double[nodeCount];
+        chunks.run(nodeCount, (chunk, from, to) -> chunks.inTx(ktx -> {
+            TokenRead tokens = ktx.tokenRead();
+            int partitionId = tokens.propertyKey(partitionKey);
+            int weightId = weightKey == null ? TokenRead.NO_TOKEN : tokens.propertyKey(weightKey);
+            try (NodeCursor node = ktx.cursors().allocateNodeCursor(); PropertyCursor properties = ktx.cursors().allocatePropertyCursor()) {
+                for (int i = (int) from; i < to; i++) {
+                    long nodeId = graph.toNodeId(i);
+                    partitions[i] = nodeId;
+                    if (nodeWeights != null) nodeWeights[i] = 1.0d;
+                    ktx.dataRead().singleNode(nodeId, node);
+                    if (!node.next()) continue;
+                    node.properties(properties);
+                    while (properties.next()) {
+                        int key = properties.propertyKey();
+                        if (key == TokenRead.NO_TOKEN || (key != partitionId && key != weightId)) continue;
+                        Object value = properties.propertyValue().asObject();
+                        if (!(value instanceof Number)) continue;
+                        if (key == partitionId) partitions[i] = ((Number) value).longValue();
+                        else nodeWeights[i] = ((Number) value).doubleValue();
+                    }
+                }
+            }
+        }));
+        loadMillis = System.currentTimeMillis() - start;
+    }
+
+    public void compute(int maxIterations) {
+        long start = System.currentTimeMillis();
+        long[] next = async ? partitions : new long[partitions.length];
+        ThreadLocal<Votes> votes = ThreadLocal.withInitial(Votes::new);
+        for (iterations = 0; iterations < maxIterations && !converged; iterations++) {
+            long[] current = partitions, target = next;
+            AtomicLong changes = new AtomicLong();
+            chunks.run(current.length, (chunk, from, to) -> {
+                Votes nodeVotes = votes.get();
+                long changed = 0;
+                for (int node = (int) from; node < to; node++) {
+                    long partition = nodeVotes.best(node, current);
+                    if (partition != current[node]) changed++;
+                    target[node] = partition;
+                }
+                changes.addAndGet(changed);
+            });
+            converged = changes.get() == 0;
+            if (!async) {
+                next = partitions;
+                partitions = target;
+            }
+        }
+        computeMillis = System.currentTimeMillis() - start;
+    }
+
+    public long communities() {
+        return Arrays.stream(partitions).distinct().count();
+    }
+
+    public void write(Partitions batches, String property) {
+        new PropertyWriter(batches).write(property, partitions.length, node -> true, graph::toNodeId, node -> partitions[node]);
+    }
+
+    /**
+     * per thread open addressing table of the votes for the partitions of the neighbours of one node
+     */
+    private class Votes {
+        private long[] keys = new long[64];
+        private double[] weights = new double[64];
+        private boolean[] used = new boolean[64];
+        private int[] slots = new int[64];
+        private int size;
+
+        long best(int node, long[] current) {
+            long offset = graph.offset(node);
+            int degree = graph.degree(node);
+            clear(degree);
+            for (int i = 0; i < degree; i++) {
+                int other = graph.target(offset + i);
+                if (other < 0) continue;
+                double weight = graph.weight(offset + i) * (nodeWeights == null ? 1.0d : nodeWeights[other]);
+                vote(current[other], weight);
+            }
+            long own = current[node];
+            long best = own;
+            double bestWeight = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                int slot = slots[i];
+                long partition = keys[slot];
+                double weight = weights[slot];
+                if (weight > bestWeight || (weight == bestWeight && best != own && (partition == own || partition < best))) {
+                    best = partition;
+                    bestWeight = weight;
+                }
+            }
+            return best;
+        }
+
+        private void clear(int degree) {
+            for (int i = 0; i < size; i++) {
+                used[slots[i]] = false;
+            }
+            size = 0;
+            int capacity = Integer.highestOneBit(Math.max(32, degree) * 2 - 1) << 1;
+            if (capacity > keys.length) {
+                keys = new long[capacity];
+                weights = new double[capacity];
+                used = new boolean[capacity];
+                slots = new int[capacity];
+            }
+        }
+
+        private void vote(long partition, double weight) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(partition * 0x9E3779B97F4A7C15L) & mask;
+            while (used[slot] && keys[slot] != partition) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = partition;
+                weights[slot] = 0;
+                slots[size++] = slot;
+            }
+            weights[slot] += weight;
+        }
+    }
+}
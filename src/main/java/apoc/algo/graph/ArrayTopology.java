@@ -0,0 +1,55 @@
+package apoc.algo.graph;
+
+/**
+ * Topology over the int arrays loaded by {@link apoc.algo.algorithms.Algorithm} from cypher statements
+ */
+public class ArrayTopology implements Topology {
+    private final int nodeCount;
+    private final int[] degrees;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    public ArrayTopology(int nodeCount, int[] degrees, int[] offsets, int[] targets, int[] weights) {
+        this.nodeCount = nodeCount;
+        this.degrees = degrees;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public long relationshipCount() {
+        return targets.length;
+    }
+
+    @Override
+    public int degree(int node) {
+        return degrees[node];
+    }
+
+    @Override
+    public long offset(int node) {
+        return offsets[node];
+    }
+
+    @Override
+    public int target(long index) {
+        return targets[(int) index];
+    }
+
+    @Override
+    public int weight(long index) {
+        return weights == null ? 1 : weights[(int) index];
+    }
+
+    @Override
+    public boolean isWeighted() {
+        return weights != null;
+    }
+}
@@ -0,0 +1,152 @@
+package apoc.algo.graph;
+
+import org.neo4j.graphdb.Direction;
+
+/**
+ * Named, read-only projection of the graph in compressed sparse row format, stored off-heap.
+ *
+ * Nodes get dense ids in the order of their node ids, so the node ids of the projection are sorted.
+ * The reverse mapping is a dense array over the node-id space that was loaded, nodes created later
+ * are not part of the projection.
+ * Users {@link GraphRegistry#acquire(String) acquire} the projection and close it when done, the memory is
+ * only freed after the projection was removed and the last user closed it.
+ */
+public class CsrGraph implements Topology, AutoCloseable {
+    private final String name;
+    private final String label;
+    private final String relationshipType;
+    private final Direction direction;
+    private final String weightProperty;
+
+    private final int nodeCount;
+    private final long relationshipCount;
+    // dense id -> node id
+    private final OffHeapLongArray nodeIds;
+    // node id -> dense id or -1
+    private final OffHeapIntArray denseIds;
+    // dense id -> start index of its relationships, nodeCount + 1 entries
+    private final OffHeapLongArray offsets;
+    private final OffHeapIntArray targets;
+    private final OffHeapIntArray weights;
+    private final long loadMillis;
+
+    private int users;
+    private boolean removed;
+
+    CsrGraph(String name, String label, String relationshipType, Direction direction, String weightProperty,
+             int nodeCount, long relationshipCount, OffHeapLongArray nodeIds, OffHeapIntArray denseIds,
+             OffHeapLongArray offsets, OffHeapIntArray targets, OffHeapIntArray weights, long loadMillis) {
+        this.name = name;
+        this.label = label;
+        this.relationshipType = relationshipType;
+        this.direction = direction;
+        this.weightProperty = weightProperty;
+        this.nodeCount = nodeCount;
+        this.relationshipCount = relationshipCount;
+        this.nodeIds = nodeIds;
+        this.denseIds = denseIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.loadMillis = loadMillis;
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public long relationshipCount() {
+        return relationshipCount;
+    }
+
+    @Override
+    public int degree(int node) {
+        return (int) (offsets.get(node + 1) - offsets.get(node));
+    }
+
+    @Override
+    public long offset(int node) {
+        return offsets.get(node);
+    }
+
+    @Override
+    public int target(long index) {
+        return targets.get(index);
+    }
+
+    @Override
+    public int weight(long index) {
+        return weights == null ? 1 : weights.get(index);
+    }
+
+    @Override
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    public long toNodeId(int denseId) {
+        return nodeIds.get(denseId);
+    }
+
+    /**
+     * @return the dense id of the node or -1 if the node is not part of the projection
+     */
+    public int toDenseId(long nodeId) {
+        return nodeId >= 0 && nodeId < denseIds.size() ? denseIds.get(nodeId) : -1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getRelationshipType() {
+        return relationshipType;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public String getWeightProperty() {
+        return weightProperty;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    public long bytes() {
+        return nodeIds.bytes() + denseIds.bytes() + offsets.bytes() + targets.bytes() + (weights == null ? 0 : weights.bytes());
+    }
+
+    synchronized CsrGraph retain() {
+        if (removed) throw new IllegalStateException("Graph projection " + name + " was removed");
+        users++;
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        users--;
+        if (removed && users == 0) release();
+    }
+
+    synchronized void remove() {
+        removed = true;
+        if (users == 0) release();
+    }
+
+    private void release() {
+        nodeIds.release();
+        denseIds.release();
+        offsets.release();
+        targets.release();
+        if (weights != null) weights.release();
+    }
+}
@@ -0,0 +1,307 @@
+package apoc.algo.graph;
+
+import apoc.stats.DegreeUtil;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.helpers.RelationshipSelectionCursor;
+import org.neo4j.internal.kernel.api.helpers.RelationshipSelections;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.NODES;
+import static org.neo4j.internal.kernel.api.Read.ANY_RELATIONSHIP_TYPE;
+
+/**
+ * Loads a {@link CsrGraph} with kernel cursors in three passes over disjoint node-id ranges, each range in its own transaction.
+ * <ol>
+ *     <li>degree of each node of the projection (or -1) into the node-id indexed array, node and relationship counts per range</li>
+ *     <li>prefix sums of the counts give each range its dense ids and offsets, the degrees are turned into dense ids</li>
+ *     <li>relationship targets (and weights) are written into the slots of their source node</li>
+ * </ol>
+ * Relationships to nodes outside of the projection are skipped. Slots that are not filled because the graph changed
+ * between the passes are compacted out afterwards, so the degrees and offsets only count loaded relationships.
+ */
+public class CsrGraphLoader {
+    public static final long DEFAULT_PARTITION_SIZE = Partitions.DEFAULT_PARTITION_SIZE;
+
+    private final GraphDatabaseAPI db;
+    private final ExecutorService pool;
+    private final TerminationGuard guard;
+
+    private String label;
+    private String relationshipType;
+    private Direction direction = Direction.OUTGOING;
+    private String weightProperty;
+    private int defaultWeight = 1;
+    private long partitionSize = DEFAULT_PARTITION_SIZE;
+
+    public CsrGraphLoader(GraphDatabaseAPI db, ExecutorService pool, TerminationGuard guard) {
+        this.db = db;
+        this.pool = pool;
+        this.guard = guard;
+    }
+
+    public CsrGraphLoader withLabel(String label) {
+        this.label = label == null || label.isEmpty() ? null : label;
+        return this;
+    }
+
+    /**
+     * @param relationshipType one or more types separated by `|`, null for all types
+     */
+    public CsrGraphLoader withRelationshipType(String relationshipType) {
+        this.relationshipType = relationshipType == null || relationshipType.isEmpty() ? null : relationshipType;
+        return this;
+    }
+
+    public CsrGraphLoader withDirection(Direction direction) {
+        this.direction = direction;
+        return this;
+    }
+
+    /**
+     * @param weightProperty relationship property with integer weights, other numbers fail the load
+     */
+    public CsrGraphLoader withWeight(String weightProperty, int defaultWeight) {
+        this.weightProperty = weightProperty == null || weightProperty.isEmpty() ? null : weightProperty;
+        this.defaultWeight = defaultWeight;
+        return this;
+    }
+
+    public CsrGraphLoader withPartitionSize(long partitionSize) {
+        this.partitionSize = Math.max(1, partitionSize);
+        return this;
+    }
+
+    public CsrGraph load(String name) {
+        long start = System.currentTimeMillis();
+        DependencyResolver resolver = db.getDependencyResolver();
+        long highId = MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore(resolver, NODES);
+        Partitions ranges = new Partitions(db, pool, guard, partitionSize);
+        int partitions = ranges.count(highId);
+
+        OffHeapIntArray denseIds = new OffHeapIntArray(highId);
+        OffHeapLongArray nodeIds = null, offsets = null;
+        OffHeapIntArray targets = null, weights = null;
+        try {
+            // pass 1: degrees by node id and counts per partition
+            long[] nodeCounts = new long[partitions];
+            long[] relCounts = new long[partitions];
+            ranges.run(highId, (partition, from, to) -> ranges.inTx(ktx -> {
+                Read read = ktx.dataRead();
+                CursorFactory cursors = ktx.cursors();
+                TokenRead tokens = ktx.tokenRead();
+                int labelId = labelId(tokens);
+                int[] types = types(tokens);
+                if ((label != null && labelId == TokenRead.NO_TOKEN) || types == null) {
+                    for (long id = from; id < to; id++) denseIds.set(id, -1);
+                    return;
+                }
+                try (NodeCursor node = cursors.allocateNodeCursor(); NodeCursor other = cursors.allocateNodeCursor()) {
+                    for (long id = from; id < to; id++) {
+                        read.singleNode(id, node);
+                        if (!node.next() || !hasLabel(node, labelId)) {
+                            denseIds.set(id, -1);
+                            continue;
+                        }
+                        int degree = label == null ? degree(node, cursors, types) : countRelationships(read, node, cursors, types, other, labelId);
+                        denseIds.set(id, degree);
+                        nodeCounts[partition]++;
+                        relCounts[partition] += degree;
+                    }
+                }
+            }));
+
+            long totalNodes = Arrays.stream(nodeCounts).sum();
+            long totalRels = Arrays.stream(relCounts).sum();
+            if (totalNodes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Graph projection " + name + " has " + totalNodes + " nodes, at most " + Integer.MAX_VALUE + " are supported");
+            }
+            int nodeCount = (int) totalNodes;
+            nodeIds = new OffHeapLongArray(nodeCount);
+            offsets = new OffHeapLongArray(nodeCount + 1L);
+            targets = new OffHeapIntArray(totalRels);
+            weights = weightProperty == null ? null : new OffHeapIntArray(totalRels);
+            long[] nodeBases = prefixSums(nodeCounts);
+            long[] relBases = prefixSums(relCounts);
+
+            // pass 2: dense ids and offsets
+            OffHeapLongArray nodeIdArray = nodeIds, offsetArray = offsets;
+            ranges.run(highId, (partition, from, to) -> {
+                int denseId = (int) nodeBases[partition];
+                long offset = relBases[partition];
+                for (long id = from; id < to; id++) {
+                    int degree = denseIds.get(id);
+                    if (degree < 0) continue;
+                    nodeIdArray.set(denseId, id);
+                    offsetArray.set(denseId, offset);
+                    offset += degree;
+                    denseIds.set(id, denseId++);
+                }
+            });
+            offsets.set(nodeCount, totalRels);
+
+            // pass 3: relationship targets and weights
+            OffHeapIntArray targetArray = targets, weightArray = weights;
+            long[] unfilled = new long[partitions];
+            ranges.run(highId, (partition, from, to) -> ranges.inTx(ktx -> {
+                Read read = ktx.dataRead();
+                CursorFactory cursors = ktx.cursors();
+                TokenRead tokens = ktx.tokenRead();
+                int[] types = types(tokens);
+                int weightKey = weightProperty == null ? TokenRead.NO_TOKEN : tokens.propertyKey(weightProperty);
+                try (NodeCursor node = cursors.allocateNodeCursor(); PropertyCursor properties = cursors.allocatePropertyCursor()) {
+                    for (long id = from; id < to; id++) {
+                        int denseId = denseIds.get(id);
+                        if (denseId < 0) continue;
+                        long index = offsetArray.get(denseId), end = offsetArray.get(denseId + 1);
+                        read.singleNode(id, node);
+                        if (node.next() && types != null) {
+                            try (RelationshipSelectionCursor rels = relationships(cursors, node, types)) {
+                                while (index < end && rels.next()) {
+                                    int target = toDenseId(denseIds, rels.otherNodeReference());
+                                    if (target < 0) continue;
+                                    targetArray.set(index, target);
+                                    if (weightArray != null) {
+                                        weightArray.set(index, weight(read, properties, rels, weightKey));
+                                    }
+                                    index++;
+                                }
+                            }
+                        }
+                        unfilled[partition] += end - index;
+                        for (; index < end; index++) targetArray.set(index, -1);
+                    }
+                }
+            }));
+            if (Arrays.stream(unfilled).sum() > 0) {
+                totalRels = compact(nodeCount, offsets, targets, weights);
+            }
+            return new CsrGraph(name, label, relationshipType, direction, weightProperty, nodeCount, totalRels,
+                    nodeIds, denseIds, offsets, targets, weights, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            for (OffHeapArray array : Arrays.asList(denseIds, nodeIds, offsets, targets, weights)) {
+                if (array != null) array.release();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * moves the filled slots down over the unfilled ones and rewrites the offsets, sequentially as the ranges of the
+     * partitions overlap after moving, it only runs when the graph changed while loading
+     * @return the number of loaded relationships
+     */
+    private static long compact(int nodeCount, OffHeapLongArray offsets, OffHeapIntArray targets, OffHeapIntArray weights) {
+        long write = 0;
+        long from = offsets.get(0);
+        for (int node = 0; node < nodeCount; node++) {
+            long to = offsets.get(node + 1);
+            offsets.set(node, write);
+            for (long index = from; index < to; index++) {
+                int target = targets.get(index);
+                if (target < 0) continue;
+                targets.set(write, target);
+                if (weights != null) weights.set(write, weights.get(index));
+                write++;
+            }
+            from = to;
+        }
+        offsets.set(nodeCount, write);
+        return write;
+    }
+
+    private int labelId(TokenRead tokens) {
+        return label == null ? Read.ANY_LABEL : tokens.nodeLabel(label);
+    }
+
+    /**
+     * @return the ids of the relationship types, an empty array for all types or null if none of the types exists
+     */
+    private int[] types(TokenRead tokens) {
+        if (relationshipType == null) return new int[0];
+        int[] types = Arrays.stream(relationshipType.split("\\|")).map(String::trim)
+                .mapToInt(tokens::relationshipType).filter(id -> id != TokenRead.NO_TOKEN).toArray();
+        return types.length == 0 ? null : types;
+    }
+
+    private static boolean hasLabel(NodeCursor node, int labelId) {
+        return labelId == Read.ANY_LABEL || node.labels().contains(labelId);
+    }
+
+    private int degree(NodeCursor node, CursorFactory cursors, int[] types) {
+        if (types.length == 0) return DegreeUtil.degree(node, cursors, ANY_RELATIONSHIP_TYPE, direction);
+        int degree = 0;
+        for (int type : types) {
+            degree += DegreeUtil.degree(node, cursors, type, direction);
+        }
+        return degree;
+    }
+
+    private int countRelationships(Read read, NodeCursor node, CursorFactory cursors, int[] types, NodeCursor other, int labelId) {
+        int degree = 0;
+        try (RelationshipSelectionCursor rels = relationships(cursors, node, types)) {
+            while (rels.next()) {
+                read.singleNode(rels.otherNodeReference(), other);
+                if (other.next() && hasLabel(other, labelId)) degree++;
+            }
+        }
+        return degree;
+    }
+
+    private RelationshipSelectionCursor relationships(CursorFactory cursors, NodeCursor node, int[] types) {
+        int[] selection = types.length == 0 ? null : types;
+        switch (direction) {
+            case OUTGOING: return RelationshipSelections.outgoingCursor(cursors, node, selection);
+            case INCOMING: return RelationshipSelections.incomingCursor(cursors, node, selection);
+            default: return RelationshipSelections.allCursor(cursors, node, selection);
+        }
+    }
+
+    private static int toDenseId(OffHeapIntArray denseIds, long nodeId) {
+        return nodeId < denseIds.size() ? denseIds.get(nodeId) : -1;
+    }
+
+    private int weight(Read read, PropertyCursor properties, RelationshipSelectionCursor rels, int weightKey) {
+        if (weightKey == TokenRead.NO_TOKEN) return defaultWeight;
+        read.relationshipProperties(rels.relationshipReference(), rels.propertiesReference(), properties);
+        while (properties.next()) {
+            if (properties.propertyKey() == weightKey) {
+                Object value = properties.propertyValue().asObject();
+                return value instanceof Number ? toWeight((Number) value, rels.relationshipReference()) : defaultWeight;
+            }
+        }
+        return defaultWeight;
+    }
+
+    /**
+     * the weights are stored as ints, fractional or too large values would be truncated silently
+     */
+    private int toWeight(Number value, long relationshipId) {
+        double weight = value.doubleValue();
+        if (weight != Math.rint(weight) || weight < Integer.MIN_VALUE || weight > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The weight property '" + weightProperty + "' of relationship " + relationshipId +
+                    " has the value " + value + ", only integer weights are supported");
+        }
+        return value.intValue();
+    }
+
+    private static long[] prefixSums(long[] counts) {
+        long[] bases = new long[counts.length];
+        long sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            bases[i] = sum;
+            sum += counts[i];
+        }
+        return bases;
+    }
+}
@@ -0,0 +1,56 @@
+package apoc.algo.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Named graph projections that are shared between the algorithm procedures
+ */
+public class GraphRegistry {
+    private static final Map<String, CsrGraph> GRAPHS = new ConcurrentHashMap<>();
+
+    private GraphRegistry() {
+    }
+
+    /**
+     * registers the graph under its name, a graph previously registered under the same name is removed
+     */
+    public static void put(CsrGraph graph) {
+        CsrGraph previous = GRAPHS.put(graph.getName(), graph);
+        if (previous != null && previous != graph) previous.remove();
+    }
+
+    /**
+     * @return the graph projection with the name, which has to be closed after use
+     * @throws IllegalArgumentException if there is no projection with that name
+     */
+    public static CsrGraph acquire(String name) {
+        CsrGraph graph = GRAPHS.get(name);
+        if (graph == null) throw new IllegalArgumentException("No graph projection named " + name + ", load it with apoc.algo.graph.load");
+        return graph.retain();
+    }
+
+    /**
+     * @return the graph projection with the name or, without a name, a temporary projection from the loader
+     * that is freed when it is closed
+     */
+    public static CsrGraph acquire(String name, Supplier<CsrGraph> loader) {
+        if (name != null) return acquire(name);
+        CsrGraph graph = loader.get().retain();
+        graph.remove();
+        return graph;
+    }
+
+    public static CsrGraph remove(String name) {
+        CsrGraph graph = GRAPHS.remove(name);
+        if (graph != null) graph.remove();
+        return graph;
+    }
+
+    public static List<CsrGraph> list() {
+        return new ArrayList<>(GRAPHS.values());
+    }
+}
@@ -0,0 +1,109 @@
+package apoc.algo.graph;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed size array of primitives stored in pages of direct ByteBuffers outside of the java heap,
+ * addressed with long indexes, so that it can hold more than 2^31 entries.
+ * Writes to disjoint indexes from different threads are safe, the pages are never resized.
+ */
+abstract class OffHeapArray {
+    static final int PAGE_BITS = 24;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final long PAGE_MASK = PAGE_SIZE - 1;
+
+    protected final long size;
+    private final int elementBytes;
+    private ByteBuffer[] buffers;
+
+    OffHeapArray(long size, int elementBytes) {
+        if (size < 0) throw new IllegalArgumentException("Negative array size " + size);
+        this.size = size;
+        this.elementBytes = elementBytes;
+        int pages = (int) ((size + PAGE_SIZE - 1) >>> PAGE_BITS);
+        this.buffers = new ByteBuffer[pages];
+        for (int page = 0; page < pages; page++) {
+            long elements = Math.min(PAGE_SIZE, size - ((long) page << PAGE_BITS));
+            buffers[page] = ByteBuffer.allocateDirect((int) elements * elementBytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    protected ByteBuffer[] buffers() {
+        return buffers;
+    }
+
+    static int page(long index) {
+        return (int) (index >>> PAGE_BITS);
+    }
+
+    static int offset(long index) {
+        return (int) (index & PAGE_MASK);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long bytes() {
+        return size * elementBytes;
+    }
+
+    /**
+     * frees the direct memory right away instead of waiting for the garbage collector,
+     * the array must not be used afterwards
+     */
+    public synchronized void release() {
+        if (buffers == null) return;
+        for (ByteBuffer buffer : buffers) {
+            free(buffer);
+        }
+        buffers = null;
+        released();
+    }
+
+    protected abstract void released();
+
+    /**
+     * frees a direct buffer, with Unsafe.invokeCleaner on Java 9+ where the cleaner of the buffer is not accessible,
+     * or with the cleaner on Java 8
+     */
+    private static final Cleaner CLEANER = cleaner();
+    private static volatile boolean warned;
+
+    private interface Cleaner {
+        void free(ByteBuffer buffer) throws Exception;
+    }
+
+    private static Cleaner cleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> invokeCleaner.invoke(unsafe, buffer);
+        } catch (Exception e) {
+            // Java 8
+            return buffer -> {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+            };
+        }
+    }
+
+    private static void free(ByteBuffer buffer) {
+        try {
+            CLEANER.free(buffer);
+        } catch (Exception e) {
+            if (!warned) {
+                warned = true;
+                System.err.println("APOC couldn't free the direct memory of a graph projection right away, it is only freed when the buffers are garbage collected: " + e);
+            }
+        }
+    }
+}
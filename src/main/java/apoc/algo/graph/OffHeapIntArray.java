@@ -0,0 +1,39 @@
+package apoc.algo.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * long-indexed int array outside of the java heap
+ */
+public class OffHeapIntArray extends OffHeapArray {
+    private IntBuffer[] pages;
+
+    public OffHeapIntArray(long size) {
+        super(size, Integer.BYTES);
+        ByteBuffer[] buffers = buffers();
+        pages = new IntBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            pages[i] = buffers[i].asIntBuffer();
+        }
+    }
+
+    public int get(long index) {
+        return pages[page(index)].get(offset(index));
+    }
+
+    public void set(long index, int value) {
+        pages[page(index)].put(offset(index), value);
+    }
+
+    public void fill(int value) {
+        for (IntBuffer page : pages) {
+            for (int i = 0; i < page.capacity(); i++) page.put(i, value);
+        }
+    }
+
+    @Override
+    protected void released() {
+        pages = null;
+    }
+}
@@ -0,0 +1,33 @@
+package apoc.algo.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * long-indexed long array outside of the java heap
+ */
+public class OffHeapLongArray extends OffHeapArray {
+    private LongBuffer[] pages;
+
+    public OffHeapLongArray(long size) {
+        super(size, Long.BYTES);
+        ByteBuffer[] buffers = buffers();
+        pages = new LongBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            pages[i] = buffers[i].asLongBuffer();
+        }
+    }
+
+    public long get(long index) {
+        return pages[page(index)].get(offset(index));
+    }
+
+    public void set(long index, long value) {
+        pages[page(index)].put(offset(index), value);
+    }
+
+    @Override
+    protected void released() {
+        pages = null;
+    }
+}
@@ -0,0 +1,77 @@
+package apoc.algo.graph;
+
+import apoc.util.Util;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a task for each of the disjoint id-ranges of size partitionSize below the high id on the pool and waits for all of them,
+ * kernel tasks run in their own transaction.
+ */
+public class Partitions {
+    public static final long DEFAULT_PARTITION_SIZE = 1_000_000;
+
+    public interface PartitionTask {
+        void run(int partition, long from, long to);
+    }
+
+    public interface KernelTask {
+        void run(KernelTransaction ktx);
+    }
+
+    private final GraphDatabaseAPI db;
+    private final ThreadToStatementContextBridge ctx;
+    private final ExecutorService pool;
+    private final TerminationGuard guard;
+    private final long partitionSize;
+
+    public Partitions(GraphDatabaseAPI db, ExecutorService pool, TerminationGuard guard, long partitionSize) {
+        this.db = db;
+        this.ctx = db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
+        this.pool = pool;
+        this.guard = guard;
+        this.partitionSize = Math.max(1, partitionSize);
+    }
+
+    public int count(long highId) {
+        return (int) ((highId + partitionSize - 1) / partitionSize);
+    }
+
+    public void inTx(KernelTask task) {
+        try (Transaction tx = db.beginTx()) {
+            task.run(ctx.getKernelTransactionBoundToThisThread(true));
+            tx.success();
+        }
+    }
+
+    public void run(long highId, PartitionTask task) {
+        int partitions = count(highId);
+        List<Future<?>> futures = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            int p = partition;
+            long from = p * partitionSize;
+            long to = Math.min(from + partitionSize, highId);
+            futures.add(pool.submit(() -> {
+                if (Util.transactionIsTerminated(guard)) return;
+                task.run(p, from, to);
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException("Error processing partitions: " + e.getMessage(), e);
+        }
+        if (Util.transactionIsTerminated(guard)) throw new RuntimeException("Processing the partitions was terminated");
+    }
+}
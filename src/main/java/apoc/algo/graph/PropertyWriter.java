@@ -0,0 +1,55 @@
+package apoc.algo.graph;
+
+import org.neo4j.internal.kernel.api.Write;
+import org.neo4j.internal.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.values.storable.Values;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Writes a long value per element (dense node id) to a node property, in parallel transactions of one batch of elements each
+ */
+public class PropertyWriter {
+    private final Partitions batches;
+
+    /**
+     * @param batches partitions of the size of a write batch
+     */
+    public PropertyWriter(Partitions batches) {
+        this.batches = batches;
+    }
+
+    /**
+     * @param elements number of elements
+     * @param include if the element is written at all
+     * @param nodeId node id of the element
+     * @param value value of the element
+     */
+    public void write(String property, long elements, IntPredicate include, IntToLongFunction nodeId, IntToLongFunction value) {
+        int[] propertyKey = new int[1];
+        batches.inTx(ktx -> {
+            try {
+                propertyKey[0] = ktx.tokenWrite().propertyKeyGetOrCreateForName(property);
+            } catch (KernelException e) {
+                throw new RuntimeException("Error creating property key " + property, e);
+            }
+        });
+        batches.run(elements, (batch, from, to) -> batches.inTx(ktx -> {
+            try {
+                Write write = ktx.dataWrite();
+                for (int element = (int) from; element < to; element++) {
+                    if (!include.test(element)) continue;
+                    try {
+                        write.nodeSetProperty(nodeId.applyAsLong(element), propertyKey[0], Values.longValue(value.applyAsLong(element)));
+                    } catch (EntityNotFoundException e) {
+                        // node was deleted in the meantime
+                    }
+                }
+            } catch (KernelException e) {
+                throw new RuntimeException("Error writing " + property + " of nodes " + from + " to " + to, e);
+            }
+        }));
+    }
+}
@@ -0,0 +1,25 @@
+package apoc.algo.graph;
+
+/**
+ * Compressed sparse row view of a graph over dense node ids (0 .. nodeCount-1).
+ * The relationships of a node are stored at the indexes offset(node) .. offset(node)+degree(node)-1,
+ * slots with a negative target are unused and must be skipped, {@link CsrGraph projections} are compacted and have none.
+ */
+public interface Topology {
+    int nodeCount();
+
+    long relationshipCount();
+
+    int degree(int node);
+
+    long offset(int node);
+
+    int target(long index);
+
+    /**
+     * @return the weight of the relationship at the index or 1 if the topology is not weighted
+     */
+    int weight(long index);
+
+    boolean isWeighted();
+}
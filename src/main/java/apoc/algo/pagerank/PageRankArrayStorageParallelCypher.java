@@ -3,6 +3,9 @@ package apoc.algo.pagerank;
 import apoc.algo.algorithms.AlgoUtils;
 import apoc.algo.algorithms.Algorithm;
 import apoc.algo.algorithms.AlgorithmInterface;
+import apoc.algo.graph.ArrayTopology;
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.Topology;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
@@ -27,7 +30,7 @@ public class PageRankArrayStorageParallelCypher implements PageRank, AlgorithmIn
     private final Log log;
     private final ExecutorService pool;
     private int nodeCount;
-    private int relCount;
+    private long relCount;
 
     private PageRankStatistics stats = new PageRankStatistics();
 
@@ -36,6 +39,7 @@ public class PageRankArrayStorageParallelCypher implements PageRank, AlgorithmIn
     private AtomicIntegerArray pageRanksAtomic;
 
     private Algorithm algorithm;
+    private CsrGraph graph;
     private String property;
 
     public PageRankArrayStorageParallelCypher(
@@ -51,11 +55,22 @@ public class PageRankArrayStorageParallelCypher implements PageRank, AlgorithmIn
 
     @Override
     public long getMappedNode(int algoId) {
-        return algorithm.getMappedNode(algoId);
+        return graph != null ? graph.toNodeId(algoId) : algorithm.getMappedNode(algoId);
     }
 
-    private int getNodeIndex(int node) {
-        return algorithm.getAlgoNodeId(node);
+    private int getNodeIndex(long node) {
+        return graph != null ? graph.toDenseId(node) : algorithm.getAlgoNodeId((int) node);
+    }
+
+    /**
+     * use the loaded graph projection instead of reading the graph with cypher
+     */
+    public void useGraph(CsrGraph graph) {
+        this.graph = graph;
+        this.nodeCount = graph.nodeCount();
+        this.relCount = graph.relationshipCount();
+        stats.nodes = nodeCount;
+        stats.relationships = relCount;
     }
 
     public boolean readNodeAndRelCypherData(String relCypher, String nodeCypher, Number weight, Number batchSize, int concurrency) {
@@ -74,6 +89,10 @@ public class PageRankArrayStorageParallelCypher implements PageRank, AlgorithmIn
                         int[] sourceChunkStartingIndex,
                         int[] relationshipTarget,
                         int[] relationshipWeight) {
+        compute(iterations, new ArrayTopology(nodeCount, sourceDegreeData, sourceChunkStartingIndex, relationshipTarget, relationshipWeight));
+    }
+
+    public void compute(int iterations, Topology topology) {
         previousPageRanks = new int[nodeCount];
         pageRanksAtomic = new AtomicIntegerArray(nodeCount);
 
@@ -82,8 +101,8 @@ public class PageRankArrayStorageParallelCypher implements PageRank, AlgorithmIn
 
         for (int iteration = 0; iteration < iterations; iteration++) {
             long beforeIteration = System.currentTimeMillis();
-            startIteration(sourceChunkStartingIndex, sourceDegreeData, relationshipWeight);
-            iterateParallel(iteration, sourceDegreeData, sourceChunkStartingIndex, relationshipTarget, relationshipWeight);
+            startIteration(topology);
+            iterateParallel(iteration, topology);
             long afterIteration = System.currentTimeMillis();
             log.info("Time for iteration " + iteration + "  " + (afterIteration - beforeIteration) + " millis");
         }
@@ -94,45 +113,47 @@ public class PageRankArrayStorageParallelCypher implements PageRank, AlgorithmIn
 
     @Override
     public void compute(int iterations, RelationshipType... relationshipTypes) {
-        compute(iterations,
-                algorithm.sourceDegreeData,
-                algorithm.sourceChunkStartingIndex,
-                algorithm.relationshipTarget,
-                algorithm.relationshipWeight);
+        if (graph != null) {
+            compute(iterations, graph);
+        } else {
+            compute(iterations,
+                    algorithm.sourceDegreeData,
+                    algorithm.sourceChunkStartingIndex,
+                    algorithm.relationshipTarget,
+                    algorithm.relationshipWeight);
+        }
     }
 
-    private int getEndNode(int node, int [] sourceChunkStartingIndex) {
+    private int getEndNode(int node, Topology topology) {
         int endNode = node;
+        long startOffset = topology.offset(node);
         while(endNode < nodeCount &&
-                (sourceChunkStartingIndex[endNode] - sourceChunkStartingIndex[node] <= BATCH_SIZE)) {
+                (topology.offset(endNode) - startOffset <= BATCH_SIZE)) {
             endNode++;
         }
         return endNode;
     }
 
-    private void iterateParallel(int iter,
-                                 int[] sourceDegreeData,
-                                 int[] sourceChunkStartingIndex,
-                                 int[] relationshipTarget,
-                                 int[] relationshipWeight) {
+    private void iterateParallel(int iter, Topology topology) {
         int batches = (int)nodeCount/BATCH_SIZE;
         List<Future> futures = new ArrayList<>(batches);
         int nodeIter = 0;
         while(nodeIter < nodeCount) {
             // Process BATCH_SIZE relationships in one batch, aligned to the chunksize.
             final int start = nodeIter;
-            final int end = getEndNode(nodeIter, sourceChunkStartingIndex);
+            final int end = getEndNode(nodeIter, topology);
             Future future = pool.submit(new Runnable() {
                 @Override
                 public void run() {
                     for (int i = start; i < end; i++) {
-                        int chunkIndex = sourceChunkStartingIndex[i];
-                        int degree = sourceDegreeData[i];
+                        long chunkIndex = topology.offset(i);
+                        int degree = topology.degree(i);
 
                         for (int j = 0; j < degree; j++) {
                             int source = i;
-                            int target = relationshipTarget[chunkIndex + j];
-                            int weight = relationshipWeight==null ? 1 : relationshipWeight[chunkIndex + j];
+                            int target = topology.target(chunkIndex + j);
+                            if (target < 0) continue;
+                            int weight = topology.weight(chunkIndex + j);
                             pageRanksAtomic.addAndGet(target, weight * previousPageRanks[source]);
                         }
                     }
@@ -145,27 +166,22 @@ public class PageRankArrayStorageParallelCypher implements PageRank, AlgorithmIn
         AlgoUtils.waitForTasks(futures);
     }
 
-    private int getTotalWeightForNode(int node,
-                                      int[] sourceChunkStartingIndex,
-                                      int[] sourceDegreeData,
-                                      int[] relationshipWeight) {
-        int degree = sourceDegreeData[node];
-        if (relationshipWeight==null) return degree;
+    private int getTotalWeightForNode(int node, Topology topology) {
+        int degree = topology.degree(node);
+        if (!topology.isWeighted()) return degree;
 
-        int chunkIndex = sourceChunkStartingIndex[node];
+        long chunkIndex = topology.offset(node);
         int totalWeight = 0;
         for (int i = 0; i < degree; i++) {
-            totalWeight += relationshipWeight[chunkIndex + i];
+            totalWeight += topology.weight(chunkIndex + i);
         }
         return totalWeight;
     }
 
-    private void startIteration(int[] sourceChunkStartingIndex,
-                                int[] sourceDegreeData,
-                                int[] relationshipWeight)
+    private void startIteration(Topology topology)
     {
         for (int node = 0; node < nodeCount; node++) {
-            int weightedDegree = getTotalWeightForNode(node, sourceChunkStartingIndex, sourceDegreeData, relationshipWeight);
+            int weightedDegree = getTotalWeightForNode(node, topology);
 
             if (weightedDegree == -1) {
                 continue;
@@ -188,9 +204,9 @@ public class PageRankArrayStorageParallelCypher implements PageRank, AlgorithmIn
     public double getResult(long node)
     {
         double val = 0;
-        int logicalIndex = getNodeIndex((int)node);
+        int logicalIndex = getNodeIndex(node);
 
-        if (logicalIndex >= 0 && pageRanksAtomic.length() >= logicalIndex) {
+        if (logicalIndex >= 0 && pageRanksAtomic.length() > logicalIndex) {
             val = toFloat(pageRanksAtomic.get(logicalIndex));
         }
         return val;
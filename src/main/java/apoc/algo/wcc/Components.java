@@ -0,0 +1,138 @@
+package apoc.algo.wcc;
+
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.Partitions;
+import apoc.algo.graph.PropertyWriter;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.NODES;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.RELATIONSHIPS;
+
+/**
+ * Weakly connected components computed with a {@link UnionFind} in parallel, either over the relationships of a
+ * graph projection or over partitioned scans of the node and relationship stores.
+ * The id of a component is the smallest node id in it.
+ */
+public class Components {
+    private final UnionFind unionFind;
+    private final CsrGraph graph;
+    public long computeMillis;
+
+    private Components(UnionFind unionFind, CsrGraph graph) {
+        this.unionFind = unionFind;
+        this.graph = graph;
+    }
+
+    /**
+     * unions the nodes of the projection along its relationships, the graph has to stay acquired while the components are used
+     */
+    public static Components fromGraph(CsrGraph graph, Partitions partitions) {
+        long start = System.currentTimeMillis();
+        Components components = new Components(new UnionFind(graph.nodeCount(), true), graph);
+        partitions.run(graph.nodeCount(), (partition, from, to) -> {
+            for (int node = (int) from; node < to; node++) {
+                long offset = graph.offset(node);
+                int degree = graph.degree(node);
+                for (int i = 0; i < degree; i++) {
+                    int target = graph.target(offset + i);
+                    if (target >= 0) components.unionFind.union(node, target);
+                }
+            }
+        });
+        components.computeMillis = System.currentTimeMillis() - start;
+        return components;
+    }
+
+    /**
+     * scans the nodes (with the label) and then the relationships (of the type) in disjoint id ranges,
+     * the union-find is indexed by node id
+     */
+    public static Components scan(GraphDatabaseAPI db, Partitions partitions, String label, String relationshipType) {
+        long start = System.currentTimeMillis();
+        DependencyResolver resolver = db.getDependencyResolver();
+        long highNodeId = MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore(resolver, NODES);
+        if (highNodeId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Node ids above " + Integer.MAX_VALUE + " are not supported, use a graph projection instead");
+        }
+        Components components = new Components(new UnionFind((int) highNodeId, false), null);
+        UnionFind unionFind = components.unionFind;
+
+        partitions.run(highNodeId, (partition, from, to) -> partitions.inTx(ktx -> {
+            int labelId = label == null ? Read.ANY_LABEL : ktx.tokenRead().nodeLabel(label);
+            if (label != null && labelId == TokenRead.NO_TOKEN) return;
+            try (NodeCursor node = ktx.cursors().allocateNodeCursor()) {
+                for (long id = from; id < to; id++) {
+                    ktx.dataRead().singleNode(id, node);
+                    if (node.next() && (label == null || node.labels().contains(labelId))) unionFind.add((int) id);
+                }
+            }
+        }));
+
+        long highRelId = MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore(resolver, RELATIONSHIPS);
+        partitions.run(highRelId, (partition, from, to) -> partitions.inTx(ktx -> {
+            int[] types = relationshipType == null ? null : Arrays.stream(relationshipType.split("\\|"))
+                    .mapToInt(type -> ktx.tokenRead().relationshipType(type.trim())).filter(id -> id != TokenRead.NO_TOKEN).toArray();
+            if (types != null && types.length == 0) return;
+            try (RelationshipScanCursor rel = ktx.cursors().allocateRelationshipScanCursor()) {
+                for (long id = from; id < to; id++) {
+                    ktx.dataRead().singleRelationship(id, rel);
+                    if (!rel.next() || (types != null && !contains(types, rel.type()))) continue;
+                    long source = rel.sourceNodeReference(), target = rel.targetNodeReference();
+                    if (source < highNodeId && target < highNodeId
+                            && unionFind.contains((int) source) && unionFind.contains((int) target)) {
+                        unionFind.union((int) source, (int) target);
+                    }
+                }
+            }
+        }));
+        components.computeMillis = System.currentTimeMillis() - start;
+        return components;
+    }
+
+    private static boolean contains(int[] types, int type) {
+        for (int t : types) {
+            if (t == type) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the indexes of the nodes of the components, lazily
+     */
+    public IntStream elements() {
+        return IntStream.range(0, unionFind.size()).filter(unionFind::contains);
+    }
+
+    public long nodeId(int element) {
+        return graph == null ? element : graph.toNodeId(element);
+    }
+
+    public long componentId(int element) {
+        return nodeId(unionFind.find(element));
+    }
+
+    /**
+     * @return the size of each component indexed by its root element, 0 for all other elements
+     */
+    public int[] sizes() {
+        int[] sizes = new int[unionFind.size()];
+        elements().forEach(element -> sizes[unionFind.find(element)]++);
+        return sizes;
+    }
+
+    /**
+     * writes the component id of each node to the property, in parallel batches of nodes
+     */
+    public void write(Partitions batches, String property) {
+        new PropertyWriter(batches).write(property, unionFind.size(), unionFind::contains, this::nodeId, this::componentId);
+    }
+}
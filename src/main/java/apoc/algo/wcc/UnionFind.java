@@ -0,0 +1,58 @@
+package apoc.algo.wcc;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free disjoint-set over a parent array, safe for concurrent unions.
+ *
+ * Roots are always linked below the smaller root, so the parent of an element never increases, which makes
+ * path halving with compare-and-set safe and the root of a set its smallest element.
+ * Elements that were never added have the parent -1 and are not part of any set.
+ */
+public class UnionFind {
+    private final AtomicIntegerArray parent;
+
+    public UnionFind(int size, boolean addAll) {
+        parent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            parent.set(i, addAll ? i : -1);
+        }
+    }
+
+    public int size() {
+        return parent.length();
+    }
+
+    public void add(int element) {
+        parent.set(element, element);
+    }
+
+    public boolean contains(int element) {
+        return parent.get(element) >= 0;
+    }
+
+    public int find(int element) {
+        while (true) {
+            int p = parent.get(element);
+            if (p == element) return element;
+            int grandParent = parent.get(p);
+            if (p != grandParent) parent.compareAndSet(element, p, grandParent);
+            element = grandParent;
+        }
+    }
+
+    public void union(int a, int b) {
+        while (true) {
+            a = find(a);
+            b = find(b);
+            if (a == b) return;
+            if (a < b) {
+                int tmp = a;
+                a = b;
+                b = tmp;
+            }
+            // only succeeds if a is still a root
+            if (parent.compareAndSet(a, a, b)) return;
+        }
+    }
+}
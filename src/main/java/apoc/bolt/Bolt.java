@@ -10,6 +10,7 @@ import org.neo4j.driver.internal.InternalEntity;
 import org.neo4j.driver.internal.InternalPath;
 import org.neo4j.driver.internal.logging.JULogging;
 import org.neo4j.driver.v1.*;
+import org.neo4j.driver.v1.summary.ResultSummary;
 import org.neo4j.driver.v1.summary.SummaryCounters;
 import org.neo4j.driver.v1.types.Node;
 import org.neo4j.driver.v1.types.Path;
@@ -36,6 +37,7 @@ import static apoc.util.MapUtil.map;
  * @since 29.08.17
  */
 public class Bolt {
+    private static final int NODES_CACHE_SIZE = 10_000;
 
     @Context
     public GraphDatabaseService db;
@@ -49,17 +51,18 @@ public class Bolt {
         boolean addStatistics = (boolean) config.getOrDefault("statistics", false);
         boolean readOnly = (boolean) config.getOrDefault("readOnly", true);
 
-        Config driverConfig = toDriverConfig(config.getOrDefault("driverConfig", map()));
-        UriResolver uri = new UriResolver(url, "bolt");
-        uri.initialize();
-
-        try (Driver driver = GraphDatabase.driver(uri.getConfiguredUri(), uri.getToken(), driverConfig);
-             Session session = driver.session()) {
-            if (addStatistics)
-                return Stream.of(new RowResult(toMap(runStatement(statement, session, params, readOnly).summary().counters())));
-            else
-                return getRowResultStream(virtual, session, params, statement, readOnly);
+        BoltDriverCache.Lease lease = acquireDriver(url, config);
+        try {
+            if (addStatistics) {
+                try (Session session = lease.driver().session()) {
+                    return Stream.of(new RowResult(toMap(runStatement(statement, session, params, readOnly).counters())));
+                } finally {
+                    lease.close();
+                }
+            }
+            return getRowResultStream(virtual, lease, params, statement, readOnly);
         } catch (Exception e) {
+            lease.close();
             throw new RuntimeException("It's not possible to create a connection due to: " + e.getMessage());
         }
     }
@@ -72,21 +75,90 @@ public class Bolt {
         return load(url, statement, params, configuration);
     }
 
-    private StatementResult runStatement(@Name("kernelTransaction") String statement, Session session, Map<String, Object> finalParams, boolean read) {
-        if (read) return session.readTransaction((Transaction tx) -> tx.run(statement, finalParams));
-        else return session.writeTransaction((Transaction tx) -> tx.run(statement, finalParams));
+    @Procedure()
+    @Description("apoc.bolt.executeBatch(url-or-key, statement, rows, config) - runs the statement prefixed with UNWIND $batch AS row against other databases via bolt, one round trip and transaction per batch of rows, returns the statistics per batch")
+    public Stream<RowResult> executeBatch(@Name("url") String url, @Name("statement") String statement, @Name("rows") List<Map<String, Object>> rows, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws URISyntaxException {
+        if (config == null) config = Collections.emptyMap();
+        if (rows == null || rows.isEmpty()) return Stream.empty();
+        int batchSize = Util.toInteger(config.getOrDefault("batchSize", 1000));
+        if (batchSize < 1) throw new RuntimeException("batchSize must be positive but was " + batchSize);
+        Map<String, Object> params = new HashMap<>((Map<String, Object>) config.getOrDefault("params", Collections.emptyMap()));
+        String batchStatement = "UNWIND $batch AS row " + statement;
+
+        List<RowResult> result = new ArrayList<>();
+        try (BoltDriverCache.Lease lease = acquireDriver(url, config);
+             Session session = lease.driver().session()) {
+            for (int from = 0, batch = 0; from < rows.size(); from += batchSize, batch++) {
+                List<Map<String, Object>> batchRows = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                params.put("batch", batchRows);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("batch", (long) batch);
+                row.put("rows", (long) batchRows.size());
+                row.putAll(toMap(runStatement(batchStatement, session, params, false).counters()));
+                result.add(new RowResult(row));
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("It's not possible to execute the batch due to: " + e.getMessage());
+        }
+        return result.stream();
+    }
+
+    private BoltDriverCache.Lease acquireDriver(String url, Map<String, Object> config) throws URISyntaxException {
+        Map<String, Object> driverConfig = (Map<String, Object>) config.getOrDefault("driverConfig", map());
+        UriResolver uri = new UriResolver(url, "bolt");
+        uri.initialize();
+        try {
+            return BoltDriverCache.acquire(uri, driverConfig, () -> toDriverConfig(driverConfig));
+        } catch (Exception e) {
+            throw new RuntimeException("It's not possible to create a connection due to: " + e.getMessage());
+        }
     }
 
-    private Stream<RowResult> getRowResultStream(boolean virtual, Session session, Map<String, Object> params, String statement, boolean read) {
-        Map<Long, Object> nodesCache = new HashMap<>();
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(runStatement(statement, session, params, read), 0), true)
+    private ResultSummary runStatement(String statement, Session session, Map<String, Object> finalParams, boolean read) {
+        if (read) return session.readTransaction((Transaction tx) -> tx.run(statement, finalParams).consume());
+        else return session.writeTransaction((Transaction tx) -> tx.run(statement, finalParams).consume());
+    }
+
+    /**
+     * Streams the records of an explicit transaction that stays open until the returned stream is closed.
+     * The driver stops reading from the connection while too many records are buffered, so records are only fetched
+     * as fast as the stream is consumed. The transaction of a write is committed, a read is rolled back.
+     */
+    private Stream<RowResult> getRowResultStream(boolean virtual, BoltDriverCache.Lease lease, Map<String, Object> params, String statement, boolean read) {
+        Session session = lease.driver().session(read ? AccessMode.READ : AccessMode.WRITE);
+        Transaction tx;
+        StatementResult result;
+        try {
+            tx = session.beginTransaction();
+            result = tx.run(statement, params);
+        } catch (Exception e) {
+            session.close();
+            throw e;
+        }
+        Map<Long, Object> nodesCache = new LinkedHashMap<Long, Object>(16, 0.75f, true) {
+            // only recent nodes are looked up as start and end of relationships of the same or following records
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+                return size() > NODES_CACHE_SIZE;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(result, Spliterator.ORDERED), false)
                 .map(record -> new RowResult(record.asMap(value -> {
                     Object entity = value.asObject();
                     if (entity instanceof Node) return toNode(entity, virtual, nodesCache);
                     if (entity instanceof Relationship) return toRelationship(entity, virtual, nodesCache);
                     if (entity instanceof Path) return toPath(entity, virtual, nodesCache);
                     return entity;
-                })));
+                })))
+                .onClose(() -> {
+                    try {
+                        if (!read) tx.success();
+                        tx.close();
+                    } finally {
+                        session.close();
+                        lease.close();
+                    }
+                });
     }
 
     private Object toNode(Object value, boolean virtual, Map<Long, Object> nodesCache) {
@@ -153,6 +225,8 @@ public class Bolt {
         Long routingRetryDelayMillis = (Long) driverConfMap.getOrDefault("routingRetryDelayMillis", 5000L);
         Long connectionTimeoutMillis = (Long) driverConfMap.getOrDefault("connectionTimeoutMillis", 5000L);
         Long maxRetryTimeMs = (Long) driverConfMap.getOrDefault("maxRetryTimeMs", 30000L);
+        Long maxConnectionPoolSize = (Long) driverConfMap.getOrDefault("maxConnectionPoolSize", 100L);
+        Long connectionAcquisitionTimeoutMillis = (Long) driverConfMap.getOrDefault("connectionAcquisitionTimeoutMillis", 60000L);
         Config.ConfigBuilder config = Config.build();
         config.withLogging(new JULogging(Level.parse(logging)));
         if(!encryption) config.withoutEncryption();
@@ -164,6 +238,8 @@ public class Bolt {
         config.withConnectionTimeout(connectionTimeoutMillis, TimeUnit.MILLISECONDS);
         config.withRoutingRetryDelay(routingRetryDelayMillis,TimeUnit.MILLISECONDS);
         config.withMaxTransactionRetryTime(maxRetryTimeMs, TimeUnit.MILLISECONDS);
+        config.withMaxConnectionPoolSize(maxConnectionPoolSize.intValue());
+        config.withConnectionAcquisitionTimeout(connectionAcquisitionTimeoutMillis, TimeUnit.MILLISECONDS);
         if(trustStrategy.equals("TRUST_ALL_CERTIFICATES")) config.withTrustStrategy(Config.TrustStrategy.trustAllCertificates());
         else if(trustStrategy.equals("TRUST_SYSTEM_CA_SIGNED_CERTIFICATES")) config.withTrustStrategy(Config.TrustStrategy.trustSystemCertificates());
         else {
@@ -0,0 +1,117 @@
+package apoc.bolt;
+
+import apoc.ApocConfiguration;
+import apoc.Pools;
+import apoc.util.UriResolver;
+import apoc.util.Util;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Drivers of apoc.bolt.load and apoc.bolt.execute, one per url, credentials and driver configuration.
+ *
+ * Each driver keeps its own bounded pool of connections. Drivers not used for longer than apoc.bolt.driver.idle_timeout
+ * milliseconds are closed, drivers with open results are kept.
+ */
+public class BoltDriverCache {
+    private static final Map<String, Entry> DRIVERS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean EVICTION_SCHEDULED = new AtomicBoolean();
+    private static final long EVICTION_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    private static class Entry {
+        final Driver driver;
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile boolean evicted;
+
+        Entry(Driver driver) {
+            this.driver = driver;
+        }
+
+        void release() {
+            lastUsed = System.currentTimeMillis();
+            inUse.decrementAndGet();
+            closeIfEvicted();
+        }
+
+        // an evicted driver is closed by whoever releases it last
+        void closeIfEvicted() {
+            if (evicted && inUse.get() == 0 && closed.compareAndSet(false, true)) {
+                try {
+                    driver.close();
+                } catch (Exception e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * a driver borrowed from the cache, closing it only releases it
+     */
+    public static class Lease implements AutoCloseable {
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Driver driver() {
+            return entry.driver;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) entry.release();
+        }
+    }
+
+    /**
+     * @param driverConfig the driverConfig map of the procedure config, part of the key
+     * @param config creates the driver configuration for a new driver
+     */
+    public static Lease acquire(UriResolver uri, Map<String, Object> driverConfig, Supplier<Config> config) {
+        if (EVICTION_SCHEDULED.compareAndSet(false, true)) {
+            Pools.SCHEDULED.scheduleWithFixedDelay(BoltDriverCache::evictIdle, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        // the configured uri contains the user info the token is created from
+        String key = uri.getConfiguredUri() + "\u0000" + new TreeMap<>(driverConfig);
+        while (true) {
+            Entry entry = DRIVERS.computeIfAbsent(key, k -> new Entry(GraphDatabase.driver(uri.getConfiguredUri(), uri.getToken(), config.get())));
+            entry.inUse.incrementAndGet();
+            // the driver might have been evicted concurrently
+            if (DRIVERS.get(key) == entry) return new Lease(entry);
+            entry.release();
+        }
+    }
+
+    private static void evictIdle() {
+        long idleTimeout = Util.toLong(ApocConfiguration.get("bolt.driver.idle_timeout", 600_000));
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Entry>> expired = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : DRIVERS.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.inUse.get() == 0 && now - entry.lastUsed > idleTimeout) expired.add(e);
+        }
+        for (Map.Entry<String, Entry> e : expired) {
+            Entry entry = e.getValue();
+            if (DRIVERS.remove(e.getKey(), entry)) {
+                entry.evicted = true;
+                entry.closeIfEvicted();
+            }
+        }
+    }
+}
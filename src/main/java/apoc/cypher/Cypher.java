@@ -3,11 +3,14 @@ package apoc.cypher;
 import apoc.Pools;
 import apoc.result.MapResult;
 import apoc.util.FileUtils;
+import apoc.util.JsonUtil;
 import apoc.util.QueueBasedSpliterator;
 import apoc.util.Util;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.QueryStatistics;
 import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.TransientFailureException;
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.logging.Log;
@@ -40,9 +43,10 @@ import static org.neo4j.procedure.Mode.WRITE;
 public class Cypher {
 
     public static final String COMPILED_PREFIX = "CYPHER runtime="+ Util.COMPILED;
-    public static final ExecutorService POOL = Pools.DEFAULT;
     public static final int PARTITIONS = 100 * Runtime.getRuntime().availableProcessors();
     public static final int MAX_BATCH = 10000;
+    public static final String MANIFEST_SUFFIX = ".manifest.json";
+    private static final int MAX_RETRIES = 10;
     @Context
     public GraphDatabaseService db;
     @Context
@@ -70,7 +74,7 @@ public class Cypher {
     }
 
     @Procedure(mode = WRITE)
-    @Description("apoc.cypher.runFiles([files or urls],[{statistics:true,timeout:10,parameters:{}}])) - runs each statement in the files, all semicolon separated")
+    @Description("apoc.cypher.runFiles([files or urls],[{statistics:true,timeout:10,parameters:{}}])) - runs each statement in the files, all semicolon separated, the files of a manifest.json of apoc.export.cypher run in parallel")
     public Stream<RowResult> runFiles(@Name("file") List<String> fileNames, @Name(value = "config",defaultValue = "{}") Map<String,Object> config) {
         boolean addStatistics = Util.toBoolean(config.getOrDefault("statistics",true));
         int timeout = Util.toInteger(config.getOrDefault("timeout",10));
@@ -78,12 +82,47 @@ public class Cypher {
         @SuppressWarnings( "unchecked" )
         Map<String,Object> parameters = (Map<String,Object>)config.getOrDefault("parameters",Collections.emptyMap());
         for (String f : fileNames) {
+            if (f.endsWith(MANIFEST_SUFFIX)) {
+                result.addAll(runManifest(f, parameters, addStatistics, timeout));
+                continue;
+            }
             List<RowResult> rowResults = runManyStatements(readerForFile(f), parameters, false, addStatistics, timeout).collect(Collectors.toList());
             result.addAll(rowResults);
         }
         return result.stream();
     }
 
+    /**
+     * Runs the groups of files listed in the manifest one after the other, the files of a group in parallel.
+     * Statements that fail with a transient error, like deadlocks of relationships to the same nodes, are retried.
+     */
+    private List<RowResult> runManifest(String manifest, Map<String, Object> params, boolean addStatistics, long timeout) {
+        List<List<String>> groups;
+        try (Reader reader = readerForFile(manifest)) {
+            groups = JsonUtil.OBJECT_MAPPER.readValue(reader, List.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading manifest " + manifest, e);
+        }
+        ExecutorService pool = Pools.pool(Pools.CYPHER);
+        List<RowResult> result = new ArrayList<>();
+        for (List<String> files : groups) {
+            List<Future<BlockingQueue<RowResult>>> futures = files.stream().map(f -> pool.submit(() -> {
+                BlockingQueue<RowResult> queue = new LinkedBlockingQueue<>();
+                runDataStatementsInTx(readerForFile(f), queue, params, addStatistics, timeout, MAX_RETRIES);
+                return queue;
+            })).collect(toList());
+            try {
+                for (Future<BlockingQueue<RowResult>> future : futures) {
+                    result.addAll(future.get());
+                }
+            } catch (Exception e) {
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException("Error running the files of " + manifest + ": " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
     @Procedure(mode=Mode.SCHEMA)
     @Description("apoc.cypher.runSchemaFile(file or url,[{statistics:true,timeout:10}]) - allows only schema operations, runs each schema statement in the file, all semicolon separated")
     public Stream<RowResult> runSchemaFile(@Name("file") String fileName, @Name(value = "config",defaultValue = "{}") Map<String,Object> config) {
@@ -118,6 +157,10 @@ public class Cypher {
     }
 
     private void runDataStatementsInTx(Reader reader, BlockingQueue<RowResult> queue, Map<String, Object> params, boolean addStatistics, long timeout) {
+        runDataStatementsInTx(reader, queue, params, addStatistics, timeout, 0);
+    }
+
+    private void runDataStatementsInTx(Reader reader, BlockingQueue<RowResult> queue, Map<String, Object> params, boolean addStatistics, long timeout, int retries) {
         Scanner scanner = new Scanner(reader);
         scanner.useDelimiter(";\r?\n");
         while (scanner.hasNext()) {
@@ -126,11 +169,28 @@ public class Cypher {
             if (!isSchemaOperation(stmt)) {
                 if (isPeriodicOperation(stmt))
                     Util.inThread(() -> executeStatement(queue, stmt, params, addStatistics,timeout));
-                else Util.inTx(db, () -> executeStatement(queue, stmt, params, addStatistics,timeout));
+                else {
+                    for (int retry = 0; ; retry++) {
+                        try {
+                            Util.inTx(db, () -> executeStatement(queue, stmt, params, addStatistics,timeout));
+                            break;
+                        } catch (RuntimeException e) {
+                            if (retry >= retries || !isTransient(e)) throw e;
+                        }
+                    }
+                }
             }
         }
     }
 
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientFailureException) return true;
+            if (cause instanceof QueryExecutionException && ((QueryExecutionException) cause).getStatusCode().startsWith("Neo.TransientError")) return true;
+        }
+        return false;
+    }
+
     private void runSchemaStatementsInTx(Reader reader, BlockingQueue<RowResult> queue, Map<String, Object> params, boolean addStatistics, long timeout) {
         Scanner scanner = new Scanner(reader);
         scanner.useDelimiter(";\r?\n");
@@ -221,9 +281,11 @@ public class Cypher {
     }
 
     public static String withParamMapping(String fragment, Collection<String> keys) {
-        if (keys.isEmpty()) return fragment;
-        String declaration = " WITH " + join(", ", keys.stream().map(s -> format(" {`%s`} as `%s` ", s, s)).collect(toList()));
-        return declaration + fragment;
+        if (keys.isEmpty() || fragment == null) return fragment;
+        return StatementCache.computeIfAbsent("withParamMapping", fragment, keys, () -> {
+            String declaration = " WITH " + join(", ", keys.stream().map(s -> format(" {`%s`} as `%s` ", s, s)).collect(toList()));
+            return declaration + fragment;
+        });
     }
 
     public static String compiled(String fragment) {
@@ -261,11 +323,17 @@ public class Cypher {
         */
     }
 
+    @Procedure
+    @Description("apoc.cypher.statementCache() yield size, maxSize, hits, misses, evictions, plans - statistics of the shared cache of rewritten and planned statements")
+    public Stream<MapResult> statementCache() {
+        return Stream.of(new MapResult(StatementCache.stats()));
+    }
+
     @Procedure
     @Description("apoc.cypher.mapParallel(fragment, params, list-to-parallelize) yield value - executes fragment in parallel batches with the list segments being assigned to _")
     public Stream<MapResult> mapParallel(@Name("fragment") String fragment, @Name("params") Map<String, Object> params, @Name("list") List<Object> data) {
         final String statement = withParamsAndIterator(fragment, params.keySet(), "_");
-        db.execute("EXPLAIN " + statement).close();
+        StatementCache.plan(db, statement);
         return Util.partitionSubList(data, PARTITIONS,null)
                 .flatMap((partition) -> Iterators.addToCollection(db.execute(statement, parallelParams(params, "_", partition)),
                         new ArrayList<>(partition.size())).stream())
@@ -275,7 +343,7 @@ public class Cypher {
     @Description("apoc.cypher.mapParallel2(fragment, params, list-to-parallelize) yield value - executes fragment in parallel batches with the list segments being assigned to _")
     public Stream<MapResult> mapParallel2(@Name("fragment") String fragment, @Name("params") Map<String, Object> params, @Name("list") List<Object> data, @Name("partitions") long partitions,@Name(value = "timeout",defaultValue = "10") long timeout) {
         final String statement = withParamsAndIterator(fragment, params.keySet(), "_");
-        db.execute("EXPLAIN " + statement).close();
+        StatementCache.plan(db, statement);
         BlockingQueue<RowResult> queue = new ArrayBlockingQueue<>(100000);
         Stream<List<Object>> parallelPartitions = Util.partitionSubList(data, (int)(partitions <= 0 ? PARTITIONS : partitions), null);
         Util.inFuture(() -> {
@@ -327,7 +395,7 @@ public class Cypher {
             throw new RuntimeException("Can't parallelize a non collection " + key + " : " + value);
 
         final String statement = withParamsAndIterator(fragment, params.keySet(), key);
-        db.execute("EXPLAIN " + statement).close();
+        StatementCache.plan(db, statement);
         Collection<Object> coll = (Collection<Object>) value;
         int total = coll.size();
         int partitions = PARTITIONS;
@@ -362,13 +430,15 @@ public class Cypher {
     public static String withParamsAndIterator(String fragment, Collection<String> params, String iterator) {
         boolean noIterator = iterator == null || iterator.isEmpty();
         if (params.isEmpty() && noIterator) return fragment;
-        String with = Util.withMapping(params.stream().filter((c) -> noIterator || !c.equals(iterator)), (c) -> param(c) + " AS " + quote(c));
-        if (noIterator) return with + fragment;
-        return with + " UNWIND " + param(iterator) + " AS " + quote(iterator) + ' ' + fragment;
+        return StatementCache.computeIfAbsent("withParamsAndIterator:" + (noIterator ? "" : iterator), fragment, params, () -> {
+            String with = Util.withMapping(params.stream().filter((c) -> noIterator || !c.equals(iterator)), (c) -> param(c) + " AS " + quote(c));
+            if (noIterator) return with + fragment;
+            return with + " UNWIND " + param(iterator) + " AS " + quote(iterator) + ' ' + fragment;
+        });
     }
 
     private Future<List<Map<String, Object>>> submit(GraphDatabaseService db, String statement, Map<String, Object> params, String key, List<Object> partition) {
-        return POOL.submit(() -> Iterators.addToCollection(db.execute(statement, parallelParams(params, key, partition)), new ArrayList<>(partition.size())));
+        return Pools.pool(Pools.CYPHER).submit(() -> Iterators.addToCollection(db.execute(statement, parallelParams(params, key, partition)), new ArrayList<>(partition.size())));
     }
 
     private static Collection asCollection(Object value) {
@@ -0,0 +1,119 @@
+package apoc.cypher;
+
+import apoc.ApocConfiguration;
+import apoc.util.Util;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shared registry for statements that APOC rewrites before running them repeatedly, e.g. in apoc.periodic.iterate,
+ * apoc.cypher.run/parallel/mapParallel and apoc.cypher.runFirstColumn.
+ *
+ * Entries are keyed by the kind of rewrite, the original statement and the parameter / column names (the parameter shape),
+ * so the regex based rewriting and the EXPLAIN used to plan a statement up-front only happen once per key.
+ * Lookups don't lock, so the parallel workers of apoc.periodic.iterate and apoc.cypher.mapParallel don't serialize on the cache.
+ * When it grows beyond `apoc.cypher.statement.cache.size` (default 1000) entries arbitrary entries are evicted.
+ */
+public class StatementCache {
+    static final String CONFIG_STATEMENT_CACHE_SIZE = "cypher.statement.cache.size";
+    public static final int DEFAULT_SIZE = 1000;
+
+    private static final String PLAN = "plan";
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final AtomicLong evictions = new AtomicLong();
+    private static final AtomicLong plans = new AtomicLong();
+
+    private static final ConcurrentMap<Key, Object> cache = new ConcurrentHashMap<>();
+
+    private StatementCache() {
+        throw new UnsupportedOperationException();
+    }
+
+    private static int maxSize() {
+        Integer size = Util.toInteger(ApocConfiguration.get(CONFIG_STATEMENT_CACHE_SIZE, DEFAULT_SIZE));
+        return size == null ? DEFAULT_SIZE : Math.max(1, size);
+    }
+
+    /**
+     * returns the cached value for the kind, statement and parameter names or computes and caches it with the loader.
+     * The loader runs without a lock, so concurrent misses for the same key might compute it more than once.
+     */
+    public static <T> T computeIfAbsent(String kind, String statement, Collection<String> names, Supplier<T> loader) {
+        Key key = new Key(kind, statement, names);
+        Object value = cache.get(key);
+        if (value != null) {
+            hits.increment();
+            return (T) value;
+        }
+        misses.increment();
+        T computed = loader.get();
+        cache.put(key, computed);
+        evict();
+        return computed;
+    }
+
+    private static void evict() {
+        int maxSize = maxSize();
+        Iterator<Key> it = cache.keySet().iterator();
+        while (cache.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * plans (and validates) the statement with EXPLAIN, only if it was not planned before.
+     */
+    public static void plan(GraphDatabaseService db, String statement) {
+        computeIfAbsent(PLAN, statement, Collections.emptyList(), () -> {
+            db.execute("EXPLAIN " + statement).close();
+            plans.incrementAndGet();
+            return Boolean.TRUE;
+        });
+    }
+
+    public static void clear() {
+        cache.clear();
+    }
+
+    public static Map<String, Object> stats() {
+        return Util.map("size", (long) cache.size(), "maxSize", (long) maxSize(), "hits", hits.sum(), "misses", misses.sum(),
+                "evictions", evictions.get(), "plans", plans.get());
+    }
+
+    private static class Key {
+        private final String kind;
+        private final String statement;
+        private final List<String> names;
+        private final int hash;
+
+        Key(String kind, String statement, Collection<String> names) {
+            this.kind = kind;
+            this.statement = statement;
+            this.names = names.isEmpty() ? Collections.emptyList() : new ArrayList<>(names);
+            this.hash = Objects.hash(kind, statement, this.names);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash && kind.equals(key.kind) && statement.equals(key.statement) && names.equals(key.names);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -14,19 +14,20 @@ import java.util.regex.Pattern;
 public class Extract {
 
     public static final Pattern DOMAIN = Pattern.compile("([\\w-]+\\.[\\w-]+)+(\\w+)");
+    private static final Pattern SEPARATORS = Pattern.compile("[@/<>]");
 
     @UserFunction
     @Description("apoc.data.domain('url_or_email_address') YIELD domain - extract the domain name from a url or an email address. If nothing was found, yield null.")
     public String domain(final @Name("url_or_email_address") String value) {
         if (value != null) {
             if (value.contains("@")) {
-                String[] tokens = value.split("[@/<>]");
+                String[] tokens = SEPARATORS.split(value);
                 for (int i = tokens.length - 1; i >= 0; i--) {
                     String token = tokens[i];
                     if (DOMAIN.matcher(token).matches()) return token;
                 }
             } else {
-                for (String part : value.split("[@/<>]")) {
+                for (String part : SEPARATORS.split(value)) {
                     if (DOMAIN.matcher(part).matches()) return part;
                 }
             }
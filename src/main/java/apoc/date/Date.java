@@ -1,9 +1,14 @@
 package apoc.date;
 
+import apoc.ttl.TTLExpiry;
 import apoc.util.DateFormatUtil;
 import apoc.util.Util;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.index.lucene.ValueContext;
 import org.neo4j.procedure.*;
 
 import java.text.DateFormat;
@@ -30,6 +35,9 @@ import static java.time.temporal.ChronoField.*;
  * @since 9.04.2016
  */
 public class Date {
+	@Context
+	public GraphDatabaseService db;
+
 	public static final String DEFAULT_FORMAT = "yyyy-MM-dd HH:mm:ss";
 	private static final int MILLIS_IN_SECOND = 1000;
 	private static final String UTC_ZONE_ID = "UTC";
@@ -77,6 +85,25 @@ public class Date {
 		node.setProperty("ttl",System.currentTimeMillis() + unit(timeUnit).toMillis(time));
 	}
 
+	@Procedure(mode = Mode.WRITE)
+	@Description("CALL apoc.date.expireRelationship(rel,time,'time-unit') - expire relationship at given time by setting the `ttl` property and adding it to the TTL relationship index")
+	public void expireRelationship(@Name("relationship") Relationship rel, @Name("time") long time, @Name("timeUnit") String timeUnit) {
+		expireRelationship(rel, unit(timeUnit).toMillis(time));
+	}
+
+	@Procedure(mode = Mode.WRITE)
+	@Description("CALL apoc.date.expireRelationshipIn(rel,time,'time-unit') - expire relationship in given time-delta by setting the `ttl` property and adding it to the TTL relationship index")
+	public void expireRelationshipIn(@Name("relationship") Relationship rel, @Name("timeDelta") long time, @Name("timeUnit") String timeUnit) {
+		expireRelationship(rel, System.currentTimeMillis() + unit(timeUnit).toMillis(time));
+	}
+
+	private void expireRelationship(Relationship rel, long ttl) {
+		Index<Relationship> index = db.index().forRelationships(TTLExpiry.TTL_RELATIONSHIP_INDEX);
+		index.remove(rel, TTLExpiry.TTL_PROPERTY);
+		rel.setProperty(TTLExpiry.TTL_PROPERTY, ttl);
+		index.add(rel, TTLExpiry.TTL_PROPERTY, ValueContext.numeric(ttl));
+	}
+
 	@UserFunction
 	@Description("apoc.date.fields('2012-12-23',('yyyy-MM-dd')) - return columns and a map representation of date parsed with the given format with entries for years,months,weekdays,days,hours,minutes,seconds,zoneid")
 	public Map<String,Object> fields(final @Name("date") String date, final @Name(value = "pattern", defaultValue = DEFAULT_FORMAT) String pattern) {
@@ -4,17 +4,33 @@ import org.apache.commons.lang3.StringUtils;
 import org.neo4j.procedure.Description;
 import apoc.load.LoadJson;
 import apoc.result.MapResult;
+import apoc.util.JsonUtil;
 import apoc.util.UrlResolver;
 import apoc.util.Util;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static apoc.util.MapUtil.map;
 
@@ -34,6 +50,8 @@ public class ElasticSearch {
      */
     private final static Pattern KEY_VALUE = Pattern.compile("(.*)(:|=)(.*)");
 
+    private final static List<String> BULK_ACTIONS = Arrays.asList("index", "create", "update", "delete");
+
     protected String getElasticSearchUrl(String hostOrKey) {
         return new UrlResolver("http", "localhost", 9200).getUrl("es", hostOrKey);
     }
@@ -185,4 +203,249 @@ public class ElasticSearch {
         }
         return LoadJson.loadJsonStream(getQueryUrl(hostOrKey, index, type, id, query), map("method", "PUT","content-type",contentType(payload)), toPayload(payload));
     }
+
+    @Procedure
+    @Description("apoc.es.bulk(host-or-port,index-or-null,type-or-null,documents,config) yield value - index, create, update or delete the documents with _bulk requests of batchSize documents, returns the result and the failed items of each request")
+    public Stream<MapResult> bulk(@Name("host") String hostOrKey, @Name("index") String index, @Name("type") String type, @Name("documents") List<Map<String, Object>> documents, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        if (documents == null || documents.isEmpty()) return Stream.empty();
+        int batchSize = Util.toInteger(config.getOrDefault("batchSize", 1000));
+        if (batchSize < 1) throw new RuntimeException("batchSize must be positive but was " + batchSize);
+        String action = config.getOrDefault("action", "index").toString();
+        if (!BULK_ACTIONS.contains(action)) throw new RuntimeException("Unknown bulk action " + action + ", supported are " + BULK_ACTIONS);
+        String idKey = (String) config.get("idKey");
+        if (idKey == null && ("update".equals(action) || "delete".equals(action))) throw new RuntimeException("The bulk action " + action + " needs the idKey of the documents");
+        boolean upsert = Util.toBoolean(config.get("upsert"));
+
+        String url = getElasticSearchUrl(hostOrKey) + (index == null ? "" : "/" + index + (type == null ? "" : "/" + type)) + "/_bulk";
+        String params = toQueryParams(config.get("query"));
+        String bulkUrl = params.isEmpty() ? url : url + "?" + params;
+        int batches = (documents.size() + batchSize - 1) / batchSize;
+        // all batches are sent before returning, a consumer that stops early must not leave documents unindexed
+        List<MapResult> results = new ArrayList<>(batches);
+        for (int batch = 0; batch < batches; batch++) {
+            int from = batch * batchSize;
+            List<Map<String, Object>> batchDocuments = documents.subList(from, Math.min(from + batchSize, documents.size()));
+            Map<String, Object> response = request(bulkUrl, "POST", "application/x-ndjson",
+                    out -> writeBulk(out, batchDocuments, action, idKey, upsert));
+            results.add(new MapResult(bulkResult(batch, from, batchDocuments.size(), response)));
+        }
+        return results.stream();
+    }
+
+    private void writeBulk(OutputStream out, List<Map<String, Object>> documents, String action, String idKey, boolean upsert) throws IOException {
+        for (Map<String, Object> document : documents) {
+            Map<String, Object> meta = new HashMap<>();
+            Object id = idKey == null ? null : document.get(idKey);
+            if (id != null) meta.put("_id", id.toString());
+            writeLine(out, Collections.singletonMap(action, meta));
+            switch (action) {
+                case "delete":
+                    break;
+                case "update":
+                    Map<String, Object> update = new LinkedHashMap<>();
+                    update.put("doc", document);
+                    if (upsert) update.put("doc_as_upsert", true);
+                    writeLine(out, update);
+                    break;
+                default:
+                    writeLine(out, document);
+            }
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(JsonUtil.OBJECT_MAPPER.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    /**
+     * @param offset the position of the first document of the batch in the documents of the call
+     * @return the summary of the bulk response with the failed items and their positions
+     */
+    private Map<String, Object> bulkResult(int batch, int offset, int size, Map<String, Object> response) {
+        List<Map<String, Object>> failed = new ArrayList<>();
+        if (Util.toBoolean(response.get("errors"))) {
+            List<Map<String, Map<String, Object>>> items = (List<Map<String, Map<String, Object>>>) response.getOrDefault("items", Collections.emptyList());
+            for (int i = 0; i < items.size(); i++) {
+                Map<String, Object> item = items.get(i).values().iterator().next();
+                if (item.get("error") == null) continue;
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("item", (long) (offset + i));
+                error.put("id", item.get("_id"));
+                error.put("status", item.get("status"));
+                error.put("error", item.get("error"));
+                failed.add(error);
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("batch", (long) batch);
+        result.put("took", response.get("took"));
+        result.put("items", (long) size);
+        result.put("errors", (long) failed.size());
+        result.put("failed", failed);
+        return result;
+    }
+
+    @Procedure
+    @Description("apoc.es.scroll(host-or-port,index-or-null,type-or-null,query-or-null,payload-or-null,config) yield value - lazily returns all hits of a SEARCH operation, fetching batchSize hits per request with scroll or search_after")
+    public Stream<MapResult> scroll(@Name("host") String hostOrKey, @Name("index") String index, @Name("type") String type, @Name("query") Object query, @Name("payload") Object payload, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        Map<String, Object> search = new LinkedHashMap<>(toPayloadMap(payload));
+        search.putIfAbsent("size", Util.toLong(config.getOrDefault("batchSize", 1000)));
+        boolean searchAfter = Util.toBoolean(config.get("searchAfter"));
+        if (searchAfter && search.get("sort") == null) throw new RuntimeException("search_after needs a sort with a unique tiebreaker in the payload");
+        String keepAlive = config.getOrDefault("scroll", "1m").toString();
+
+        String params = toQueryParams(query);
+        if (!searchAfter) params = params.isEmpty() ? "scroll=" + keepAlive : params + "&scroll=" + keepAlive;
+        String searchUrl = getSearchQueryUrl(hostOrKey, index, type, null) + (params.isEmpty() ? "" : "?" + params);
+        Hits hits = searchAfter ? new SearchAfterHits(searchUrl, search) : new ScrollHits(getElasticSearchUrl(hostOrKey), searchUrl, search, keepAlive);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(hits, Spliterator.ORDERED), false)
+                .map(MapResult::new)
+                .onClose(hits::close);
+    }
+
+    private Map<String, Object> toPayloadMap(Object payload) {
+        if (payload == null) return Collections.emptyMap();
+        if (payload instanceof Map) return (Map<String, Object>) payload;
+        return JsonUtil.parse(payload.toString(), null, Map.class);
+    }
+
+    /**
+     * hits of consecutive search requests, the next request is sent when the hits of the previous one are consumed
+     */
+    private abstract class Hits implements Iterator<Map<String, Object>>, AutoCloseable {
+        private Iterator<Map<String, Object>> current = Collections.emptyIterator();
+        private Map<String, Object> response;
+        private boolean exhausted;
+
+        /**
+         * @param previousResponse the response of the previous request, null for the first one
+         * @return the hits of the next page, empty when there are no more
+         */
+        abstract List<Map<String, Object>> fetch(Map<String, Object> previousResponse);
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !exhausted) {
+                List<Map<String, Object>> page = fetch(response);
+                if (page.isEmpty()) {
+                    exhausted = true;
+                    close();
+                }
+                current = page.iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        List<Map<String, Object>> hits(Map<String, Object> response) {
+            this.response = response;
+            Map<String, Object> hits = (Map<String, Object>) response.getOrDefault("hits", Collections.emptyMap());
+            return (List<Map<String, Object>>) hits.getOrDefault("hits", Collections.emptyList());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private class ScrollHits extends Hits {
+        private final String baseUrl;
+        private final String searchUrl;
+        private final Map<String, Object> search;
+        private final String keepAlive;
+        private String scrollId;
+
+        ScrollHits(String baseUrl, String searchUrl, Map<String, Object> search, String keepAlive) {
+            this.baseUrl = baseUrl;
+            this.searchUrl = searchUrl;
+            this.search = search;
+            this.keepAlive = keepAlive;
+        }
+
+        @Override
+        List<Map<String, Object>> fetch(Map<String, Object> previousResponse) {
+            Map<String, Object> response = previousResponse == null
+                    ? request(searchUrl, "POST", "application/json", out -> out.write(JsonUtil.OBJECT_MAPPER.writeValueAsBytes(search)))
+                    : request(baseUrl + "/_search/scroll", "POST", "application/json", out -> out.write(JsonUtil.OBJECT_MAPPER.writeValueAsBytes(Util.map("scroll", keepAlive, "scroll_id", scrollId))));
+            Object id = response.get("_scroll_id");
+            if (id != null) scrollId = id.toString();
+            return hits(response);
+        }
+
+        // frees the search context without waiting for the keep alive to expire
+        @Override
+        public void close() {
+            if (scrollId == null) return;
+            String id = scrollId;
+            scrollId = null;
+            try {
+                request(baseUrl + "/_search/scroll/" + Util.encodeUrlComponent(id), "DELETE", "application/json", null);
+            } catch (Exception e) {
+                // the search context expires after the keep alive
+            }
+        }
+    }
+
+    private class SearchAfterHits extends Hits {
+        private final String searchUrl;
+        private final Map<String, Object> search;
+        private final long size;
+
+        SearchAfterHits(String searchUrl, Map<String, Object> search) {
+            this.searchUrl = searchUrl;
+            this.search = search;
+            this.size = Util.toLong(search.get("size"));
+        }
+
+        @Override
+        List<Map<String, Object>> fetch(Map<String, Object> previousResponse) {
+            List<Map<String, Object>> hits = previousResponse == null ? Collections.emptyList() : hits(previousResponse);
+            if (previousResponse != null) {
+                // a page with less hits than requested is the last one
+                if (hits.size() < size) return Collections.emptyList();
+                search.put("search_after", hits.get(hits.size() - 1).get("sort"));
+            }
+            return hits(request(searchUrl, "POST", "application/json", out -> out.write(JsonUtil.OBJECT_MAPPER.writeValueAsBytes(search))));
+        }
+    }
+
+    private interface Payload {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Sends the request and reads the whole json response, so that the connection is kept alive for the next request to the same host.
+     * The payload is streamed to the connection in chunks.
+     */
+    private Map<String, Object> request(String url, String method, String contentType, Payload payload) {
+        Map<String, Object> headers = new HashMap<>(LoadJson.extractCredentialsIfNeeded(url, true));
+        headers.put("content-type", contentType);
+        try {
+            HttpURLConnection con = (HttpURLConnection) Util.openUrlConnection(url, headers);
+            con.setRequestMethod(method);
+            if (payload != null) {
+                con.setChunkedStreamingMode(1024 * 1024);
+                con.setDoOutput(true);
+                try (OutputStream out = new BufferedOutputStream(con.getOutputStream(), 64 * 1024)) {
+                    payload.write(out);
+                }
+            }
+            int status = con.getResponseCode();
+            try (InputStream input = status >= 400 ? con.getErrorStream() : con.getInputStream()) {
+                Map<String, Object> response = input == null ? Collections.emptyMap() : JsonUtil.OBJECT_MAPPER.readValue(input, Map.class);
+                if (status >= 400) throw new RuntimeException("Elasticsearch request " + method + " " + Util.cleanUrl(url) + " failed with status " + status + ": " + Util.toJson(response));
+                return response;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Elasticsearch request " + method + " " + Util.cleanUrl(url) + " failed: " + e.getMessage(), e);
+        }
+    }
 }
@@ -1,6 +1,6 @@
 package apoc.export.csv;
 
-import apoc.export.util.BatchTransaction;
+import apoc.Pools;
 import apoc.export.util.CountingReader;
 import apoc.export.util.ProgressReporter;
 import apoc.load.LoadCsv;
@@ -12,21 +12,29 @@ import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransientFailureException;
 
 import java.io.IOException;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.Arrays;
 
 public class CsvEntityLoader {
 
+    private static final int RETRIES = 5;
+
     private final CsvLoaderConfig clc;
     private final ProgressReporter reporter;
 
@@ -51,7 +59,7 @@ public class CsvEntityLoader {
      * @throws IOException
      */
     public void loadNodes(final String fileName, final List<String> labels, final GraphDatabaseService db,
-                          final Map<String, Map<String, Long>> idMapping) throws IOException {
+                          final Map<String, IdMapping> idMapping) throws IOException {
         final CountingReader reader = FileUtils.readerFor(fileName);
         final String header = readFirstLine(reader);
         reader.skip(clc.getSkipLines() - 1);
@@ -64,62 +72,47 @@ public class CsvEntityLoader {
         final Optional<String> idAttribute = idField.isPresent() ? Optional.of(idField.get().getName()) : Optional.empty();
         final String idSpace = idField.isPresent() ? idField.get().getIdSpace() : CsvLoaderConstants.DEFAULT_IDSPACE;
 
-        idMapping.putIfAbsent(idSpace, new HashMap<>());
-        final Map<String, Long> idspaceIdMapping = idMapping.get(idSpace);
+        final IdMapping idspaceIdMapping = idMapping.computeIfAbsent(idSpace, k -> new IdMapping(clc.getStringIds()));
 
-        final Map<String, LoadCsv.Mapping> mapping = fields.stream().collect(
-                Collectors.toMap(
-                        CsvHeaderField::getName,
-                        f -> {
-                            final Map<String, Object> mappingMap = Collections
-                                    .unmodifiableMap(Stream.of(
-                                            new AbstractMap.SimpleEntry<>("type", f.getType()),
-                                            new AbstractMap.SimpleEntry<>("array", f.isArray())
-                                    ).collect(Collectors.toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue)));
-                            return new LoadCsv.Mapping(f.getName(), mappingMap, clc.getArrayDelimiter(), false);
-                        }
-                )
-        );
+        final Map<String, LoadCsv.Mapping> mapping = mapping(fields);
 
         final CSVReader csv = new CSVReader(reader, clc.getDelimiter(), clc.getQuotationCharacter());
 
         final String[] loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
-        int lineNo = 0;
-        try (BatchTransaction tx = new BatchTransaction(db, clc.getBatchSize(), reporter)) {
-            for (String[] line : csv.readAll()) {
-                lineNo++;
+        final Label[] nodeLabels = labels.stream().map(Label::label).toArray(Label[]::new);
+        loadInBatches(csv, false, (lines, firstLineNo) -> {
+            long nodes = 0, props = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                final String[] line = lines.get(i);
+                final long lineNo = firstLineNo + i;
 
                 final EnumSet<LoadCsvConfig.Results> results = EnumSet.of(LoadCsvConfig.Results.map);
                 final LoadCsv.CSVResult result = new LoadCsv.CSVResult(
                         loadCsvCompatibleHeader, line, lineNo, false, mapping, Collections.emptyList(), results
                 );
 
-                final String nodeCsvId = result.map.get(idAttribute.get()).toString();
-
                 // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the current id,
                 // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
-                if (idField.isPresent() && idspaceIdMapping.containsKey(nodeCsvId)) {
-                    if (clc.getIgnoreDuplicateNodes()) {
-                        continue;
-                    } else {
-                        throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line "+lineNo+"\n"
-                                                        +Arrays.toString(line));
+                String nodeCsvId = null;
+                if (idAttribute.isPresent()) {
+                    nodeCsvId = result.map.get(idAttribute.get()).toString();
+                    if (idspaceIdMapping.putIfAbsent(nodeCsvId, IdMapping.PENDING) != -1L) {
+                        if (clc.getIgnoreDuplicateNodes()) {
+                            continue;
+                        } else {
+                            throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line "+lineNo+"\n"
+                                                            +Arrays.toString(line));
+                        }
                     }
                 }
 
                 // create node and add its id to the mapping
-                final Node node = db.createNode();
-                if (idField.isPresent()) {
+                final Node node = db.createNode(nodeLabels);
+                if (idAttribute.isPresent()) {
                     idspaceIdMapping.put(nodeCsvId, node.getId());
                 }
 
-                // add labels
-                for (String label : labels) {
-                    node.addLabel(Label.label(label));
-                }
-
                 // add properties
-                int props = 0;
                 for (CsvHeaderField field : fields) {
                     final String name = field.getName();
                     Object value = result.map.get(name);
@@ -143,9 +136,12 @@ public class CsvEntityLoader {
                         props += propertyAdded ? 1 : 0;
                     }
                 }
-                reporter.update(1, 0, props++);
+                nodes++;
             }
-        }
+            synchronized (reporter) {
+                reporter.update(nodes, 0, props);
+            }
+        }, db);
     }
 
     /**
@@ -161,7 +157,7 @@ public class CsvEntityLoader {
      */
     public void loadRelationships(
             final String fileName, final String type, final GraphDatabaseService db,
-            final Map<String, Map<String, Long>> idMapping) throws IOException {
+            final Map<String, IdMapping> idMapping) throws IOException {
         final CountingReader reader = FileUtils.readerFor(fileName);
         final String header = readFirstLine(reader);
         final List<CsvHeaderField> fields = CsvHeaderFields.processHeader(header, clc.getDelimiter(), clc.getQuotationCharacter());
@@ -179,47 +175,36 @@ public class CsvEntityLoader {
                 .filter(field -> !CsvLoaderConstants.END_ID_FIELD.equals(field.getType()))
                 .collect(Collectors.toList());
 
-        final Map<String, LoadCsv.Mapping> mapping = fields.stream().collect(
-                Collectors.toMap(
-                        CsvHeaderField::getName,
-                        f -> {
-                            final Map<String, Object> mappingMap = Collections
-                                    .unmodifiableMap(Stream.of(
-                                            new AbstractMap.SimpleEntry<>("type", f.getType()),
-                                            new AbstractMap.SimpleEntry<>("array", f.isArray())
-                                    ).collect(Collectors.toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue)));
-
-                            return new LoadCsv.Mapping(f.getName(), mappingMap, clc.getArrayDelimiter(), false);
-                        }
-                )
-        );
+        final Map<String, LoadCsv.Mapping> mapping = mapping(fields);
 
         final CSVReader csv = new CSVReader(reader, clc.getDelimiter());
         final String[] loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
 
-        int lineNo = 0;
-        try (BatchTransaction tx = new BatchTransaction(db, clc.getBatchSize(), reporter)) {
-            for (String[] line : csv.readAll()) {
-                lineNo++;
+        final IdMapping startIdMapping = idMapping.get(startIdField.getIdSpace());
+        final IdMapping endIdMapping = idMapping.get(endIdField.getIdSpace());
+        loadInBatches(csv, true, (lines, firstLineNo) -> {
+            long rels = 0, props = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                final long lineNo = firstLineNo + i;
 
                 final EnumSet<LoadCsvConfig.Results> results = EnumSet.of(LoadCsvConfig.Results.map);
                 final LoadCsv.CSVResult result = new LoadCsv.CSVResult(
-                        loadCsvCompatibleHeader, line, lineNo, false, mapping, Collections.emptyList(), results
+                        loadCsvCompatibleHeader, lines.get(i), lineNo, false, mapping, Collections.emptyList(), results
                 );
 
                 final Object startId = result.map.get(CsvLoaderConstants.START_ID_ATTR);
-                final Object startInternalId = idMapping.get(startIdField.getIdSpace()).get(startId);
-                if (startInternalId == null) {
-                    throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + startId + " not found");
+                final long startInternalId = startIdMapping == null || startId == null ? -1L : startIdMapping.get(startId.toString());
+                if (startInternalId < 0) {
+                    throw new IllegalStateException("Node for id space " + startIdField.getIdSpace() + " and id " + startId + " not found");
                 }
-                final Node source = db.getNodeById((long) startInternalId);
+                final Node source = db.getNodeById(startInternalId);
 
                 final Object endId = result.map.get(CsvLoaderConstants.END_ID_ATTR);
-                final Object endInternalId = idMapping.get(endIdField.getIdSpace()).get(endId);
-                if (endInternalId == null) {
+                final long endInternalId = endIdMapping == null || endId == null ? -1L : endIdMapping.get(endId.toString());
+                if (endInternalId < 0) {
                     throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + endId + " not found");
                 }
-                final Node target = db.getNodeById((long) endInternalId);
+                final Node target = db.getNodeById(endInternalId);
 
                 final String currentType;
                 final Object overridingType = result.map.get(CsvLoaderConstants.TYPE_ATTR);
@@ -231,15 +216,120 @@ public class CsvEntityLoader {
                 final Relationship rel = source.createRelationshipTo(target, RelationshipType.withName(currentType));
 
                 // add properties
-                int props = 0;
                 for (CsvHeaderField field : edgePropertiesFields) {
                     final String name = field.getName();
                     Object value = result.map.get(name);
                     boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(rel, field, value);
                     props += propertyAdded ? 1 : 0;
                 }
-                reporter.update(0, 1, props);
+                rels++;
+            }
+            synchronized (reporter) {
+                reporter.update(0, rels, props);
+            }
+        }, db);
+    }
+
+    private Map<String, LoadCsv.Mapping> mapping(List<CsvHeaderField> fields) {
+        return fields.stream().collect(
+                Collectors.toMap(
+                        CsvHeaderField::getName,
+                        f -> {
+                            final Map<String, Object> mappingMap = Collections
+                                    .unmodifiableMap(Stream.of(
+                                            new AbstractMap.SimpleEntry<>("type", f.getType()),
+                                            new AbstractMap.SimpleEntry<>("array", f.isArray())
+                                    ).collect(Collectors.toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue)));
+
+                            return new LoadCsv.Mapping(f.getName(), mappingMap, clc.getArrayDelimiter(), false);
+                        }
+                )
+        );
+    }
+
+    private interface BatchLoader {
+        void load(List<String[]> lines, long firstLineNo);
+    }
+
+    /**
+     * Streams the lines of the CSV file in batches of {@code batchSize} lines. By default they are written one after
+     * the other in the transaction of the caller, with {@code parallel} they are converted and written concurrently
+     * by the batch pool, each in its own transaction, so a failed import leaves the committed batches behind.
+     * Parallel relationship batches are retried on transient errors (deadlocks on the locks of their nodes), node batches
+     * are not, as they reserve their ids in the id mapping.
+     */
+    private void loadInBatches(CSVReader csv, boolean retry, BatchLoader loader, GraphDatabaseService db) throws IOException {
+        if (!clc.getParallel()) {
+            List<String[]> batch = new ArrayList<>(clc.getBatchSize());
+            long lineNo = 0;
+            String[] line;
+            while ((line = csv.readNext()) != null) {
+                batch.add(line);
+                if (batch.size() >= clc.getBatchSize()) {
+                    loader.load(batch, lineNo + 1);
+                    lineNo += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                loader.load(batch, lineNo + 1);
+            }
+            return;
+        }
+        final ExecutorService pool = Pools.pool(Pools.BATCH);
+        final List<Future<Void>> futures = new ArrayList<>();
+        List<String[]> batch = new ArrayList<>(clc.getBatchSize());
+        long lineNo = 0;
+        try {
+            String[] line;
+            while ((line = csv.readNext()) != null) {
+                batch.add(line);
+                if (batch.size() >= clc.getBatchSize()) {
+                    futures.add(submit(pool, db, retry, loader, batch, lineNo + 1));
+                    lineNo += batch.size();
+                    batch = new ArrayList<>(clc.getBatchSize());
+                    removeDone(futures, false);
+                }
+            }
+            if (!batch.isEmpty()) {
+                futures.add(submit(pool, db, retry, loader, batch, lineNo + 1));
+            }
+            removeDone(futures, true);
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private Future<Void> submit(ExecutorService pool, GraphDatabaseService db, boolean retry, BatchLoader loader, List<String[]> lines, long firstLineNo) {
+        return pool.submit(() -> {
+            for (int attempt = 1; ; attempt++) {
+                try (Transaction tx = db.beginTx()) {
+                    loader.load(lines, firstLineNo);
+                    tx.success();
+                    return null;
+                } catch (TransientFailureException e) {
+                    if (!retry || attempt >= RETRIES) throw e;
+                    Thread.sleep(attempt * 10L);
+                }
+            }
+        });
+    }
+
+    private static void removeDone(List<Future<Void>> futures, boolean wait) {
+        Iterator<Future<Void>> it = futures.iterator();
+        while (it.hasNext()) {
+            Future<Void> future = it.next();
+            if (!wait && !future.isDone()) continue;
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while loading CSV", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new RuntimeException(e.getCause());
             }
+            it.remove();
         }
     }
 
@@ -15,6 +15,7 @@ public class CsvLoaderConfig {
     public static final String SKIP_LINES = "skipLines";
     public static final String BATCH_SIZE = "batchSize";
     public static final String IGNORE_DUPLICATE_NODES = "ignoreDuplicateNodes";
+    public static final String PARALLEL = "parallel";
 
     public static char DELIMITER_DEFAULT = ',';
     public static char ARRAY_DELIMITER_DEFAULT = ';';
@@ -23,6 +24,7 @@ public class CsvLoaderConfig {
     public static int SKIP_LINES_DEFAULT = 1;
     public static int BATCH_SIZE_DEFAULT = 2000;
     public static boolean IGNORE_DUPLICATE_NODES_DEFAULT = false;
+    public static boolean PARALLEL_DEFAULT = false;
 
     private final char delimiter;
     private final char arrayDelimiter;
@@ -31,6 +33,7 @@ public class CsvLoaderConfig {
     private final int skipLines;
     private final int batchSize;
     private final boolean ignoreDuplicateNodes;
+    private final boolean parallel;
 
     private CsvLoaderConfig(Builder builder) {
         this.delimiter = builder.delimiter;
@@ -40,6 +43,7 @@ public class CsvLoaderConfig {
         this.skipLines = builder.skipLines;
         this.batchSize = builder.batchSize;
         this.ignoreDuplicateNodes = builder.ignoreDuplicateNodes;
+        this.parallel = builder.parallel;
     }
 
     public char getDelimiter() {
@@ -68,6 +72,13 @@ public class CsvLoaderConfig {
 
     public boolean getIgnoreDuplicateNodes() { return ignoreDuplicateNodes; }
 
+    /**
+     * @return true to write the batches concurrently, each in its own transaction, false for a single transaction
+     */
+    public boolean getParallel() {
+        return parallel;
+    }
+
     /**
      * Creates builder to build {@link CsvLoaderConfig}.
      *
@@ -102,6 +113,7 @@ public class CsvLoaderConfig {
         if (config.get(SKIP_LINES) != null) builder.skipLines((int) config.get(SKIP_LINES));
         if (config.get(BATCH_SIZE) != null) builder.batchSize((int) config.get(BATCH_SIZE));
         if (config.get(IGNORE_DUPLICATE_NODES) != null) builder.ignoreDuplicateNodes((boolean) config.get(IGNORE_DUPLICATE_NODES));
+        if (config.get(PARALLEL) != null) builder.parallel((boolean) config.get(PARALLEL));
 
         return builder.build();
     }
@@ -117,6 +129,7 @@ public class CsvLoaderConfig {
         private int skipLines = SKIP_LINES_DEFAULT;
         private int batchSize = BATCH_SIZE_DEFAULT;
         private boolean ignoreDuplicateNodes = IGNORE_DUPLICATE_NODES_DEFAULT;
+        private boolean parallel = PARALLEL_DEFAULT;
 
         private Builder() {
         }
@@ -156,6 +169,11 @@ public class CsvLoaderConfig {
             return this;
         }
 
+        public Builder parallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+
         public CsvLoaderConfig build() {
             return new CsvLoaderConfig(this);
         }
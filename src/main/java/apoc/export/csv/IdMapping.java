@@ -0,0 +1,148 @@
+package apoc.export.csv;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Maps the CSV ids of one id space to node ids, in segments of open addressing tables of primitive longs
+ * instead of a {@code HashMap<String, Long>}, which needs about 16 bytes per id at a load factor of one half.
+ *
+ * Numeric ids are stored as they are. String ids are stored as 64 bit FNV-1a hashes together with the original id,
+ * which is compared on every match, so colliding hashes only cost an additional probe and a string id never matches
+ * a numeric id with the same value as its hash.
+ *
+ * Puts are synchronized per segment and can run concurrently, gets are not synchronized and have to happen
+ * after all puts, e.g. relationships are only loaded once all node batches have finished.
+ */
+public class IdMapping {
+    private static final int SEGMENTS = 256;
+    private static final long EMPTY = -1L;
+    /** value of an id that is reserved by a batch which didn't create its node yet */
+    public static final long PENDING = -2L;
+
+    private final boolean stringIds;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public IdMapping(boolean stringIds) {
+        this.stringIds = stringIds;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return the previous node id of the id or -1 if there was none, in which case the value is set
+     */
+    public long putIfAbsent(String id, long nodeId) {
+        Long numeric = numeric(id);
+        long key = numeric == null ? hash(id) : numeric;
+        long hash = mix(key);
+        return segments[(int) (hash >>> 56)].putIfAbsent(key, numeric == null ? id : null, hash, nodeId, false);
+    }
+
+    public void put(String id, long nodeId) {
+        Long numeric = numeric(id);
+        long key = numeric == null ? hash(id) : numeric;
+        long hash = mix(key);
+        segments[(int) (hash >>> 56)].putIfAbsent(key, numeric == null ? id : null, hash, nodeId, true);
+    }
+
+    /**
+     * @return the node id of the id or -1 if there is none
+     */
+    public long get(String id) {
+        Long numeric = numeric(id);
+        long key = numeric == null ? hash(id) : numeric;
+        long hash = mix(key);
+        return segments[(int) (hash >>> 56)].get(key, numeric == null ? id : null, hash);
+    }
+
+    public long size() {
+        return Arrays.stream(segments).mapToLong(segment -> segment.size).sum();
+    }
+
+    /**
+     * @return the id as number if it is stored as it is, null if it is stored as hash and string
+     */
+    private Long numeric(String id) {
+        if (stringIds) return null;
+        try {
+            return Long.parseLong(id.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static class Segment {
+        private long[] keys = new long[16];
+        private long[] values = filled(16);
+        /** original string ids of the hashed keys, null for numeric keys and until the first string id is put */
+        private String[] ids;
+        private int size;
+
+        private static long[] filled(int capacity) {
+            long[] values = new long[capacity];
+            Arrays.fill(values, EMPTY);
+            return values;
+        }
+
+        synchronized long putIfAbsent(long key, String id, long hash, long value, boolean replace) {
+            if (size * 2 >= keys.length) grow();
+            if (id != null && ids == null) ids = new String[keys.length];
+            int slot = slot(keys, values, ids, key, id, hash);
+            long previous = values[slot];
+            if (previous == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (id != null) ids[slot] = id;
+                size++;
+            } else if (replace) {
+                values[slot] = value;
+            }
+            return previous;
+        }
+
+        long get(long key, String id, long hash) {
+            return values[slot(keys, values, ids, key, id, hash)];
+        }
+
+        private static int slot(long[] keys, long[] values, String[] ids, long key, String id, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (values[slot] != EMPTY && !(keys[slot] == key && Objects.equals(ids == null ? null : ids[slot], id))) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys, oldValues = values;
+            String[] oldIds = ids;
+            keys = new long[oldKeys.length * 2];
+            values = filled(oldKeys.length * 2);
+            ids = oldIds == null ? null : new String[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] == EMPTY) continue;
+                String id = oldIds == null ? null : oldIds[i];
+                int slot = slot(keys, values, ids, oldKeys[i], id, mix(oldKeys[i]));
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                if (id != null) ids[slot] = id;
+            }
+        }
+    }
+}
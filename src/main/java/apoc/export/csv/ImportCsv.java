@@ -5,6 +5,7 @@ import apoc.export.util.ProgressReporter;
 import apoc.result.ProgressInfo;
 import apoc.util.Util;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Mode;
 import org.neo4j.procedure.Name;
@@ -27,7 +28,7 @@ public class ImportCsv {
     }
 
     @Procedure(name = "apoc.import.csv", mode = Mode.SCHEMA)
-    @Description("apoc.import.csv(nodes, relationships, config) - imports nodes and relationships from the provided CSV files with given labels and types")
+    @Description("apoc.import.csv(nodes, relationships, config) - imports nodes and relationships from the provided CSV files with given labels and types, in a single transaction unless config.parallel is true")
     public Stream<ProgressInfo> importCsv(
             @Name("nodes") List<Map<String, Object>> nodes,
             @Name("relationships") List<Map<String, String>> relationships,
@@ -40,17 +41,14 @@ public class ImportCsv {
                     final CsvLoaderConfig clc = CsvLoaderConfig.from(config);
                     final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter);
 
-                    final Map<String, Map<String, Long>> idMapping = new HashMap<>();
-                    for (Map<String, Object> node : nodes) {
-                        final String fileName = (String) node.get("fileName");
-                        final List<String> labels = (List<String>) node.get("labels");
-                        loader.loadNodes(fileName, labels, db, idMapping);
-                    }
-
-                    for (Map<String, String> relationship : relationships) {
-                        final String fileName = relationship.get("fileName");
-                        final String type = relationship.get("type");
-                        loader.loadRelationships(fileName, type, db, idMapping);
+                    if (clc.getParallel()) {
+                        // the batches commit in their own transactions
+                        load(loader, nodes, relationships);
+                    } else {
+                        try (Transaction tx = db.beginTx()) {
+                            load(loader, nodes, relationships);
+                            tx.success();
+                        }
                     }
 
                     return reporter.getTotal();
@@ -58,5 +56,20 @@ public class ImportCsv {
         return Stream.of(result);
     }
 
+    private void load(CsvEntityLoader loader, List<Map<String, Object>> nodes, List<Map<String, String>> relationships) throws Exception {
+        final Map<String, IdMapping> idMapping = new HashMap<>();
+        for (Map<String, Object> node : nodes) {
+            final String fileName = (String) node.get("fileName");
+            final List<String> labels = (List<String>) node.get("labels");
+            loader.loadNodes(fileName, labels, db, idMapping);
+        }
+
+        for (Map<String, String> relationship : relationships) {
+            final String fileName = relationship.get("fileName");
+            final String type = relationship.get("type");
+            loader.loadRelationships(fileName, type, db, idMapping);
+        }
+    }
+
 
 }
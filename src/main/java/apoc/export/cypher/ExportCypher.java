@@ -97,8 +97,8 @@ public class ExportCypher {
         ProgressInfo progressInfo = new ProgressInfo(fileName, source, "cypher");
         progressInfo.batchSize = c.getBatchSize();
         ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
-        boolean separatedFiles = !onlySchema && c.separateFiles();
-        ExportFileManager cypherFileManager = FileManagerFactory.createFileManager(fileName, separatedFiles, c.streamStatements());
+        boolean separatedFiles = !onlySchema && (c.separateFiles() || c.getPartitionSize() > 0);
+        ExportFileManager cypherFileManager = FileManagerFactory.createFileManager(fileName, separatedFiles, c.streamStatements(), c.isGzip());
 
         if (c.streamStatements()) {
             long timeout = c.getTimeoutSeconds();
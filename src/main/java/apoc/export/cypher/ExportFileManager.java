@@ -12,4 +12,9 @@ public interface ExportFileManager {
     String drain(String type);
 
     String getFileName();
+
+    /**
+     * @return the name of the file the statements of the type are written to, null if they are not written to a file
+     */
+    String getFileName(String type);
 }
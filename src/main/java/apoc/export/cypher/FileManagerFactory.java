@@ -7,48 +7,66 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author mh
  * @since 06.12.17
  */
 public class FileManagerFactory {
+    public static final String MANIFEST = "manifest";
+
     public static ExportFileManager createFileManager(String fileName, boolean separatedFiles, boolean b) {
+        return createFileManager(fileName, separatedFiles, b, false);
+    }
+
+    public static ExportFileManager createFileManager(String fileName, boolean separatedFiles, boolean b, boolean gzip) {
         if (fileName == null) {
             return new StringExportCypherFileManager(separatedFiles);
         }
 
         int indexOfDot = fileName.lastIndexOf(".");
         String fileType = fileName.substring(indexOfDot + 1);
-        return new PhysicalExportFileManager(fileType, fileName, separatedFiles);
+        return new PhysicalExportFileManager(fileType, fileName, separatedFiles, gzip);
     }
 
     private static class PhysicalExportFileManager implements ExportFileManager {
+        private static final int BUFFER_SIZE = 64 * 1024;
 
         private final String fileName;
         private final String fileType;
         private boolean separatedFiles;
+        private final boolean gzip;
         private PrintWriter writer;
 
-        public PhysicalExportFileManager(String fileType, String fileName, boolean separatedFiles) {
+        public PhysicalExportFileManager(String fileType, String fileName, boolean separatedFiles, boolean gzip) {
             this.fileType = fileType;
             this.fileName = fileName;
             this.separatedFiles = separatedFiles;
+            this.gzip = gzip;
         }
 
         @Override
         public PrintWriter getPrintWriter(String type) throws IOException {
 
             if (this.separatedFiles) {
-                return FileUtils.getPrintWriter(normalizeFileName(fileName, type), null);
+                return newPrintWriter(type);
             } else {
                 if (this.writer == null) {
-                    this.writer = FileUtils.getPrintWriter(normalizeFileName(fileName, null), null);
+                    this.writer = newPrintWriter(null);
                 }
                 return this.writer;
             }
         }
 
+        private PrintWriter newPrintWriter(String type) throws IOException {
+            String name = getFileName(type);
+            if (!gzip || MANIFEST.equals(type)) {
+                return FileUtils.getPrintWriter(name, null);
+            }
+            return new PrintWriter(new GZIPOutputStream(FileUtils.getOutputStream(name, null), BUFFER_SIZE));
+        }
+
         @Override
         public StringWriter getStringWriter(String type) {
             return null;
@@ -68,6 +86,15 @@ public class FileManagerFactory {
         public String getFileName() {
             return this.fileName;
         }
+
+        @Override
+        public String getFileName(String type) {
+            if (MANIFEST.equals(type)) {
+                return fileName.replace("." + fileType, "." + MANIFEST + ".json");
+            }
+            String name = normalizeFileName(fileName, separatedFiles ? type : null);
+            return gzip ? name + ".gz" : name;
+        }
     }
 
     private static class StringExportCypherFileManager implements ExportFileManager {
@@ -108,6 +135,11 @@ public class FileManagerFactory {
         public String getFileName() {
             return null;
         }
+
+        @Override
+        public String getFileName(String type) {
+            return null;
+        }
     }
 
 }
\ No newline at end of file
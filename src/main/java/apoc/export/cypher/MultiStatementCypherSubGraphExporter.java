@@ -1,10 +1,13 @@
 package apoc.export.cypher;
 
+import apoc.Pools;
 import apoc.export.cypher.formatter.CypherFormatter;
 import apoc.export.cypher.formatter.CypherFormatterUtils;
 import apoc.export.util.ExportConfig;
 import apoc.export.util.ExportFormat;
 import apoc.export.util.Reporter;
+import apoc.result.ProgressInfo;
+import apoc.util.JsonUtil;
 import apoc.util.Util;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -17,6 +20,10 @@ import org.neo4j.helpers.collection.Iterables;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -37,6 +44,7 @@ public class MultiStatementCypherSubGraphExporter {
     private Set<String> indexNames        = new LinkedHashSet<>();
     private Set<String> indexedProperties = new LinkedHashSet<>();
     private Long artificialUniques = 0L;
+    private final Set<PrintWriter> writers = Collections.newSetFromMap(new IdentityHashMap<>());
 
     private ExportFormat exportFormat;
     private CypherFormatter cypherFormat;
@@ -63,43 +71,181 @@ public class MultiStatementCypherSubGraphExporter {
      * <li>/tmp/myexport.cleanup.cypher</li>
      * </ul>
      * Otherwise all kernelTransaction will be saved in the original file.
+     * <p>
+     * When <code>ExportConfig#getPartitionSize() &gt; 0</code> the nodes and relationships are split
+     * into partitions of that size, which are written concurrently to numbered files like
+     * <code>/tmp/myexport.nodes.0.cypher</code>, and <code>/tmp/myexport.manifest.json</code>
+     * lists the files in the order to replay them with <code>apoc.cypher.runFiles</code>.
      * @param config
      * @param reporter
      * @param cypherFileManager
      */
     public void export(ExportConfig config, Reporter reporter, ExportFileManager cypherFileManager) throws IOException {
+        try {
+            if (config.getPartitionSize() > 0 && cypherFileManager.getFileName() != null) {
+                exportPartitioned(config, reporter, cypherFileManager);
+            } else {
+                exportSequential(config, reporter, cypherFileManager);
+            }
+        } finally {
+            closeWriters();
+        }
+        reporter.done();
+    }
 
+    private void exportSequential(ExportConfig config, Reporter reporter, ExportFileManager cypherFileManager) throws IOException {
         int batchSize = config.getBatchSize();
         ExportConfig.OptimizationType useOptimizations = config.getOptimizationType();
 
         switch (useOptimizations) {
             case NONE:
-                exportNodes(cypherFileManager.getPrintWriter("nodes"), reporter, batchSize);
-                exportSchema(cypherFileManager.getPrintWriter("schema"));
-                exportRelationships(cypherFileManager.getPrintWriter("relationships"), reporter, batchSize);
+                exportNodes(getPrintWriter(cypherFileManager, "nodes"), reporter, batchSize);
+                exportSchema(getPrintWriter(cypherFileManager, "schema"));
+                exportRelationships(getPrintWriter(cypherFileManager, "relationships"), reporter, batchSize);
                 break;
             default:
                 artificialUniques += countArtificialUniques(graph.getNodes());
-                exportSchema(cypherFileManager.getPrintWriter("schema"));
-                PrintWriter nodeWrite = cypherFileManager.getPrintWriter("nodes");
+                exportSchema(getPrintWriter(cypherFileManager, "schema"));
+                PrintWriter nodeWrite = getPrintWriter(cypherFileManager, "nodes");
                 exportNodesUnwindBatch(nodeWrite, reporter);
-                PrintWriter relWrite = cypherFileManager.getPrintWriter("relationships");
+                PrintWriter relWrite = getPrintWriter(cypherFileManager, "relationships");
                 exportRelationshipsUnwindBatch(relWrite, reporter);
         }
-        exportCleanUp(cypherFileManager.getPrintWriter("cleanup"), batchSize);
-        reporter.done();
+        exportCleanUp(getPrintWriter(cypherFileManager, "cleanup"), batchSize);
     }
 
     public void exportOnlySchema(ExportFileManager cypherFileManager) throws IOException {
-        exportSchema(cypherFileManager.getPrintWriter("schema"));
+        try {
+            exportSchema(getPrintWriter(cypherFileManager, "schema"));
+        } finally {
+            closeWriters();
+        }
+    }
+
+    // ---- Partitions ----
+
+    private void exportPartitioned(ExportConfig config, Reporter reporter, ExportFileManager cypherFileManager) throws IOException {
+        int batchSize = config.getBatchSize();
+        boolean optimized = config.getOptimizationType() != ExportConfig.OptimizationType.NONE;
+        Reporter partitionReporter = new SynchronizedReporter(reporter);
+        List<List<String>> manifest = new ArrayList<>();
+
+        artificialUniques += countArtificialUniques(graph.getNodes());
+        List<String> schema = singletonFile(cypherFileManager, "schema", this::exportSchema);
+        List<String> nodes = exportPartitions(graph.getNodes(), "nodes", config, cypherFileManager, optimized
+                ? (out, partition) -> this.cypherFormat.statementForNodes(partition, uniqueConstraints, exportConfig, out, partitionReporter, db)
+                : (out, partition) -> exportNodes(out, partition, partitionReporter, batchSize));
+        List<String> relationships = exportPartitions(graph.getRelationships(), "relationships", config, cypherFileManager, optimized
+                ? (out, partition) -> this.cypherFormat.statementForRelationships(partition, uniqueConstraints, exportConfig, out, partitionReporter, db)
+                : (out, partition) -> exportRelationships(out, partition, partitionReporter, batchSize));
+        List<String> cleanup = singletonFile(cypherFileManager, "cleanup", out -> exportCleanUp(out, batchSize));
+
+        // without optimizations the nodes are created before the indexes, like in the single file export
+        if (optimized) {
+            manifest.addAll(Arrays.asList(schema, nodes, relationships, cleanup));
+        } else {
+            manifest.addAll(Arrays.asList(nodes, schema, relationships, cleanup));
+        }
+        manifest.removeIf(List::isEmpty);
+        try (PrintWriter out = cypherFileManager.getPrintWriter(FileManagerFactory.MANIFEST)) {
+            out.print(JsonUtil.OBJECT_MAPPER.writeValueAsString(manifest));
+        }
+    }
+
+    private List<String> singletonFile(ExportFileManager cypherFileManager, String type, Consumer<PrintWriter> export) throws IOException {
+        PrintWriter out = getPrintWriter(cypherFileManager, type);
+        export.accept(out);
+        return Collections.singletonList(cypherFileManager.getFileName(type));
+    }
+
+    /**
+     * Writes each partition of consecutive entities into its own file in a separate transaction,
+     * with a bounded number of partitions held in memory.
+     * @return the names of the written files
+     */
+    private <T> List<String> exportPartitions(Iterable<T> entities, String type, ExportConfig config, ExportFileManager cypherFileManager,
+                                              BiConsumer<PrintWriter, List<T>> export) {
+        ExecutorService pool = Pools.pool(Pools.EXPORT);
+        int maxInFlight = Runtime.getRuntime().availableProcessors() * 2;
+        long partitionSize = config.getPartitionSize();
+        List<Future<String>> futures = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        List<T> partition = new ArrayList<>();
+        try {
+            for (Iterator<T> it = entities.iterator(); it.hasNext(); ) {
+                partition.add(it.next());
+                if (partition.size() < partitionSize && it.hasNext()) continue;
+
+                String partitionType = type + "." + futures.size();
+                List<T> entries = partition;
+                futures.add(Util.inTxFuture(pool, db, () -> {
+                    try (PrintWriter out = cypherFileManager.getPrintWriter(partitionType)) {
+                        export.accept(out, entries);
+                    }
+                    return cypherFileManager.getFileName(partitionType);
+                }));
+                partition = new ArrayList<>();
+                if (futures.size() - files.size() >= maxInFlight) {
+                    files.add(futures.get(files.size()).get());
+                }
+            }
+            while (files.size() < futures.size()) {
+                files.add(futures.get(files.size()).get());
+            }
+            return files;
+        } catch (Exception e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException("Error exporting " + type + " partitions: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The reporter is shared by the partitions that are written concurrently
+     */
+    private static class SynchronizedReporter implements Reporter {
+        private final Reporter reporter;
+
+        SynchronizedReporter(Reporter reporter) {
+            this.reporter = reporter;
+        }
+
+        @Override
+        public synchronized void progress(String msg) {
+            reporter.progress(msg);
+        }
+
+        @Override
+        public synchronized void update(long nodes, long rels, long properties) {
+            reporter.update(nodes, rels, properties);
+        }
+
+        @Override
+        public synchronized void done() {
+            reporter.done();
+        }
+
+        @Override
+        public synchronized ProgressInfo getTotal() {
+            return reporter.getTotal();
+        }
+
+        @Override
+        public synchronized void nextRow() {
+            reporter.nextRow();
+        }
     }
 
     // ---- Nodes ----
 
     private void exportNodes(PrintWriter out, Reporter reporter, int batchSize) {
-        if (graph.getNodes().iterator().hasNext()) {
+        artificialUniques += countArtificialUniques(graph.getNodes());
+        exportNodes(out, graph.getNodes(), reporter, batchSize);
+    }
+
+    private void exportNodes(PrintWriter out, Iterable<Node> nodes, Reporter reporter, int batchSize) {
+        if (nodes.iterator().hasNext()) {
             begin(out);
-            appendNodes(out, batchSize, reporter);
+            appendNodes(out, nodes, batchSize, reporter);
             commit(out);
             out.flush();
         }
@@ -112,9 +258,9 @@ public class MultiStatementCypherSubGraphExporter {
         }
     }
 
-    private long appendNodes(PrintWriter out, int batchSize, Reporter reporter) {
+    private long appendNodes(PrintWriter out, Iterable<Node> nodes, int batchSize, Reporter reporter) {
         long count = 0;
-        for (Node node : graph.getNodes()) {
+        for (Node node : nodes) {
             if (count > 0 && count % batchSize == 0) restart(out);
             count++;
             appendNode(out, node, reporter);
@@ -123,7 +269,6 @@ public class MultiStatementCypherSubGraphExporter {
     }
 
     private void appendNode(PrintWriter out, Node node, Reporter reporter) {
-        artificialUniques += countArtificialUniques(node);
         String cypher = this.cypherFormat.statementForNode(node, uniqueConstraints, indexedProperties, indexNames);
         if (Util.isNotNullOrEmpty(cypher)) {
             out.println(cypher);
@@ -134,9 +279,13 @@ public class MultiStatementCypherSubGraphExporter {
     // ---- Relationships ----
 
     private void exportRelationships(PrintWriter out, Reporter reporter, int batchSize) {
-        if (graph.getRelationships().iterator().hasNext()) {
+        exportRelationships(out, graph.getRelationships(), reporter, batchSize);
+    }
+
+    private void exportRelationships(PrintWriter out, Iterable<Relationship> relationships, Reporter reporter, int batchSize) {
+        if (relationships.iterator().hasNext()) {
             begin(out);
-            appendRelationships(out, batchSize, reporter);
+            appendRelationships(out, relationships, batchSize, reporter);
             commit(out);
             out.flush();
         }
@@ -149,9 +298,9 @@ public class MultiStatementCypherSubGraphExporter {
         }
     }
 
-    private long appendRelationships(PrintWriter out, int batchSize, Reporter reporter) {
+    private long appendRelationships(PrintWriter out, Iterable<Relationship> relationships, int batchSize, Reporter reporter) {
         long count = 0;
-        for (Relationship rel : graph.getRelationships()) {
+        for (Relationship rel : relationships) {
             if (count > 0 && count % batchSize == 0) restart(out);
             count++;
             appendRelationship(out, rel, reporter);
@@ -247,6 +396,18 @@ public class MultiStatementCypherSubGraphExporter {
 
     // ---- Common ----
 
+    private PrintWriter getPrintWriter(ExportFileManager cypherFileManager, String type) throws IOException {
+        PrintWriter out = cypherFileManager.getPrintWriter(type);
+        writers.add(out);
+        return out;
+    }
+
+    // closing finishes compressed files, the same writer can be shared by all types
+    private void closeWriters() {
+        writers.forEach(PrintWriter::close);
+        writers.clear();
+    }
+
     public void begin(PrintWriter out) {
         out.print(exportFormat.begin());
     }
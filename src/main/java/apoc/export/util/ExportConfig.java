@@ -150,6 +150,17 @@ public class ExportConfig {
         return toBoolean(config.getOrDefault("separateFiles", false));
     }
 
+    /**
+     * number of nodes or relationships per partition file of a parallel export, 0 for no partitions
+     */
+    public long getPartitionSize() {
+        return Util.toLong(config.getOrDefault("partitionSize", 0));
+    }
+
+    public boolean isGzip() {
+        return "gzip".equalsIgnoreCase(String.valueOf(config.getOrDefault("compression", "none")));
+    }
+
     private static Set<String> convertCaption(Object value) {
         if (value == null) return null;
         if (!(value instanceof List)) throw new RuntimeException("Only array of Strings are allowed!");
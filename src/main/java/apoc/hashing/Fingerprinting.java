@@ -1,10 +1,16 @@
 package apoc.hashing;
 
+import apoc.Pools;
+import apoc.algo.graph.Partitions;
+import apoc.util.Util;
 import org.neo4j.graphdb.*;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
 import org.neo4j.procedure.UserFunction;
 
 import javax.xml.bind.DatatypeConverter;
@@ -13,6 +19,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class Fingerprinting {
@@ -25,6 +32,9 @@ public class Fingerprinting {
     @Context
     public Log log;
 
+    @Context
+    public TerminationGuard terminationGuard;
+
     @UserFunction
     @Description("calculate a checksum (md5) over a node or a relationship. This deals gracefully with array properties. Two identical entities do share the same hash.")
     public String fingerprint(@Name("some object") Object thing, @Name(value = "propertyExcludes", defaultValue = "") List<String> excludedPropertyKeys) {
@@ -100,6 +110,33 @@ public class Fingerprinting {
         });
     }
 
+    @Procedure
+    @Description("CALL apoc.hashing.graphChecksum({propertyExcludes: [], partitionSize: 100000}) yield checksum, nodes, relationships, time | " +
+            "calculate a checksum (md5) over the full graph in parallel with a fixed amount of memory per node, it doesn't match the value of apoc.hashing.fingerprintGraph")
+    public Stream<ChecksumResult> graphChecksum(@Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        long start = System.currentTimeMillis();
+        List<String> excludedPropertyKeys = (List<String>) config.getOrDefault("propertyExcludes", Collections.emptyList());
+        long partitionSize = Util.toLong(config.getOrDefault("partitionSize", 100_000L));
+        GraphDatabaseAPI api = (GraphDatabaseAPI) db;
+        GraphChecksum checksum = new GraphChecksum(api, new Partitions(api, Pools.forkJoinPool(Pools.ALGO), terminationGuard, partitionSize), excludedPropertyKeys);
+        String value = checksum.compute();
+        return Stream.of(new ChecksumResult(value, checksum.nodes.sum(), checksum.relationships.sum(), System.currentTimeMillis() - start));
+    }
+
+    public static class ChecksumResult {
+        public final String checksum;
+        public final long nodes;
+        public final long relationships;
+        public final long time;
+
+        public ChecksumResult(String checksum, long nodes, long relationships, long time) {
+            this.checksum = checksum;
+            this.nodes = nodes;
+            this.relationships = relationships;
+            this.time = time;
+        }
+    }
+
     private static class EndNodeRelationshipHashTuple implements Comparable {
         private final String endNodeHash;
         private final String relationshipHash;
@@ -0,0 +1,184 @@
+package apoc.hashing;
+
+import apoc.algo.graph.OffHeapLongArray;
+import apoc.algo.graph.Partitions;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import org.neo4j.internal.kernel.api.LabelSet;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import javax.xml.bind.DatatypeConverter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.NODES;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.RELATIONSHIPS;
+
+/**
+ * Checksum of a whole graph that doesn't depend on internal ids, computed in parallel id-ranges in bounded memory.
+ *
+ * Every node gets a 128 bit md5 digest of its sorted labels and properties, every relationship one of its type,
+ * properties and the digests of its start and end node. The checksum combines all digests by addition modulo 2^64,
+ * which doesn't depend on the order, so neither the nodes nor the relationships have to be sorted.
+ * The only state is the upper half of each node digest in an off-heap array indexed by node id, 8 bytes per node.
+ */
+public class GraphChecksum {
+    private final GraphDatabaseAPI db;
+    private final Partitions partitions;
+    private final Set<String> excludedPropertyKeys;
+
+    private final LongAdder high = new LongAdder();
+    private final LongAdder low = new LongAdder();
+    public final LongAdder nodes = new LongAdder();
+    public final LongAdder relationships = new LongAdder();
+
+    public GraphChecksum(GraphDatabaseAPI db, Partitions partitions, Collection<String> excludedPropertyKeys) {
+        this.db = db;
+        this.partitions = partitions;
+        this.excludedPropertyKeys = new HashSet<>(excludedPropertyKeys);
+    }
+
+    public String compute() {
+        long highNodeId = MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore(db.getDependencyResolver(), NODES);
+        long highRelId = MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore(db.getDependencyResolver(), RELATIONSHIPS);
+        OffHeapLongArray nodeDigests = new OffHeapLongArray(highNodeId);
+        try {
+            partitions.run(highNodeId, (partition, from, to) -> partitions.inTx(ktx -> {
+                Digester digester = new Digester(ktx.tokenRead());
+                try (NodeCursor node = ktx.cursors().allocateNodeCursor(); PropertyCursor properties = ktx.cursors().allocatePropertyCursor()) {
+                    for (long id = from; id < to; id++) {
+                        ktx.dataRead().singleNode(id, node);
+                        if (!node.next()) continue;
+                        nodeDigests.set(id, digester.node(node, properties));
+                    }
+                } catch (KernelException e) {
+                    throw new RuntimeException(e);
+                }
+                digester.flush();
+            }));
+            partitions.run(highRelId, (partition, from, to) -> partitions.inTx(ktx -> {
+                Digester digester = new Digester(ktx.tokenRead());
+                try (RelationshipScanCursor rel = ktx.cursors().allocateRelationshipScanCursor(); PropertyCursor properties = ktx.cursors().allocatePropertyCursor()) {
+                    for (long id = from; id < to; id++) {
+                        ktx.dataRead().singleRelationship(id, rel);
+                        if (!rel.next()) continue;
+                        long source = rel.sourceNodeReference(), target = rel.targetNodeReference();
+                        // relationships to nodes created during the scan are left out like their nodes
+                        if (source >= nodeDigests.size() || target >= nodeDigests.size()) continue;
+                        digester.relationship(rel, properties, nodeDigests.get(source), nodeDigests.get(target));
+                    }
+                } catch (KernelException e) {
+                    throw new RuntimeException(e);
+                }
+                digester.flush();
+            }));
+        } finally {
+            nodeDigests.release();
+        }
+        MessageDigest md = md5();
+        ByteBuffer buffer = ByteBuffer.allocate(4 * Long.BYTES);
+        buffer.putLong(nodes.sum()).putLong(relationships.sum()).putLong(high.sum()).putLong(low.sum());
+        md.update(buffer.array());
+        return DatatypeConverter.printHexBinary(md.digest());
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance(Fingerprinting.DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * digests the entities of one id-range and sums them up locally
+     */
+    private class Digester {
+        private final TokenRead tokens;
+        private final MessageDigest md = md5();
+        private final List<String> names = new ArrayList<>();
+        private final List<Object[]> values = new ArrayList<>();
+        private final byte[] endpoints = new byte[2 * Long.BYTES];
+        private long high, low, nodes, relationships;
+
+        Digester(TokenRead tokens) {
+            this.tokens = tokens;
+        }
+
+        /**
+         * @return the upper half of the digest of the node
+         */
+        long node(NodeCursor node, PropertyCursor properties) throws KernelException {
+            names.clear();
+            LabelSet labels = node.labels();
+            for (int i = 0; i < labels.numberOfLabels(); i++) {
+                names.add(tokens.nodeLabelName(labels.label(i)));
+            }
+            names.sort(null);
+            for (String label : names) {
+                update(label);
+            }
+            md.update((byte) 1);
+            node.properties(properties);
+            updateProperties(properties);
+            nodes++;
+            return add(md.digest());
+        }
+
+        void relationship(RelationshipScanCursor rel, PropertyCursor properties, long source, long target) throws KernelException {
+            update(tokens.relationshipTypeName(rel.type()));
+            rel.properties(properties);
+            updateProperties(properties);
+            ByteBuffer.wrap(endpoints).putLong(source).putLong(target);
+            md.update(endpoints);
+            relationships++;
+            add(md.digest());
+        }
+
+        private void updateProperties(PropertyCursor properties) throws KernelException {
+            values.clear();
+            while (properties.next()) {
+                String key = tokens.propertyKeyName(properties.propertyKey());
+                if (excludedPropertyKeys.contains(key)) continue;
+                values.add(new Object[]{key, properties.propertyValue().prettyPrint()});
+            }
+            values.sort((a, b) -> ((String) a[0]).compareTo((String) b[0]));
+            for (Object[] value : values) {
+                update((String) value[0]);
+                update((String) value[1]);
+            }
+        }
+
+        private void update(String value) {
+            md.update(value.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+        }
+
+        private long add(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long upper = buffer.getLong(), lower = buffer.getLong();
+            high += upper;
+            low += lower;
+            return upper;
+        }
+
+        void flush() {
+            GraphChecksum.this.high.add(high);
+            GraphChecksum.this.low.add(low);
+            GraphChecksum.this.nodes.add(nodes);
+            GraphChecksum.this.relationships.add(relationships);
+        }
+    }
+}
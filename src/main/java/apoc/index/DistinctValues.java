@@ -0,0 +1,440 @@
+package apoc.index;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.StringHelper;
+import org.neo4j.internal.kernel.api.IndexQuery;
+import org.neo4j.kernel.api.impl.schema.LuceneDocumentStructure;
+import org.neo4j.kernel.api.impl.schema.reader.PartitionedIndexReader;
+import org.neo4j.kernel.api.impl.schema.reader.SimpleIndexReader;
+import org.neo4j.kernel.api.impl.schema.reader.SortedIndexReader;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
+import org.neo4j.kernel.impl.index.schema.fusion.FusionIndexBase;
+import org.neo4j.storageengine.api.schema.IndexProgressor;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.Value;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the distinct values of a single property schema index with their counts, without touching the nodes.
+ *
+ * A native index (or native slot of a fusion index) streams its values with {@link IndexReader#distinctValues}.
+ * A lucene index is read segment by segment, each segment reads the next chunk of terms of a field in the background
+ * while the previous chunk is merged with the other segments in a priority queue, which adds up the counts of the
+ * same term. Only two chunks per segment are held in memory, and a prefix is applied as seek in the string terms.
+ */
+public class DistinctValues {
+    static final int CHUNK_SIZE = 1024;
+    private static final List<String> LUCENE_FIELDS = Arrays.asList("string", "number", "bool", "array", "spatial", "temporal");
+
+    public static class ValueCount {
+        public final Object value;
+        public final long count;
+
+        ValueCount(Object value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+    }
+
+    private final ExecutorService pool;
+    private final String prefix;
+    private final PropertyAccessor accessor;
+    private final int propertyKeyId;
+
+    /**
+     * @param prefix only return string values starting with the prefix, or all values if null
+     * @param accessor reads the property of a node, for values that can't be decoded from the index
+     */
+    public DistinctValues(ExecutorService pool, String prefix, PropertyAccessor accessor, int propertyKeyId) {
+        this.pool = pool;
+        this.prefix = prefix;
+        this.accessor = accessor;
+        this.propertyKeyId = propertyKeyId;
+    }
+
+    public Stream<ValueCount> stream(IndexReader reader) {
+        return concat(slots(reader), this::streamSlot);
+    }
+
+    /**
+     * lazy replacement for flatMap, which pushes the whole inner stream in Java 8 and so ignores a limit,
+     * each inner stream is only opened when the previous one is exhausted and closed right after
+     */
+    public static <S, T> Stream<T> concat(Iterable<S> sources, Function<S, Stream<T>> mapper) {
+        Iterator<S> sourceIterator = sources.iterator();
+        Stream<T>[] current = new Stream[1];
+        Iterator<T> it = new Iterator<T>() {
+            Iterator<T> inner = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!inner.hasNext()) {
+                    closeCurrent(current);
+                    if (!sourceIterator.hasNext()) return false;
+                    current[0] = mapper.apply(sourceIterator.next());
+                    inner = current[0].iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return inner.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false)
+                .onClose(() -> closeCurrent(current));
+    }
+
+    private static <T> void closeCurrent(Stream<T>[] current) {
+        if (current[0] == null) return;
+        current[0].close();
+        current[0] = null;
+    }
+
+    private Stream<ValueCount> streamSlot(IndexReader slot) {
+        if (slot instanceof SimpleIndexReader) {
+            IndexSearcher searcher = new SortedIndexReader((SimpleIndexReader) slot, 0, Sort.INDEXORDER).getIndexSearcher();
+            List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+            List<String> fields = prefix == null ? LUCENE_FIELDS : Collections.singletonList("string");
+            return concat(fields, field -> luceneField(leaves, field));
+        }
+        if (slot instanceof PartitionedIndexReader) {
+            return concat((List<IndexReader>) readField(slot, "indexReaders"), this::streamSlot);
+        }
+        return nativeSlot(slot);
+    }
+
+    /**
+     * the instances of a fusion index, e.g. for numbers, strings, spatial, temporal values and the lucene index for the rest
+     */
+    private static List<IndexReader> slots(IndexReader reader) {
+        if (!(reader instanceof FusionIndexBase)) return Collections.singletonList(reader);
+        try {
+            Object instanceSelector = readField(reader, "instanceSelector");
+            int size = ((Object[]) readField(instanceSelector, "instances")).length;
+            Method select = declaredMethod(instanceSelector.getClass(), "select", int.class);
+            List<IndexReader> slots = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                IndexReader slot = (IndexReader) select.invoke(instanceSelector, i);
+                if (slot != null && slot != IndexReader.EMPTY) slots.addAll(slots(slot));
+            }
+            return slots;
+        } catch (Exception e) {
+            throw new RuntimeException("Error accessing index reader", e);
+        }
+    }
+
+    private static Object readField(Object instance, String name) {
+        Class<?> type = instance.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(instance);
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        throw new IllegalStateException("No field " + name + " in " + instance.getClass().getName());
+    }
+
+    private static Method declaredMethod(Class<?> type, String name, Class<?>... parameters) throws NoSuchMethodException {
+        while (type != null) {
+            try {
+                Method method = type.getDeclaredMethod(name, parameters);
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException e) {
+                type = type.getSuperclass();
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    private Stream<ValueCount> nativeSlot(IndexReader reader) {
+        ValueClient client = new ValueClient();
+        reader.distinctValues(client, accessor);
+        Iterator<ValueCount> it = new Iterator<ValueCount>() {
+            ValueCount next;
+            boolean matched;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && client.progressor != null && client.progressor.next()) {
+                    if (prefix != null) {
+                        if (!(client.value instanceof TextValue)) continue;
+                        boolean matches = ((TextValue) client.value).stringValue().startsWith(prefix);
+                        if (!matches) {
+                            // prefix matches are adjacent in the sorted string values
+                            if (matched) break;
+                            continue;
+                        }
+                        matched = true;
+                    }
+                    next = new ValueCount(client.value.asObjectCopy(), client.count);
+                }
+                return next != null;
+            }
+
+            @Override
+            public ValueCount next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                ValueCount result = next;
+                next = null;
+                return result;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(client::close);
+    }
+
+    private static class ValueClient implements IndexProgressor.NodeValueClient {
+        IndexProgressor progressor;
+        long count;
+        Value value;
+
+        @Override
+        public void initialize(SchemaIndexDescriptor descriptor, IndexProgressor progressor, IndexQuery[] query) {
+            this.progressor = progressor;
+        }
+
+        @Override
+        public boolean acceptNode(long count, Value... values) {
+            this.count = count;
+            this.value = values[0];
+            return true;
+        }
+
+        @Override
+        public boolean needsValues() {
+            return true;
+        }
+
+        void close() {
+            if (progressor != null) progressor.close();
+        }
+    }
+
+    private Stream<ValueCount> luceneField(List<LeafReaderContext> leaves, String field) {
+        List<Segment> segments = new ArrayList<>(leaves.size());
+        try {
+            for (LeafReaderContext leaf : leaves) {
+                Terms terms = leaf.reader().terms(field);
+                if (terms == null) continue;
+                TermsEnum termsEnum = LuceneDocumentStructure.originalTerms(terms, field);
+                segments.add(new Segment(leaf.reader(), termsEnum, field, leaves.size() > 1 ? pool : null));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading terms of field " + field, e);
+        }
+        if (segments.isEmpty()) return Stream.empty();
+        LongFunction<Object> property = decodable(field) ? null : this::property;
+        Iterator<ValueCount> it = new SegmentMerger(segments, field, property);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> segments.forEach(Segment::close));
+    }
+
+    private Object property(long nodeId) {
+        try {
+            return accessor.getPropertyValue(nodeId, propertyKeyId).asObjectCopy();
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading property of node " + nodeId, e);
+        }
+    }
+
+    /**
+     * numbers are indexed as doubles without their type, so integer values are read from a node like the other
+     * fields that can't be decoded, to return the same values as the native indexes
+     */
+    private static boolean decodable(String field) {
+        return field.equals("string") || field.equals("bool");
+    }
+
+    private static Object decode(String field, BytesRef term) {
+        switch (field) {
+            case "bool":
+                return Boolean.parseBoolean(term.utf8ToString());
+            default:
+                return term.utf8ToString();
+        }
+    }
+
+    private static class Term {
+        final BytesRef bytes;
+        final long count;
+        final long nodeId;
+
+        Term(BytesRef bytes, long count, long nodeId) {
+            this.bytes = bytes;
+            this.count = count;
+            this.nodeId = nodeId;
+        }
+    }
+
+    /**
+     * Terms of a field in one segment, the next chunk is read by the pool while the current one is merged.
+     * The terms enum is only used by one thread at a time, handed over by the future.
+     */
+    private class Segment {
+        private final LeafReader reader;
+        private final TermsEnum termsEnum;
+        private final boolean needsNodeId;
+        private final ExecutorService pool;
+        private final BytesRef prefixBytes;
+        private PostingsEnum postings;
+        private CompletableFuture<Term[]> pending;
+        private Term[] chunk;
+        private int pos;
+        private boolean started, exhausted;
+        private volatile boolean closed;
+
+        Segment(LeafReader reader, TermsEnum termsEnum, String field, ExecutorService pool) {
+            this.reader = reader;
+            this.termsEnum = termsEnum;
+            this.needsNodeId = !decodable(field);
+            this.pool = pool;
+            this.prefixBytes = prefix == null ? null : new BytesRef(prefix);
+            this.pending = pool == null ? null : CompletableFuture.supplyAsync(this::read, pool);
+        }
+
+        Term current() {
+            return chunk != null && pos < chunk.length ? chunk[pos] : null;
+        }
+
+        /**
+         * @return false if the segment has no more terms
+         */
+        boolean advance() {
+            pos++;
+            if (chunk != null && pos < chunk.length) return true;
+            if (chunk != null && chunk.length < CHUNK_SIZE) return false;
+            chunk = pending == null ? read() : pending.join();
+            pos = 0;
+            pending = pool == null || chunk.length < CHUNK_SIZE ? null : CompletableFuture.supplyAsync(this::read, pool);
+            return chunk.length > 0;
+        }
+
+        private Term[] read() {
+            if (closed || exhausted) return new Term[0];
+            try {
+                List<Term> terms = new ArrayList<>(CHUNK_SIZE);
+                Bits liveDocs = reader.getLiveDocs();
+                BytesRef term;
+                if (!started && prefixBytes != null) {
+                    started = true;
+                    term = termsEnum.seekCeil(prefixBytes) == TermsEnum.SeekStatus.END ? null : termsEnum.term();
+                } else {
+                    started = true;
+                    term = termsEnum.next();
+                }
+                while (term != null) {
+                    if (prefixBytes != null && !StringHelper.startsWith(term, prefixBytes)) break;
+                    long count = termsEnum.docFreq();
+                    long nodeId = -1;
+                    if (liveDocs != null || needsNodeId) {
+                        postings = termsEnum.postings(postings, PostingsEnum.NONE);
+                        count = 0;
+                        int doc;
+                        while ((doc = postings.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                            if (liveDocs != null && !liveDocs.get(doc)) continue;
+                            if (count++ == 0 && needsNodeId) nodeId = LuceneDocumentStructure.getNodeId(reader.document(doc));
+                        }
+                    }
+                    if (count > 0) terms.add(new Term(BytesRef.deepCopyOf(term), count, nodeId));
+                    if (terms.size() == CHUNK_SIZE) return terms.toArray(new Term[CHUNK_SIZE]);
+                    term = termsEnum.next();
+                }
+                exhausted = true;
+                return terms.toArray(new Term[0]);
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading index terms", e);
+            }
+        }
+
+        void close() {
+            closed = true;
+            if (pending != null) {
+                try {
+                    pending.join();
+                } catch (Exception ignore) {
+                    // the stream is done
+                }
+            }
+        }
+    }
+
+    private static class SegmentMerger implements Iterator<ValueCount> {
+        private final PriorityQueue<Segment> queue;
+        private final String field;
+        private final LongFunction<Object> property;
+        private ValueCount next;
+
+        SegmentMerger(List<Segment> segments, String field, LongFunction<Object> property) {
+            this.field = field;
+            this.property = property;
+            this.queue = new PriorityQueue<>(segments.size(), (a, b) -> a.current().bytes.compareTo(b.current().bytes));
+            for (Segment segment : segments) {
+                if (segment.advance()) queue.add(segment);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (queue.isEmpty()) return false;
+            Segment segment = queue.poll();
+            Term term = segment.current();
+            long count = term.count;
+            if (segment.advance()) queue.add(segment);
+            while (!queue.isEmpty() && queue.peek().current().bytes.equals(term.bytes)) {
+                Segment same = queue.poll();
+                count += same.current().count;
+                if (same.advance()) queue.add(same);
+            }
+            Object value = property == null ? decode(field, term.bytes) : property.apply(term.nodeId);
+            next = new ValueCount(value, count);
+            return true;
+        }
+
+        @Override
+        public ValueCount next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ValueCount result = next;
+            next = null;
+            return result;
+        }
+    }
+}
@@ -11,7 +11,6 @@ import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.search.Sort;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
@@ -96,37 +95,24 @@ public class FreeTextSearch {
      * @param index The name of the index to search in.
      * @param query The query specifying what to search for.
      * @param maxNumberOfresults maximum number of results to be retruned. Defaults to 100. If -1, returns all the results.
-     * @return a stream of all matching nodes.
+     * @param skip number of best results to skip before the first returned one, for paging
+     * @return a stream of all matching nodes, read lazily from the index.
      */
     @Procedure(mode = Mode.READ)
-    @Description("apoc.index.search('name', 'query', [maxNumberOfResults]) YIELD node, weight - search for nodes in the free text index matching the given query")
+    @Description("apoc.index.search('name', 'query', [maxNumberOfResults], [skip]) YIELD node, weight - search for nodes in the free text index matching the given query")
     public Stream<WeightedNodeResult> search(@Name("index") String index, @Name("query") String query,
-                                             @Name(value="numberOfResults", defaultValue = "100") long maxNumberOfresults) throws Exception {
-        if (!db.index().existsForNodes(index)) {
+                                             @Name(value="numberOfResults", defaultValue = "100") long maxNumberOfresults,
+                                             @Name(value="skip", defaultValue = "0") long skip) throws Exception {
+        if (!db.index().existsForNodes(index) || maxNumberOfresults == 0) {
             return Stream.empty();
         }
         QueryContext queryParam = new QueryContext(parseFreeTextQuery(query)).sort(Sort.RELEVANCE);
         if (maxNumberOfresults!=-1) {
-            queryParam = queryParam.top((int)maxNumberOfresults);
+            queryParam = queryParam.top(Math.toIntExact(Math.max(1, skip + maxNumberOfresults)));
         }
-        return toWeightedNodeResult(db.index().forNodes(index).query(queryParam));    
+        return FulltextIndex.stream(db.index().forNodes(index).query(queryParam), skip, WeightedNodeResult::new);
     }
 
-    private Stream<WeightedNodeResult> toWeightedNodeResult(IndexHits<Node> hits) {
-        List<WeightedNodeResult> results = new ArrayList<>(hits.size());
-        while (hits.hasNext()) {
-            try {
-                Node node = hits.next();
-                node.getGraphDatabase();
-                results.add(new WeightedNodeResult(node, (double) hits.currentScore()));
-            } catch(NotFoundException nfe) {
-                // ignore
-            }
-        }
-        return results.stream();
-    }
-
-
     @Context
     public GraphDatabaseAPI db;
 
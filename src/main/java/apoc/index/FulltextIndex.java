@@ -3,12 +3,15 @@ package apoc.index;
 import apoc.meta.Meta;
 import apoc.result.WeightedNodeResult;
 import apoc.result.WeightedRelationshipResult;
+import apoc.util.Util;
 import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.graphdb.index.IndexManager;
 import org.neo4j.graphdb.index.RelationshipIndex;
+import org.apache.lucene.search.Sort;
 import org.neo4j.index.impl.lucene.explicit.LuceneIndexImplementation;
+import org.neo4j.index.lucene.QueryContext;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
@@ -16,7 +19,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author mh
@@ -33,20 +41,28 @@ public class FulltextIndex {
     @Context
     public Log log;
 
-    @Description("apoc.index.nodes('Label','prop:value*') YIELD node - lucene query on node index with the given label name")
+    @Description("apoc.index.nodes('Label','prop:value*', {skip:0, limit:-1}) YIELD node - lucene query on node index with the given label name, with a limit the best matches come first")
     @Procedure(mode = Mode.READ)
-    public Stream<WeightedNodeResult> nodes(@Name("label") String label, @Name("query") String query) throws Exception {
-        if (!db.index().existsForNodes(label)) return Stream.empty();
-        return toWeightedNodeResult(db.index().forNodes(label).query(query));
+    public Stream<WeightedNodeResult> nodes(@Name("label") String label, @Name("query") String query, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws Exception {
+        if (!db.index().existsForNodes(label) || noHits(config)) return Stream.empty();
+        return toWeightedNodeResult(db.index().forNodes(label).query(query(query, config)), skip(config));
     }
 
     @UserFunction("apoc.index.nodes.count")
     @Description("apoc.index.nodes.count('Label','prop:value*') YIELD value - lucene query on node index with the given label name")
     public long nodesCount(@Name("label") String label, @Name("query") String query) throws Exception {
         if (!db.index().existsForNodes(label)) return 0L;
-        return (long) db.index().forNodes(label).query(query).size();
+        return count(db.index().forNodes(label).query(query));
     }
 
+    @UserFunction("apoc.index.search.count")
+    @Description("apoc.index.search.count('name', 'query') YIELD value - number of nodes in the free text index (apoc.index.addAllNodes) matching the given query")
+    public long searchCount(@Name("index") String index, @Name("query") String query) throws Exception {
+        if (!db.index().existsForNodes(index)) return 0L;
+        return FulltextIndex.count(db.index().forNodes(index).query(new QueryContext(FreeTextQueryParser.parseFreeTextQuery(query))));
+    }
+
+
     public static class IndexInfo {
         public final String type;
         public final String name;
@@ -117,79 +133,133 @@ public class FulltextIndex {
         return indexInfos.stream();
     }
 
-    private Stream<WeightedNodeResult> toWeightedNodeResult(IndexHits<Node> hits) {
-        List<WeightedNodeResult> results = new ArrayList<>(hits.size());
-        while (hits.hasNext()) {
-            results.add(new WeightedNodeResult(hits.next(),(double)hits.currentScore()));
-        }
-        return results.stream();
+    private Stream<WeightedNodeResult> toWeightedNodeResult(IndexHits<Node> hits, long skip) {
+        return stream(hits, skip, WeightedNodeResult::new);
+    }
+
+    private Stream<WeightedRelationshipResult> toWeightedRelationshipResult(IndexHits<Relationship> hits, long skip) {
+        return stream(hits, skip, WeightedRelationshipResult::new);
+    }
+
+    /**
+     * streams the hits as they are read from the index instead of copying them into a list first, the first {@code skip}
+     * hits are dropped, hits of entities that were deleted in the meantime are ignored and the hits are closed with the stream
+     */
+    static <T extends PropertyContainer, R> Stream<R> stream(IndexHits<T> hits, long skip, BiFunction<T, Double, R> mapper) {
+        Spliterator<R> spliterator = new Spliterators.AbstractSpliterator<R>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            long skipped = 0;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super R> action) {
+                while (hits.hasNext()) {
+                    try {
+                        T entity = hits.next();
+                        if (skipped < skip) {
+                            skipped++;
+                            continue;
+                        }
+                        action.accept(mapper.apply(entity, (double) hits.currentScore()));
+                        return true;
+                    } catch (NotFoundException nfe) {
+                        // deleted concurrently
+                    }
+                }
+                return false;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(hits::close);
     }
-    private Stream<WeightedRelationshipResult> toWeightedRelationshipResult(IndexHits<Relationship> hits) {
-        List<WeightedRelationshipResult> results = new ArrayList<>(hits.size());
-        while (hits.hasNext()) {
-            results.add(new WeightedRelationshipResult(hits.next(),(double)hits.currentScore()));
+
+    /**
+     * with a positive {@code limit} in the config only the top skip + limit hits by relevance are collected by lucene
+     */
+    static Object query(Object query, Map<String, Object> config) {
+        long limit = Util.toLong(config.getOrDefault("limit", -1L));
+        if (limit < 0) return query;
+        QueryContext context = query instanceof QueryContext ? (QueryContext) query : new QueryContext(query);
+        return context.sort(Sort.RELEVANCE).top(Math.toIntExact(skip(config) + limit));
+    }
+
+    /**
+     * a limit of 0 returns no hits, lucene can't collect the top 0 hits
+     */
+    static boolean noHits(Map<String, Object> config) {
+        return Util.toLong(config.getOrDefault("limit", -1L)) == 0;
+    }
+
+    static long skip(Map<String, Object> config) {
+        return Math.max(0, Util.toLong(config.getOrDefault("skip", 0L)));
+    }
+
+    /**
+     * the number of hits as counted by lucene, without reading the hits
+     */
+    static long count(IndexHits<?> hits) {
+        try {
+            return hits.size();
+        } finally {
+            hits.close();
         }
-        return results.stream();
     }
 
     // CALL apoc.index.relationships('CHECKIN','on:2010-*')
-    @Description("apoc.index.relationships('TYPE','prop:value*') YIELD rel - lucene query on relationship index with the given type name")
+    @Description("apoc.index.relationships('TYPE','prop:value*', {skip:0, limit:-1}) YIELD rel - lucene query on relationship index with the given type name")
     @Procedure(mode = Mode.READ)
-    public Stream<WeightedRelationshipResult> relationships(@Name("type") String type, @Name("query") String query) throws Exception {
-        if (!db.index().existsForRelationships(type)) return Stream.empty();
-        return toWeightedRelationshipResult(db.index().forRelationships(type).query(query,null,null));
+    public Stream<WeightedRelationshipResult> relationships(@Name("type") String type, @Name("query") String query, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws Exception {
+        if (!db.index().existsForRelationships(type) || noHits(config)) return Stream.empty();
+        return toWeightedRelationshipResult(db.index().forRelationships(type).query(query(query, config),null,null), skip(config));
     }
 
     @UserFunction("apoc.index.relationships.count")
     @Description("apoc.index.relationships.count('Type','prop:value*') YIELD value - lucene query on relationship index with the given type name")
     public long relationshipsCount(@Name("type") String type, @Name("query") String query) throws Exception {
         if (!db.index().existsForRelationships(type)) return 0L;
-        return (long) db.index().forRelationships(type).query(query, null, null).size();
+        return count(db.index().forRelationships(type).query(query, null, null));
     }
 
     // CALL apoc.index.between(joe, 'KNOWS', null, 'since:2010-*')
     // CALL apoc.index.between(joe, 'CHECKIN', philz, 'on:2016-01-*')
-    @Description("apoc.index.between(node1,'TYPE',node2,'prop:value*') YIELD rel - lucene query on relationship index with the given type name bound by either or both sides (each node parameter can be null)")
+    @Description("apoc.index.between(node1,'TYPE',node2,'prop:value*', {skip:0, limit:-1}) YIELD rel - lucene query on relationship index with the given type name bound by either or both sides (each node parameter can be null)")
     @Procedure(mode = Mode.READ)
-    public Stream<WeightedRelationshipResult> between(@Name("from") Node from, @Name("type") String type, @Name("to") Node to, @Name("query") String query) throws Exception {
-        if (!db.index().existsForRelationships(type)) return Stream.empty();
-        return toWeightedRelationshipResult(db.index().forRelationships(type).query(query,from,to));
+    public Stream<WeightedRelationshipResult> between(@Name("from") Node from, @Name("type") String type, @Name("to") Node to, @Name("query") String query, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws Exception {
+        if (!db.index().existsForRelationships(type) || noHits(config)) return Stream.empty();
+        return toWeightedRelationshipResult(db.index().forRelationships(type).query(query(query, config),from,to), skip(config));
     }
 
     @UserFunction("apoc.index.between.count")
     @Description("apoc.index.between.count(node1,'TYPE',node2,'prop:value*') YIELD value - lucene query on relationship index with the given type name bound by either or both sides (each node parameter can be null)")
     public long betweenCount(@Name("from") Node from, @Name("type") String type, @Name("to") Node to, @Name("query") String query) throws Exception {
         if (!db.index().existsForRelationships(type)) return 0L;
-        return (long) db.index().forRelationships(type).query(query,from,to).size();
+        return count(db.index().forRelationships(type).query(query,from,to));
     }
 
     @Procedure(mode = Mode.READ)
-    @Description("out(node,'TYPE','prop:value*') YIELD node - lucene query on relationship index with the given type name for *outgoing* relationship of the given node, *returns end-nodes*")
-    public Stream<WeightedNodeResult> out(@Name("from") Node from, @Name("type") String type, @Name("query") String query) throws Exception {
-        if (!db.index().existsForRelationships(type)) return Stream.empty();
-        return toWeightedRelationshipResult(db.index().forRelationships(type).query(query,from,null)).map((w) -> new WeightedNodeResult(w.rel.getEndNode(), w.weight));
+    @Description("out(node,'TYPE','prop:value*', {skip:0, limit:-1}) YIELD node - lucene query on relationship index with the given type name for *outgoing* relationship of the given node, *returns end-nodes*")
+    public Stream<WeightedNodeResult> out(@Name("from") Node from, @Name("type") String type, @Name("query") String query, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws Exception {
+        if (!db.index().existsForRelationships(type) || noHits(config)) return Stream.empty();
+        return toWeightedRelationshipResult(db.index().forRelationships(type).query(query(query, config),from,null), skip(config)).map((w) -> new WeightedNodeResult(w.rel.getEndNode(), w.weight));
     }
 
     @UserFunction("apoc.index.out.count")
     @Description("apoc.index.out.count(node,'TYPE','prop:value*') YIELD value - lucene query on relationship index with the given type name for *outgoing* relationship of the given node, *returns count-end-nodes*")
     public long outCount(@Name("from") Node from, @Name("type") String type, @Name("query") String query) throws Exception {
         if (!db.index().existsForRelationships(type)) return 0L;
-        return (long) db.index().forRelationships(type).query(query,from,null).size();
+        return count(db.index().forRelationships(type).query(query,from,null));
     }
 
     // CALL apoc.index.in(philz, 'CHECKIN', 'on:2010-*')
     @Procedure(mode = Mode.READ)
-    @Description("apoc.index.in(node,'TYPE','prop:value*') YIELD node lucene query on relationship index with the given type name for *incoming* relationship of the given node, *returns start-nodes*")
-    public Stream<WeightedNodeResult> in(@Name("to") Node to, @Name("type") String type, @Name("query") String query) throws Exception {
-        if (!db.index().existsForRelationships(type)) return Stream.empty();
-        return toWeightedRelationshipResult(db.index().forRelationships(type).query(query,null,to)).map((w) -> new WeightedNodeResult(w.rel.getStartNode(), w.weight));
+    @Description("apoc.index.in(node,'TYPE','prop:value*', {skip:0, limit:-1}) YIELD node lucene query on relationship index with the given type name for *incoming* relationship of the given node, *returns start-nodes*")
+    public Stream<WeightedNodeResult> in(@Name("to") Node to, @Name("type") String type, @Name("query") String query, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws Exception {
+        if (!db.index().existsForRelationships(type) || noHits(config)) return Stream.empty();
+        return toWeightedRelationshipResult(db.index().forRelationships(type).query(query(query, config),null,to), skip(config)).map((w) -> new WeightedNodeResult(w.rel.getStartNode(), w.weight));
     }
 
     @UserFunction("apoc.index.in.count")
     @Description("apoc.index.in.count(node1,'TYPE',node2,'prop:value*') YIELD value - lucene query on relationship index with the given type name for *incoming* relationship of the given node, *returns count-start-nodes*")
     public long inCount(@Name("to") Node to, @Name("type") String type, @Name("query") String query) throws Exception {
         if (!db.index().existsForRelationships(type)) return 0L;
-        return (long) db.index().forRelationships(type).query(query,null,to).size();
+        return count(db.index().forRelationships(type).query(query,null,to));
     }
 
     // CALL apoc.index.addNode(joe, ['name','age','city'])
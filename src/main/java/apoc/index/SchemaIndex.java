@@ -11,13 +11,10 @@ import org.neo4j.kernel.impl.index.schema.fusion.FusionIndexBase;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.Description;
+import apoc.Pools;
 import apoc.result.ListResult;
 import apoc.result.NodeResult;
 import apoc.util.Util;
-import org.apache.lucene.index.Fields;
-import org.apache.lucene.index.MultiFields;
-import org.apache.lucene.index.Terms;
-import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.Sort;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Direction;
@@ -36,11 +33,14 @@ import org.neo4j.kernel.impl.api.KernelStatement;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.kernel.api.index.PropertyAccessor;
 import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.values.storable.Values;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -199,78 +199,84 @@ public class SchemaIndex {
     }
 
     @Procedure("apoc.schema.properties.distinct")
-    @Description("apoc.schema.properties.distinct(label, key) - quickly returns all distinct values for a given key")
-    public Stream<ListResult> distinct(@Name("label") String label, @Name("key")  String key) throws SchemaRuleNotFoundException, IndexNotFoundKernelException, IOException, DuplicateSchemaRuleException {
-        List<Object> values = distinctTerms(label, key);
-        return Stream.of(new ListResult(values));
-    }
-
-    private List<Object> distinctTerms(@Name("label") String label, @Name("key") String key) throws SchemaRuleNotFoundException, IndexNotFoundKernelException, IOException, DuplicateSchemaRuleException {
-        SimpleIndexReader reader = getLuceneIndexReader(label,key);
-        SortedIndexReader sortedIndexReader = new SortedIndexReader(reader, 0, Sort.INDEXORDER);
-        Set<Object> values = new LinkedHashSet<>(100);
-        TermsEnum termsEnum;
-
-        Fields fields = MultiFields.getFields(sortedIndexReader.getIndexSearcher().getIndexReader());
-
-        Terms terms = fields.terms("string");
-        if (terms != null) {
-            termsEnum = terms.iterator();
-            while ((termsEnum.next()) != null) {
-                values.add(termsEnum.term().utf8ToString());
-            }
+    @Description("apoc.schema.properties.distinct(label, key, [{prefix, limit, top}]) - quickly returns all distinct values for a given key")
+    public Stream<ListResult> distinct(@Name("label") String label, @Name("key")  String key, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        try (Stream<DistinctValues.ValueCount> values = distinctValues(label, key, config)) {
+            return Stream.of(new ListResult(values.map(v -> v.value).collect(Collectors.toList())));
         }
-        return new ArrayList<>(values);
     }
 
     @Procedure("apoc.schema.properties.distinctCount")
-    @Description("apoc.schema.properties.distinctCount([label], [key]) YIELD label, key, value, count - quickly returns all distinct values and counts for a given key")
-    public Stream<PropertyValueCount> distinctCount(@Name(value = "label", defaultValue = "") String labelName, @Name(value = "key", defaultValue = "") String keyName) throws SchemaRuleNotFoundException, IndexNotFoundKernelException, IOException {
-        Iterable<IndexDefinition> labels = (labelName.isEmpty()) ? db.schema().getIndexes() : db.schema().getIndexes(Label.label(labelName));
-        return StreamSupport.stream(labels.spliterator(), false).filter(i -> keyName.isEmpty() || isKeyIndexed(i, keyName)).flatMap(
-                index -> {
-                    Iterable<String> keys = keyName.isEmpty() ? index.getPropertyKeys() : Collections.singletonList(keyName);
-                    return StreamSupport.stream(keys.spliterator(), false).flatMap(key -> {
-                        String label = index.getLabel().name();
-                        return distinctTermsCount(label, key).
-                                entrySet().stream().map(e -> new PropertyValueCount(label, key, e.getKey(), e.getValue()));
-                    });
-                }
-        );
+    @Description("apoc.schema.properties.distinctCount([label], [key], [{prefix, limit, top}]) YIELD label, key, value, count - quickly returns all distinct values and counts for a given key")
+    public Stream<PropertyValueCount> distinctCount(@Name(value = "label", defaultValue = "") String labelName, @Name(value = "key", defaultValue = "") String keyName, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        Iterable<IndexDefinition> indexes = (labelName.isEmpty()) ? db.schema().getIndexes() : db.schema().getIndexes(Label.label(labelName));
+        List<Pair<String, String>> labelKeys = new ArrayList<>();
+        for (IndexDefinition index : indexes) {
+            if (!keyName.isEmpty() && !isKeyIndexed(index, keyName)) continue;
+            Iterable<String> keys = keyName.isEmpty() ? index.getPropertyKeys() : Collections.singletonList(keyName);
+            for (String key : keys) {
+                labelKeys.add(Pair.of(index.getLabel().name(), key));
+            }
+        }
+        return DistinctValues.concat(labelKeys, labelKey -> distinctValues(labelKey.first(), labelKey.other(), config)
+                .map(v -> new PropertyValueCount(labelKey.first(), labelKey.other(), v.value, v.count)));
     }
 
     private boolean isKeyIndexed(@Name("index") IndexDefinition index, @Name("key") String key) {
         return StreamSupport.stream(index.getPropertyKeys().spliterator(), false).anyMatch(k -> k.equals(key));
     }
 
-    private Map<String, Integer> distinctTermsCount(@Name("label") String label, @Name("key") String key) {
+    /**
+     * streams the values of the single property index on label and key, the statement stays open until the stream is closed
+     */
+    private Stream<DistinctValues.ValueCount> distinctValues(String label, String key, Map<String, Object> config) {
+        TokenRead tokenRead = tx.tokenRead();
+        int labelId = tokenRead.nodeLabel(label);
+        int keyId = tokenRead.propertyKey(key);
+        if (labelId == TokenRead.NO_TOKEN || keyId == TokenRead.NO_TOKEN) return Stream.empty();
+        if (config == null) config = Collections.emptyMap();
+        String prefix = (String) config.get("prefix");
+        long limit = Util.toLong(config.getOrDefault("limit", 0));
+        int top = Util.toLong(config.getOrDefault("top", 0)).intValue();
+
+        KernelStatement stmt = (KernelStatement) tx.acquireStatement();
+        Stream<DistinctValues.ValueCount> values;
         try {
-            SortedIndexReader sortedIndexReader = getSortedIndexReader(label, key, 0, Sort.INDEXORDER);
-
-            Fields fields = MultiFields.getFields(sortedIndexReader.getIndexSearcher().getIndexReader());
-
-            Map<String, Integer> values = new HashMap<>();
-            TermsEnum termsEnum;
-            Terms terms = fields.terms("string");
-            if (terms != null) {
-                termsEnum = terms.iterator();
-                while ((termsEnum.next()) != null) {
-                    values.put(termsEnum.term().utf8ToString(), termsEnum.docFreq());
-                }
+            RecordStorageEngine recordStorageEngine = db.getDependencyResolver().resolveDependency(RecordStorageEngine.class);
+            SchemaIndexDescriptor descriptor = recordStorageEngine.storeReadLayer().indexGetForSchema(SchemaDescriptorFactory.forLabel(labelId, keyId));
+            if (descriptor == null) {
+                stmt.close();
+                return Stream.empty();
             }
-            return values;
+            IndexReader reader = stmt.getStoreStatement().getIndexReader(descriptor);
+            PropertyAccessor accessor = (nodeId, propertyKeyId) -> Values.of(db.getNodeById(nodeId).getProperty(key, null));
+            values = new DistinctValues(Pools.DEFAULT, prefix, accessor, keyId).stream(reader).onClose(stmt::close);
         } catch (Exception e) {
-            throw new RuntimeException("Error collecting distinct terms of label: " + label + " and key: " + key, e);
+            stmt.close();
+            throw new RuntimeException("Error collecting distinct values of label: " + label + " and key: " + key, e);
+        }
+        if (top > 0) {
+            PriorityQueue<DistinctValues.ValueCount> mostFrequent = new PriorityQueue<>(top + 1, Comparator.comparingLong(v -> v.count));
+            try (Stream<DistinctValues.ValueCount> all = values) {
+                all.forEach(v -> {
+                    mostFrequent.add(v);
+                    if (mostFrequent.size() > top) mostFrequent.poll();
+                });
+            }
+            List<DistinctValues.ValueCount> sorted = new ArrayList<>(mostFrequent);
+            sorted.sort(Comparator.comparingLong((DistinctValues.ValueCount v) -> v.count).reversed());
+            values = sorted.stream();
         }
+        return limit > 0 ? values.limit(limit) : values;
     }
 
     public static class PropertyValueCount {
         public String label;
         public String key;
-        public String value;
+        public Object value;
         public long count;
 
-        public PropertyValueCount(String label, String key, String value, long count) {
+        public PropertyValueCount(String label, String key, Object value, long count) {
             this.label = label;
             this.key = key;
             this.value = value;
@@ -1,6 +1,7 @@
 package apoc.load;
 
 import apoc.ApocConfiguration;
+import apoc.load.util.JdbcConnectionPool;
 import apoc.load.util.LoadJdbcConfig;
 import apoc.result.RowResult;
 import apoc.util.MapUtil;
@@ -78,9 +79,9 @@ public class Jdbc {
                 PreparedStatement stmt = connection.prepareStatement(query);
                 try {
                     for (int i = 0; i < params.length; i++) stmt.setObject(i + 1, params[i]);
+                    stmt.setFetchSize(loadJdbcConfig.getFetchSize());
                     ResultSet rs = stmt.executeQuery();
-                    rs.setFetchSize(5000);
-                    Iterator<Map<String, Object>> supplier = new ResultSetIterator(log, rs, true, loadJdbcConfig);
+                    Iterator<Map<String, Object>> supplier = new ResultSetIterator(log, rs, connection, loadJdbcConfig);
                     Spliterator<Map<String, Object>> spliterator = Spliterators.spliteratorUnknownSize(supplier, Spliterator.ORDERED);
                     return StreamSupport.stream(spliterator, false)
                             .map(RowResult::new)
@@ -94,10 +95,7 @@ public class Jdbc {
                 throw sqle;
             }
         } catch (Exception e) {
-            log.error(String.format("Cannot execute SQL statement `%s`.%nError:%n%s", query, e.getMessage()),e);
-            String errorMessage = "Cannot execute SQL statement `%s`.%nError:%n%s";
-            if(e.getMessage().contains("No suitable driver")) errorMessage="Cannot execute SQL statement `%s`.%nError:%n%s%n%s";
-            throw new RuntimeException(String.format(errorMessage, query, e.getMessage(), "Please download and copy the JDBC driver into $NEO4J_HOME/plugins,more details at https://neo4j-contrib.github.io/neo4j-apoc-procedures/#_load_jdbc_resources"), e);
+            throw sqlError(query, e);
         }
     }
 
@@ -131,13 +129,84 @@ public class Jdbc {
                 throw sqle;
             }
         } catch (Exception e) {
-            log.error(String.format("Cannot execute SQL statement `%s`.%nError:%n%s", query, e.getMessage()),e);
-            String errorMessage = "Cannot execute SQL statement `%s`.%nError:%n%s";
-            if(e.getMessage().contains("No suitable driver")) errorMessage="Cannot execute SQL statement `%s`.%nError:%n%s%n%s";
-            throw new RuntimeException(String.format(errorMessage, query, e.getMessage(), "Please download and copy the JDBC driver into $NEO4J_HOME/plugins,more details at https://neo4j-contrib.github.io/neo4j-apoc-procedures/#_load_jdbc_resources"), e);
+            throw sqlError(query, e);
         }
     }
 
+    @Procedure
+    @Description("apoc.load.jdbcUpdateBatch('key or url','statement',[[params],...],{batchSize:5000}) YIELD row - update relational database, one JDBC batch of the statement per batchSize parameter rows, each committed on its own")
+    public Stream<RowResult> jdbcUpdateBatch(@Name("jdbc") String urlOrKey, @Name("query") String query, @Name("params") List<List<Object>> params, @Name(value = "config",defaultValue = "{}") Map<String, Object> config) {
+        log.info( String.format( "Executing SQL batch update: %s", query ) );
+        String url = getUrlOrKey(urlOrKey);
+        LoadJdbcConfig jdbcConfig = new LoadJdbcConfig(config);
+        int batchSize = jdbcConfig.getBatchSize();
+        try {
+            Connection connection = getConnection(url,jdbcConfig);
+            PreparedStatement stmt = null;
+            try {
+                stmt = connection.prepareStatement(query);
+                connection.setAutoCommit(false);
+                List<RowResult> results = new ArrayList<>();
+                for (int from = 0; from < params.size(); from += batchSize) {
+                    List<List<Object>> batch = params.subList(from, Math.min(from + batchSize, params.size()));
+                    for (List<Object> row : batch) {
+                        for (int i = 0; i < row.size(); i++) stmt.setObject(i + 1, row.get(i));
+                        stmt.addBatch();
+                    }
+                    long updateCount = 0;
+                    for (int count : stmt.executeBatch()) {
+                        // drivers may report Statement.SUCCESS_NO_INFO instead of the count
+                        if (count > 0) updateCount += count;
+                    }
+                    connection.commit();
+                    results.add(new RowResult(MapUtil.map("batch", results.size(), "rows", batch.size(), "count", updateCount)));
+                }
+                connection.setAutoCommit(true);
+                closeIt(log, stmt, connection);
+                return results.stream();
+            } catch(Exception sqle) {
+                ignore(() -> { connection.rollback(); return null; });
+                closeIt(log, stmt, connection);
+                throw sqle;
+            }
+        } catch (Exception e) {
+            throw sqlError(query, e);
+        }
+    }
+
+    @Procedure
+    @Description("apoc.load.jdbcPools() YIELD url, user, active, idle, created, borrowed, closed - statistics of the pooled JDBC connections")
+    public Stream<PoolInfo> jdbcPools() {
+        return JdbcConnectionPool.pools().stream().map(PoolInfo::new);
+    }
+
+    public static class PoolInfo {
+        public final String url;
+        public final String user;
+        public final long active;
+        public final long idle;
+        public final long created;
+        public final long borrowed;
+        public final long closed;
+
+        public PoolInfo(JdbcConnectionPool pool) {
+            this.url = pool.getUrl();
+            this.user = pool.getUser();
+            this.active = pool.getActive();
+            this.idle = pool.getIdle();
+            this.created = pool.getCreated();
+            this.borrowed = pool.getBorrowed();
+            this.closed = pool.getClosed();
+        }
+    }
+
+    private RuntimeException sqlError(String query, Exception e) {
+        log.error(String.format("Cannot execute SQL statement `%s`.%nError:%n%s", query, e.getMessage()),e);
+        String errorMessage = "Cannot execute SQL statement `%s`.%nError:%n%s";
+        if(e.getMessage().contains("No suitable driver")) errorMessage="Cannot execute SQL statement `%s`.%nError:%n%s%n%s";
+        return new RuntimeException(String.format(errorMessage, query, e.getMessage(), "Please download and copy the JDBC driver into $NEO4J_HOME/plugins,more details at https://neo4j-contrib.github.io/neo4j-apoc-procedures/#_load_jdbc_resources"), e);
+    }
+
     static void closeIt(Log log, AutoCloseable...closeables) {
         for (AutoCloseable c : closeables) {
             try {
@@ -155,17 +224,20 @@ public class Jdbc {
         private final Log log;
         private final ResultSet rs;
         private final String[] columns;
-        private final boolean closeConnection;
+        private final Connection connection;
         private Map<String, Object> map;
         private LoadJdbcConfig config;
 
 
-        public ResultSetIterator(Log log, ResultSet rs, boolean closeConnection, LoadJdbcConfig config) throws SQLException {
+        /**
+         * @param connection closed at the end of the results, returning it to the pool, null to keep it open
+         */
+        public ResultSetIterator(Log log, ResultSet rs, Connection connection, LoadJdbcConfig config) throws SQLException {
             this.config = config;
             this.log = log;
             this.rs = rs;
             this.columns = getMetaData(rs);
-            this.closeConnection = closeConnection;
+            this.connection = connection;
             this.map = get();
         }
 
@@ -256,7 +328,7 @@ public class Jdbc {
         private void closeRs() {
             Boolean closed = isRsClosed();
             if (closed==null || !closed) {
-                closeIt(log, ignore(rs::getStatement), closeConnection ? ignore(()->rs.getStatement().getConnection()) : null);
+                closeIt(log, ignore(rs::getStatement), connection);
             }
         }
 
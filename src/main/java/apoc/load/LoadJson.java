@@ -78,7 +78,7 @@ public class LoadJson {
         });
     }
 
-    private static Map<String, Object> extractCredentialsIfNeeded(String url, boolean failOnError) {
+    public static Map<String, Object> extractCredentialsIfNeeded(String url, boolean failOnError) {
         try {
             URI uri = new URI(url);
             String authInfo = uri.getUserInfo();
@@ -0,0 +1,228 @@
+package apoc.load.util;
+
+import apoc.ApocConfiguration;
+import apoc.Pools;
+import apoc.util.Util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of JDBC connections per url and user.
+ *
+ * Closing a borrowed connection returns it to the pool, connections idle for longer than a moment are validated before
+ * they are handed out again and connections idle for longer than apoc.jdbc.pool.idle_timeout are closed.
+ * At most apoc.jdbc.pool.max_size connections are borrowed at the same time, callers wait up to
+ * apoc.jdbc.pool.connection_timeout milliseconds for a free one.
+ */
+public class JdbcConnectionPool {
+    private static final Map<String, JdbcConnectionPool> POOLS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean EVICTION_SCHEDULED = new AtomicBoolean();
+
+    private static final long EVICTION_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    // connections returned within this time are only checked for being closed, without a round trip to the database
+    private static final long VALIDATION_BYPASS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final String url;
+    private final String user;
+    private final Callable<Connection> factory;
+    private final int maxSize;
+    private final Semaphore permits;
+    private final long connectionTimeout;
+    private final long idleTimeout;
+    // most recently returned first, so that rarely used connections become idle and get evicted
+    private final Deque<Idle> idle = new ConcurrentLinkedDeque<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+
+    private JdbcConnectionPool(String url, String user, Callable<Connection> factory) {
+        this.url = url;
+        this.user = user;
+        this.factory = factory;
+        this.maxSize = Util.toInteger(ApocConfiguration.get("jdbc.pool.max_size", 10));
+        this.permits = new Semaphore(maxSize, true);
+        this.connectionTimeout = Util.toLong(ApocConfiguration.get("jdbc.pool.connection_timeout", 30_000));
+        this.idleTimeout = Util.toLong(ApocConfiguration.get("jdbc.pool.idle_timeout", 600_000));
+    }
+
+    /**
+     * @param factory creates a new connection for the url and user
+     * @return a pooled connection, closing it returns it to the pool
+     */
+    public static Connection getConnection(String url, String user, String password, Callable<Connection> factory) throws Exception {
+        if (EVICTION_SCHEDULED.compareAndSet(false, true)) {
+            Pools.SCHEDULED.scheduleWithFixedDelay(JdbcConnectionPool::evictIdle, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        String key = url + '\u0000' + user + '\u0000' + password;
+        return POOLS.computeIfAbsent(key, k -> new JdbcConnectionPool(url, user, factory)).borrow();
+    }
+
+    public static Collection<JdbcConnectionPool> pools() {
+        return POOLS.values();
+    }
+
+    private static void evictIdle() {
+        POOLS.values().forEach(JdbcConnectionPool::evict);
+    }
+
+    private static class Idle {
+        final Connection connection;
+        final long since = System.currentTimeMillis();
+
+        Idle(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private Connection borrow() throws Exception {
+        if (!permits.tryAcquire(connectionTimeout, TimeUnit.MILLISECONDS)) {
+            throw new SQLException(String.format("Timed out after %d ms waiting for a connection to %s", connectionTimeout, getUrl()));
+        }
+        try {
+            Idle entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isAlive(entry)) {
+                    borrowed.incrementAndGet();
+                    return lease(entry.connection);
+                }
+                close(entry.connection);
+            }
+            Connection connection = factory.call();
+            created.incrementAndGet();
+            borrowed.incrementAndGet();
+            return lease(connection);
+        } catch (Exception e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isAlive(Idle entry) {
+        try {
+            if (System.currentTimeMillis() - entry.since < VALIDATION_BYPASS) {
+                return !entry.connection.isClosed();
+            }
+            try {
+                return entry.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (AbstractMethodError e) {
+                // drivers before JDBC 4
+                return !entry.connection.isClosed();
+            }
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return a proxy of the connection whose close returns the connection to the pool once
+     */
+    private Connection lease(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(false, true)) release(connection);
+                    return null;
+                case "isClosed":
+                    if (released.get()) return true;
+                    break;
+                default:
+                    if (released.get() && method.getDeclaringClass() != Object.class) throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private void release(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                closed.incrementAndGet();
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.addFirst(new Idle(connection));
+        } catch (Exception e) {
+            close(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        List<Idle> expired = new ArrayList<>();
+        for (Idle entry : idle) {
+            if (now - entry.since > idleTimeout) expired.add(entry);
+        }
+        for (Idle entry : expired) {
+            // only close connections that were not borrowed in the meantime
+            if (idle.removeFirstOccurrence(entry)) close(entry.connection);
+        }
+    }
+
+    private void close(Connection connection) {
+        closed.incrementAndGet();
+        try {
+            connection.close();
+        } catch (Exception e) {
+            // ignore
+        }
+    }
+
+    /**
+     * @return the url without user info and parameters, which might contain credentials
+     */
+    public String getUrl() {
+        String result = url.replaceAll("//[^/@]*@", "//");
+        int params = result.indexOf('?');
+        return params == -1 ? result : result.substring(0, params);
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public long getIdle() {
+        return idle.size();
+    }
+
+    public long getActive() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public long getCreated() {
+        return created.get();
+    }
+
+    public long getBorrowed() {
+        return borrowed.get();
+    }
+
+    public long getClosed() {
+        return closed.get();
+    }
+}
@@ -20,22 +20,35 @@ public class JdbcUtil {
 
     private JdbcUtil() {}
 
+    /**
+     * @return a connection of the pool for the url and user, unless the config disables pooling
+     */
     public static Connection getConnection(String jdbcUrl, LoadJdbcConfig config) throws Exception {
         if(config.hasCredentials()) {
-            return createConnection(jdbcUrl, config.getCredentials().getUser(), config.getCredentials().getPassword());
+            return getConnection(jdbcUrl, config.getCredentials().getUser(), config.getCredentials().getPassword(), config.isPool());
         } else {
             URI uri = new URI(jdbcUrl.substring("jdbc:".length()));
             String userInfo = uri.getUserInfo();
             if (userInfo != null) {
                 String cleanUrl = jdbcUrl.substring(0, jdbcUrl.indexOf("://") + 3) + jdbcUrl.substring(jdbcUrl.indexOf("@") + 1);
                 String[] user = userInfo.split(":");
-                return createConnection(cleanUrl, user[0], user[1]);
+                return getConnection(cleanUrl, user[0], user[1], config.isPool());
             }
-            return DriverManager.getConnection(jdbcUrl);
+            return getConnection(jdbcUrl, null, null, config.isPool());
+        }
+    }
+
+    private static Connection getConnection(String jdbcUrl, String userName, String password, boolean pool) throws Exception {
+        if (pool) {
+            return JdbcConnectionPool.getConnection(jdbcUrl, userName, password, () -> createConnection(jdbcUrl, userName, password));
         }
+        return createConnection(jdbcUrl, userName, password);
     }
 
     private static Connection createConnection(String jdbcUrl, String userName, String password) throws Exception {
+        if (userName == null) {
+            return DriverManager.getConnection(jdbcUrl);
+        }
         if (jdbcUrl.contains(";auth=kerberos")) {
             String client = System.getProperty("java.security.auth.login.config.client", "KerberosClient");
             LoginContext lc = new LoginContext(client, callbacks -> {
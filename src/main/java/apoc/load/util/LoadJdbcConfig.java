@@ -1,5 +1,6 @@
 package apoc.load.util;
 
+import apoc.util.Util;
 import org.apache.commons.lang.StringUtils;
 
 import java.time.DateTimeException;
@@ -17,6 +18,12 @@ public class LoadJdbcConfig {
 
     private Credentials credentials;
 
+    private final boolean pool;
+
+    private final int fetchSize;
+
+    private final int batchSize;
+
     public LoadJdbcConfig(Map<String,Object> config) {
         config = config != null ? config : Collections.emptyMap();
         try {
@@ -26,6 +33,9 @@ public class LoadJdbcConfig {
             throw new IllegalArgumentException(String.format("The timezone field contains an error: %s", e.getMessage()));
         }
         this.credentials = config.containsKey("credentials") ? createCredentials((Map<String, String>) config.get("credentials")) : null;
+        this.pool = Util.toBoolean(config.getOrDefault("pool", true));
+        this.fetchSize = Util.toInteger(config.getOrDefault("fetchSize", 5000));
+        this.batchSize = Util.toInteger(config.getOrDefault("batchSize", 5000));
     }
 
     public ZoneId getZoneId(){
@@ -68,4 +78,16 @@ public class LoadJdbcConfig {
         return this.credentials != null;
     }
 
+    public boolean isPool() {
+        return pool;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
 }
\ No newline at end of file
@@ -1,25 +1,33 @@
 package apoc.meta;
 
+import apoc.Pools;
 import apoc.result.GraphResult;
 import apoc.result.MapResult;
 import apoc.result.VirtualNode;
 import apoc.result.VirtualRelationship;
 import apoc.util.MapUtil;
+import apoc.util.Util;
 import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.graphdb.spatial.Point;
 import org.neo4j.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
 import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.internal.kernel.api.TokenRead;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.api.txstate.TxStateHolder;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.*;
 import org.neo4j.values.storable.DurationValue;
 
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -145,6 +153,25 @@ public class Meta {
             this.property = name;
         }
 
+        public MetaResult copy() {
+            MetaResult copy = new MetaResult(label, property);
+            copy.count = count;
+            copy.unique = unique;
+            copy.index = index;
+            copy.existence = existence;
+            copy.type = type;
+            copy.array = array;
+            copy.sample = sample == null ? null : new ArrayList<>(sample);
+            copy.leftCount = leftCount;
+            copy.rightCount = rightCount;
+            copy.left = left;
+            copy.right = right;
+            copy.other = new ArrayList<>(other);
+            copy.otherLabels = new ArrayList<>(otherLabels);
+            copy.elementType = elementType;
+            return copy;
+        }
+
         public MetaResult inc() {
             count ++;
             return this;
@@ -427,40 +454,100 @@ public class Meta {
     }
 
     private Map<String, Map<String, MetaResult>> collectMetaData (MetaConfig config) {
+        List<String> relTypes = db.getAllRelationshipTypesInUse().stream().map(RelationshipType::name).collect(Collectors.toList());
+        List<String> labels = db.getAllLabelsInUse().stream().map(Label::name).collect(Collectors.toList());
+
+        Map<String, MetaCache.LabelMeta> labelMetas;
+        if (kernelTx instanceof TxStateHolder && ((TxStateHolder) kernelTx).hasTxStateWithChanges()) {
+            // the separate transactions and the cache wouldn't see the changes of this transaction
+            labelMetas = new HashMap<>();
+            for (String label : labels) {
+                labelMetas.put(label, collectLabelMetaData(label, kernelTx, config));
+            }
+        } else if (config.isCache()) {
+            labelMetas = MetaCache.of(api).get(db, config.getSample() + ":" + config.getMaxSampleSize(), labels, (changed) -> collectMetaData(changed, config));
+        } else {
+            labelMetas = collectMetaData(labels, config);
+        }
+
+        // the same order as sampling the labels one after the other, the first label to find a relationship property wins
         Map<String,Map<String,MetaResult>> metaData = new LinkedHashMap<>(100);
-        Schema schema = db.schema();
+        for (String type : relTypes) {
+            metaData.put(type, new LinkedHashMap<>(10));
+        }
+        for (String label : labels) {
+            MetaCache.LabelMeta labelMeta = labelMetas.get(label);
+            metaData.put(label, copy(labelMeta.nodeMeta, new LinkedHashMap<>(50)));
+            labelMeta.relMeta.forEach((type, typeMeta) -> copy(typeMeta, metaData.computeIfAbsent(type, t -> new LinkedHashMap<>(10))));
+        }
+        return metaData;
+    }
 
-        Map<String, Iterable<ConstraintDefinition>> relConstraints = new HashMap<>(20);
-        for (RelationshipType type : db.getAllRelationshipTypesInUse()) {
-            metaData.put(type.name(), new LinkedHashMap<>(10));
-            relConstraints.put(type.name(),schema.getConstraints(type));
+    private static Map<String, MetaResult> copy(Map<String, MetaResult> source, Map<String, MetaResult> target) {
+        source.forEach((key, value) -> target.putIfAbsent(key, value.copy()));
+        return target;
+    }
+
+    /**
+     * samples the labels in parallel, each in its own transaction
+     */
+    private Map<String, MetaCache.LabelMeta> collectMetaData(Collection<String> labels, MetaConfig config) {
+        ThreadToStatementContextBridge bridge = api.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
+        ExecutorService pool = Pools.pool(Pools.META);
+        Map<String, Future<MetaCache.LabelMeta>> futures = new LinkedHashMap<>();
+        for (String label : labels) {
+            futures.put(label, Util.inTxFuture(pool, db, () -> collectLabelMetaData(label, bridge.getKernelTransactionBoundToThisThread(true), config)));
         }
-        Map<String, Long> countStore = getLabelCountStore();
-        for (Label label : db.getAllLabelsInUse()) {
-            Map<String,MetaResult> nodeMeta = new LinkedHashMap<>(50);
-            String labelName = label.name();
-            metaData.put(labelName, nodeMeta);
-            Iterable<ConstraintDefinition> constraints = schema.getConstraints(label);
-            Set<String> indexed = new LinkedHashSet<>();
-            for (IndexDefinition index : schema.getIndexes(label)) {
-                for (String prop : index.getPropertyKeys()) {
-                    indexed.add(prop);
-                }
+        Map<String, MetaCache.LabelMeta> result = new HashMap<>();
+        try {
+            for (Map.Entry<String, Future<MetaCache.LabelMeta>> entry : futures.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().get());
             }
-            long labelCount = countStore.get(labelName);
-            long sample = getSampleForLabelCount(labelCount, config.getSample());
-            try (ResourceIterator<Node> nodes = db.findNodes(label)) {
-                int count = 1;
-                while (nodes.hasNext()) {
-                    Node node = nodes.next();
-                    if(count++ % sample == 0) {
-                        addRelationships(metaData, nodeMeta, labelName, node, relConstraints);
-                        addProperties(nodeMeta, labelName, constraints, indexed, node, node);
-                    }
+        } catch (Exception e) {
+            futures.values().forEach(f -> f.cancel(true));
+            throw new RuntimeException("Error sampling the meta data: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * samples every n-th node of the label, the nodes in between are only skipped in the label scan but not read,
+     * at most maxSampleSize nodes per label
+     */
+    private MetaCache.LabelMeta collectLabelMetaData(String labelName, KernelTransaction ktx, MetaConfig config) {
+        Label label = Label.label(labelName);
+        Schema schema = db.schema();
+        Map<String,MetaResult> nodeMeta = new LinkedHashMap<>(50);
+        Map<String,Map<String,MetaResult>> relMeta = new LinkedHashMap<>(10);
+        Map<String, Iterable<ConstraintDefinition>> relConstraints = new HashMap<>(20);
+        Iterable<ConstraintDefinition> constraints = schema.getConstraints(label);
+        Set<String> indexed = new LinkedHashSet<>();
+        for (IndexDefinition index : schema.getIndexes(label)) {
+            for (String prop : index.getPropertyKeys()) {
+                indexed.add(prop);
+            }
+        }
+        int labelId = ktx.tokenRead().nodeLabel(labelName);
+        long labelCount = ktx.dataRead().countsForNodeWithoutTxState(labelId);
+        long sample = getSampleForLabelCount(labelCount, config.getSample());
+        long maxSampleSize = config.getMaxSampleSize();
+        if (maxSampleSize > 0 && labelCount / Math.abs(sample) > maxSampleSize) {
+            sample = (labelCount + maxSampleSize - 1) / maxSampleSize;
+        }
+        // keeps the statement and with it the label scan open while the nodes are read via the core api
+        try (Statement ignore = ktx.acquireStatement();
+             NodeLabelIndexCursor nodes = ktx.cursors().allocateNodeLabelIndexCursor()) {
+            ktx.dataRead().nodeLabelScan(labelId, nodes);
+            long count = 1;
+            while (nodes.next()) {
+                if(count++ % sample == 0) {
+                    Node node = db.getNodeById(nodes.nodeReference());
+                    addRelationships(relMeta, nodeMeta, labelName, node, relConstraints);
+                    addProperties(nodeMeta, labelName, constraints, indexed, node, node);
                 }
             }
         }
-        return metaData;
+        return new MetaCache.LabelMeta(nodeMeta, relMeta);
     }
 
     private Map<String, Long> getLabelCountStore() {
@@ -608,11 +695,11 @@ public class Meta {
 
             String typeName = type.name();
 
-            Iterable<ConstraintDefinition> constraints = relConstraints.get(typeName);
+            Iterable<ConstraintDefinition> constraints = relConstraints.computeIfAbsent(typeName, t -> db.schema().getConstraints(type));
             if (!nodeMeta.containsKey(typeName)) nodeMeta.put(typeName, new MetaResult(labelName,typeName));
 //            int in = node.getDegree(type, Direction.INCOMING);
 
-            Map<String, MetaResult> typeMeta = metaData.get(typeName);
+            Map<String, MetaResult> typeMeta = metaData.computeIfAbsent(typeName, t -> new LinkedHashMap<>(10));
             if (!typeMeta.containsKey(labelName)) typeMeta.put(labelName,new MetaResult(typeName,labelName));
             MetaResult relMeta = nodeMeta.get(typeName);
             addOtherNodeInfo(node, labelName, out, type, relMeta , typeMeta, constraints);
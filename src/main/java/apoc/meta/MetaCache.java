@@ -0,0 +1,289 @@
+package apoc.meta;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.event.ErrorState;
+import org.neo4j.graphdb.event.KernelEventHandler;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache of the sampled meta data of apoc.meta.data and apoc.meta.schema per label, for each sampling configuration.
+ *
+ * A transaction event handler, registered on first use, marks the labels and relationship types changed by committed
+ * transactions. The next call only samples the labels again that were changed, that have start nodes of changed
+ * relationship types or whose nodes got relationships to nodes with changed labels. A changed schema samples all labels again.
+ *
+ * The handler only collects label names and the ids of the changed nodes and relationships without reading them, their
+ * labels and types are read by the next call. When the cache wasn't used for {@link #IDLE_MILLIS} the handler deregisters
+ * itself, so writes don't pay for a cache nobody reads, the next call starts over with a new cache.
+ */
+public class MetaCache implements TransactionEventHandler<MetaCache.Changes> {
+    private static final Map<GraphDatabaseAPI, MetaCache> CACHES = new ConcurrentHashMap<>();
+    static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    // more pending ids than this sample all labels again instead of reading the entities
+    private static final int MAX_PENDING_IDS = 100_000;
+
+    private final GraphDatabaseAPI db;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    volatile long lastUsed = System.currentTimeMillis();
+
+    private MetaCache(GraphDatabaseAPI db) {
+        this.db = db;
+    }
+
+    public static MetaCache of(GraphDatabaseAPI db) {
+        return CACHES.computeIfAbsent(db, MetaCache::register);
+    }
+
+    private static MetaCache register(GraphDatabaseAPI db) {
+        MetaCache cache = new MetaCache(db);
+        db.registerTransactionEventHandler(cache);
+        db.registerKernelEventHandler(new KernelEventHandler() {
+            @Override
+            public void beforeShutdown() {
+                CACHES.remove(db, cache);
+            }
+
+            @Override
+            public void kernelPanic(ErrorState error) {
+                CACHES.remove(db, cache);
+            }
+
+            @Override
+            public Object getResource() {
+                return null;
+            }
+
+            @Override
+            public ExecutionOrder orderComparedTo(KernelEventHandler other) {
+                return ExecutionOrder.DOESNT_MATTER;
+            }
+        });
+        return cache;
+    }
+
+    /**
+     * the sampled meta data of one label, its node properties and relationships and the outgoing relationships by type
+     */
+    public static class LabelMeta {
+        final Map<String, Meta.MetaResult> nodeMeta;
+        final Map<String, Map<String, Meta.MetaResult>> relMeta;
+
+        LabelMeta(Map<String, Meta.MetaResult> nodeMeta, Map<String, Map<String, Meta.MetaResult>> relMeta) {
+            this.nodeMeta = nodeMeta;
+            this.relMeta = relMeta;
+        }
+    }
+
+    private static class Snapshot {
+        final Map<String, LabelMeta> labels = new ConcurrentHashMap<>();
+        final Set<String> changedLabels = ConcurrentHashMap.newKeySet();
+        final Set<String> changedTypes = ConcurrentHashMap.newKeySet();
+        final Set<Long> changedNodes = ConcurrentHashMap.newKeySet();
+        final Set<Long> relabeledNodes = ConcurrentHashMap.newKeySet();
+        final Set<Long> changedRelationships = ConcurrentHashMap.newKeySet();
+        volatile boolean invalid;
+        String schema;
+
+        void add(Changes changes) {
+            if (changes.all) invalid = true;
+            changedLabels.addAll(changes.labels);
+            changedTypes.addAll(changes.types);
+            if (invalid) return;
+            changedNodes.addAll(changes.nodes);
+            relabeledNodes.addAll(changes.relabeledNodes);
+            changedRelationships.addAll(changes.relationships);
+            if (changedNodes.size() + relabeledNodes.size() + changedRelationships.size() > MAX_PENDING_IDS) {
+                invalid = true;
+                changedNodes.clear();
+                relabeledNodes.clear();
+                changedRelationships.clear();
+            }
+        }
+    }
+
+    /**
+     * @param key the sampling configuration
+     * @param labels the labels in use
+     * @param sample samples the meta data of the given labels
+     * @return the meta data of all labels in use, only the changed ones sampled again
+     */
+    public Map<String, LabelMeta> get(GraphDatabaseService db, String key, Collection<String> labels, Function<Collection<String>, Map<String, LabelMeta>> sample) {
+        lastUsed = System.currentTimeMillis();
+        Snapshot snapshot = snapshots.computeIfAbsent(key, k -> new Snapshot());
+        synchronized (snapshot) {
+            String schema = schema(db);
+            Set<String> changedLabels = drain(snapshot.changedLabels);
+            Set<String> changedTypes = drain(snapshot.changedTypes);
+            Set<Long> changedNodes = drain(snapshot.changedNodes);
+            Set<Long> relabeledNodes = drain(snapshot.relabeledNodes);
+            Set<Long> changedRelationships = drain(snapshot.changedRelationships);
+            if (snapshot.invalid || !schema.equals(snapshot.schema)) {
+                snapshot.invalid = false;
+                snapshot.schema = schema;
+                snapshot.labels.clear();
+            } else {
+                resolve(db, changedNodes, relabeledNodes, changedRelationships, changedLabels, changedTypes);
+            }
+            snapshot.labels.keySet().retainAll(labels);
+            List<String> toSample = new ArrayList<>();
+            for (String label : labels) {
+                LabelMeta meta = snapshot.labels.get(label);
+                if (meta == null || changedLabels.contains(label) || changedTypes.stream().anyMatch(meta.relMeta::containsKey)) {
+                    toSample.add(label);
+                }
+            }
+            if (!toSample.isEmpty()) {
+                snapshot.labels.putAll(sample.apply(toSample));
+            }
+            return new HashMap<>(snapshot.labels);
+        }
+    }
+
+    private static <T> Set<T> drain(Set<T> changes) {
+        Set<T> result = new HashSet<>(changes);
+        changes.removeAll(result);
+        return result;
+    }
+
+    /**
+     * adds the labels and types of the changed entities that still exist, deleted relationships were recorded with their type
+     */
+    private static void resolve(GraphDatabaseService db, Set<Long> changedNodes, Set<Long> relabeledNodes, Set<Long> changedRelationships,
+                                Set<String> changedLabels, Set<String> changedTypes) {
+        for (long id : changedNodes) {
+            try {
+                labels(db.getNodeById(id), changedLabels);
+            } catch (NotFoundException e) {
+                // deleted afterwards
+            }
+        }
+        for (long id : relabeledNodes) {
+            try {
+                // the labels of the other nodes of relationships are part of the meta data of their start nodes
+                Node node = db.getNodeById(id);
+                for (RelationshipType type : node.getRelationshipTypes()) {
+                    if (node.hasRelationship(Direction.INCOMING, type)) changedTypes.add(type.name());
+                }
+            } catch (NotFoundException e) {
+                // deleted afterwards
+            }
+        }
+        for (long id : changedRelationships) {
+            try {
+                Relationship rel = db.getRelationshipById(id);
+                changedTypes.add(rel.getType().name());
+                labels(rel.getStartNode(), changedLabels);
+            } catch (NotFoundException e) {
+                // deleted afterwards
+            }
+        }
+    }
+
+    private static void labels(Node node, Set<String> labels) {
+        for (Label label : node.getLabels()) labels.add(label.name());
+    }
+
+    private static String schema(GraphDatabaseService db) {
+        List<String> schema = new ArrayList<>();
+        for (IndexDefinition index : db.schema().getIndexes()) schema.add(index.toString());
+        for (ConstraintDefinition constraint : db.schema().getConstraints()) schema.add(constraint.toString());
+        schema.sort(null);
+        return schema.toString();
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    /**
+     * labels and relationship types changed by a transaction and the ids of the changed entities, whose labels and types
+     * are read when the cache is used next
+     */
+    static class Changes {
+        final Set<String> labels = new HashSet<>();
+        final Set<String> types = new HashSet<>();
+        final Set<Long> nodes = new HashSet<>();
+        final Set<Long> relabeledNodes = new HashSet<>();
+        final Set<Long> relationships = new HashSet<>();
+        boolean all;
+    }
+
+    @Override
+    public Changes beforeCommit(TransactionData data) {
+        if (System.currentTimeMillis() - lastUsed > IDLE_MILLIS) {
+            deregister();
+            return null;
+        }
+        Changes changes = new Changes();
+        try {
+            for (LabelEntry entry : data.assignedLabels()) changedLabels(data, changes, entry);
+            for (LabelEntry entry : data.removedLabels()) changedLabels(data, changes, entry);
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) changedNode(data, changes, entry.entity());
+            for (PropertyEntry<Node> entry : data.removedNodeProperties()) changedNode(data, changes, entry.entity());
+            for (Relationship rel : data.createdRelationships()) changes.relationships.add(rel.getId());
+            for (Relationship rel : data.deletedRelationships()) changes.types.add(rel.getType().name());
+            for (PropertyEntry<Relationship> entry : data.assignedRelationshipProperties()) changedRelationship(data, changes, entry.entity());
+            for (PropertyEntry<Relationship> entry : data.removedRelationshipProperties()) changedRelationship(data, changes, entry.entity());
+        } catch (Exception e) {
+            // the deleted relationships can't be read, sample everything again
+            changes.all = true;
+        }
+        return changes;
+    }
+
+    private void deregister() {
+        if (CACHES.remove(db, this)) {
+            db.unregisterTransactionEventHandler(this);
+        }
+    }
+
+    private void changedLabels(TransactionData data, Changes changes, LabelEntry entry) {
+        changes.labels.add(entry.label().name());
+        Node node = entry.node();
+        if (!data.isDeleted(node)) changes.relabeledNodes.add(node.getId());
+    }
+
+    private void changedNode(TransactionData data, Changes changes, Node node) {
+        if (!data.isDeleted(node)) changes.nodes.add(node.getId());
+    }
+
+    private void changedRelationship(TransactionData data, Changes changes, Relationship rel) {
+        // properties of deleted relationships are removed with them, their type is recorded as deleted relationship
+        if (!data.isDeleted(rel)) changes.relationships.add(rel.getId());
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, Changes changes) {
+        if (changes == null) return;
+        for (Snapshot snapshot : snapshots.values()) {
+            snapshot.add(changes);
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, Changes changes) {
+    }
+}
@@ -9,6 +9,8 @@ public class MetaConfig {
     private Set<String> excludes;
     private long maxRels;
     private long sample;
+    private long maxSampleSize;
+    private boolean cache;
 
     public MetaConfig(Map<String,Object> config) {
         config = config != null ? config : Collections.emptyMap();
@@ -17,6 +19,8 @@ public class MetaConfig {
         this.excludes = new HashSet<>((Collection<String>)config.getOrDefault("excludes",Collections.EMPTY_SET));
         this.sample = (long) config.getOrDefault("sample", 1000L);
         this.maxRels = (long) config.getOrDefault("maxRels", 100L);
+        this.maxSampleSize = (long) config.getOrDefault("maxSampleSize", -1L);
+        this.cache = (boolean) config.getOrDefault("cache", true);
     }
 
     public Set<String> getIncludesLabels() {
@@ -43,4 +47,12 @@ public class MetaConfig {
     public long getMaxRels() {
         return maxRels;
     }
+
+    public long getMaxSampleSize() {
+        return maxSampleSize;
+    }
+
+    public boolean isCache() {
+        return cache;
+    }
 }
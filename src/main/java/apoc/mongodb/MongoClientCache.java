@@ -0,0 +1,111 @@
+package apoc.mongodb;
+
+import apoc.ApocConfiguration;
+import apoc.Pools;
+import apoc.util.Util;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoClientURI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clients of the apoc.mongodb procedures, one per url, shared by all calls.
+ *
+ * Each client keeps a pool of at most apoc.mongodb.pool.max_size connections per host, unless the url sets maxPoolSize.
+ * Clients not used for longer than apoc.mongodb.client.idle_timeout milliseconds are closed, clients with open cursors are kept.
+ */
+class MongoClientCache {
+    private static final Map<String, Entry> CLIENTS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean EVICTION_SCHEDULED = new AtomicBoolean();
+    private static final long EVICTION_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    private static class Entry {
+        final MongoClient client;
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile boolean evicted;
+
+        Entry(MongoClient client) {
+            this.client = client;
+        }
+
+        void release() {
+            lastUsed = System.currentTimeMillis();
+            inUse.decrementAndGet();
+            closeIfEvicted();
+        }
+
+        // an evicted client is closed by whoever releases it last
+        void closeIfEvicted() {
+            if (evicted && inUse.get() == 0 && closed.compareAndSet(false, true)) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * a client borrowed from the cache, closing it only releases it
+     */
+    static class Lease implements AutoCloseable {
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        MongoClient client() {
+            return entry.client;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) entry.release();
+        }
+    }
+
+    static Lease acquire(String url) {
+        if (EVICTION_SCHEDULED.compareAndSet(false, true)) {
+            Pools.SCHEDULED.scheduleWithFixedDelay(MongoClientCache::evictIdle, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        while (true) {
+            Entry entry = CLIENTS.computeIfAbsent(url, MongoClientCache::create);
+            entry.inUse.incrementAndGet();
+            // the client might have been evicted concurrently
+            if (CLIENTS.get(url) == entry) return new Lease(entry);
+            entry.release();
+        }
+    }
+
+    private static Entry create(String url) {
+        int maxSize = Util.toInteger(ApocConfiguration.get("mongodb.pool.max_size", 100));
+        // options of the url take precedence over the builder
+        MongoClientOptions.Builder options = MongoClientOptions.builder().connectionsPerHost(maxSize);
+        return new Entry(new MongoClient(new MongoClientURI(url, options)));
+    }
+
+    private static void evictIdle() {
+        long idleTimeout = Util.toLong(ApocConfiguration.get("mongodb.client.idle_timeout", 600_000));
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Entry>> expired = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : CLIENTS.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.inUse.get() == 0 && now - entry.lastUsed > idleTimeout) expired.add(e);
+        }
+        for (Map.Entry<String, Entry> e : expired) {
+            Entry entry = e.getValue();
+            if (CLIENTS.remove(e.getKey(), entry)) {
+                entry.evicted = true;
+                entry.closeIfEvicted();
+            }
+        }
+    }
+}
@@ -52,17 +52,18 @@ public class MongoDB {
     public Log log;
 
     @Procedure
-    @Description("apoc.mongodb.get(host-or-port,db-or-null,collection-or-null,query-or-null,[compatibleValues=true|false],skip-or-null,limit-or-null) yield value - perform a find operation on mongodb collection")
+    @Description("apoc.mongodb.get(host-or-port,db-or-null,collection-or-null,query-or-null,[compatibleValues=true|false],skip-or-null,limit-or-null,[batchSize=1000]) yield value - perform a find operation on mongodb collection")
     public Stream<MapResult> get(@Name("host") String hostOrKey,
                                  @Name("db") String db,
                                  @Name("collection") String collection,
                                  @Name("query") Map<String, Object> query,
                                  @Name(value = "compatibleValues", defaultValue = "false") boolean compatibleValues, 
                                  @Name(value = "skip", defaultValue = "0") Long skip,
-                                 @Name(value = "limit", defaultValue = "0") Long limit) {
+                                 @Name(value = "limit", defaultValue = "0") Long limit,
+                                 @Name(value = "batchSize", defaultValue = "1000") Long batchSize) {
         return executeMongoQuery(hostOrKey, db, collection, compatibleValues,
-                coll -> coll.all(query, skip, limit).map(MapResult::new),
-                e -> log.error("apoc.mongodb.get - hostOrKey = [" + hostOrKey + "], db = [" + db + "], collection = [" + collection + "], query = [" + query + "], compatibleValues = [" + compatibleValues + "], skip = [" + skip + "], limit = [" + limit + "]", e));
+                coll -> coll.all(query, skip, limit, batchSize).map(MapResult::new),
+                e -> log.error("apoc.mongodb.get - hostOrKey = [" + hostOrKey + "], db = [" + db + "], collection = [" + collection + "], query = [" + query + "], compatibleValues = [" + compatibleValues + "], skip = [" + skip + "], limit = [" + limit + "], batchSize = [" + batchSize + "]", e));
     }
 
     @Procedure
@@ -93,7 +94,7 @@ public class MongoDB {
     }
 
     @Procedure
-    @Description("apoc.mongodb.find(host-or-port,db-or-null,collection-or-null,query-or-null,projection-or-null,sort-or-null,pagination,[compatibleValues=true|false],skip-or-null,limit-or-null) yield value - perform a find,project,sort operation on mongodb collection")
+    @Description("apoc.mongodb.find(host-or-port,db-or-null,collection-or-null,query-or-null,projection-or-null,sort-or-null,pagination,[compatibleValues=true|false],skip-or-null,limit-or-null,[batchSize=1000]) yield value - perform a find,project,sort operation on mongodb collection")
     public Stream<MapResult> find(@Name("host") String hostOrKey,
                                   @Name("db") String db,
                                   @Name("collection") String collection,
@@ -102,14 +103,15 @@ public class MongoDB {
                                   @Name("sort") Map<String, Object> sort,
                                   @Name(value = "compatibleValues", defaultValue = "false") boolean compatibleValues,
                                   @Name(value = "skip", defaultValue = "0") Long skip,
-                                  @Name(value = "limit", defaultValue = "0") Long limit) {
+                                  @Name(value = "limit", defaultValue = "0") Long limit,
+                                  @Name(value = "batchSize", defaultValue = "1000") Long batchSize) {
         return executeMongoQuery(hostOrKey, db, collection, compatibleValues,
-                coll -> coll.find(query, project, sort, skip, limit).map(MapResult::new),
-                e -> log.error("apoc.mongodb.find - hostOrKey = [" + hostOrKey + "], db = [" + db + "], collection = [" + collection + "], query = [" + query + "], project = [" + project + "], sort = [" + sort + "], compatibleValues = [" + compatibleValues + "], skip = [" + skip + "], limit = [" + limit + "]",e));
+                coll -> coll.find(query, project, sort, skip, limit, batchSize).map(MapResult::new),
+                e -> log.error("apoc.mongodb.find - hostOrKey = [" + hostOrKey + "], db = [" + db + "], collection = [" + collection + "], query = [" + query + "], project = [" + project + "], sort = [" + sort + "], compatibleValues = [" + compatibleValues + "], skip = [" + skip + "], limit = [" + limit + "], batchSize = [" + batchSize + "]",e));
     }
 
     @Procedure
-    @Description("apoc.mongodb.insert(host-or-port,db-or-null,collection-or-null,list-of-maps) - inserts the given documents into the mongodb collection")
+    @Description("apoc.mongodb.insert(host-or-port,db-or-null,collection-or-null,list-of-maps) - inserts the given documents into the mongodb collection with one bulk write")
     public void insert(@Name("host") String hostOrKey, @Name("db") String db, @Name("collection") String collection, @Name("documents") List<Map<String, Object>> documents) {
         try (Coll coll = getMongoColl(hostOrKey, db, collection, false)) {
             coll.insert(documents);
@@ -135,6 +137,22 @@ public class MongoDB {
                 e -> log.error("apoc.mongodb.update - hostOrKey = [" + hostOrKey + "], db = [" + db + "], collection = [" + collection + "], query = [" + query + "], update = [" + update + "]",e));
     }
 
+    @Procedure
+    @Description("apoc.mongodb.bulkUpdate(host-or-port,db-or-null,collection-or-null,list-of-{query,update,upsert},[ordered=true|false]) yield value - updates the documents matching each query with one bulk write and returns the number of affected documents")
+    public Stream<LongResult> bulkUpdate(@Name("host") String hostOrKey, @Name("db") String db, @Name("collection") String collection, @Name("updates") List<Map<String, Object>> updates, @Name(value = "ordered", defaultValue = "true") boolean ordered) {
+        return executeMongoQuery(hostOrKey, db, collection, false,
+                coll -> Stream.of(new LongResult(coll.bulkUpdate(updates, ordered))),
+                e -> log.error("apoc.mongodb.bulkUpdate - hostOrKey = [" + hostOrKey + "], db = [" + db + "], collection = [" + collection + "], updates = [" + updates.size() + "], ordered = [" + ordered + "]",e));
+    }
+
+    @Procedure
+    @Description("apoc.mongodb.bulkDelete(host-or-port,db-or-null,collection-or-null,list-of-queries,[ordered=true|false]) yield value - deletes the documents matching each query with one bulk write and returns the number of affected documents")
+    public Stream<LongResult> bulkDelete(@Name("host") String hostOrKey, @Name("db") String db, @Name("collection") String collection, @Name("queries") List<Map<String, Object>> queries, @Name(value = "ordered", defaultValue = "true") boolean ordered) {
+        return executeMongoQuery(hostOrKey, db, collection, false,
+                coll -> Stream.of(new LongResult(coll.bulkDelete(queries, ordered))),
+                e -> log.error("apoc.mongodb.bulkDelete - hostOrKey = [" + hostOrKey + "], db = [" + db + "], collection = [" + collection + "], queries = [" + queries.size() + "], ordered = [" + ordered + "]",e));
+    }
+
     private String getMongoDBUrl(String hostOrKey) {
         return new UrlResolver("mongodb", "localhost", 27017).getUrl("mongodb", hostOrKey);
     }
@@ -162,11 +180,11 @@ public class MongoDB {
     interface Coll extends Closeable {
         Map<String, Object> first(Map<String, Object> params);
 
-        Stream<Map<String, Object>> all(Map<String, Object> query, Long skip, Long limit);
+        Stream<Map<String, Object>> all(Map<String, Object> query, Long skip, Long limit, Long batchSize);
 
         long count(Map<String, Object> query);
 
-        Stream<Map<String, Object>> find(Map<String, Object> query, Map<String, Object> project, Map<String, Object> sort, Long skip, Long limit);
+        Stream<Map<String, Object>> find(Map<String, Object> query, Map<String, Object> project, Map<String, Object> sort, Long skip, Long limit, Long batchSize);
 
         void insert(List<Map<String, Object>> docs);
 
@@ -174,6 +192,10 @@ public class MongoDB {
 
         long delete(Map<String, Object> query);
 
+        long bulkUpdate(List<Map<String, Object>> updates, boolean ordered);
+
+        long bulkDelete(List<Map<String, Object>> queries, boolean ordered);
+
         default void safeClose() {
             try {
                 this.close();
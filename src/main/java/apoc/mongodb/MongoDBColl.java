@@ -3,17 +3,24 @@ package apoc.mongodb;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mongodb.MongoClient;
-import com.mongodb.MongoClientURI;
+import apoc.util.Util;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.Document;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Spliterator;
@@ -29,14 +36,12 @@ class MongoDBColl implements MongoDB.Coll {
 
     private static final ObjectMapper jsonMapper = new ObjectMapper().enable(DeserializationFeature.USE_LONG_FOR_INTS);
     private MongoCollection<Document> collection;
-    private MongoClient mongoClient;
+    private MongoClientCache.Lease lease;
     private boolean compatibleValues = false;
-    private boolean doorStop = false;
 
     public MongoDBColl(String url, String db, String coll) {
-        MongoClientURI connectionString = new MongoClientURI(url);
-        mongoClient = new MongoClient(connectionString);
-        MongoDatabase database = mongoClient.getDatabase(db);
+        lease = MongoClientCache.acquire(url);
+        MongoDatabase database = lease.client().getDatabase(db);
         collection = database.getCollection(coll);
     }
 
@@ -52,10 +57,12 @@ class MongoDBColl implements MongoDB.Coll {
         this.compatibleValues = compatibleValues;
     }
 
+    /**
+     * releases the shared client, cursors of returned streams have to be closed by closing the streams
+     */
     @Override
     public void close() throws IOException {
-        if (doorStop) return;
-        mongoClient.close();
+        lease.close();
     }
 
     /**
@@ -100,10 +107,11 @@ class MongoDBColl implements MongoDB.Coll {
     }
 
     @Override
-    public Stream<Map<String, Object>> all(Map<String, Object> query, Long skip, Long limit) {
+    public Stream<Map<String, Object>> all(Map<String, Object> query, Long skip, Long limit, Long batchSize) {
         FindIterable<Document> documents = query == null ? collection.find() : collection.find(new Document(query));
         if (skip != 0) documents = documents.skip(skip.intValue());
         if (limit != 0) documents = documents.limit(limit.intValue());
+        if (batchSize != 0) documents = documents.batchSize(batchSize.intValue());
         return asStream(documents);
     }
 
@@ -112,33 +120,61 @@ class MongoDBColl implements MongoDB.Coll {
         return query == null ? collection.count() : collection.count(new Document(query));
     }
 
+    /**
+     * the cursor fetches the next batch of documents when the current one is consumed
+     */
     private Stream<Map<String, Object>> asStream(FindIterable<Document> result) {
-        this.doorStop = true;
-        Iterable<Document> it = () -> result.iterator();
+        MongoCursor<Document> cursor = result.iterator();
         return StreamSupport
-                .stream(it.spliterator(), false)
+                .stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
                 .map(doc -> this.documentToPackableMap(doc))
-                .onClose( () -> {
-                        result.iterator().close();
-                        mongoClient.close();
-                    } );
+                .onClose(cursor::close);
     }
 
     @Override
-    public Stream<Map<String, Object>> find(Map<String, Object> query, Map<String, Object> project, Map<String, Object> sort, Long skip, Long limit) {
+    public Stream<Map<String, Object>> find(Map<String, Object> query, Map<String, Object> project, Map<String, Object> sort, Long skip, Long limit, Long batchSize) {
         FindIterable<Document> documents = query == null ? collection.find() : collection.find(new Document(query));
         if (project != null) documents = documents.projection(new Document(project));
         if (sort != null) documents = documents.sort(new Document(sort));
         if (skip != 0) documents = documents.skip(skip.intValue());
         if (limit != 0) documents = documents.limit(limit.intValue());
+        if (batchSize != 0) documents = documents.batchSize(batchSize.intValue());
         return asStream(documents);
     }
 
     @Override
     public void insert(List<Map<String, Object>> docs) {
+        if (docs.isEmpty()) return;
+        List<WriteModel<Document>> inserts = new ArrayList<>(docs.size());
         for (Map<String, Object> doc : docs) {
-            collection.insertOne(new Document(doc));
+            inserts.add(new InsertOneModel<>(new Document(doc)));
+        }
+        collection.bulkWrite(inserts);
+    }
+
+    @Override
+    public long bulkUpdate(List<Map<String, Object>> updates, boolean ordered) {
+        if (updates.isEmpty()) return 0;
+        List<WriteModel<Document>> models = new ArrayList<>(updates.size());
+        for (Map<String, Object> update : updates) {
+            Map<String, Object> query = (Map<String, Object>) update.get("query");
+            UpdateOptions options = new UpdateOptions().upsert(Util.toBoolean(update.get("upsert")));
+            models.add(new UpdateManyModel<>(new Document(query), new Document((Map<String, Object>) update.get("update")), options));
+        }
+        BulkWriteResult result = collection.bulkWrite(models, new BulkWriteOptions().ordered(ordered));
+        if (!result.wasAcknowledged()) return -1;
+        return result.isModifiedCountAvailable() ? result.getModifiedCount() : result.getMatchedCount();
+    }
+
+    @Override
+    public long bulkDelete(List<Map<String, Object>> queries, boolean ordered) {
+        if (queries.isEmpty()) return 0;
+        List<WriteModel<Document>> models = new ArrayList<>(queries.size());
+        for (Map<String, Object> query : queries) {
+            models.add(new DeleteManyModel<>(new Document(query)));
         }
+        BulkWriteResult result = collection.bulkWrite(models, new BulkWriteOptions().ordered(ordered));
+        return result.wasAcknowledged() ? result.getDeletedCount() : -1;
     }
 
     @Override
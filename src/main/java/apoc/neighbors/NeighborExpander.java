@@ -0,0 +1,326 @@
+package apoc.neighbors;
+
+import apoc.algo.graph.Partitions;
+import apoc.util.Util;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.helpers.RelationshipSelectionCursor;
+import org.neo4j.internal.kernel.api.helpers.RelationshipSelections;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.procedure.TerminationGuard;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static apoc.path.RelationshipTypeAndDirections.parse;
+
+/**
+ * Expands frontiers of node ids into bitmaps of their neighbours with kernel cursors, which are allocated once per batch
+ * and reused for every node, the relationship pattern is parsed once per distinct string and resolved to type ids once.
+ *
+ * Frontiers larger than the batch size and multiple start nodes are expanded in parallel batches, each in its own
+ * transaction, which doesn't see uncommitted changes of the calling transaction. Smaller ones run in the calling transaction.
+ */
+public class NeighborExpander {
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+    static final int SOURCES_PER_TASK = 64;
+    private static final int MAX_CACHED_PATTERNS = 1000;
+    private static final int OUTGOING = 1, INCOMING = 2;
+    // any relationship type, distinct from TokenRead.NO_TOKEN of unknown types
+    private static final int ANY_TYPE = -2;
+    private static final Map<String, List<Pair<RelationshipType, Direction>>> PATTERNS = new ConcurrentHashMap<>();
+
+    private final Partitions partitions;
+    private final TerminationGuard guard;
+    private final ExecutorService pool;
+    private final int batchSize;
+    private final int window;
+    private final int[] typeIds;
+    private final int[] directions;
+    // the types and directions to select on the cursor, null types select all
+    private final int[] selection;
+    private final int direction;
+
+    public NeighborExpander(KernelTransaction ktx, Partitions partitions, TerminationGuard guard, ExecutorService pool, int batchSize, int parallelism, String types) {
+        this.partitions = partitions;
+        this.guard = guard;
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+        this.window = Math.max(2, 2 * parallelism);
+        TokenRead tokenRead = ktx.tokenRead();
+        List<Pair<RelationshipType, Direction>> pattern = pattern(types);
+        int[] typeIds = new int[pattern.size()];
+        int[] directions = new int[pattern.size()];
+        int size = 0;
+        for (Pair<RelationshipType, Direction> pair : pattern) {
+            int typeId = pair.first() == null ? ANY_TYPE : tokenRead.relationshipType(pair.first().name());
+            // an unknown type has no relationships
+            if (typeId == TokenRead.NO_TOKEN) continue;
+            typeIds[size] = typeId;
+            directions[size++] = pair.other() == Direction.OUTGOING ? OUTGOING : pair.other() == Direction.INCOMING ? INCOMING : OUTGOING | INCOMING;
+        }
+        this.typeIds = Arrays.copyOf(typeIds, size);
+        this.directions = Arrays.copyOf(directions, size);
+        int direction = 0;
+        boolean anyType = false;
+        for (int i = 0; i < size; i++) {
+            direction |= directions[i];
+            anyType |= typeIds[i] == ANY_TYPE;
+        }
+        this.direction = direction;
+        this.selection = anyType ? null : Arrays.stream(this.typeIds).distinct().toArray();
+    }
+
+    static List<Pair<RelationshipType, Direction>> pattern(String types) {
+        List<Pair<RelationshipType, Direction>> pattern = PATTERNS.get(types);
+        if (pattern != null) return pattern;
+        if (PATTERNS.size() >= MAX_CACHED_PATTERNS) PATTERNS.clear();
+        pattern = parse(types);
+        PATTERNS.put(types, pattern);
+        return pattern;
+    }
+
+    /**
+     * @return the direction bits of the pattern that match the relationship type
+     */
+    private int directions(int type) {
+        int result = 0;
+        for (int i = 0; i < typeIds.length; i++) {
+            if (typeIds[i] == ANY_TYPE || typeIds[i] == type) result |= directions[i];
+        }
+        return result;
+    }
+
+    public Cursors cursors(KernelTransaction ktx) {
+        return new Cursors(ktx);
+    }
+
+    /**
+     * cursors of one transaction, only to be used by one thread at a time
+     */
+    public class Cursors implements AutoCloseable {
+        private final Read read;
+        private final CursorFactory cursors;
+        private final NodeCursor node;
+
+        Cursors(KernelTransaction ktx) {
+            this.read = ktx.dataRead();
+            this.cursors = ktx.cursors();
+            this.node = cursors.allocateNodeCursor();
+        }
+
+        private RelationshipSelectionCursor relationships() {
+            switch (direction) {
+                case OUTGOING: return RelationshipSelections.outgoingCursor(cursors, node, selection);
+                case INCOMING: return RelationshipSelections.incomingCursor(cursors, node, selection);
+                default: return RelationshipSelections.allCursor(cursors, node, selection);
+            }
+        }
+
+        void expand(long nodeId, Roaring64NavigableMap target) {
+            // only unknown types
+            if (typeIds.length == 0) return;
+            read.singleNode(nodeId, node);
+            if (!node.next()) return;
+            // the cursor selects the types, for dense nodes only their relationship groups are read,
+            // the types are checked again for patterns that mix directions, e.g. >KNOWS|<LIKES
+            try (RelationshipSelectionCursor rels = relationships()) {
+                while (rels.next()) {
+                    int matching = directions(rels.type());
+                    if (matching == 0) continue;
+                    boolean outgoing = rels.sourceNodeReference() == nodeId;
+                    boolean incoming = rels.targetNodeReference() == nodeId;
+                    if ((outgoing && (matching & OUTGOING) != 0) || (incoming && (matching & INCOMING) != 0)) {
+                        target.addLong(rels.otherNodeReference());
+                    }
+                }
+            }
+        }
+
+        Roaring64NavigableMap expand(Roaring64NavigableMap frontier) {
+            Roaring64NavigableMap next = new Roaring64NavigableMap();
+            LongIterator it = frontier.getLongIterator();
+            while (it.hasNext()) {
+                expand(it.next(), next);
+            }
+            return next;
+        }
+
+        /**
+         * @return all nodes up to the distance, without the start node
+         */
+        public Roaring64NavigableMap toHop(long start, int distance) {
+            Roaring64NavigableMap seen = Roaring64NavigableMap.bitmapOf(start);
+            Roaring64NavigableMap frontier = seen;
+            for (int hop = 0; hop < distance && !frontier.isEmpty(); hop++) {
+                frontier = expand(frontier);
+                frontier.andNot(seen);
+                seen.or(frontier);
+            }
+            seen.removeLong(start);
+            return seen;
+        }
+
+        /**
+         * @return the nodes first reached at each distance, the start node is only excluded after the first hop
+         */
+        public Roaring64NavigableMap[] byHop(long start, int distance) {
+            Roaring64NavigableMap[] hops = new Roaring64NavigableMap[distance];
+            hops[0] = expand(Roaring64NavigableMap.bitmapOf(start));
+            for (int i = 1; i < distance; i++) {
+                hops[i] = expand(hops[i - 1]);
+                for (int j = 0; j < i; j++) {
+                    hops[i].andNot(hops[j]);
+                }
+                hops[i].removeLong(start);
+            }
+            return hops;
+        }
+
+        @Override
+        public void close() {
+            node.close();
+        }
+    }
+
+    /**
+     * expands the frontier in the calling transaction, or in parallel batches if it is larger than the batch size
+     */
+    public Roaring64NavigableMap expand(KernelTransaction ktx, Roaring64NavigableMap frontier) {
+        if (frontier.getLongCardinality() <= batchSize) {
+            try (Cursors cursors = cursors(ktx)) {
+                return cursors.expand(frontier);
+            }
+        }
+        List<Future<Roaring64NavigableMap>> futures = new ArrayList<>();
+        LongIterator it = frontier.getLongIterator();
+        while (it.hasNext()) {
+            long[] batch = new long[batchSize];
+            int size = 0;
+            while (size < batchSize && it.hasNext()) batch[size++] = it.next();
+            int count = size;
+            futures.add(pool.submit(() -> {
+                Roaring64NavigableMap next = new Roaring64NavigableMap();
+                if (Util.transactionIsTerminated(guard)) return next;
+                partitions.inTx(tx -> {
+                    try (Cursors cursors = cursors(tx)) {
+                        for (int i = 0; i < count; i++) cursors.expand(batch[i], next);
+                    }
+                });
+                return next;
+            }));
+        }
+        Roaring64NavigableMap next = new Roaring64NavigableMap();
+        for (Future<Roaring64NavigableMap> future : futures) {
+            next.or(get(futures, future));
+        }
+        return next;
+    }
+
+    /**
+     * @return the union of all nodes up to the distance of any start node, without the start nodes
+     */
+    public Roaring64NavigableMap toHopUnion(KernelTransaction ktx, long[] starts, int distance) {
+        Roaring64NavigableMap seen = Roaring64NavigableMap.bitmapOf(starts);
+        Roaring64NavigableMap frontier = seen;
+        for (int hop = 0; hop < distance && !frontier.isEmpty(); hop++) {
+            if (Util.transactionIsTerminated(guard)) throw new RuntimeException("The expansion was terminated");
+            frontier = expand(ktx, frontier);
+            frontier.andNot(seen);
+            seen.or(frontier);
+        }
+        seen.andNot(Roaring64NavigableMap.bitmapOf(starts));
+        return seen;
+    }
+
+    /**
+     * @return the neighbours up to the distance of each start node in the order of the start nodes, computed in parallel
+     * batches of start nodes, of which at most a window ahead of the consumer are kept in memory
+     */
+    public Stream<Roaring64NavigableMap> toHopEach(KernelTransaction ktx, long[] starts, int distance) {
+        if (starts.length <= SOURCES_PER_TASK) {
+            Roaring64NavigableMap[] result = new Roaring64NavigableMap[starts.length];
+            try (Cursors cursors = cursors(ktx)) {
+                for (int i = 0; i < starts.length; i++) result[i] = cursors.toHop(starts[i], distance);
+            }
+            return Stream.of(result);
+        }
+        Queue<Future<Roaring64NavigableMap[]>> pending = new ArrayDeque<>();
+        Iterator<Roaring64NavigableMap> it = new Iterator<Roaring64NavigableMap>() {
+            int submitted = 0;
+            Roaring64NavigableMap[] current = new Roaring64NavigableMap[0];
+            int pos = 0;
+
+            private void submit() {
+                while (pending.size() < window && submitted < starts.length) {
+                    int from = submitted, to = Math.min(starts.length, from + SOURCES_PER_TASK);
+                    submitted = to;
+                    pending.add(pool.submit(() -> {
+                        Roaring64NavigableMap[] result = new Roaring64NavigableMap[to - from];
+                        partitions.inTx(tx -> {
+                            try (Cursors cursors = cursors(tx)) {
+                                for (int i = from; i < to; i++) result[i - from] = cursors.toHop(starts[i], distance);
+                            }
+                        });
+                        return result;
+                    }));
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (pos < current.length) return true;
+                submit();
+                if (pending.isEmpty()) return false;
+                if (Util.transactionIsTerminated(guard)) {
+                    cancel(pending);
+                    throw new RuntimeException("The expansion was terminated");
+                }
+                current = get(pending, pending.poll());
+                pos = 0;
+                return current.length > 0 || hasNext();
+            }
+
+            @Override
+            public Roaring64NavigableMap next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current[pos++];
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> cancel(pending));
+    }
+
+    private static <T> T get(Iterable<? extends Future<?>> all, Future<T> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            cancel(all);
+            throw new RuntimeException("Error expanding neighbors: " + e.getMessage(), e);
+        }
+    }
+
+    private static void cancel(Iterable<? extends Future<?>> futures) {
+        for (Future<?> future : futures) future.cancel(true);
+    }
+}
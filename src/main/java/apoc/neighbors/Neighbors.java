@@ -1,89 +1,73 @@
 package apoc.neighbors;
 
+import apoc.Pools;
+import apoc.algo.graph.Partitions;
 import apoc.result.*;
+import apoc.util.Util;
 import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.Node;
-import org.neo4j.helpers.collection.Pair;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.*;
-import org.roaringbitmap.RoaringBitmap;
-import org.roaringbitmap.longlong.LongBitmapDataProvider;
+import org.roaringbitmap.longlong.LongIterator;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.*;
 
-import static apoc.path.RelationshipTypeAndDirections.parse;
-
 public class Neighbors {
 
     @Context
     public GraphDatabaseService db;
 
+    @Context
+    public GraphDatabaseAPI api;
+
+    @Context
+    public KernelTransaction ktx;
+
+    @Context
+    public TerminationGuard guard;
+
+    private NeighborExpander expander(String types, Map<String, Object> config) {
+        int batchSize = Util.toLong(config == null ? NeighborExpander.DEFAULT_BATCH_SIZE : config.getOrDefault("batchSize", NeighborExpander.DEFAULT_BATCH_SIZE)).intValue();
+        ForkJoinPool pool = Pools.forkJoinPool(Pools.ALGO);
+        return new NeighborExpander(ktx, new Partitions(api, pool, guard, batchSize), guard, pool, batchSize, pool.getParallelism(), types);
+    }
+
+    private Roaring64NavigableMap toHop(Node node, String types, Long distance) {
+        try (NeighborExpander.Cursors cursors = expander(types, null).cursors(ktx)) {
+            return cursors.toHop(node.getId(), distance.intValue());
+        }
+    }
+
+    private Roaring64NavigableMap[] byHop(Node node, String types, Long distance) {
+        try (NeighborExpander.Cursors cursors = expander(types, null).cursors(ktx)) {
+            return cursors.byHop(node.getId(), distance.intValue());
+        }
+    }
+
+    private Stream<Node> nodes(Roaring64NavigableMap ids) {
+        LongIterator it = ids.getLongIterator();
+        Iterator<Node> nodes = new Iterator<Node>() {
+            public boolean hasNext() { return it.hasNext(); }
+            public Node next() { return db.getNodeById(it.next()); }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(nodes, Spliterator.SORTED), false);
+    }
+
+    private static long[] ids(List<Node> nodes) {
+        return nodes.stream().filter(Objects::nonNull).mapToLong(Node::getId).toArray();
+    }
+
     @Procedure("apoc.neighbors.tohop")
     @Description("apoc.neighbors.tohop(node, rel-direction-pattern, distance) - returns distinct nodes of the given relationships in the pattern up to a certain distance, can use '>' or '<' for all outgoing or incoming relationships")
     public Stream<NodeResult> neighbors(@Name("node") Node node, @Name(value = "types", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance) {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        long nodeId = node.getId();
-        seen.addLong(nodeId);
-        Iterator<Long> iterator;
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : parse(types)) {
-            for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                nextB.addLong(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeId = iterator.next();
-                node = db.getNodeById(nodeId);
-                for (Pair<RelationshipType, Direction> pair : parse(types)) {
-                    for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                        nextA.add((r.getOtherNodeId(nodeId)));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeId = iterator.next();
-                    node = db.getNodeById(nodeId);
-                    for (Pair<RelationshipType, Direction> pair : parse(types)) {
-                        for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                            nextB.add(r.getOtherNodeId(nodeId));
-                        }
-                    }
-                }
-            }
-        }
-        if((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(node.getId());
-
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(seen.iterator(), Spliterator.SORTED), false)
-                .map(x -> new NodeResult(db.getNodeById(x)));
+        return nodes(toHop(node, types, distance)).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.tohop.count")
@@ -92,64 +76,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        long nodeId = node.getId();
-        seen.add(nodeId);
-        Iterator<Long> iterator;
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : parse(types)) {
-            for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                nextB.add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeId = iterator.next();
-                node = db.getNodeById(nodeId);
-                for (Pair<RelationshipType, Direction> pair : parse(types)) {
-                    for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                        nextA.add(r.getOtherNodeId(nodeId));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeId = iterator.next();
-                    node = db.getNodeById(nodeId);
-                    for (Pair<RelationshipType, Direction> pair : parse(types)) {
-                        for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                            nextB.add(r.getOtherNodeId(nodeId));
-                        }
-                    }
-                }
-            }
-        }
-        if((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(node.getId());
-
-        return Stream.of(new LongResult(seen.getLongCardinality()));
+        return Stream.of(new LongResult(toHop(node, types, distance).getLongCardinality()));
     }
 
     @Procedure("apoc.neighbors.byhop")
@@ -158,42 +85,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : parse(types)) {
-            for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                node = db.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : parse(types)) {
-                    for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return Arrays.stream(seen).map(x -> new NodeListResult(
-                StreamSupport.stream(Spliterators.spliteratorUnknownSize(x.iterator(), Spliterator.SORTED), false)
-                        .map(y -> db.getNodeById((long) y))
-                        .collect(Collectors.toList())));
+        return Arrays.stream(byHop(node, types, distance)).map(x -> new NodeListResult(nodes(x).collect(Collectors.toList())));
     }
 
     @Procedure("apoc.neighbors.byhop.count")
@@ -202,41 +94,9 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : parse(types)) {
-            for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                node = db.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : parse(types)) {
-                    for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
         ArrayList counts = new ArrayList<Long>();
-        for(int i = 0; i < distance; i++) {
-            counts.add(seen[i].getLongCardinality());
+        for (Roaring64NavigableMap hop : byHop(node, types, distance)) {
+            counts.add(hop.getLongCardinality());
         }
 
         return Stream.of(new ListResult(counts));
@@ -248,40 +108,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : parse(types)) {
-            for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                node = db.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : parse(types)) {
-                    for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return StreamSupport
-                .stream(Spliterators.spliteratorUnknownSize(seen[distance.intValue() - 1].iterator(), Spliterator.SORTED), false).map(y -> new NodeResult(db.getNodeById(y)));
+        return nodes(byHop(node, types, distance)[distance.intValue() - 1]).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.athop.count")
@@ -290,38 +117,68 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
+        return Stream.of(new LongResult(byHop(node, types, distance)[distance.intValue() - 1].getLongCardinality()));
+    }
 
-        Iterator<Long> iterator;
+    @Procedure("apoc.neighbors.tohop.each")
+    @Description("apoc.neighbors.tohop.each(nodes, rel-direction-pattern, distance, {batchSize:10000}) yield node, nodes - returns the distinct nodes up to a certain distance for each of the start nodes, expanded in parallel batches")
+    public Stream<NeighborsResult> neighborsEach(@Name("nodes") List<Node> nodes, @Name(value = "types", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (distance < 1 || nodes == null || nodes.isEmpty()) return Stream.empty();
+        if (types==null || types.isEmpty()) return Stream.empty();
 
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : parse(types)) {
-            for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
+        List<Node> sources = nodes.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Iterator<Node> source = sources.iterator();
+        return expander(types, config).toHopEach(ktx, ids(sources), distance.intValue())
+                .map(x -> new NeighborsResult(source.next(), nodes(x).collect(Collectors.toList())));
+    }
+
+    @Procedure("apoc.neighbors.tohop.each.count")
+    @Description("apoc.neighbors.tohop.each.count(nodes, rel-direction-pattern, distance, {batchSize:10000}) yield node, value - returns the count of distinct nodes up to a certain distance for each of the start nodes, expanded in parallel batches")
+    public Stream<NeighborsCountResult> neighborsEachCount(@Name("nodes") List<Node> nodes, @Name(value = "types", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (distance < 1 || nodes == null || nodes.isEmpty()) return Stream.empty();
+        if (types==null || types.isEmpty()) return Stream.empty();
+
+        List<Node> sources = nodes.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Iterator<Node> source = sources.iterator();
+        return expander(types, config).toHopEach(ktx, ids(sources), distance.intValue())
+                .map(x -> new NeighborsCountResult(source.next(), x.getLongCardinality()));
+    }
+
+    @Procedure("apoc.neighbors.tohop.union")
+    @Description("apoc.neighbors.tohop.union(nodes, rel-direction-pattern, distance, {batchSize:10000}) yield node - returns the distinct nodes up to a certain distance of any of the start nodes, without the start nodes, large frontiers are expanded in parallel batches")
+    public Stream<NodeResult> neighborsUnion(@Name("nodes") List<Node> nodes, @Name(value = "types", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (distance < 1 || nodes == null || nodes.isEmpty()) return Stream.empty();
+        if (types==null || types.isEmpty()) return Stream.empty();
+
+        return nodes(expander(types, config).toHopUnion(ktx, ids(nodes), distance.intValue())).map(NodeResult::new);
+    }
 
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = db.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : parse(types)) {
-                    for (Relationship r : node.getRelationships(pair.first(), pair.other())) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
+    @Procedure("apoc.neighbors.tohop.union.count")
+    @Description("apoc.neighbors.tohop.union.count(nodes, rel-direction-pattern, distance, {batchSize:10000}) yield value - returns the count of distinct nodes up to a certain distance of any of the start nodes, without the start nodes, large frontiers are expanded in parallel batches")
+    public Stream<LongResult> neighborsUnionCount(@Name("nodes") List<Node> nodes, @Name(value = "types", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (distance < 1 || nodes == null || nodes.isEmpty()) return Stream.empty();
+        if (types==null || types.isEmpty()) return Stream.empty();
+
+        return Stream.of(new LongResult(expander(types, config).toHopUnion(ktx, ids(nodes), distance.intValue()).getLongCardinality()));
+    }
+
+    public static class NeighborsResult {
+        public final Node node;
+        public final List<Node> nodes;
+
+        public NeighborsResult(Node node, List<Node> nodes) {
+            this.node = node;
+            this.nodes = nodes;
         }
+    }
 
-        return Stream.of(new LongResult(seen[distance.intValue() - 1].getLongCardinality()));
+    public static class NeighborsCountResult {
+        public final Node node;
+        public final long value;
+
+        public NeighborsCountResult(Node node, long value) {
+            this.node = node;
+            this.value = value;
+        }
     }
 }
@@ -0,0 +1,230 @@
+package apoc.nodes;
+
+import apoc.util.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregations of apoc.nodes.group like [{`*`:'count', age:['min','max','avg','distinct'], gender:'collect'}],
+ * compiled once into slots of primitive counters, sums, minima and maxima.
+ *
+ * Each worker aggregates into its own {@link Partial} per group without locks, partials are merged at the end.
+ * `distinct` is approximated with a HyperLogLog sketch of fixed size per group.
+ */
+public class GroupAggregator {
+    private static final String ALL = "*";
+    private static final int COUNT = 0, SUM = 1, MIN = 2, MAX = 3, AVG = 4, COLLECT = 5, DISTINCT = 6;
+    private static final List<String> NAMES = Arrays.asList("count", "sum", "min", "max", "avg", "collect", "distinct");
+
+    private final boolean countAll;
+    // property keys whose values are aggregated
+    private final String[] keys;
+    // for each slot the index into keys, the aggregation and the resulting property name
+    private final int[] slotKeys;
+    private final int[] slotAggregations;
+    private final String[] slotNames;
+
+    public GroupAggregator(Map<String, List<String>> aggregations) {
+        boolean countAll = false;
+        List<String> keys = new ArrayList<>();
+        List<int[]> slots = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : aggregations.entrySet()) {
+            String key = entry.getKey();
+            for (String name : entry.getValue()) {
+                if (ALL.equals(key)) {
+                    // other aggregations of `*` have no values
+                    countAll |= "count".equals(name);
+                    continue;
+                }
+                int aggregation = NAMES.indexOf(name);
+                if (aggregation == -1) continue;
+                int keyIndex = keys.indexOf(key);
+                if (keyIndex == -1) {
+                    keyIndex = keys.size();
+                    keys.add(key);
+                }
+                slots.add(new int[]{keyIndex, aggregation});
+                names.add(name + "_" + key);
+            }
+        }
+        this.countAll = countAll;
+        this.keys = keys.toArray(new String[0]);
+        this.slotKeys = slots.stream().mapToInt(slot -> slot[0]).toArray();
+        this.slotAggregations = slots.stream().mapToInt(slot -> slot[1]).toArray();
+        this.slotNames = names.toArray(new String[0]);
+    }
+
+    /**
+     * @return the property keys to read for each aggregated node or relationship
+     */
+    public String[] keys() {
+        return keys;
+    }
+
+    public boolean isEmpty() {
+        return !countAll && slotNames.length == 0;
+    }
+
+    public Partial newPartial() {
+        return new Partial();
+    }
+
+    /**
+     * partial aggregates of one group, not thread-safe
+     */
+    public class Partial {
+        private long count;
+        private final long[] counts = new long[slotNames.length];
+        private final double[] sums = new double[slotNames.length];
+        private final double[] mins = new double[slotNames.length];
+        private final double[] maxs = new double[slotNames.length];
+        private final Object[] values = new Object[slotNames.length];
+
+        Partial() {
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        }
+
+        /**
+         * @param values the values of the property keys in the order of {@link #keys()}, null if missing
+         */
+        public void add(Object[] values) {
+            count++;
+            for (int slot = 0; slot < slotNames.length; slot++) {
+                Object value = values[slotKeys[slot]];
+                if (value == null) continue;
+                counts[slot]++;
+                switch (slotAggregations[slot]) {
+                    case SUM:
+                    case AVG:
+                        sums[slot] += Util.toDouble(value);
+                        break;
+                    case MIN:
+                        mins[slot] = Math.min(mins[slot], Util.toDouble(value));
+                        break;
+                    case MAX:
+                        maxs[slot] = Math.max(maxs[slot], Util.toDouble(value));
+                        break;
+                    case COLLECT:
+                        collected(slot).add(value);
+                        break;
+                    case DISTINCT:
+                        sketch(slot).add(value);
+                        break;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<Object> collected(int slot) {
+            if (values[slot] == null) values[slot] = new ArrayList<>();
+            return (List<Object>) values[slot];
+        }
+
+        private HyperLogLog sketch(int slot) {
+            if (values[slot] == null) values[slot] = new HyperLogLog();
+            return (HyperLogLog) values[slot];
+        }
+
+        public void merge(Partial other) {
+            count += other.count;
+            for (int slot = 0; slot < slotNames.length; slot++) {
+                if (other.counts[slot] == 0) continue;
+                counts[slot] += other.counts[slot];
+                sums[slot] += other.sums[slot];
+                mins[slot] = Math.min(mins[slot], other.mins[slot]);
+                maxs[slot] = Math.max(maxs[slot], other.maxs[slot]);
+                if (slotAggregations[slot] == COLLECT) collected(slot).addAll((List<?>) other.values[slot]);
+                if (slotAggregations[slot] == DISTINCT) sketch(slot).merge((HyperLogLog) other.values[slot]);
+            }
+        }
+
+        /**
+         * @return the aggregated properties, without the aggregations of properties that had no values
+         */
+        public Map<String, Object> toProperties() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (countAll) result.put("count_*", count);
+            for (int slot = 0; slot < slotNames.length; slot++) {
+                if (counts[slot] == 0) continue;
+                Object value;
+                switch (slotAggregations[slot]) {
+                    case COUNT: value = counts[slot]; break;
+                    case SUM: value = integral(sums[slot]); break;
+                    case MIN: value = integral(mins[slot]); break;
+                    case MAX: value = integral(maxs[slot]); break;
+                    case AVG: value = sums[slot] / counts[slot]; break;
+                    case COLLECT: value = collected(slot).toArray(); break;
+                    case DISTINCT: value = sketch(slot).estimate(); break;
+                    default: continue;
+                }
+                result.put(slotNames[slot], value);
+            }
+            return result;
+        }
+    }
+
+    private static Number integral(double value) {
+        return value == (long) value ? (Number) (long) value : (Number) value;
+    }
+
+    /**
+     * HyperLogLog sketch with 2^11 registers, about 2% standard error, exact enough for small cardinalities by linear counting
+     */
+    static class HyperLogLog {
+        private static final int P = 11;
+        private static final int M = 1 << P;
+        private static final double ALPHA = 0.7213 / (1 + 1.079 / M);
+        private final byte[] registers = new byte[M];
+
+        void add(Object value) {
+            long hash = mix(value instanceof Object[] ? Arrays.deepHashCode((Object[]) value) : arrayHashCode(value));
+            int index = (int) (hash >>> (64 - P));
+            byte rank = (byte) (Long.numberOfLeadingZeros((hash << P) | (1L << (P - 1))) + 1);
+            if (registers[index] < rank) registers[index] = rank;
+        }
+
+        private static int arrayHashCode(Object value) {
+            if (value instanceof long[]) return Arrays.hashCode((long[]) value);
+            if (value instanceof int[]) return Arrays.hashCode((int[]) value);
+            if (value instanceof double[]) return Arrays.hashCode((double[]) value);
+            if (value instanceof boolean[]) return Arrays.hashCode((boolean[]) value);
+            return value.hashCode();
+        }
+
+        // murmur3 finalizer, spreads the 32 bit hash codes over all 64 bits
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+
+        void merge(HyperLogLog other) {
+            for (int i = 0; i < M; i++) {
+                if (registers[i] < other.registers[i]) registers[i] = other.registers[i];
+            }
+        }
+
+        long estimate() {
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) zeros++;
+            }
+            double estimate = ALPHA * M * M / sum;
+            if (estimate <= 2.5 * M && zeros > 0) {
+                estimate = M * Math.log((double) M / zeros);
+            }
+            return Math.round(estimate);
+        }
+    }
+}
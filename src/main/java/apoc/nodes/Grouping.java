@@ -2,23 +2,38 @@ package apoc.nodes;
 
 import apoc.Description;
 import apoc.Pools;
+import apoc.algo.graph.OffHeapIntArray;
+import apoc.algo.graph.Partitions;
 import apoc.result.VirtualNode;
 import apoc.result.VirtualRelationship;
 import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.graphdb.*;
 import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.internal.kernel.api.LabelSet;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.NODES;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.RELATIONSHIPS;
 import static java.util.Collections.*;
 
 /**
@@ -27,12 +42,14 @@ import static java.util.Collections.*;
  */
 public class Grouping {
 
-    private static final int BATCHSIZE = 10000;
+    private static final long BATCHSIZE = 100_000;
 
     @Context
     public GraphDatabaseService db;
     @Context
     public Log log;
+    @Context
+    public TerminationGuard guard;
 
     public static class GroupResult {
         public List<Node> nodes;
@@ -60,7 +77,7 @@ public class Grouping {
     }
 
     @Procedure
-    @Description("Group all nodes and their relationships by given keys, create virtual nodes and relationships for the summary information, you can provide an aggregations map [{kids:'sum',age:['min','max','avg'],gender:'collect'},{`*`,'count'}]")
+    @Description("Group all nodes and their relationships by given keys, create virtual nodes and relationships for the summary information, you can provide an aggregations map [{kids:'sum',age:['min','max','avg'],gender:'collect',name:'distinct'},{`*`,'count'}], distinct is approximate")
     public Stream<GroupResult> group(@Name("labels") List<String> labelNames, @Name("groupByProperties") List<String> groupByProperties,
                                      @Name(value = "aggregations", defaultValue = "[{\"*\":\"count\"},{\"*\":\"count\"}]") List<Map<String, Object>> aggregations,
                                      @Name(value = "config", defaultValue = "{}") Map<String,Object> config) {
@@ -74,16 +91,13 @@ public class Grouping {
             aggregations = Arrays.asList(singletonMap("*","count"),singletonMap("*","count"));
         }
         Map<String, List<String>> nodeAggNames = (aggregations.size() > 0) ? toStringListMap(aggregations.get(0)) : emptyMap();
-        String[] nodeAggKeys = keyArray(nodeAggNames, "*");
 
         Map<String, List<String>> relAggNames = (aggregations.size() > 1) ? toStringListMap(aggregations.get(1)) : emptyMap();
-        String[] relAggKeys = keyArray(relAggNames, "*");
 
-        // todo bitset
         Set<String> includeRels = computeIncludedRels(config);
 
         /*
-        config:{orphans:false,selfRels:false,limitNodes:100, limitRels:1000, filter:{Person.count_*.min,10,Person.sum_age.max,200,KNOWS.count_*.min:5}}
+        config:{orphans:false,selfRels:false,limitNodes:100, limitRels:1000, batchSize:100000, filter:{Person.count_*.min,10,Person.sum_age.max,200,KNOWS.count_*.min:5}}
          */
         boolean orphans = (boolean)config.getOrDefault("orphans",true);
         boolean selfRels = (boolean)config.getOrDefault("selfRels",true);
@@ -95,98 +109,39 @@ public class Grouping {
         // (TYPE.)prop.min: value,(TYPE.)prop.max: value,
         // also filter (esp. max) during aggregation?
         Map<String,Number> filter = configuredFilter(config);
-
-        Map<NodeKey, Set<Node>> grouped = new ConcurrentHashMap<>();
-        Map<NodeKey, VirtualNode> virtualNodes = new ConcurrentHashMap<>();
-        Map<RelKey, VirtualRelationship> virtualRels = new ConcurrentHashMap<>();
-
-        List<Future> futures = new ArrayList<>(1000);
-
-        ExecutorService pool = Pools.DEFAULT;
-        for (String labelName : labels) {
-            Label label = Label.label(labelName);
-            Label[] singleLabel = {label};
-
-            try (ResourceIterator<Node> nodes = (labelName.equals("*")) ? db.getAllNodes().iterator() : db.findNodes(label)) {
-                while (nodes.hasNext()) {
-                    List<Node> batch = Util.take(nodes, BATCHSIZE);
-                    futures.add(Util.inTxFuture(pool, db, () -> {
-                        try {
-                            for (Node node : batch) {
-                                NodeKey key = keyFor(node, labelName, keys);
-                                grouped.compute(key, (k, v) -> {
-                                    if (v == null) v = new HashSet<>();
-                                    v.add(node);
-                                    return v;
-                                });
-                                virtualNodes.compute(key, (k, v) -> {
-                                            if (v == null) {
-                                                v = new VirtualNode(singleLabel, propertiesFor(node, keys), db);
-                                            }
-                                            VirtualNode vn = v;
-                                            if (!nodeAggNames.isEmpty()) {
-                                                aggregate(vn, nodeAggNames, nodeAggKeys.length > 0 ? node.getProperties(nodeAggKeys) : Collections.emptyMap());
-                                            }
-                                            return vn;
-                                        }
-                                );
-                            }
-                        } catch (Exception e) {
-                            log.debug("Error grouping nodes", e);
-                        }
-                        return null;
-                    }));
-                    Util.removeFinished(futures);
-                }
-            }
+        long batchSize = Util.toLong(config.getOrDefault("batchSize", BATCHSIZE));
+
+        GraphDatabaseAPI api = (GraphDatabaseAPI) db;
+        KernelTransaction ktx = api.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class).getKernelTransactionBoundToThisThread(true);
+        GroupAggregator nodeAggregator = new GroupAggregator(nodeAggNames);
+        GroupAggregator relAggregator = new GroupAggregator(relAggNames);
+        Groups groups = new Groups(ktx.tokenRead(), labels, keys, includeRels, nodeAggregator, relAggregator);
+        Partitions partitions = new Partitions(api, Pools.pool(Pools.GROUPING), guard, batchSize);
+        long highNodeId = MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore(api.getDependencyResolver(), NODES);
+        long highRelId = MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore(api.getDependencyResolver(), RELATIONSHIPS);
+
+        OffHeapIntArray nodeGroups = new OffHeapIntArray(highNodeId);
+        Map<RelKey, GroupAggregator.Partial> relAggregates = new ConcurrentHashMap<>();
+        try {
+            partitions.run(highNodeId, (partition, from, to) -> partitions.inTx(tx -> groups.groupNodes(tx, from, to, nodeGroups)));
+            partitions.run(highRelId, (partition, from, to) -> partitions.inTx(tx -> groups.groupRelationships(tx, from, to, nodeGroups, selfRels, relAggregates)));
+        } finally {
+            nodeGroups.release();
         }
-        Util.waitForFutures(futures);
-        futures.clear();
-        Iterator<Map.Entry<NodeKey, Set<Node>>> entries = grouped.entrySet().iterator();
-        int size = 0;
-        List<Map.Entry<NodeKey, Set<Node>>> batch = new ArrayList<>();
-        while (entries.hasNext()) {
-            Map.Entry<NodeKey, Set<Node>> outerEntry = entries.next();
-            batch.add(outerEntry);
-            size += outerEntry.getValue().size();
-            if (size > BATCHSIZE || !entries.hasNext()) {
-                ArrayList<Map.Entry<NodeKey, Set<Node>>> submitted = new ArrayList<>(batch);
-                batch.clear();
-                size = 0;
-                futures.add(Util.inTxFuture(pool, db, () -> {
-                    try {
-                        for (Map.Entry<NodeKey, Set<Node>> entry : submitted) {
-                            for (Node node : entry.getValue()) {
-                                NodeKey startKey = entry.getKey();
-                                VirtualNode v1 = virtualNodes.get(startKey);
-                                for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
-                                    if (includeRels != null && !includeRels.contains(rel.getType().name())) continue;
-                                    Node endNode = rel.getEndNode();
-                                    for (NodeKey endKey : keysFor(endNode, labels, keys)) {
-                                        VirtualNode v2 = virtualNodes.get(endKey);
-                                        if (v2 == null) continue;
-                                        if (!selfRels && startKey.equals(endKey)) continue;
-                                        virtualRels.compute(new RelKey(startKey, endKey, rel), (rk, vRel) -> {
-                                            if (vRel == null) vRel = v1.createRelationshipTo(v2, rel.getType());
-                                            if (!relAggNames.isEmpty()) {
-                                                aggregate(vRel, relAggNames, relAggKeys.length > 0 ? rel.getProperties(relAggKeys) : Collections.emptyMap());
-                                            }
-                                            return vRel;
-                                        });
-                                    }
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.debug("Error grouping relationships", e);
-                    }
-                    return null;
-                }));
-                Util.removeFinished(futures);
-            }
+
+        List<VirtualNode> virtualNodes = new ArrayList<>(groups.size());
+        for (int group = 0; group < groups.size(); group++) {
+            NodeKey key = groups.key(group);
+            VirtualNode node = new VirtualNode(new Label[]{Label.label(key.label)}, key.values, db);
+            groups.aggregate(group).toProperties().forEach(node::setProperty);
+            virtualNodes.add(node);
         }
-        Util.waitForFutures(futures);
-        Stream<VirtualNode> stream = fixAggregates(virtualNodes.values()).stream();
+        relAggregates.forEach((key, aggregate) -> {
+            VirtualRelationship rel = virtualNodes.get(key.start).createRelationshipTo(virtualNodes.get(key.end), groups.relationshipType(ktx.tokenRead(), key.type));
+            aggregate.toProperties().forEach(rel::setProperty);
+        });
+
+        Stream<VirtualNode> stream = virtualNodes.stream();
         // apply filter
         if (filter != null) stream = stream.filter(n -> filter(n.getLabels(), n.getAllProperties(), filter));
         if (limitNodes > -1) stream = stream.limit(limitNodes);
@@ -232,7 +187,7 @@ public class Grouping {
     }
 
     public List<Relationship> getRelationships(Node n, Map<String, Number> filter, int relsPerNode) {
-        List<Relationship> rels = fixAggregates(Iterables.asList(n.getRelationships(Direction.OUTGOING)));
+        List<Relationship> rels = Iterables.asList(n.getRelationships(Direction.OUTGOING));
         if (filter != null) rels.removeIf(r -> !filter(r.getType().name(),r.getAllProperties(),filter));
         if (relsPerNode > -1) rels = rels.subList(0, Math.min(relsPerNode, rels.size()));
         return rels;
@@ -261,125 +216,211 @@ public class Grouping {
         return nodeAggNames;
     }
 
-    private String[] keyArray(Map<String, ?> map, String... removeKeys) {
-        List<String> keys = new ArrayList<>(map.keySet());
-        for (String key : removeKeys) keys.remove(key);
-        return keys.toArray(new String[keys.size()]);
-    }
+    /**
+     * Dictionary of the groups with their aggregates, kept on the heap, as it only grows with the number of groups.
+     * Each node id is mapped to its group id + 1 in an off-heap array, nodes in more than one group, because they
+     * have several of the labels, are kept in an extra map.
+     */
+    private static class Groups {
+        private static final int[] NO_GROUPS = new int[0];
+
+        private final String[] keys;
+        private final GroupAggregator nodeAggregator;
+        private final GroupAggregator relAggregator;
+        // sorted label ids with the names at the same index
+        private final int[] labelIds;
+        private final String[] labelNames;
+        private final int[] keyIds;
+        private final int[] nodeAggKeyIds;
+        private final int[] relAggKeyIds;
+        // null for all relationship types
+        private final BitSet types;
+
+        private final Map<NodeKey, Integer> ids = new ConcurrentHashMap<>();
+        private final List<NodeKey> groupKeys = new ArrayList<>();
+        private final Map<Integer, GroupAggregator.Partial> aggregates = new ConcurrentHashMap<>();
+        private final PrimitiveLongObjectMap<int[]> multipleGroups = Primitive.longObjectMap();
+
+        Groups(TokenRead tokens, Collection<String> labels, String[] keys, Set<String> includeRels, GroupAggregator nodeAggregator, GroupAggregator relAggregator) {
+            this.keys = keys;
+            this.nodeAggregator = nodeAggregator;
+            this.relAggregator = relAggregator;
+            Map<Integer, String> labelsById = new TreeMap<>();
+            for (String label : labels) {
+                int id = tokens.nodeLabel(label);
+                if (id != TokenRead.NO_TOKEN) labelsById.put(id, label);
+            }
+            this.labelIds = labelsById.keySet().stream().mapToInt(Integer::intValue).toArray();
+            this.labelNames = labelsById.values().toArray(new String[0]);
+            this.keyIds = propertyKeyIds(tokens, keys);
+            this.nodeAggKeyIds = propertyKeyIds(tokens, nodeAggregator.keys());
+            this.relAggKeyIds = propertyKeyIds(tokens, relAggregator.keys());
+            if (includeRels == null) {
+                this.types = null;
+            } else {
+                this.types = new BitSet();
+                for (String type : includeRels) {
+                    int id = tokens.relationshipType(type);
+                    if (id != TokenRead.NO_TOKEN) types.set(id);
+                }
+            }
+        }
+
+        private static int[] propertyKeyIds(TokenRead tokens, String[] keys) {
+            int[] ids = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) ids[i] = tokens.propertyKey(keys[i]);
+            return ids;
+        }
+
+        int size() {
+            return groupKeys.size();
+        }
+
+        NodeKey key(int group) {
+            return groupKeys.get(group);
+        }
 
-    private <C extends Collection<T>, T extends PropertyContainer> C fixAggregates(C pcs) {
-        for (PropertyContainer pc : pcs) {
-            pc.getAllProperties().entrySet().forEach((entry) -> {
-                Object v = entry.getValue();
-                String k = entry.getKey();
-                if (k.matches("^(min|max|sum)_.+")) {
-                    if (v instanceof Number && ((Number) v).doubleValue() == ((Number) v).longValue())
-                        entry.setValue(((Number) v).longValue());
+        GroupAggregator.Partial aggregate(int group) {
+            return aggregates.get(group);
+        }
+
+        RelationshipType relationshipType(TokenRead tokens, int type) {
+            try {
+                return RelationshipType.withName(tokens.relationshipTypeName(type));
+            } catch (KernelException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private int id(NodeKey key) {
+            Integer id = ids.get(key);
+            if (id != null) return id;
+            return ids.computeIfAbsent(key, k -> {
+                synchronized (groupKeys) {
+                    groupKeys.add(k);
+                    return groupKeys.size() - 1;
                 }
-                if (k.matches("^avg_.+") && v instanceof double[]) {
-                    double[] values = (double[]) v;
-                    entry.setValue(values[1] == 0 ? 0 : values[0] / values[1]);
+            });
+        }
+
+        private int[] groups(long nodeId, OffHeapIntArray nodeGroups) {
+            int group = nodeGroups.get(nodeId);
+            if (group == 0) return NO_GROUPS;
+            if (group > 0) return new int[]{group - 1};
+            return multipleGroups.get(nodeId);
+        }
+
+        /**
+         * groups the nodes of the id-range into partial aggregates that are merged at the end
+         */
+        void groupNodes(KernelTransaction ktx, long from, long to, OffHeapIntArray nodeGroups) {
+            Map<Integer, GroupAggregator.Partial> partials = new HashMap<>();
+            PrimitiveLongObjectMap<int[]> multiple = Primitive.longObjectMap();
+            Object[] keyValues = new Object[keyIds.length];
+            Object[] aggValues = new Object[nodeAggKeyIds.length];
+            int[] matched = new int[labelIds.length];
+            try (NodeCursor node = ktx.cursors().allocateNodeCursor(); PropertyCursor properties = ktx.cursors().allocatePropertyCursor()) {
+                for (long id = from; id < to; id++) {
+                    ktx.dataRead().singleNode(id, node);
+                    if (!node.next()) continue;
+                    LabelSet labels = node.labels();
+                    int count = 0;
+                    for (int i = 0; i < labels.numberOfLabels(); i++) {
+                        int index = Arrays.binarySearch(labelIds, labels.label(i));
+                        if (index >= 0) matched[count++] = index;
+                    }
+                    if (count == 0) continue;
+                    Arrays.fill(keyValues, null);
+                    Arrays.fill(aggValues, null);
+                    node.properties(properties);
+                    readProperties(properties, keyValues, aggValues, nodeAggKeyIds);
+                    int[] nodeGroupIds = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        Map<String, Object> values = new HashMap<>(keys.length);
+                        for (int k = 0; k < keys.length; k++) values.put(keys[k], keyValues[k]);
+                        int group = id(new NodeKey(labelNames[matched[i]], values));
+                        nodeGroupIds[i] = group;
+                        partials.computeIfAbsent(group, g -> nodeAggregator.newPartial()).add(aggValues);
+                    }
+                    if (count == 1) {
+                        nodeGroups.set(id, nodeGroupIds[0] + 1);
+                    } else {
+                        nodeGroups.set(id, -1);
+                        multiple.put(id, nodeGroupIds);
+                    }
                 }
-                if (k.matches("^collect_.+") && v instanceof Collection) {
-                    entry.setValue(((Collection) v).toArray());
+            }
+            partials.forEach((group, partial) -> {
+                GroupAggregator.Partial aggregate = aggregates.computeIfAbsent(group, g -> nodeAggregator.newPartial());
+                synchronized (aggregate) {
+                    aggregate.merge(partial);
                 }
             });
+            if (!multiple.isEmpty()) {
+                synchronized (multipleGroups) {
+                    multiple.visitEntries((id, groupIds) -> {
+                        multipleGroups.put(id, groupIds);
+                        return false;
+                    });
+                }
+            }
         }
-        return pcs;
-    }
 
-    private void aggregate(PropertyContainer pc, Map<String, List<String>> aggregations, Map<String, Object> properties) {
-        aggregations.forEach((k2, aggNames) -> {
-            for (String aggName : aggNames) {
-                String key = aggName + "_" + k2;
-                if ("count_*".equals(key)) {
-                    pc.setProperty(key, ((Number) pc.getProperty(key, 0)).longValue() + 1);
-                } else {
-                    Object value = properties.get(k2);
-                    if (value != null) {
-                        switch (aggName) {
-                            case "collect":
-                                List<Object> existing = (List<Object>) pc.getProperty(key, new ArrayList<>());
-                                existing.add(value);
-                                pc.setProperty(key, existing);
-                                break;
-                            case "count":
-                                pc.setProperty(key, ((Number) pc.getProperty(key, 0)).longValue() + 1);
-                                break;
-                            case "sum":
-                                pc.setProperty(key, ((Number) pc.getProperty(key, 0)).doubleValue() + Util.toDouble(value));
-                                break;
-                            case "min":
-                                pc.setProperty(key, Math.min(((Number) pc.getProperty(key, Double.MAX_VALUE)).doubleValue(), Util.toDouble(value)));
-                                break;
-                            case "max":
-                                pc.setProperty(key, Math.max(((Number) pc.getProperty(key, Double.MIN_VALUE)).doubleValue(), Util.toDouble(value)));
-                                break;
-                            case "avg": {
-                                double[] avg = (double[]) pc.getProperty(key, new double[2]);
-                                avg[0] += Util.toDouble(value);
-                                avg[1] += 1;
-                                pc.setProperty(key, avg);
-                                break;
-                            }
+        /**
+         * aggregates the relationships of the id-range between the groups of their start and end nodes
+         */
+        void groupRelationships(KernelTransaction ktx, long from, long to, OffHeapIntArray nodeGroups, boolean selfRels, Map<RelKey, GroupAggregator.Partial> relAggregates) {
+            Map<RelKey, GroupAggregator.Partial> partials = new HashMap<>();
+            Object[] aggValues = new Object[relAggKeyIds.length];
+            try (RelationshipScanCursor rel = ktx.cursors().allocateRelationshipScanCursor(); PropertyCursor properties = ktx.cursors().allocatePropertyCursor()) {
+                for (long id = from; id < to; id++) {
+                    ktx.dataRead().singleRelationship(id, rel);
+                    if (!rel.next()) continue;
+                    int type = rel.type();
+                    if (types != null && !types.get(type)) continue;
+                    int[] starts = groups(rel.sourceNodeReference(), nodeGroups);
+                    if (starts.length == 0) continue;
+                    int[] ends = groups(rel.targetNodeReference(), nodeGroups);
+                    if (ends.length == 0) continue;
+                    Arrays.fill(aggValues, null);
+                    if (aggValues.length > 0) {
+                        rel.properties(properties);
+                        readProperties(properties, null, aggValues, relAggKeyIds);
+                    }
+                    for (int start : starts) {
+                        for (int end : ends) {
+                            if (!selfRels && start == end) continue;
+                            partials.computeIfAbsent(new RelKey(start, end, type), k -> relAggregator.newPartial()).add(aggValues);
                         }
                     }
                 }
             }
-        });
-    }
-
-    /**
-     * Returns the properties for the given node according to the specified keys. If a node does not have a property
-     * assigned to given key, the value is set to {@code null}.
-     *
-     * @param node node
-     * @param keys property keys
-     * @return node properties for keys
-     */
-    private Map<String, Object> propertiesFor(Node node, String[] keys) {
-        Map<String, Object> props = new HashMap<>(keys.length);
-
-        for (String key : keys) {
-            props.put(key, node.getProperty(key, null));
+            partials.forEach((key, partial) -> {
+                GroupAggregator.Partial aggregate = relAggregates.computeIfAbsent(key, k -> relAggregator.newPartial());
+                synchronized (aggregate) {
+                    aggregate.merge(partial);
+                }
+            });
         }
 
-        return props;
-    }
-
-    /**
-     * Creates a grouping key for the given node using its label and grouping properties.
-     *
-     * @param node  node
-     * @param label node label
-     * @param keys  property keys
-     * @return grouping key
-     */
-    private NodeKey keyFor(Node node, String label, String[] keys) {
-        return new NodeKey(label, propertiesFor(node, keys));
-    }
-
-    /**
-     * Creates a grouping key for each specified label.
-     *
-     * @param node   node
-     * @param labels node labels
-     * @param keys   property keys
-     * @return grouping keys
-     */
-    private Collection<NodeKey> keysFor(Node node, Collection<String> labels, String[] keys) {
-        Map<String, Object> props = propertiesFor(node, keys);
-        List<NodeKey> result = new ArrayList<>(labels.size());
-        if (labels.contains("*")) {
-            result.add(new NodeKey("*", props));
-        } else {
-            for (Label label : node.getLabels()) {
-                if (labels.contains(label.name())) {
-                    result.add(new NodeKey(label.name(), props));
+        private void readProperties(PropertyCursor properties, Object[] keyValues, Object[] aggValues, int[] aggKeyIds) {
+            while (properties.next()) {
+                int key = properties.propertyKey();
+                Object value = null;
+                if (keyValues != null) {
+                    for (int i = 0; i < keyIds.length; i++) {
+                        if (keyIds[i] != key) continue;
+                        value = properties.propertyValue().asObjectCopy();
+                        keyValues[i] = value;
+                    }
+                }
+                for (int i = 0; i < aggKeyIds.length; i++) {
+                    if (aggKeyIds[i] != key) continue;
+                    if (value == null) value = properties.propertyValue().asObjectCopy();
+                    aggValues[i] = value;
                 }
             }
         }
-        return result;
     }
 
     /**
@@ -412,19 +453,17 @@ public class Grouping {
     }
 
     /**
-     * Represents a grouping key for relationships.
+     * Represents a grouping key for relationships by the group ids of their start and end nodes and their type id.
      */
     private static class RelKey {
-        private final int hash;
-        private final NodeKey startKey;
-        private final NodeKey endKey;
-        private final String type;
-
-        RelKey(NodeKey startKey, NodeKey endKey, Relationship rel) {
-            this.startKey = startKey;
-            this.endKey = endKey;
-            this.type = rel.getType().name();
-            hash = 31 * (31 * startKey.hashCode() + endKey.hashCode()) + type.hashCode();
+        private final int start;
+        private final int end;
+        private final int type;
+
+        RelKey(int start, int end, int type) {
+            this.start = start;
+            this.end = end;
+            this.type = type;
         }
 
         @Override
@@ -434,12 +473,12 @@ public class Grouping {
 
             RelKey relKey = (RelKey) o;
 
-            return startKey.equals(relKey.startKey) && endKey.equals(relKey.endKey) && type.equals(relKey.type);
+            return start == relKey.start && end == relKey.end && type == relKey.type;
         }
 
         @Override
         public int hashCode() {
-            return hash;
+            return 31 * (31 * start + end) + type;
         }
     }
 }
@@ -0,0 +1,395 @@
+package apoc.path;
+
+import apoc.algo.graph.Partitions;
+import apoc.util.Util;
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongLongMap;
+import org.neo4j.graphalgo.impl.util.PathImpl;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.helpers.RelationshipSelectionCursor;
+import org.neo4j.internal.kernel.api.helpers.RelationshipSelections;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.TerminationGuard;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Level-synchronous breadth first expansion with node global uniqueness on kernel cursors, as alternative to the
+ * traversal framework for apoc.path.subgraphNodes, subgraphAll and spanningTree with `engine:'kernel'`.
+ *
+ * Visited nodes are kept in a compressed bitmap, the spanning tree only needs the relationship each node was reached by,
+ * label and relationship filters are resolved to token ids, so no Node, Relationship or Path objects are created
+ * except for the results. Levels are only expanded when the results of the previous level have been consumed.
+ * Levels with more nodes than the batch size can be expanded in parallel batches, each in its own transaction,
+ * that don't see uncommitted changes of the calling transaction. The results are the same as with the traversal
+ * framework, only the order within a level can differ.
+ */
+public class KernelExpander {
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+    private static final int INCLUDE = 1, CONTINUE = 2;
+    private static final int OUTGOING = 1, INCOMING = 2;
+    // any relationship type, distinct from TokenRead.NO_TOKEN of unknown types
+    private static final int ANY_TYPE = -2;
+    private static final long NO_PARENT = -1;
+
+    private final GraphDatabaseAPI db;
+    private final KernelTransaction ktx;
+    private final TerminationGuard guard;
+    private final ExecutorService pool;
+    private final int batchSize;
+    private final long maxNodes;
+
+    private final RelationshipSequenceExpander relationshipExpander;
+    private final LabelSequenceEvaluator labelEvaluator;
+    private final long maxLevel;
+    private final Roaring64NavigableMap blacklist, whitelist, endNodes, terminatorNodes;
+    private final Map<List<Pair<RelationshipType, Direction>>, Step> steps = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final Roaring64NavigableMap visited = new Roaring64NavigableMap();
+    private final PrimitiveLongLongMap parents;
+
+    /**
+     * @param pool to expand large levels in parallel, or null to expand all in the calling transaction
+     * @param maxNodes fails the expansion when more nodes were visited, or -1 for no limit
+     * @param trackParents keeps the relationship each node was reached by to build the spanning tree paths
+     */
+    public KernelExpander(GraphDatabaseAPI db, TerminationGuard guard, ExecutorService pool, int batchSize, long maxNodes, boolean trackParents,
+                          RelationshipSequenceExpander relationshipExpander, LabelSequenceEvaluator labelEvaluator, long maxLevel,
+                          Map<PathExplorer.NodeFilter, List<Node>> nodeFilter) {
+        this.db = db;
+        this.ktx = db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class).getKernelTransactionBoundToThisThread(true);
+        this.guard = guard;
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxNodes = maxNodes;
+        this.parents = trackParents ? Primitive.longLongMap() : null;
+        this.relationshipExpander = relationshipExpander;
+        this.labelEvaluator = labelEvaluator;
+        // resolved on the calling thread before any batch runs on the pool
+        if (labelEvaluator != null) labelEvaluator.resolve(ktx.tokenRead());
+        this.maxLevel = maxLevel;
+        this.blacklist = ids(nodeFilter.get(PathExplorer.NodeFilter.BLACKLIST_NODES));
+        this.endNodes = ids(nodeFilter.get(PathExplorer.NodeFilter.END_NODES));
+        this.terminatorNodes = ids(nodeFilter.get(PathExplorer.NodeFilter.TERMINATOR_NODES));
+        Roaring64NavigableMap whitelist = ids(nodeFilter.get(PathExplorer.NodeFilter.WHITELIST_NODES));
+        if (whitelist != null) {
+            // end and terminator nodes are whitelisted too
+            if (endNodes != null) whitelist.or(endNodes);
+            if (terminatorNodes != null) whitelist.or(terminatorNodes);
+        }
+        this.whitelist = whitelist;
+    }
+
+    private static Roaring64NavigableMap ids(List<Node> nodes) {
+        if (nodes == null || nodes.isEmpty()) return null;
+        Roaring64NavigableMap ids = new Roaring64NavigableMap();
+        for (Node node : nodes) ids.addLong(node.getId());
+        return ids;
+    }
+
+    /**
+     * relationship types and directions of one step of the relationship sequence, resolved to token ids,
+     * with the types and directions to select on the cursor, null types select all
+     */
+    private static class Step {
+        final int[] typeIds;
+        final int[] directions;
+        final int[] selection;
+        final int direction;
+
+        Step(List<Pair<RelationshipType, Direction>> relationships, TokenRead tokenRead) {
+            int[] typeIds = new int[relationships.size()];
+            int[] directions = new int[relationships.size()];
+            int size = 0;
+            for (Pair<RelationshipType, Direction> pair : relationships) {
+                int typeId = pair.first() == null ? ANY_TYPE : tokenRead.relationshipType(pair.first().name());
+                if (typeId == TokenRead.NO_TOKEN) continue;
+                typeIds[size] = typeId;
+                directions[size++] = pair.other() == Direction.OUTGOING ? OUTGOING : pair.other() == Direction.INCOMING ? INCOMING : OUTGOING | INCOMING;
+            }
+            this.typeIds = Arrays.copyOf(typeIds, size);
+            this.directions = Arrays.copyOf(directions, size);
+            int direction = 0;
+            boolean anyType = false;
+            for (int i = 0; i < size; i++) {
+                direction |= directions[i];
+                anyType |= typeIds[i] == ANY_TYPE;
+            }
+            this.direction = direction;
+            this.selection = anyType ? null : Arrays.stream(this.typeIds).distinct().toArray();
+        }
+
+        RelationshipSelectionCursor relationships(CursorFactory cursors, NodeCursor node) {
+            switch (direction) {
+                case OUTGOING: return RelationshipSelections.outgoingCursor(cursors, node, selection);
+                case INCOMING: return RelationshipSelections.incomingCursor(cursors, node, selection);
+                default: return RelationshipSelections.allCursor(cursors, node, selection);
+            }
+        }
+
+        int directions(int type) {
+            int result = 0;
+            for (int i = 0; i < typeIds.length; i++) {
+                if (typeIds[i] == ANY_TYPE || typeIds[i] == type) result |= directions[i];
+            }
+            return result;
+        }
+    }
+
+    private static final Step ALL = new Step(Collections.singletonList(Pair.of(null, Direction.BOTH)), null);
+
+    private Step step(int depth, TokenRead tokenRead) {
+        if (relationshipExpander == null) return ALL;
+        return steps.computeIfAbsent(relationshipExpander.relationshipsAt(depth), relationships -> new Step(relationships, tokenRead));
+    }
+
+    /**
+     * a growable list of primitive longs
+     */
+    private static class Longs {
+        long[] values = new long[16];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * cursors of one transaction, candidates are (node, relationship, evaluation) triples
+     */
+    private class Expansion implements AutoCloseable {
+        private final Read read;
+        private final TokenRead tokenRead;
+        private final CursorFactory cursors;
+        private final NodeCursor node;
+        private final NodeCursor neighbour;
+
+        Expansion(KernelTransaction ktx) {
+            this.read = ktx.dataRead();
+            this.tokenRead = ktx.tokenRead();
+            this.cursors = ktx.cursors();
+            this.node = cursors.allocateNodeCursor();
+            this.neighbour = cursors.allocateNodeCursor();
+        }
+
+        /**
+         * @return the INCLUDE and CONTINUE flags of the node at the depth, the same as the evaluators of the traversal
+         */
+        int evaluate(long nodeId, int depth) {
+            boolean include = true, proceed = true;
+            if (labelEvaluator != null) {
+                read.singleNode(nodeId, neighbour);
+                if (!neighbour.next()) return 0;
+                Evaluation evaluation = labelEvaluator.evaluate(depth, neighbour.labels(), tokenRead);
+                include = evaluation.includes();
+                proceed = evaluation.continues();
+            }
+            if (maxLevel != -1) {
+                include &= depth <= maxLevel;
+                proceed &= depth < maxLevel;
+            }
+            if (blacklist != null && blacklist.contains(nodeId)) {
+                return 0;
+            }
+            if (endNodes != null || terminatorNodes != null) {
+                boolean terminator = terminatorNodes != null && terminatorNodes.contains(nodeId);
+                include &= terminator || (endNodes != null && endNodes.contains(nodeId));
+                proceed &= !terminator;
+            }
+            if (whitelist != null && !whitelist.contains(nodeId)) {
+                return 0;
+            }
+            return (include ? INCLUDE : 0) | (proceed ? CONTINUE : 0);
+        }
+
+        /**
+         * adds the not yet visited neighbours of the nodes with their relationship and evaluation to the candidates
+         */
+        void expand(long[] nodes, int from, int to, int depth, Longs candidates) {
+            Step step = step(depth, tokenRead);
+            // only unknown types
+            if (step.typeIds.length == 0) return;
+            for (int i = from; i < to; i++) {
+                long nodeId = nodes[i];
+                read.singleNode(nodeId, node);
+                if (!node.next()) continue;
+                // the cursor selects the types, for dense nodes only their relationship groups are read,
+                // the types are checked again for patterns that mix directions, e.g. >KNOWS|<LIKES
+                try (RelationshipSelectionCursor rels = step.relationships(cursors, node)) {
+                    while (rels.next()) {
+                        int matching = step.directions(rels.type());
+                        if (matching == 0) continue;
+                        boolean outgoing = rels.sourceNodeReference() == nodeId && (matching & OUTGOING) != 0;
+                        boolean incoming = rels.targetNodeReference() == nodeId && (matching & INCOMING) != 0;
+                        if (!outgoing && !incoming) continue;
+                        long other = rels.otherNodeReference();
+                        if (visited.contains(other)) continue;
+                        candidates.add(other);
+                        candidates.add(rels.relationshipReference());
+                        candidates.add(evaluate(other, depth + 1));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            node.close();
+            neighbour.close();
+        }
+    }
+
+    /**
+     * @return the ids of the included nodes in breadth first order
+     */
+    public Iterator<Long> expand(List<Node> startNodes) {
+        return new Iterator<Long>() {
+            Longs frontier = new Longs();
+            Longs included = new Longs();
+            int pos = 0;
+            int depth = 0;
+            boolean started;
+
+            @Override
+            public boolean hasNext() {
+                while (pos == included.size) {
+                    if (!started) {
+                        started = true;
+                        start(startNodes, frontier, included);
+                    } else {
+                        if (frontier.size == 0) return false;
+                        Longs next = new Longs();
+                        included = new Longs();
+                        level(frontier, depth++, next, included);
+                        frontier = next;
+                    }
+                    pos = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return included.values[pos++];
+            }
+        };
+    }
+
+    private void start(List<Node> startNodes, Longs frontier, Longs included) {
+        try (Expansion expansion = new Expansion(ktx)) {
+            for (Node start : startNodes) {
+                long id = start.getId();
+                if (visited.contains(id)) continue;
+                visit(id, NO_PARENT, expansion.evaluate(id, 0), frontier, included);
+            }
+        }
+    }
+
+    private void visit(long nodeId, long relationshipId, long evaluation, Longs frontier, Longs included) {
+        visited.addLong(nodeId);
+        if (maxNodes != -1 && visited.getLongCardinality() > maxNodes) {
+            throw new RuntimeException("The expansion visited more than the maximum of " + maxNodes + " nodes (maxNodes)");
+        }
+        if (parents != null) parents.put(nodeId, relationshipId);
+        if ((evaluation & INCLUDE) != 0) included.add(nodeId);
+        if ((evaluation & CONTINUE) != 0) frontier.add(nodeId);
+    }
+
+    private void level(Longs frontier, int depth, Longs next, Longs included) {
+        if (Util.transactionIsTerminated(guard)) throw new RuntimeException("The expansion was terminated");
+        List<Longs> batches = new ArrayList<>();
+        if (pool == null || frontier.size <= batchSize) {
+            Longs candidates = new Longs();
+            try (Expansion expansion = new Expansion(ktx)) {
+                expansion.expand(frontier.values, 0, frontier.size, depth, candidates);
+            }
+            batches.add(candidates);
+        } else {
+            Partitions partitions = new Partitions(db, pool, guard, batchSize);
+            List<Future<Longs>> futures = new ArrayList<>();
+            for (int from = 0; from < frontier.size; from += batchSize) {
+                int start = from, end = Math.min(frontier.size, from + batchSize);
+                futures.add(pool.submit(() -> {
+                    Longs candidates = new Longs();
+                    partitions.inTx(tx -> {
+                        try (Expansion expansion = new Expansion(tx)) {
+                            expansion.expand(frontier.values, start, end, depth, candidates);
+                        }
+                    });
+                    return candidates;
+                }));
+            }
+            try {
+                for (Future<Longs> future : futures) batches.add(future.get());
+            } catch (Exception e) {
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException("Error expanding level " + (depth + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        // the first candidate in frontier order wins, like the first branch in the traversal
+        for (Longs candidates : batches) {
+            for (int i = 0; i < candidates.size; i += 3) {
+                long nodeId = candidates.values[i];
+                if (visited.contains(nodeId)) continue;
+                visit(nodeId, candidates.values[i + 1], candidates.values[i + 2], next, included);
+            }
+        }
+    }
+
+    public Stream<Node> nodes(List<Node> startNodes) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(expand(startNodes), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(db::getNodeById);
+    }
+
+    /**
+     * @return the path of each included node from its start node along the relationships it was reached by
+     */
+    public Stream<Path> paths(List<Node> startNodes) {
+        if (parents == null) throw new IllegalStateException("The parents are not tracked");
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(expand(startNodes), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(this::path);
+    }
+
+    private Path path(long nodeId) {
+        Longs relationships = new Longs();
+        long current = nodeId;
+        long relationshipId;
+        while ((relationshipId = parents.get(current)) != NO_PARENT) {
+            relationships.add(relationshipId);
+            current = db.getRelationshipById(relationshipId).getOtherNodeId(current);
+        }
+        PathImpl.Builder builder = new PathImpl.Builder(db.getNodeById(current));
+        for (int i = relationships.size - 1; i >= 0; i--) {
+            builder = builder.push(db.getRelationshipById(relationships.values[i]));
+        }
+        return builder.build();
+    }
+}
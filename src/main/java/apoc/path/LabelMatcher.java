@@ -1,6 +1,9 @@
 package apoc.path;
 
 import org.neo4j.graphdb.Node;
+import org.neo4j.internal.kernel.api.LabelSet;
+import org.neo4j.internal.kernel.api.TokenRead;
+
 import java.util.*;
 
 /**
@@ -20,6 +23,24 @@ import java.util.*;
 public class LabelMatcher {
     private List<String> labels = new ArrayList<>();
     private List<List<String>> compoundLabels;
+    // published to the threads of a parallel expansion, replaced as a whole
+    private volatile LabelIds labelIds;
+
+    /**
+     * the labels and compound labels resolved to token ids
+     */
+    private static final class LabelIds {
+        final int[] labels;
+        final int[][] compoundLabels;
+
+        LabelIds(List<String> labels, List<List<String>> compoundLabels, TokenRead tokenRead) {
+            this.labels = labelIds(labels, tokenRead);
+            this.compoundLabels = new int[compoundLabels == null ? 0 : compoundLabels.size()][];
+            for (int i = 0; i < this.compoundLabels.length; i++) {
+                this.compoundLabels[i] = labelIds(compoundLabels.get(i), tokenRead);
+            }
+        }
+    }
 
     private static LabelMatcher ACCEPTS_ALL_LABEL_MATCHER = new LabelMatcher() {
         @Override
@@ -27,11 +48,21 @@ public class LabelMatcher {
             return true;
         }
 
+        @Override
+        public boolean matchesLabels(LabelSet nodeLabels, TokenRead tokenRead) {
+            return true;
+        }
+
         @Override
         public LabelMatcher addLabel(String label) {
             return this; // no-op
         }
 
+        @Override
+        public void resolve(TokenRead tokenRead) {
+            // no-op
+        }
+
         @Override
         public boolean isEmpty() {
             return false;
@@ -62,6 +93,7 @@ public class LabelMatcher {
             compoundLabels.add(Arrays.asList(elements));
         }
 
+        labelIds = null;
         return this;
     }
 
@@ -86,6 +118,50 @@ public class LabelMatcher {
         return false;
     }
 
+    /**
+     * resolves the labels to ids for {@link #matchesLabels(LabelSet, TokenRead)}, to be called before the matcher is
+     * shared with other threads, labels that don't exist yet never match
+     */
+    public void resolve(TokenRead tokenRead) {
+        labelIds = new LabelIds(labels, compoundLabels, tokenRead);
+    }
+
+    /**
+     * matches the label ids of a node from a kernel cursor, the labels of an unresolved matcher are resolved for this call only
+     */
+    public boolean matchesLabels(LabelSet nodeLabels, TokenRead tokenRead) {
+        LabelIds ids = labelIds;
+        if (ids == null) {
+            ids = new LabelIds(labels, compoundLabels, tokenRead);
+        }
+
+        for (int label : ids.labels) {
+            if (nodeLabels.contains(label)) {
+                return true;
+            }
+        }
+
+        for (int[] compoundLabel : ids.compoundLabels) {
+            boolean containsAll = true;
+            for (int label : compoundLabel) {
+                containsAll &= nodeLabels.contains(label);
+            }
+            if (containsAll) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int[] labelIds(List<String> labels, TokenRead tokenRead) {
+        int[] ids = new int[labels.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tokenRead.nodeLabel(labels.get(i));
+        }
+        return ids;
+    }
+
     public boolean isEmpty() {
         return labels.isEmpty() && (compoundLabels == null || compoundLabels.isEmpty());
     }
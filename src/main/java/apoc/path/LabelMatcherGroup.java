@@ -2,6 +2,10 @@ package apoc.path;
 
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.internal.kernel.api.LabelSet;
+import org.neo4j.internal.kernel.api.TokenRead;
+
+import java.util.function.Predicate;
 
 import static org.neo4j.graphdb.traversal.Evaluation.*;
 
@@ -68,19 +72,37 @@ public class LabelMatcherGroup {
     }
 
     public Evaluation evaluate(Node node, boolean belowMinLevel) {
-        if (blacklistMatcher.matchesLabels(node)) {
+        return evaluate(matcher -> matcher.matchesLabels(node), belowMinLevel);
+    }
+
+    public Evaluation evaluate(LabelSet labels, TokenRead tokenRead, boolean belowMinLevel) {
+        return evaluate(matcher -> matcher.matchesLabels(labels, tokenRead), belowMinLevel);
+    }
+
+    /**
+     * resolves the labels of all matchers to ids, see {@link LabelMatcher#resolve(TokenRead)}
+     */
+    public void resolve(TokenRead tokenRead) {
+        whitelistMatcher.resolve(tokenRead);
+        blacklistMatcher.resolve(tokenRead);
+        endNodeMatcher.resolve(tokenRead);
+        terminatorNodeMatcher.resolve(tokenRead);
+    }
+
+    private Evaluation evaluate(Predicate<LabelMatcher> matches, boolean belowMinLevel) {
+        if (matches.test(blacklistMatcher)) {
             return EXCLUDE_AND_PRUNE;
         }
 
-        if (terminatorNodeMatcher.matchesLabels(node)) {
+        if (matches.test(terminatorNodeMatcher)) {
             return belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_PRUNE;
         }
 
-        if (endNodeMatcher.matchesLabels(node)) {
+        if (matches.test(endNodeMatcher)) {
             return belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_CONTINUE;
         }
 
-        if (whitelistMatcher.isEmpty() || whitelistMatcher.matchesLabels(node)) {
+        if (whitelistMatcher.isEmpty() || matches.test(whitelistMatcher)) {
             return endNodesOnly || belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_CONTINUE;
         }
 
@@ -4,11 +4,14 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.traversal.Evaluation;
 import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.internal.kernel.api.LabelSet;
+import org.neo4j.internal.kernel.api.TokenRead;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.BiFunction;
 
 import static org.neo4j.graphdb.traversal.Evaluation.EXCLUDE_AND_CONTINUE;
 import static org.neo4j.graphdb.traversal.Evaluation.INCLUDE_AND_CONTINUE;
@@ -64,8 +67,27 @@ public class LabelSequenceEvaluator implements Evaluator {
 
     @Override
     public Evaluation evaluate(Path path) {
-        int depth = path.length();
         Node node = path.endNode();
+        return evaluate(path.length(), (matcherGroup, belowMinLevel) -> matcherGroup.evaluate(node, belowMinLevel));
+    }
+
+    /**
+     * evaluates the labels of a node at the depth read with a kernel cursor
+     */
+    public Evaluation evaluate(int depth, LabelSet labels, TokenRead tokenRead) {
+        return evaluate(depth, (matcherGroup, belowMinLevel) -> matcherGroup.evaluate(labels, tokenRead, belowMinLevel));
+    }
+
+    /**
+     * resolves the labels of the sequence to ids on the calling thread, before it evaluates nodes on other threads
+     */
+    public void resolve(TokenRead tokenRead) {
+        for (LabelMatcherGroup matcherGroup : sequenceMatchers) {
+            matcherGroup.resolve(tokenRead);
+        }
+    }
+
+    private Evaluation evaluate(int depth, BiFunction<LabelMatcherGroup, Boolean, Evaluation> evaluation) {
         boolean belowMinLevel = depth < minLevel;
 
         // if start node shouldn't be filtered, exclude/include based on if using termination/endnode filter or not
@@ -77,6 +99,6 @@ public class LabelSequenceEvaluator implements Evaluator {
         // the user may want the sequence to begin at the start node (default), or the sequence may only apply from the next node on
         LabelMatcherGroup matcherGroup = sequenceMatchers.get((beginSequenceAtStart ? depth : depth - 1) % sequenceMatchers.size());
 
-        return matcherGroup.evaluate(node, belowMinLevel);
+        return evaluation.apply(matcherGroup, belowMinLevel);
     }
 }
\ No newline at end of file
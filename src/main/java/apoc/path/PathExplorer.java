@@ -1,5 +1,6 @@
 package apoc.path;
 
+import apoc.Pools;
 import apoc.algo.Cover;
 import apoc.result.GraphResult;
 import apoc.result.NodeResult;
@@ -10,13 +11,16 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.traversal.*;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
 
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -26,12 +30,16 @@ import static apoc.path.PathExplorer.NodeFilter.*;
 public class PathExplorer {
 	public static final Uniqueness UNIQUENESS = Uniqueness.RELATIONSHIP_PATH;
 	public static final boolean BFS = true;
+	public static final String ENGINE_KERNEL = "kernel";
 	@Context
     public GraphDatabaseService db;
 
 	@Context
     public Log log;
 
+	@Context
+	public TerminationGuard guard;
+
 	@Procedure("apoc.path.expand")
 	@Description("apoc.path.expand(startNode <id>|Node|list, 'TYPE|TYPE_OUT>|<TYPE_IN', '+YesLabel|-NoLabel', minLevel, maxLevel ) yield path - expand from start node following the given relationships from min to max-level adhering to the label filters")
 	public Stream<PathResult> explorePath(@Name("start") Object start
@@ -52,7 +60,7 @@ public class PathExplorer {
 	}
 
 	@Procedure("apoc.path.subgraphNodes")
-	@Description("apoc.path.subgraphNodes(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, optional:false, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true}) yield node - expand the subgraph nodes reachable from start node following relationships to max-level adhering to the label filters")
+	@Description("apoc.path.subgraphNodes(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, optional:false, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true, engine:'traversal'}) yield node - expand the subgraph nodes reachable from start node following relationships to max-level adhering to the label filters")
 	public Stream<NodeResult> subgraphNodes(@Name("start") Object start, @Name("config") Map<String,Object> config) throws Exception {
 		Map<String, Object> configMap = new HashMap<>(config);
 		configMap.put("uniqueness", "NODE_GLOBAL");
@@ -61,11 +69,15 @@ public class PathExplorer {
 			throw new IllegalArgumentException("minLevel not supported in subgraphNodes");
 		}
 
+		if (isKernelEngine(configMap)) {
+			return kernelExpand(start, configMap, false, (expander, nodes) -> expander.nodes(nodes)).map( NodeResult::new );
+		}
+
 		return expandConfigPrivate(start, configMap).map( path -> path == null ? new NodeResult(null) : new NodeResult(path.endNode()) );
 	}
 
 	@Procedure("apoc.path.subgraphAll")
-	@Description("apoc.path.subgraphAll(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true}) yield nodes, relationships - expand the subgraph reachable from start node following relationships to max-level adhering to the label filters, and also return all relationships within the subgraph")
+	@Description("apoc.path.subgraphAll(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true, engine:'traversal'}) yield nodes, relationships - expand the subgraph reachable from start node following relationships to max-level adhering to the label filters, and also return all relationships within the subgraph")
 	public Stream<GraphResult> subgraphAll(@Name("start") Object start, @Name("config") Map<String,Object> config) throws Exception {
 		Map<String, Object> configMap = new HashMap<>(config);
 		configMap.remove("optional"); // not needed, will return empty collections anyway if no results
@@ -75,14 +87,16 @@ public class PathExplorer {
 			throw new IllegalArgumentException("minLevel not supported in subgraphAll");
 		}
 
-		List<Node> subgraphNodes = expandConfigPrivate(start, configMap).map( Path::endNode ).collect(Collectors.toList());
+		List<Node> subgraphNodes = isKernelEngine(configMap)
+				? kernelExpand(start, configMap, false, (expander, nodes) -> expander.nodes(nodes)).collect(Collectors.toList())
+				: expandConfigPrivate(start, configMap).map( Path::endNode ).collect(Collectors.toList());
 		List<Relationship> subgraphRels = Cover.coverNodes(subgraphNodes).collect(Collectors.toList());
 
 		return Stream.of(new GraphResult(subgraphNodes, subgraphRels));
 	}
 
 	@Procedure("apoc.path.spanningTree")
-	@Description("apoc.path.spanningTree(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, optional:false, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true}) yield path - expand a spanning tree reachable from start node following relationships to max-level adhering to the label filters")
+	@Description("apoc.path.spanningTree(startNode <id>|Node|list, {maxLevel,relationshipFilter,labelFilter,bfs:true, filterStartNode:false, limit:-1, optional:false, endNodes:[], terminatorNodes:[], sequence, beginSequenceAtStart:true, engine:'traversal'}) yield path - expand a spanning tree reachable from start node following relationships to max-level adhering to the label filters")
 	public Stream<PathResult> spanningTree(@Name("start") Object start, @Name("config") Map<String,Object> config) throws Exception {
 		Map<String, Object> configMap = new HashMap<>(config);
 		configMap.put("uniqueness", "NODE_GLOBAL");
@@ -91,6 +105,10 @@ public class PathExplorer {
 			throw new IllegalArgumentException("minLevel not supported in spanningTree");
 		}
 
+		if (isKernelEngine(configMap)) {
+			return kernelExpand(start, configMap, true, (expander, nodes) -> expander.paths(nodes)).map( PathResult::new );
+		}
+
 		return expandConfigPrivate(start, configMap).map( PathResult::new );
 	}
 
@@ -146,6 +164,18 @@ public class PathExplorer {
 		String sequence = (String) config.getOrDefault("sequence", null);
 		boolean beginSequenceAtStart = Util.toBoolean(config.getOrDefault("beginSequenceAtStart", true));
 
+		EnumMap<NodeFilter, List<Node>> nodeFilter = nodeFilter(config);
+
+		Stream<Path> results = explorePathPrivate(nodes, relationshipFilter, labelFilter, minLevel, maxLevel, bfs, getUniqueness(uniqueness), filterStartNode, limit, nodeFilter, sequence, beginSequenceAtStart);
+
+		if (optional) {
+			return optionalStream(results);
+		} else {
+			return results;
+		}
+	}
+
+	private EnumMap<NodeFilter, List<Node>> nodeFilter(Map<String,Object> config) throws Exception {
 		List<Node> endNodes = startToNodes(config.get("endNodes"));
 		List<Node> terminatorNodes = startToNodes(config.get("terminatorNodes"));
 		List<Node> whitelistNodes = startToNodes(config.get("whitelistNodes"));
@@ -167,14 +197,71 @@ public class PathExplorer {
 		if (blacklistNodes != null && !blacklistNodes.isEmpty()) {
 			nodeFilter.put(BLACKLIST_NODES, blacklistNodes);
 		}
+		return nodeFilter;
+	}
 
-		Stream<Path> results = explorePathPrivate(nodes, relationshipFilter, labelFilter, minLevel, maxLevel, bfs, getUniqueness(uniqueness), filterStartNode, limit, nodeFilter, sequence, beginSequenceAtStart);
+	private static boolean isKernelEngine(Map<String,Object> config) {
+		Object engine = config.get("engine");
+		if (engine == null || "traversal".equalsIgnoreCase(engine.toString())) return false;
+		if (!ENGINE_KERNEL.equalsIgnoreCase(engine.toString())) {
+			throw new IllegalArgumentException("Unsupported engine " + engine + ", use 'traversal' or 'kernel'");
+		}
+		if (!Util.toBoolean(config.getOrDefault("bfs", true))) {
+			throw new IllegalArgumentException("The kernel engine only supports bfs:true");
+		}
+		return true;
+	}
 
-		if (optional) {
-			return optionalStream(results);
+	/**
+	 * expands with node global uniqueness level by level on kernel cursors instead of the traversal framework,
+	 * with the same filters and limit, optionally with large levels expanded in parallel batches
+	 */
+	private <T> Stream<T> kernelExpand(Object start, Map<String,Object> config, boolean trackParents, BiFunction<KernelExpander, List<Node>, Stream<T>> expand) throws Exception {
+		List<Node> nodes = startToNodes(start);
+
+		String relationshipFilter = (String) config.getOrDefault("relationshipFilter", null);
+		String labelFilter = (String) config.getOrDefault("labelFilter", null);
+		long maxLevel = Util.toLong(config.getOrDefault("maxLevel", "-1"));
+		boolean filterStartNode = Util.toBoolean(config.getOrDefault("filterStartNode", false));
+		long limit = Util.toLong(config.getOrDefault("limit", "-1"));
+		boolean optional = Util.toBoolean(config.getOrDefault("optional", false));
+		String sequence = (String) config.getOrDefault("sequence", null);
+		boolean beginSequenceAtStart = Util.toBoolean(config.getOrDefault("beginSequenceAtStart", true));
+		boolean parallel = Util.toBoolean(config.getOrDefault("parallel", false));
+		int batchSize = Util.toLong(config.getOrDefault("batchSize", KernelExpander.DEFAULT_BATCH_SIZE)).intValue();
+		long maxNodes = Util.toLong(config.getOrDefault("maxNodes", "-1"));
+
+		RelationshipSequenceExpander relationshipExpander = null;
+		LabelSequenceEvaluator labelEvaluator = null;
+		// the same filters as in traverse(), `sequence` overrides `labelFilter` and `relationshipFilter`
+		if (sequence != null && !sequence.trim().isEmpty())	{
+			String[] sequenceSteps = sequence.split(",");
+			List<String> labelSequenceList = new ArrayList<>();
+			List<String> relSequenceList = new ArrayList<>();
+
+			for (int index = 0; index < sequenceSteps.length; index++) {
+				List<String> seq = (beginSequenceAtStart ? index : index - 1) % 2 == 0 ? labelSequenceList : relSequenceList;
+				seq.add(sequenceSteps[index]);
+			}
+
+			relationshipExpander = new RelationshipSequenceExpander(relSequenceList, beginSequenceAtStart);
+			labelEvaluator = new LabelSequenceEvaluator(labelSequenceList, filterStartNode, beginSequenceAtStart, -1);
 		} else {
-			return results;
+			if (relationshipFilter != null && !relationshipFilter.trim().isEmpty()) {
+				relationshipExpander = new RelationshipSequenceExpander(relationshipFilter.trim(), beginSequenceAtStart);
+			}
+			if (labelFilter != null && !labelFilter.trim().isEmpty()) {
+				labelEvaluator = new LabelSequenceEvaluator(labelFilter.trim(), filterStartNode, beginSequenceAtStart, -1);
+			}
+		}
+
+		KernelExpander expander = new KernelExpander((GraphDatabaseAPI) db, guard, parallel ? Pools.forkJoinPool(Pools.ALGO) : null, batchSize, maxNodes, trackParents,
+				relationshipExpander, labelEvaluator, maxLevel, nodeFilter(config));
+		Stream<T> results = expand.apply(expander, nodes);
+		if (limit != -1) {
+			results = results.limit(limit);
 		}
+		return optional ? optionalStream(results) : results;
 	}
 
 	private Stream<Path> explorePathPrivate(Iterable<Node> startNodes,
@@ -204,13 +291,13 @@ public class PathExplorer {
 	 * @param stream the input stream
 	 * @return a stream of a single null value if the input stream is empty, otherwise returns the equivalent of the input stream
 	 */
-	private Stream<Path> optionalStream(Stream<Path> stream) {
-		Stream<Path> optionalStream;
-		Iterator<Path> itr = stream.iterator();
+	private <T> Stream<T> optionalStream(Stream<T> stream) {
+		Stream<T> optionalStream;
+		Iterator<T> itr = stream.iterator();
 		if (itr.hasNext()) {
 			optionalStream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(itr, 0), false);
 		} else {
-			List<Path> listOfNull = new ArrayList<>();
+			List<T> listOfNull = new ArrayList<>();
 			listOfNull.add(null);
 			optionalStream = listOfNull.stream();
 		}
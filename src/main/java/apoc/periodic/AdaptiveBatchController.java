@@ -0,0 +1,116 @@
+package apoc.periodic;
+
+import apoc.util.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD style controller for the batch size and the number of in-flight batches of apoc.periodic.iterate.
+ *
+ * Every committed batch reports its size, commit latency, failed operations and retries.
+ * As long as batches commit within the target time, batch size and concurrency are increased additively,
+ * on failures, retries (e.g. deadlocks) or slow commits they are decreased multiplicatively.
+ * Decrease signals from batches that were submitted before the last decrease are ignored, so a burst of
+ * concurrent failures only shrinks the sizes once.
+ */
+public class AdaptiveBatchController {
+    static final int MAX_ADJUSTMENTS = 1000;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int batchSizeIncrement;
+    private final int maxConcurrency;
+    private final long targetNanos;
+
+    private int batchSize;
+    private int concurrency;
+    private long epoch;
+    private long lastDecreaseEpoch;
+
+    private long batches;
+    private long rows;
+    private long failures;
+    private long totalNanos;
+    private final long start = System.nanoTime();
+
+    private final List<Map<String, Object>> adjustments = new ArrayList<>();
+
+    public AdaptiveBatchController(int batchSize, int minBatchSize, int maxBatchSize, int concurrency, int maxConcurrency, long targetMillis) {
+        this.minBatchSize = Math.max(1, minBatchSize);
+        this.maxBatchSize = Math.max(this.minBatchSize, maxBatchSize);
+        this.batchSize = Math.min(this.maxBatchSize, Math.max(this.minBatchSize, batchSize));
+        this.batchSizeIncrement = Math.max(1, this.batchSize / 10);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.concurrency = Math.min(this.maxConcurrency, Math.max(1, concurrency));
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, targetMillis));
+        record("initial");
+    }
+
+    public static AdaptiveBatchController fromConfig(Map<String, Object> config, int batchSize, int concurrency, boolean parallel) {
+        int minBatchSize = Util.toInteger(config.getOrDefault("minBatchSize", Math.max(1, batchSize / 100)));
+        int maxBatchSize = Util.toInteger(config.getOrDefault("maxBatchSize", batchSize * 10));
+        long targetMillis = Util.toLong(config.getOrDefault("targetBatchTime", 1000));
+        // without parallel execution there is only one worker, so only the batch size is adapted
+        int initialConcurrency = parallel ? Math.min(concurrency, Math.max(1, Runtime.getRuntime().availableProcessors())) : concurrency;
+        return new AdaptiveBatchController(batchSize, minBatchSize, maxBatchSize, initialConcurrency, concurrency, targetMillis);
+    }
+
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    public synchronized long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @param submittedEpoch the epoch at the time the batch was submitted
+     * @param size number of rows in the batch
+     * @param nanos time to execute and commit the batch
+     * @param failed if the commit or any operation of the batch failed
+     * @param retries number of retries needed for the batch
+     */
+    public synchronized void completed(long submittedEpoch, long size, long nanos, boolean failed, long retries) {
+        batches++;
+        rows += size;
+        totalNanos += nanos;
+        if (failed) failures++;
+
+        boolean congested = failed || retries > 0;
+        if (congested || nanos > targetNanos) {
+            if (submittedEpoch < lastDecreaseEpoch) return;
+            int newBatchSize = congested ? batchSize / 2 : (int) (batchSize * ((double) targetNanos / nanos));
+            batchSize = Math.max(minBatchSize, newBatchSize);
+            concurrency = congested ? Math.max(1, concurrency / 2) : concurrency;
+            lastDecreaseEpoch = ++epoch;
+            record(congested ? (failed ? "failure" : "retry") : "latency");
+        } else if (batchSize < maxBatchSize || concurrency < maxConcurrency) {
+            batchSize = Math.min(maxBatchSize, batchSize + batchSizeIncrement);
+            concurrency = Math.min(maxConcurrency, concurrency + 1);
+            epoch++;
+            record("increase");
+        }
+    }
+
+    private void record(String reason) {
+        if (adjustments.size() >= MAX_ADJUSTMENTS) adjustments.remove(0);
+        adjustments.add(Util.map("batch", batches, "batchSize", batchSize, "concurrency", concurrency, "reason", reason));
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        long avgMillis = batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos / batches);
+        long elapsed = System.nanoTime() - start;
+        double rowsPerSecond = elapsed == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        return Util.map("batchSize", batchSize, "concurrency", concurrency,
+                "minBatchSize", minBatchSize, "maxBatchSize", maxBatchSize,
+                "avgBatchTime", avgMillis, "rowsPerSecond", rowsPerSecond, "failedBatches", failures,
+                "adjustments", new ArrayList<>(adjustments));
+    }
+}
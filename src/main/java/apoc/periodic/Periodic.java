@@ -1,11 +1,23 @@
 package apoc.periodic;
 
 import apoc.Pools;
+import apoc.cypher.StatementCache;
+import apoc.util.PatternCache;
 import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
@@ -13,7 +25,6 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -21,6 +32,8 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static apoc.util.Util.merge;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.NODES;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes.RELATIONSHIPS;
 import static java.lang.System.nanoTime;
 import static java.util.Collections.singletonMap;
 
@@ -257,7 +270,7 @@ public class Periodic {
      * @param cypherAction
      */
     @Procedure(mode = Mode.WRITE)
-    @Description("apoc.periodic.iterate('statement returning items', 'statement per item', {batchSize:1000,iterateList:true,parallel:false,params:{},concurrency:50,retries:0}) YIELD batches, total - run the second statement for each item returned by the first statement. Returns number of batches and total processed rows")
+    @Description("apoc.periodic.iterate('statement returning items', 'statement per item', {batchSize:1000,iterateList:true,parallel:false,params:{},concurrency:50,retries:0,adaptive:false}) YIELD batches, total - run the second statement for each item returned by the first statement. Returns number of batches and total processed rows")
     public Stream<BatchAndTotalResult> iterate(
             @Name("cypherIterate") String cypherIterate,
             @Name("cypherAction") String cypherAction,
@@ -270,21 +283,132 @@ public class Periodic {
         long retries = Util.toLong(config.getOrDefault("retries", 0)); // todo sleep/delay or push to end of batch to try again or immediate ?
         Map<String,Object> params = (Map)config.getOrDefault("params", Collections.emptyMap());
         int failedParams = Util.toInteger(config.getOrDefault("failedParams", -1));
+        AdaptiveBatchController controller = Util.toBoolean(config.getOrDefault("adaptive", false)) ? AdaptiveBatchController.fromConfig(config, (int) batchSize, concurrency, parallel) : null;
         try (Result result = db.execute(slottedRuntime(cypherIterate),params)) {
             Pair<String,Boolean> prepared = prepareInnerStatement(cypherAction, iterateList, result.columns(), "_batch");
             String innerStatement = prepared.first();
             iterateList=prepared.other();
             log.info("starting batching from `%s` operation using iteration `%s` in separate thread", cypherIterate,cypherAction);
-            return iterateAndExecuteBatchedInSeparateThread((int)batchSize, parallel, iterateList, retries, result, (p) -> db.execute(innerStatement, merge(params, p)).close(), concurrency, failedParams);
+            return iterateAndExecuteBatchedInSeparateThread((int)batchSize, parallel, iterateList, retries, result, (p) -> db.execute(innerStatement, merge(params, p)).close(), concurrency, failedParams, controller);
         }
     }
 
-    static String slottedRuntime(String cypherIterate) {
-        if (RUNTIME_PATTERN.matcher(cypherIterate).find()) {
-            return cypherIterate;
+    /**
+     * splits the id-space of the node or relationship store into disjoint ranges, each range is scanned with kernel cursors
+     * by a worker which runs cypherAction for every batch of ids in its own transaction
+     */
+    @Procedure(mode = Mode.WRITE)
+    @Description("apoc.periodic.iterateScan('Label' or 'TYPE' or null, 'statement per batch of n (or r)', {batchSize:10000,relationships:false,params:{},retries:0,partitionSize}) YIELD batches, total - scan disjoint id-ranges of all nodes of the label (or relationships of the type) in parallel and run the statement for each batch of nodes `n` (or relationships `r`) in a separate transaction")
+    public Stream<BatchAndTotalResult> iterateScan(
+            @Name("token") String token,
+            @Name("cypherAction") String cypherAction,
+            @Name(value = "config", defaultValue = "{}") Map<String,Object> config) {
+
+        int batchSize = Util.toInteger(config.getOrDefault("batchSize", 10000));
+        boolean relationships = Util.toBoolean(config.getOrDefault("relationships", false));
+        long retries = Util.toLong(config.getOrDefault("retries", 0));
+        Map<String,Object> params = (Map)config.getOrDefault("params", Collections.emptyMap());
+        String tokenName = token == null || token.isEmpty() ? null : token;
+
+        DependencyResolver resolver = ((GraphDatabaseAPI) db).getDependencyResolver();
+        ThreadToStatementContextBridge ctx = resolver.resolveDependency(ThreadToStatementContextBridge.class);
+        long highId = MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore(resolver, relationships ? RELATIONSHIPS : NODES);
+        int partitions = Pools.getNoThreadsInDefaultPool() * 4;
+        long partitionSize = Util.toLong(config.getOrDefault("partitionSize", Math.max(batchSize, (highId + partitions - 1) / partitions)));
+
+        String innerStatement = (relationships ? "UNWIND $_batch AS _id MATCH ()-[r]->() WHERE id(r) = _id " : "UNWIND $_batch AS _id MATCH (n) WHERE id(n) = _id ") + cypherAction;
+        Consumer<Map<String, Object>> consumer = p -> db.execute(innerStatement, merge(params, p)).close();
+        log.info("starting partitioned scan of %d %s in ranges of %d using `%s`", highId, relationships ? "relationships" : "nodes", partitionSize, cypherAction);
+
+        ScanStats stats = new ScanStats();
+        long start = System.nanoTime();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (long partitionStart = 0; partitionStart < highId; partitionStart += partitionSize) {
+            long from = partitionStart, to = Math.min(highId, partitionStart + partitionSize);
+            futures.add(Pools.pool(Pools.PERIODIC).submit(() -> scanPartition(ctx, tokenName, relationships, from, to, batchSize, consumer, retries, stats)));
+        }
+        AtomicInteger failedPartitions = new AtomicInteger();
+        Map<String,Long> partitionErrors = new HashMap<>();
+        // workers check the termination guard themselves, so we can wait for all of them
+        long successes = futures.stream().mapToLong(f -> Util.getFuture(f, partitionErrors, failedPartitions, 0L)).sum();
+        boolean wasTerminated = Util.transactionIsTerminated(terminationGuard);
+        partitionErrors.forEach((k, v) -> stats.batchErrors.merge(k, v, Long::sum));
+        Util.logErrors("Error during iterateScan.commit:", stats.batchErrors, log);
+        Util.logErrors("Error during iterateScan.execute:", stats.operationErrors, log);
+        long timeTaken = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        return Stream.of(new BatchAndTotalResult(stats.batches.get(), stats.count.get(), timeTaken, successes, stats.failedOps.get(),
+                stats.failedBatches.get() + failedPartitions.get(), stats.retried.get(), stats.operationErrors, stats.batchErrors,
+                wasTerminated, Collections.emptyMap(), Collections.emptyMap()));
+    }
+
+    private static class ScanStats {
+        final AtomicLong batches = new AtomicLong();
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong failedOps = new AtomicLong();
+        final AtomicInteger failedBatches = new AtomicInteger();
+        final AtomicLong retried = new AtomicLong();
+        final Map<String,Long> operationErrors = new ConcurrentHashMap<>();
+        final Map<String,Long> batchErrors = new ConcurrentHashMap<>();
+    }
+
+    private long scanPartition(ThreadToStatementContextBridge ctx, String token, boolean relationships, long from, long to, int batchSize,
+                               Consumer<Map<String, Object>> consumer, long retries, ScanStats stats) {
+        long committed = 0;
+        long id = from;
+        while (id < to && !Util.transactionIsTerminated(terminationGuard)) {
+            long[] batch = new long[batchSize];
+            int size = 0;
+            boolean failed = false;
+            try (Transaction tx = db.beginTx()) {
+                KernelTransaction ktx = ctx.getKernelTransactionBoundToThisThread(true);
+                Read read = ktx.dataRead();
+                int tokenId = token == null ? TokenRead.NO_TOKEN : relationships ? ktx.tokenRead().relationshipType(token) : ktx.tokenRead().nodeLabel(token);
+                if (token != null && tokenId == TokenRead.NO_TOKEN) return 0;
+                if (relationships) {
+                    try (RelationshipScanCursor cursor = ktx.cursors().allocateRelationshipScanCursor()) {
+                        for (; id < to && size < batchSize; id++) {
+                            read.singleRelationship(id, cursor);
+                            if (cursor.next() && (token == null || cursor.type() == tokenId)) batch[size++] = id;
+                        }
+                    }
+                } else {
+                    try (NodeCursor cursor = ktx.cursors().allocateNodeCursor()) {
+                        for (; id < to && size < batchSize; id++) {
+                            read.singleNode(id, cursor);
+                            if (cursor.next() && (token == null || cursor.labels().contains(tokenId))) batch[size++] = id;
+                        }
+                    }
+                }
+                if (size == 0) continue;
+                long c = stats.count.addAndGet(size);
+                stats.batches.incrementAndGet();
+                try {
+                    Map<String, Object> params = Util.map("_count", c, "_batch", size == batchSize ? batch : Arrays.copyOf(batch, size));
+                    stats.retried.addAndGet(retry(consumer, params, 0, retries));
+                } catch (Exception e) {
+                    failed = true;
+                    stats.failedOps.addAndGet(size);
+                    recordError(stats.operationErrors, e);
+                }
+                tx.success();
+            } catch (Exception e) {
+                failed = true;
+                stats.failedBatches.incrementAndGet();
+                recordError(stats.batchErrors, e);
+            }
+            if (!failed) committed += size;
         }
-        Matcher matcher = CYPHER_PREFIX_PATTERN.matcher(cypherIterate.substring(0, Math.min(15,cypherIterate.length())));
-        return matcher.find() ? CYPHER_PREFIX_PATTERN.matcher(cypherIterate).replaceFirst(CYPHER_RUNTIME_SLOTTED) : CYPHER_RUNTIME_SLOTTED + cypherIterate;
+        return committed;
+    }
+
+    static String slottedRuntime(String cypherIterate) {
+        return StatementCache.computeIfAbsent("slottedRuntime", cypherIterate, Collections.emptyList(), () -> {
+            if (RUNTIME_PATTERN.matcher(cypherIterate).find()) {
+                return cypherIterate;
+            }
+            Matcher matcher = CYPHER_PREFIX_PATTERN.matcher(cypherIterate.substring(0, Math.min(15, cypherIterate.length())));
+            return matcher.find() ? CYPHER_PREFIX_PATTERN.matcher(cypherIterate).replaceFirst(CYPHER_RUNTIME_SLOTTED) : CYPHER_RUNTIME_SLOTTED + cypherIterate;
+        });
     }
 
     public long retry(Consumer<Map<String, Object>> executor, Map<String, Object> params, long retry, long maxRetries) {
@@ -301,6 +425,11 @@ public class Periodic {
 
 
     public Pair<String,Boolean> prepareInnerStatement(String cypherAction, boolean iterateList, List<String> columns, String iterator) {
+        return StatementCache.computeIfAbsent("prepareInnerStatement:" + iterateList + ":" + iterator, cypherAction, columns,
+                () -> rewriteInnerStatement(cypherAction, iterateList, columns, iterator));
+    }
+
+    private Pair<String,Boolean> rewriteInnerStatement(String cypherAction, boolean iterateList, List<String> columns, String iterator) {
         String names = columns.stream().map(Util::quote).collect(Collectors.joining("|"));
         boolean withCheck = regNoCaseMultiLine("[{$](" + names + ")\\}?\\s+AS\\s+").matcher(cypherAction).find();
         if (withCheck) return Pair.of(cypherAction, false);
@@ -313,7 +442,7 @@ public class Periodic {
     }
 
     public Pattern regNoCaseMultiLine(String pattern) {
-        return Pattern.compile(pattern,Pattern.CASE_INSENSITIVE|Pattern.MULTILINE|Pattern.DOTALL);
+        return PatternCache.compile(pattern,Pattern.CASE_INSENSITIVE|Pattern.MULTILINE|Pattern.DOTALL);
     }
 
 
@@ -332,8 +461,15 @@ public class Periodic {
 
     private Stream<BatchAndTotalResult> iterateAndExecuteBatchedInSeparateThread(int batchsize, boolean parallel, boolean iterateList, long retries,
                                                                                  Iterator<Map<String, Object>> iterator, Consumer<Map<String, Object>> consumer, int concurrency, int failedParams) {
-        ExecutorService pool = parallel ? Pools.DEFAULT : Pools.SINGLE;
-        List<Future<Long>> futures = new ArrayList<>(concurrency);
+        return iterateAndExecuteBatchedInSeparateThread(batchsize, parallel, iterateList, retries, iterator, consumer, concurrency, failedParams, null);
+    }
+
+    private Stream<BatchAndTotalResult> iterateAndExecuteBatchedInSeparateThread(int batchsize, boolean parallel, boolean iterateList, long retries,
+                                                                                 Iterator<Map<String, Object>> iterator, Consumer<Map<String, Object>> consumer, int concurrency, int failedParams,
+                                                                                 AdaptiveBatchController controller) {
+        ExecutorService pool = parallel ? Pools.pool(Pools.PERIODIC) : Pools.SINGLE;
+        CompletionService<Long> completionService = new ExecutorCompletionService<>(pool);
+        Set<Future<Long>> futures = new HashSet<>(concurrency);
         long batches = 0;
         long start = System.nanoTime();
         AtomicLong count = new AtomicLong();
@@ -346,9 +482,12 @@ public class Periodic {
         long successes = 0;
         do {
             if (Util.transactionIsTerminated(terminationGuard)) break;
-            if (log.isDebugEnabled()) log.debug("execute in batch no " + batches + " batch size " + batchsize);
-            List<Map<String,Object>> batch = Util.take(iterator, batchsize);
+            int size = controller == null ? batchsize : controller.getBatchSize();
+            if (log.isDebugEnabled()) log.debug("execute in batch no " + batches + " batch size " + size);
+            List<Map<String,Object>> batch = Util.take(iterator, size);
             long currentBatchSize = batch.size();
+            AtomicLong batchFailures = new AtomicLong();
+            AtomicLong batchRetries = new AtomicLong();
             Callable<Long> task;
             if (iterateList) {
                 long finalBatches = batches;
@@ -357,9 +496,10 @@ public class Periodic {
                     if (Util.transactionIsTerminated(terminationGuard)) return 0L;
                     try {
                         Map<String, Object> params = Util.map("_count", c, "_batch", batch);
-                        retried.addAndGet(retry(consumer,params,0,retries));
+                        batchRetries.addAndGet(retry(consumer,params,0,retries));
                     } catch (Exception e) {
-                        failedOps.addAndGet(batchsize);
+                        failedOps.addAndGet(size);
+                        batchFailures.incrementAndGet();
                         if (failedParams >= 0) {
                             failedParamsMap.put(Long.toString(finalBatches), new ArrayList<Map<String,Object>>(batch.subList(0, Math.min(failedParams+1, batch.size()))));
                         }
@@ -377,9 +517,10 @@ public class Periodic {
                             if (c % 1000 == 0 && Util.transactionIsTerminated(terminationGuard)) return 0;
                             try {
                                 Map<String, Object> params = merge(p, Util.map("_count", c, "_batch", batch));
-                                retried.addAndGet(retry(consumer,params,0,retries));
+                                batchRetries.addAndGet(retry(consumer,params,0,retries));
                             } catch (Exception e) {
                                 failedOps.incrementAndGet();
+                                batchFailures.incrementAndGet();
                                 if (failedParams >= 0) {
                                     failedParamsMap.put(Long.toString(finalBatches), new ArrayList<Map<String,Object>>(batch.subList(0, Math.min(failedParams+1, batch.size()))));
                                 }
@@ -389,23 +530,40 @@ public class Periodic {
                         }).mapToLong(l -> l).sum();
                 };
             }
-            futures.add(Util.inTxFuture(pool, db, task));
-            batches++;
-            if (futures.size() > concurrency) {
-                while (futures.stream().noneMatch(Future::isDone)) { // none done yet, block for a bit
-                    LockSupport.parkNanos(1000);
-                }
-                Iterator<Future<Long>> it = futures.iterator();
-                while (it.hasNext()) {
-                    Future<Long> future = it.next();
-                    if (future.isDone()) {
-                        successes += Util.getFuture(future, batchErrors, failedBatches, 0L);
-                        it.remove();
+            long epoch = controller == null ? 0 : controller.getEpoch();
+            futures.add(completionService.submit(() -> {
+                long batchStart = System.nanoTime();
+                boolean committed = false;
+                try {
+                    Long result;
+                    try (Transaction tx = db.beginTx()) {
+                        result = task.call();
+                        tx.success();
+                    }
+                    committed = true;
+                    return result;
+                } finally {
+                    retried.addAndGet(batchRetries.get());
+                    if (controller != null) {
+                        controller.completed(epoch, currentBatchSize, System.nanoTime() - batchStart, !committed || batchFailures.get() > 0, batchRetries.get());
                     }
                 }
+            }));
+            batches++;
+            int maxInFlight = controller == null ? concurrency : controller.getConcurrency();
+            // wait on the completion queue until we're below the allowed number of in-flight batches, then collect whatever else is done
+            try {
+                Future<Long> future;
+                while ((future = futures.size() > maxInFlight ? completionService.take() : completionService.poll()) != null) {
+                    successes += Util.getFuture(future, batchErrors, failedBatches, 0L);
+                    futures.remove(future);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
         } while (iterator.hasNext());
-        boolean wasTerminated = Util.transactionIsTerminated(terminationGuard);
+        boolean wasTerminated = Util.transactionIsTerminated(terminationGuard) || Thread.currentThread().isInterrupted();
         if (wasTerminated) {
             successes += futures.stream().mapToLong(f -> Util.getFutureOrCancel(f, batchErrors, failedBatches, 0L)).sum();
         } else {
@@ -414,8 +572,9 @@ public class Periodic {
         Util.logErrors("Error during iterate.commit:", batchErrors, log);
         Util.logErrors("Error during iterate.execute:", operationErrors, log);
         long timeTaken = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        Map<String, Object> adaptive = controller == null ? Collections.emptyMap() : controller.toMap();
         BatchAndTotalResult result =
-                new BatchAndTotalResult(batches, count.get(), timeTaken, successes, failedOps.get(), failedBatches.get(), retried.get(), operationErrors, batchErrors, wasTerminated, failedParamsMap);
+                new BatchAndTotalResult(batches, count.get(), timeTaken, successes, failedOps.get(), failedBatches.get(), retried.get(), operationErrors, batchErrors, wasTerminated, failedParamsMap, adaptive);
         return Stream.of(result);
     }
 
@@ -432,10 +591,12 @@ public class Periodic {
         public final Map<String,Object> operations;
         public final boolean wasTerminated;
         public final Map<String, List<Map<String,Object>>> failedParams;
+        public final Map<String,Object> adaptive;
 
         public BatchAndTotalResult(long batches, long total, long timeTaken, long committedOperations,
                                    long failedOperations, long failedBatches, long retries,
-                                   Map<String, Long> operationErrors, Map<String, Long> batchErrors, boolean wasTerminated, Map<String, List<Map<String, Object>>> failedParams) {
+                                   Map<String, Long> operationErrors, Map<String, Long> batchErrors, boolean wasTerminated, Map<String, List<Map<String, Object>>> failedParams,
+                                   Map<String, Object> adaptive) {
             this.batches = batches;
             this.total = total;
             this.timeTaken = timeTaken;
@@ -446,6 +607,7 @@ public class Periodic {
             this.errorMessages = operationErrors;
             this.wasTerminated = wasTerminated;
             this.failedParams = failedParams;
+            this.adaptive = adaptive;
             this.batch = Util.map("total",batches,"failed",failedBatches,"committed",batches-failedBatches,"errors",batchErrors);
             this.operations = Util.map("total",total,"failed",failedOperations,"committed", committedOperations,"errors",operationErrors);
         }
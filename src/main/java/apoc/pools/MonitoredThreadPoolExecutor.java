@@ -0,0 +1,106 @@
+package apoc.pools;
+
+import apoc.Pools;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ThreadPoolExecutor that records how long tasks wait in the queue (as histogram in microseconds)
+ * and how often the rejection policy had to reject or block the submitting thread. Submissions that only waited for
+ * queue space under the block policy are counted as blocked, not as rejected.
+ */
+public class MonitoredThreadPoolExecutor extends ThreadPoolExecutor {
+    private final String name;
+    private final String policy;
+    private final Histogram waitTime = new ConcurrentHistogram(3);
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+
+    public MonitoredThreadPoolExecutor(String name, int corePoolSize, int maximumPoolSize, long keepAlive, TimeUnit unit,
+                                       BlockingQueue<Runnable> workQueue, String policy, RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAlive, unit, workQueue, new NamedThreadFactory("apoc-" + name));
+        this.name = name;
+        this.policy = policy;
+        boolean blocking = Pools.POLICY_BLOCK.equals(policy);
+        setRejectedExecutionHandler((r, executor) -> {
+            (blocking ? blocked : rejected).incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                handler.rejectedExecution(r, executor);
+            } finally {
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+        });
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submitted.incrementAndGet();
+        super.execute(new TimedRunnable(command));
+    }
+
+    private class TimedRunnable implements Runnable {
+        private final Runnable delegate;
+        private final long queued = System.nanoTime();
+
+        TimedRunnable(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            waitTime.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - queued)));
+            delegate.run();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getBlockedCount() {
+        return blocked.get();
+    }
+
+    public long getBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+    }
+
+    public Histogram getWaitTime() {
+        return waitTime.copy();
+    }
+
+    static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicLong count = new AtomicLong();
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = delegate.newThread(r);
+            thread.setName(prefix + "-" + count.incrementAndGet());
+            return thread;
+        }
+    }
+}
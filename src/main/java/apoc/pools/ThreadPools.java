@@ -0,0 +1,86 @@
+package apoc.pools;
+
+import apoc.Pools;
+import apoc.util.Util;
+import org.HdrHistogram.Histogram;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Procedure;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+
+public class ThreadPools {
+
+    @Procedure
+    @Description("apoc.pools.list() yield name, type, policy, threads, maxThreads, activeThreads, queued, remainingCapacity, submitted, completed, rejected, blocked, blockedMillis, steals, waitTime - lists the APOC thread pools with their queue depth, thread and task counts and wait-time percentiles (in ms), blocked counts the submissions that waited for queue space under the block policy, rejected the ones that were aborted or run by the caller")
+    public Stream<PoolInfo> list() {
+        return Pools.list().entrySet().stream().map(e -> PoolInfo.of(e.getKey(), e.getValue()));
+    }
+
+    public static class PoolInfo {
+        public String name;
+        public String type;
+        public String policy;
+        public long threads;
+        public long maxThreads;
+        public long activeThreads;
+        public long queued;
+        public long remainingCapacity;
+        public long submitted;
+        public long completed;
+        public long rejected;
+        public long blocked;
+        public long blockedMillis;
+        public long steals;
+        public Map<String, Object> waitTime = Collections.emptyMap();
+
+        static PoolInfo of(String name, ExecutorService service) {
+            PoolInfo info = new PoolInfo();
+            info.name = name;
+            if (service instanceof ForkJoinPool) {
+                ForkJoinPool pool = (ForkJoinPool) service;
+                info.type = "forkjoin";
+                info.threads = pool.getPoolSize();
+                info.maxThreads = pool.getParallelism();
+                info.activeThreads = pool.getActiveThreadCount();
+                info.queued = pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+                info.steals = pool.getStealCount();
+            } else if (service instanceof ThreadPoolExecutor) {
+                ThreadPoolExecutor pool = (ThreadPoolExecutor) service;
+                info.type = "threadpool";
+                info.threads = pool.getPoolSize();
+                info.maxThreads = pool.getMaximumPoolSize();
+                info.activeThreads = pool.getActiveCount();
+                info.queued = pool.getQueue().size();
+                info.remainingCapacity = pool.getQueue().remainingCapacity();
+                info.submitted = pool.getTaskCount();
+                info.completed = pool.getCompletedTaskCount();
+                if (pool instanceof MonitoredThreadPoolExecutor) {
+                    MonitoredThreadPoolExecutor monitored = (MonitoredThreadPoolExecutor) pool;
+                    info.policy = monitored.getPolicy();
+                    info.submitted = monitored.getSubmittedCount();
+                    info.rejected = monitored.getRejectedCount();
+                    info.blocked = monitored.getBlockedCount();
+                    info.blockedMillis = monitored.getBlockedMillis();
+                    info.waitTime = toMillis(monitored.getWaitTime());
+                }
+            } else {
+                info.type = service.getClass().getSimpleName();
+            }
+            return info;
+        }
+
+        private static Map<String, Object> toMillis(Histogram histogram) {
+            return Util.map("count", histogram.getTotalCount(),
+                    "mean", histogram.getMean() / 1000d,
+                    "p50", histogram.getValueAtPercentile(50) / 1000d,
+                    "p95", histogram.getValueAtPercentile(95) / 1000d,
+                    "p99", histogram.getValueAtPercentile(99) / 1000d,
+                    "max", histogram.getMaxValue() / 1000d);
+        }
+    }
+}
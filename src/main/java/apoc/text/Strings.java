@@ -1,5 +1,6 @@
 package apoc.text;
 
+import apoc.util.PatternCache;
 import apoc.util.Util;
 import org.apache.commons.text.similarity.HammingDistance;
 import org.apache.commons.text.similarity.JaroWinklerDistance;
@@ -86,11 +87,17 @@ public class Strings {
     @Description("apoc.text.bytes(text,[charset]) - return bytes of the text")
     public List<Long> bytes(final @Name("text") String text, @Name(value = "charset", defaultValue = "UTF-8") String charset) throws UnsupportedEncodingException {
         byte[] bytes = text.getBytes(charset);
-        List<Long> result = new ArrayList<>(bytes.length);
-        for (byte b : bytes) {
-            result.add((long)b & 0xFFL);
-        }
-        return result;
+        return new AbstractList<Long>() {
+            @Override
+            public Long get(int index) {
+                return (long) bytes[index] & 0xFFL;
+            }
+
+            @Override
+            public int size() {
+                return bytes.length;
+            }
+        };
     }
 
     @UserFunction
@@ -99,7 +106,7 @@ public class Strings {
         if (text == null || regex == null || replacement == null) {
             return null;
         }
-        return text.replaceAll(regex, replacement);
+        return PatternCache.compile(regex).matcher(text).replaceAll(replacement);
     }
 
     @UserFunction
@@ -108,8 +115,7 @@ public class Strings {
         if (text == null || regex == null || limit == null) {
             return null;
         }
-        String[] resultArray = text.split(regex, limit.intValue());
-        return new ArrayList<>(asList(resultArray));
+        return asList(PatternCache.compile(regex).split(text, limit.intValue()));
     }
 
     @UserFunction
@@ -118,7 +124,7 @@ public class Strings {
         if (text==null || regex==null) {
             return Collections.EMPTY_LIST;
         } else {
-            final Pattern pattern = Pattern.compile(regex);
+            final Pattern pattern = PatternCache.compile(regex);
             final Matcher matcher = pattern.matcher(text);
 
             List<List<String>> result = new ArrayList<>();
@@ -253,6 +259,13 @@ public class Strings {
     }
 
     private static Pattern cleanPattern = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern SLUG_PATTERN = Pattern.compile("[\\W\\s]+");
+    private static final Pattern NON_WORD_PATTERN = Pattern.compile("\\W|_+");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("(\\s+)");
+    private static final Pattern UPPER_SNAKE_CASE_PATTERN = Pattern.compile("^([A-Z0-9_]+)$");
+    private static final Pattern SNAKE_CASE_SPLIT_PATTERN = Pattern.compile("(?=[^a-z0-9])");
+    private static final Pattern UPPER_CASE_SPLIT_PATTERN = Pattern.compile("(?=[^a-z0-9]+)");
+    private static final Pattern NON_UPPER_CASE_PATTERN = Pattern.compile("[^A-Z0-9]+");
     private static Pattern specialCharPattern = Pattern.compile("\\p{IsM}+");
     private static String[][] UMLAUT_REPLACEMENTS = {
             { new String("Ä"), "Ae" },
@@ -315,7 +328,7 @@ public class Strings {
     public String slug(@Name("text") String text, @Name(value = "delim", defaultValue = "-") String delim) {
         if (text == null) return null;
         if (delim == null) return null;
-        return text.trim().replaceAll("[\\W\\s]+", delim);
+        return SLUG_PATTERN.matcher(text.trim()).replaceAll(delim);
     }
 
 
@@ -326,7 +339,7 @@ public class Strings {
     @UserFunction
     @Description("apoc.text.random(length, valid) YIELD value - generate a random string")
     public String random(final @Name("length") long length, @Name(value = "valid", defaultValue = "A-Za-z0-9") String valid) {
-        valid = valid.replaceAll("A-Z", upper).replaceAll("a-z", lower).replaceAll("0-9", numeric);
+        valid = valid.replace("A-Z", upper).replace("a-z", lower).replace("0-9", numeric);
 
         StringBuilder output = new StringBuilder( toIntExact(length) );
 
@@ -353,7 +366,7 @@ public class Strings {
         StringBuilder output = new StringBuilder();
 
         for (String part : parts) {
-            output.append( StringUtils.capitalize(part) + " " );
+            output.append(StringUtils.capitalize(part)).append(' ');
 
         }
 
@@ -374,7 +387,7 @@ public class Strings {
         StringBuilder output = new StringBuilder();
 
         for (String part : parts) {
-            output.append( StringUtils.uncapitalize(part) + " " );
+            output.append(StringUtils.uncapitalize(part)).append(' ');
 
         }
 
@@ -390,9 +403,9 @@ public class Strings {
     @UserFunction
     @Description("apoc.text.camelCase(text) YIELD value - Convert a string to camelCase")
     public String camelCase(@Name("text") String text) {
-        text = text.replaceAll("\\W|_+", " ");
+        text = NON_WORD_PATTERN.matcher(text).replaceAll(" ");
 
-        String[] parts = text.split("(\\s+)");
+        String[] parts = WHITESPACE_PATTERN.split(text);
         StringBuilder output = new StringBuilder();
 
         for (String part : parts) {
@@ -416,11 +429,11 @@ public class Strings {
     @Description("apoc.text.snakeCase(text) YIELD value - Convert a string to snake-case")
     public String snakeCase(@Name("text") String text) {
         // Convert Snake Case
-        if ( text.matches("^([A-Z0-9_]+)$") ) {
+        if ( UPPER_SNAKE_CASE_PATTERN.matcher(text).matches() ) {
             text = text.toLowerCase().replace("_", " ");
         }
 
-        String[] parts = text.split("(?=[^a-z0-9])");
+        String[] parts = SNAKE_CASE_SPLIT_PATTERN.split(text);
         StringBuilder output = new StringBuilder();
 
         for (String part : parts) {
@@ -435,17 +448,17 @@ public class Strings {
             }
         }
 
-        return output.toString().toLowerCase().replaceAll("--", "-");
+        return output.toString().toLowerCase().replace("--", "-");
     }
 
     @UserFunction
     @Description("apoc.text.toUpperCase(text) YIELD value - Convert a string to UPPER_CASE")
     public String toUpperCase(@Name("text") String text) {
-        String[] parts = text.split("(?=[^a-z0-9]+)");
+        String[] parts = UPPER_CASE_SPLIT_PATTERN.split(text);
         StringBuilder output = new StringBuilder();
 
         for (String part : parts) {
-            part = part.trim().toUpperCase().replaceAll("[^A-Z0-9]+", "");
+            part = NON_UPPER_CASE_PATTERN.matcher(part.trim().toUpperCase()).replaceAll("");
 
             if (part.length() > 0) {
                 if (output.length() > 0) {
@@ -0,0 +1,148 @@
+package apoc.trigger;
+
+import apoc.util.Util;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A trigger with its selector and the parameters its statement references, prepared once when the triggers are loaded.
+ *
+ * The structural part of the selector ({labels, relationshipTypes, propertyKeys}) is checked against the
+ * {@link TransactionData} before any parameter is built, every given criterion has to match at least one change.
+ */
+public class CompiledTrigger {
+    private static final Pattern PARAMETER = Pattern.compile("\\$\\s*`?(\\w+)`?|\\{\\s*`?(\\w+)`?\\s*}");
+
+    final String name;
+    final String statement;
+    final Map<String, Object> selector;
+    final Map<String, Object> params;
+    final boolean paused;
+    final String phase;
+    final boolean async;
+    final Set<String> referencedParameters;
+    private final Set<String> labels;
+    private final Set<String> relationshipTypes;
+    private final Set<String> propertyKeys;
+
+    public CompiledTrigger(String name, Map<String, Object> data) {
+        this.name = name;
+        this.statement = (String) data.get("kernelTransaction");
+        this.selector = (Map<String, Object>) data.get("selector");
+        this.params = data.get("params") == null ? Collections.emptyMap() : (Map<String, Object>) data.get("params");
+        this.paused = Boolean.TRUE.equals(data.get("paused"));
+        this.phase = selector == null ? "before" : String.valueOf(selector.getOrDefault("phase", "before"));
+        this.async = "after".equals(phase) && selector != null && Util.toBoolean(selector.get("async"));
+        this.referencedParameters = statement == null ? Collections.emptySet() : referencedParameters(statement);
+        this.labels = strings(selector, "labels");
+        this.relationshipTypes = strings(selector, "relationshipTypes");
+        this.propertyKeys = strings(selector, "propertyKeys");
+    }
+
+    static Set<String> referencedParameters(String statement) {
+        Set<String> names = new HashSet<>();
+        Matcher matcher = PARAMETER.matcher(statement);
+        while (matcher.find()) {
+            names.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+        }
+        return names;
+    }
+
+    private static Set<String> strings(Map<String, Object> selector, String key) {
+        Object value = selector == null ? null : selector.get(key);
+        if (value == null) return null;
+        Set<String> result = new HashSet<>();
+        if (value instanceof Collection) {
+            for (Object o : (Collection) value) result.add(String.valueOf(o));
+        } else {
+            result.add(String.valueOf(value));
+        }
+        return result;
+    }
+
+    /**
+     * @return if the trigger fires in the phase for the changes of the transaction
+     */
+    public boolean matches(TransactionData txData, String phase) {
+        if (paused || !this.phase.equals(phase)) return false;
+        return (labels == null || matchesLabels(txData))
+                && (relationshipTypes == null || matchesRelationshipTypes(txData))
+                && (propertyKeys == null || matchesPropertyKeys(txData));
+    }
+
+    private boolean matchesLabels(TransactionData txData) {
+        for (LabelEntry entry : txData.assignedLabels()) {
+            if (labels.contains(entry.label().name())) return true;
+        }
+        for (LabelEntry entry : txData.removedLabels()) {
+            if (labels.contains(entry.label().name())) return true;
+        }
+        return hasLabel(txData.assignedNodeProperties()) || hasLabel(txData.removedNodeProperties());
+    }
+
+    private boolean hasLabel(Iterable<PropertyEntry<Node>> entries) {
+        for (PropertyEntry<Node> entry : entries) {
+            try {
+                for (String label : labels) {
+                    if (entry.entity().hasLabel(Label.label(label))) return true;
+                }
+            } catch (RuntimeException e) {
+                // deleted node, its labels are part of the removed labels
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesRelationshipTypes(TransactionData txData) {
+        return hasType(txData.createdRelationships()) || hasType(txData.deletedRelationships())
+                || hasPropertyType(txData.assignedRelationshipProperties()) || hasPropertyType(txData.removedRelationshipProperties());
+    }
+
+    private boolean hasType(Iterable<Relationship> relationships) {
+        for (Relationship relationship : relationships) {
+            if (hasType(relationship)) return true;
+        }
+        return false;
+    }
+
+    private boolean hasPropertyType(Iterable<PropertyEntry<Relationship>> entries) {
+        for (PropertyEntry<Relationship> entry : entries) {
+            if (hasType(entry.entity())) return true;
+        }
+        return false;
+    }
+
+    private boolean hasType(Relationship relationship) {
+        try {
+            return relationshipTypes.contains(relationship.getType().name());
+        } catch (RuntimeException e) {
+            // type of a deleted relationship is not readable after the commit, rather fire than miss it
+            return true;
+        }
+    }
+
+    private boolean matchesPropertyKeys(TransactionData txData) {
+        return hasKey(txData.assignedNodeProperties()) || hasKey(txData.removedNodeProperties())
+                || hasKey(txData.assignedRelationshipProperties()) || hasKey(txData.removedRelationshipProperties());
+    }
+
+    private <T extends PropertyContainer> boolean hasKey(Iterable<PropertyEntry<T>> entries) {
+        for (PropertyEntry<T> entry : entries) {
+            if (propertyKeys.contains(entry.key())) return true;
+        }
+        return false;
+    }
+}
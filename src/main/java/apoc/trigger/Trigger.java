@@ -2,6 +2,7 @@ package apoc.trigger;
 
 import apoc.ApocConfiguration;
 import apoc.Description;
+import apoc.Pools;
 import apoc.coll.SetBackedList;
 import apoc.util.Util;
 import org.neo4j.graphdb.*;
@@ -9,6 +10,7 @@ import org.neo4j.graphdb.event.LabelEntry;
 import org.neo4j.graphdb.event.PropertyEntry;
 import org.neo4j.graphdb.event.TransactionData;
 import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.kernel.impl.core.EmbeddedProxySPI;
 import org.neo4j.kernel.impl.core.GraphProperties;
@@ -171,6 +173,7 @@ public class Trigger {
     public static class TriggerHandler implements TransactionEventHandler {
         public static final String APOC_TRIGGER = "apoc.trigger";
         static ConcurrentHashMap<String,Map<String,Object>> triggers = new ConcurrentHashMap(map("",map()));
+        static volatile List<CompiledTrigger> compiled = Collections.emptyList();
         private static GraphProperties properties;
         private final Log log;
 
@@ -235,6 +238,7 @@ public class Trigger {
                         properties.setProperty(APOC_TRIGGER, Util.toJson(triggers));
                     }
                 }
+                compile();
                 tx.success();
                 return previous;
             }
@@ -243,6 +247,7 @@ public class Trigger {
         public synchronized static Map<String, Object> removeAll() {
             try (Transaction tx = properties.getGraphDatabase().beginTx()) {
                 triggers.clear();
+                compile();
                 String previous = (String) properties.removeProperty(APOC_TRIGGER);
                 tx.success();
                 return previous == null ? null : Util.fromJson(previous, Map.class);
@@ -264,40 +269,59 @@ public class Trigger {
             return null;
         }
 
+        private static void compile() {
+            List<CompiledTrigger> result = new ArrayList<>(triggers.size());
+            triggers.forEach((name, data) -> {
+                if (data.get("kernelTransaction") != null) result.add(new CompiledTrigger(name, data));
+            });
+            compiled = result;
+        }
+
+        /**
+         * Only the triggers whose selector matches the changes run, with only the transaction data parameters
+         * that their statement references. Asynchronous after-triggers run in the trigger pool, with their parameters
+         * built before the commit returns.
+         */
         private void executeTriggers(TransactionData txData, String phase) {
             if (triggers.containsKey("")) updateTriggers(null,null);
             GraphDatabaseService db = properties.getGraphDatabase();
             Map<String,String> exceptions = new LinkedHashMap<>();
-            Map<String, Object> params = txDataParams(txData, phase);
-            triggers.forEach((name, data) -> {
-                if( data.get("paused").equals(false)) {
-                    if( data.get( "params" ) != null)
-                    {
-                        params.putAll( (Map<String,Object>) data.get( "params" ) );
-                    }
-                    try (Transaction tx = db.beginTx()) {
-                        Map<String,Object> selector = (Map<String, Object>) data.get("selector");
-                        if (when(selector, phase)) {
-                            params.put("trigger", name);
-                            Result result = db.execute((String) data.get("kernelTransaction"), params);
-                            Iterators.count(result);
-                            result.close();
+            TxDataParams txDataParams = null;
+            for (CompiledTrigger trigger : compiled) {
+                if (!trigger.matches(txData, phase)) continue;
+                if (txDataParams == null) txDataParams = new TxDataParams(txData, phase);
+                Map<String, Object> params = txDataParams.params(trigger.referencedParameters);
+                params.putAll(trigger.params);
+                params.put("trigger", trigger.name);
+                if (trigger.async) {
+                    Pools.pool(Pools.TRIGGER).submit(() -> {
+                        try {
+                            runTrigger(db, trigger, params);
+                        } catch (Exception e) {
+                            log.warn("Error executing trigger " + trigger.name + " in phase " + phase, e);
                         }
-                        tx.success();
-                    } catch(Exception e) {
-                        log.warn("Error executing trigger "+name+" in phase "+phase,e);
-                        exceptions.put(name, e.getMessage());
-                    }
+                    });
+                    continue;
                 }
-            });
+                try {
+                    runTrigger(db, trigger, params);
+                } catch(Exception e) {
+                    log.warn("Error executing trigger "+trigger.name+" in phase "+phase,e);
+                    exceptions.put(trigger.name, e.getMessage());
+                }
+            }
             if (!exceptions.isEmpty()) {
                 throw new RuntimeException("Error executing triggers "+exceptions.toString());
             }
         }
 
-        private boolean when(Map<String, Object> selector, String phase) {
-            if (selector == null) return (phase.equals("before"));
-            return selector.getOrDefault("phase", "before").equals(phase);
+        private static void runTrigger(GraphDatabaseService db, CompiledTrigger trigger, Map<String, Object> params) {
+            try (Transaction tx = db.beginTx()) {
+                Result result = db.execute(trigger.statement, params);
+                Iterators.count(result);
+                result.close();
+                tx.success();
+            }
         }
 
         @Override
@@ -312,19 +336,48 @@ public class Trigger {
 
     }
 
-    private static Map<String, Object> txDataParams(TransactionData txData, String phase) {
-        return map("transactionId", phase.equals("after") ? txData.getTransactionId() : -1,
-                        "commitTime", phase.equals("after") ? txData.getCommitTime() : -1,
-                        "createdNodes", txData.createdNodes(),
-                        "createdRelationships", txData.createdRelationships(),
-                        "deletedNodes", txData.deletedNodes(),
-                        "deletedRelationships", txData.deletedRelationships(),
-                        "removedLabels", aggregateLabels(txData.removedLabels()),
-                        "removedNodeProperties", aggregatePropertyKeys(txData.removedNodeProperties(),true,true),
-                        "removedRelationshipProperties", aggregatePropertyKeys(txData.removedRelationshipProperties(),false,true),
-                        "assignedLabels", aggregateLabels(txData.assignedLabels()),
-                        "assignedNodeProperties",aggregatePropertyKeys(txData.assignedNodeProperties(),true,false),
-                        "assignedRelationshipProperties",aggregatePropertyKeys(txData.assignedRelationshipProperties(),false,false));
+    /**
+     * Transaction data parameters of one phase of a commit, each built on first use and shared by the triggers
+     */
+    static class TxDataParams {
+        private final TransactionData txData;
+        private final String phase;
+        private final Map<String, Object> built = new HashMap<>();
+
+        TxDataParams(TransactionData txData, String phase) {
+            this.txData = txData;
+            this.phase = phase;
+        }
+
+        Map<String, Object> params(Set<String> names) {
+            Map<String, Object> params = new HashMap<>();
+            for (String name : names) {
+                Object value = built.containsKey(name) ? built.get(name) : build(name);
+                if (value != null || built.containsKey(name)) params.put(name, value);
+            }
+            return params;
+        }
+
+        private Object build(String name) {
+            Object value;
+            switch (name) {
+                case "transactionId": value = phase.equals("after") ? txData.getTransactionId() : -1; break;
+                case "commitTime": value = phase.equals("after") ? txData.getCommitTime() : -1; break;
+                case "createdNodes": value = Iterables.asList(txData.createdNodes()); break;
+                case "createdRelationships": value = Iterables.asList(txData.createdRelationships()); break;
+                case "deletedNodes": value = Iterables.asList(txData.deletedNodes()); break;
+                case "deletedRelationships": value = Iterables.asList(txData.deletedRelationships()); break;
+                case "removedLabels": value = aggregateLabels(txData.removedLabels()); break;
+                case "removedNodeProperties": value = aggregatePropertyKeys(txData.removedNodeProperties(),true,true); break;
+                case "removedRelationshipProperties": value = aggregatePropertyKeys(txData.removedRelationshipProperties(),false,true); break;
+                case "assignedLabels": value = aggregateLabels(txData.assignedLabels()); break;
+                case "assignedNodeProperties": value = aggregatePropertyKeys(txData.assignedNodeProperties(),true,false); break;
+                case "assignedRelationshipProperties": value = aggregatePropertyKeys(txData.assignedRelationshipProperties(),false,false); break;
+                default: return null;
+            }
+            built.put(name, value);
+            return value;
+        }
     }
 
     private static <T extends PropertyContainer> Map<String,List<Map<String,Object>>> aggregatePropertyKeys(Iterable<PropertyEntry<T>> entries, boolean nodes, boolean removed) {
@@ -0,0 +1,37 @@
+package apoc.ttl;
+
+import apoc.Description;
+import apoc.util.Util;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.stream.Stream;
+
+public class TTL {
+    @Context
+    public GraphDatabaseAPI db;
+
+    @Context
+    public Log log;
+
+    @Procedure
+    @Description("CALL apoc.ttl.stats() YIELD expiredNodes, expiredRelationships, lagMillis, deletedNodes, deletedRelationships, nodesPerSecond, relationshipsPerSecond, lastRun, lastRunMillis - backlog, lag and delete rate of the TTL expiry")
+    public Stream<TTLExpiry.TTLStats> stats() {
+        return Stream.of(TTLLifeCycle.expiry(db, log).stats());
+    }
+
+    @Procedure(mode = Mode.WRITE)
+    @Description("CALL apoc.ttl.expire(limit=0) - deletes expired nodes and relationships now, up to limit of each (0 for all), returns the TTL stats")
+    public Stream<TTLExpiry.TTLStats> expire(@Name(value = "limit", defaultValue = "0") long limit) {
+        TTLExpiry expiry = TTLLifeCycle.expiry(db, log);
+        Util.inThread(() -> {
+            expiry.expire(limit, Long.MAX_VALUE);
+            return null;
+        });
+        return Stream.of(expiry.stats());
+    }
+}
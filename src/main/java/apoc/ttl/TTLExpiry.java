@@ -0,0 +1,335 @@
+package apoc.ttl;
+
+import apoc.Pools;
+import apoc.util.Util;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransientFailureException;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.index.lucene.QueryContext;
+import org.neo4j.internal.kernel.api.IndexOrder;
+import org.neo4j.internal.kernel.api.IndexQuery;
+import org.neo4j.internal.kernel.api.CapableIndexReference;
+import org.neo4j.internal.kernel.api.NodeValueIndexCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+import org.neo4j.values.storable.ValueCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired nodes (label {@code :TTL}, property {@code ttl}) and relationships (in the relationship index {@code TTL}).
+ *
+ * Each round seeks the oldest expired entries in the {@code :TTL(ttl)} index and deletes them in parallel
+ * batch transactions, rounds repeat until fewer entries than a full round are expired or the time budget of the run is used,
+ * so a run does more work the larger the backlog is. The relationships of dense nodes are deleted in chunks
+ * of their own transactions before the node, so that a single transaction doesn't lock too many nodes.
+ */
+public class TTLExpiry {
+    public static final String TTL_LABEL = "TTL";
+    public static final String TTL_PROPERTY = "ttl";
+    public static final String TTL_RELATIONSHIP_INDEX = "TTL";
+    private static final int RETRIES = 5;
+
+    private final GraphDatabaseAPI db;
+    private final Log log;
+    private final int batchSize;
+    private final int parallelism;
+    private final int denseNodeThreshold;
+
+    private final AtomicLong deletedNodes = new AtomicLong();
+    private final AtomicLong deletedRelationships = new AtomicLong();
+    private volatile long lastRun;
+    private volatile long lastRunMillis;
+    private volatile double nodesPerSecond;
+    private volatile double relationshipsPerSecond;
+
+    public TTLExpiry(GraphDatabaseAPI db, Log log, int batchSize, int parallelism, int denseNodeThreshold) {
+        this.db = db;
+        this.log = log;
+        this.batchSize = Math.max(1, batchSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.denseNodeThreshold = Math.max(1, denseNodeThreshold);
+    }
+
+    /**
+     * deletes expired nodes and relationships until there are no more or the budget is used
+     * @param limit maximum number of nodes and of relationships to delete, 0 for no limit
+     * @param budgetMillis time after which no further round is started
+     */
+    public synchronized void expire(long limit, long budgetMillis) {
+        long start = System.currentTimeMillis();
+        long now = start;
+        long nodes = 0, rels = 0;
+        int round = batchSize * parallelism;
+        while (limit <= 0 || nodes < limit) {
+            long[] ids = expiredNodes(now, limit <= 0 ? round : (int) Math.min(round, limit - nodes));
+            if (ids.length == 0) break;
+            long deleted = deleteInBatches(ids, this::deleteNodes);
+            nodes += deleted;
+            if (deleted == 0 || ids.length < round || System.currentTimeMillis() - start > budgetMillis) break;
+        }
+        while (limit <= 0 || rels < limit) {
+            long[] ids = expiredRelationships(now, limit <= 0 ? round : (int) Math.min(round, limit - rels));
+            if (ids.length == 0) break;
+            long deleted = deleteInBatches(ids, this::deleteRelationships);
+            rels += deleted;
+            if (deleted == 0 || ids.length < round || System.currentTimeMillis() - start > budgetMillis) break;
+        }
+        lastRun = start;
+        lastRunMillis = System.currentTimeMillis() - start;
+        nodesPerSecond = nodes * 1000d / Math.max(1, lastRunMillis);
+        relationshipsPerSecond = rels * 1000d / Math.max(1, lastRunMillis);
+        if (nodes > 0 || rels > 0) {
+            log.info("TTL: Expired %d nodes %d relationships in %d ms", nodes, rels, lastRunMillis);
+        }
+    }
+
+    /**
+     * @return ids of the expired nodes, oldest first if the index supports ordering
+     */
+    long[] expiredNodes(long now, int max) {
+        long[] ids = new long[max];
+        int count = 0;
+        try (Transaction tx = db.beginTx()) {
+            KernelTransaction ktx = kernelTransaction();
+            TokenRead tokens = ktx.tokenRead();
+            int label = tokens.nodeLabel(TTL_LABEL);
+            int property = tokens.propertyKey(TTL_PROPERTY);
+            if (label == TokenRead.NO_TOKEN || property == TokenRead.NO_TOKEN) return new long[0];
+            CapableIndexReference index = ktx.schemaRead().index(label, property);
+            if (index == CapableIndexReference.NO_INDEX) return expiredNodesByScan(now, max);
+            IndexOrder order = Arrays.asList(index.orderCapability(ValueCategory.NUMBER)).contains(IndexOrder.ASCENDING) ? IndexOrder.ASCENDING : IndexOrder.NONE;
+            try (NodeValueIndexCursor cursor = ktx.cursors().allocateNodeValueIndexCursor()) {
+                ktx.dataRead().nodeIndexSeek(index, cursor, order, IndexQuery.range(property, (Number) null, false, now, false));
+                while (count < max && cursor.next()) {
+                    ids[count++] = cursor.nodeReference();
+                }
+            }
+            tx.success();
+        } catch (KernelException e) {
+            throw new RuntimeException("Error seeking expired nodes in the :TTL(ttl) index", e);
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private long[] expiredNodesByScan(long now, int max) {
+        List<Long> ids = new ArrayList<>();
+        db.findNodes(Label.label(TTL_LABEL)).stream()
+                .filter(node -> isExpired(node.getProperty(TTL_PROPERTY, null), now))
+                .limit(max).forEach(node -> ids.add(node.getId()));
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    long[] expiredRelationships(long now, int max) {
+        try (Transaction tx = db.beginTx()) {
+            if (!db.index().existsForRelationships(TTL_RELATIONSHIP_INDEX)) return new long[0];
+            long[] ids = new long[max];
+            int count = 0;
+            try (IndexHits<Relationship> hits = db.index().forRelationships(TTL_RELATIONSHIP_INDEX)
+                    .query(QueryContext.numericRange(TTL_PROPERTY, null, now, false, false).sortNumeric(TTL_PROPERTY, false))) {
+                while (count < max && hits.hasNext()) {
+                    ids[count++] = hits.next().getId();
+                }
+            }
+            tx.success();
+            return Arrays.copyOf(ids, count);
+        }
+    }
+
+    private interface BatchDelete {
+        long delete(long[] ids, long now);
+    }
+
+    private long deleteInBatches(long[] ids, BatchDelete delete) {
+        long now = System.currentTimeMillis();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int from = 0; from < ids.length; from += batchSize) {
+            long[] batch = Arrays.copyOfRange(ids, from, Math.min(ids.length, from + batchSize));
+            futures.add(Pools.pool(Pools.TTL).submit(() -> withRetries(() -> delete.delete(batch, now))));
+        }
+        long deleted = 0;
+        for (Future<Long> future : futures) {
+            try {
+                deleted += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return deleted;
+            } catch (ExecutionException e) {
+                log.error("TTL: Error deleting expired entities", e.getCause());
+            }
+        }
+        return deleted;
+    }
+
+    private interface Work {
+        long run();
+    }
+
+    private static long withRetries(Work work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.run();
+            } catch (TransientFailureException e) {
+                if (attempt >= RETRIES) throw e;
+                try {
+                    Thread.sleep(attempt * 10L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private long deleteNodes(long[] ids, long now) {
+        long nodes = 0, rels = 0;
+        List<Long> dense = new ArrayList<>();
+        try (Transaction tx = db.beginTx()) {
+            for (long id : ids) {
+                Node node;
+                try {
+                    node = db.getNodeById(id);
+                    // the ttl might have been changed since the seek
+                    if (!isExpired(node.getProperty(TTL_PROPERTY, null), now)) continue;
+                } catch (NotFoundException e) {
+                    continue;
+                }
+                if (node.getDegree() > denseNodeThreshold) {
+                    dense.add(id);
+                    continue;
+                }
+                try {
+                    for (Relationship rel : node.getRelationships()) {
+                        try {
+                            rel.delete();
+                            rels++;
+                        } catch (NotFoundException e) {
+                            // deleted by a concurrent batch, e.g. with the node at its other end
+                        }
+                    }
+                    node.delete();
+                    nodes++;
+                } catch (NotFoundException e) {
+                    // deleted concurrently
+                }
+            }
+            tx.success();
+        }
+        deletedRelationships.addAndGet(rels);
+        for (long id : dense) {
+            nodes += withRetries(() -> deleteDenseNode(id));
+        }
+        deletedNodes.addAndGet(nodes);
+        return nodes;
+    }
+
+    private long deleteDenseNode(long id) {
+        while (true) {
+            int count = 0;
+            boolean done;
+            try (Transaction tx = db.beginTx()) {
+                Node node = db.getNodeById(id);
+                for (Relationship rel : node.getRelationships(Direction.BOTH)) {
+                    if (count == denseNodeThreshold) break;
+                    try {
+                        rel.delete();
+                        count++;
+                    } catch (NotFoundException e) {
+                        // deleted by a concurrent batch
+                    }
+                }
+                done = count < denseNodeThreshold;
+                if (done) node.delete();
+                tx.success();
+            } catch (NotFoundException e) {
+                return 0;
+            }
+            deletedRelationships.addAndGet(count);
+            if (done) return 1;
+        }
+    }
+
+    private long deleteRelationships(long[] ids, long now) {
+        long rels = 0;
+        try (Transaction tx = db.beginTx()) {
+            for (long id : ids) {
+                try {
+                    Relationship rel = db.getRelationshipById(id);
+                    if (!isExpired(rel.getProperty(TTL_PROPERTY, null), now)) continue;
+                    rel.delete();
+                    rels++;
+                } catch (NotFoundException e) {
+                    // deleted in the meantime
+                }
+            }
+            tx.success();
+        }
+        deletedRelationships.addAndGet(rels);
+        return rels;
+    }
+
+    private static boolean isExpired(Object ttl, long now) {
+        return ttl instanceof Number && ((Number) ttl).longValue() < now;
+    }
+
+    private KernelTransaction kernelTransaction() {
+        return db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class).getKernelTransactionBoundToThisThread(true);
+    }
+
+    public TTLStats stats() {
+        long now = System.currentTimeMillis();
+        TTLStats stats = new TTLStats();
+        long[] oldest = expiredNodes(now, 1);
+        try (Transaction tx = db.beginTx()) {
+            stats.expiredNodes = Util.toLong(db.execute("MATCH (t:TTL) WHERE t.ttl < $now RETURN count(*) AS count", Util.map("now", now)).columnAs("count").next());
+            if (oldest.length > 0) {
+                Object ttl = db.getNodeById(oldest[0]).getProperty(TTL_PROPERTY, now);
+                stats.lagMillis = ttl instanceof Number ? now - ((Number) ttl).longValue() : 0;
+            }
+            if (db.index().existsForRelationships(TTL_RELATIONSHIP_INDEX)) {
+                try (IndexHits<Relationship> hits = db.index().forRelationships(TTL_RELATIONSHIP_INDEX)
+                        .query(QueryContext.numericRange(TTL_PROPERTY, null, now, false, false).sortNumeric(TTL_PROPERTY, false))) {
+                    stats.expiredRelationships = hits.size();
+                    if (hits.hasNext()) {
+                        Object ttl = hits.next().getProperty(TTL_PROPERTY, now);
+                        if (ttl instanceof Number) stats.lagMillis = Math.max(stats.lagMillis, now - ((Number) ttl).longValue());
+                    }
+                }
+            }
+            tx.success();
+        }
+        stats.deletedNodes = deletedNodes.get();
+        stats.deletedRelationships = deletedRelationships.get();
+        stats.nodesPerSecond = nodesPerSecond;
+        stats.relationshipsPerSecond = relationshipsPerSecond;
+        stats.lastRun = lastRun;
+        stats.lastRunMillis = lastRunMillis;
+        return stats;
+    }
+
+    public static class TTLStats {
+        public long expiredNodes;
+        public long expiredRelationships;
+        public long lagMillis;
+        public long deletedNodes;
+        public long deletedRelationships;
+        public double nodesPerSecond;
+        public double relationshipsPerSecond;
+        public long lastRun;
+        public long lastRunMillis;
+    }
+}
@@ -2,12 +2,12 @@ package apoc.ttl;
 
 import apoc.ApocConfiguration;
 import apoc.util.Util;
-import org.neo4j.graphdb.QueryStatistics;
-import org.neo4j.graphdb.Result;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -18,12 +18,16 @@ public class TTLLifeCycle {
 
     public static final int INITIAL_DELAY = 30;
     public static final int DEFAULT_SCHEDULE = 60;
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+    public static final int DEFAULT_DENSE_NODE_THRESHOLD = 1_000;
+    private static final Map<GraphDatabaseAPI, TTLExpiry> EXPIRIES = new ConcurrentHashMap<>();
     public static JobScheduler.Group TTL_GROUP = new JobScheduler.Group("TTL");
     private final JobScheduler scheduler;
     private final GraphDatabaseAPI db;
     private JobScheduler.JobHandle ttlIndexJobHandle;
     private JobScheduler.JobHandle ttlJobHandle;
     private Log log;
+    private TTLExpiry expiry;
 
     public TTLLifeCycle(JobScheduler scheduler, GraphDatabaseAPI db, Log log) {
         this.scheduler = scheduler;
@@ -33,25 +37,43 @@ public class TTLLifeCycle {
 
     public void start() {
         boolean enabled = Util.toBoolean(ApocConfiguration.get("ttl.enabled", null));
-        if (!enabled) return;
+        if (!enabled) {
+            EXPIRIES.remove(db);
+            return;
+        }
 
         long ttlSchedule = Util.toLong(ApocConfiguration.get("ttl.schedule", DEFAULT_SCHEDULE));
         ttlIndexJobHandle = scheduler.schedule(TTL_GROUP, this::createTTLIndex, (int)(ttlSchedule*0.8), TimeUnit.SECONDS);
 
-        long limit = Util.toLong(ApocConfiguration.get("ttl.limit", 1000L));
+        long limit = Util.toLong(ApocConfiguration.get("ttl.limit", 0L));
+        expiry = createExpiry(db, log);
+        EXPIRIES.put(db, expiry);
+
+        // a run stops starting new rounds after 80% of the schedule, so that runs don't pile up
+        long budgetMillis = (long) (ttlSchedule * 800);
+        ttlJobHandle = scheduler.scheduleRecurring(TTL_GROUP, () -> expire(limit, budgetMillis), ttlSchedule, ttlSchedule, TimeUnit.SECONDS);
+    }
+
+    private static TTLExpiry createExpiry(GraphDatabaseAPI db, Log log) {
+        int batchSize = Util.toInteger(ApocConfiguration.get("ttl.batch_size", DEFAULT_BATCH_SIZE));
+        int parallelism = Util.toInteger(ApocConfiguration.get("ttl.parallelism", Runtime.getRuntime().availableProcessors()));
+        int denseNodeThreshold = Util.toInteger(ApocConfiguration.get("ttl.dense_node_threshold", DEFAULT_DENSE_NODE_THRESHOLD));
+        return new TTLExpiry(db, log, batchSize, parallelism, denseNodeThreshold);
+    }
 
-        ttlJobHandle = scheduler.scheduleRecurring(TTL_GROUP, () -> expireNodes(limit), ttlSchedule, ttlSchedule, TimeUnit.SECONDS);
+    /**
+     * @return the expiry of the database, a new one for each call if the TTL background task isn't enabled,
+     * which is not kept as nothing would remove it again
+     */
+    public static TTLExpiry expiry(GraphDatabaseAPI db, Log log) {
+        TTLExpiry expiry = EXPIRIES.get(db);
+        return expiry != null ? expiry : createExpiry(db, log);
     }
 
-    public void expireNodes(long limit) {
+    public void expire(long limit, long budgetMillis) {
         try {
             if (!Util.isWriteableInstance(db)) return;
-            Result result = db.execute("MATCH (t:TTL) where t.ttl < timestamp() WITH t LIMIT {limit} DETACH DELETE t", Util.map("limit", limit));
-            QueryStatistics stats = result.getQueryStatistics();
-            result.close();
-            if (stats.getNodesDeleted()>0) {
-                log.info("TTL: Expired %d nodes %d relationships", stats.getNodesDeleted(), stats.getRelationshipsDeleted());
-            }
+            expiry.expire(limit, budgetMillis);
         } catch (Exception e) {
             log.error("TTL: Error deleting expired nodes", e);
         }
@@ -68,5 +90,6 @@ public class TTLLifeCycle {
     public void stop() {
         if (ttlIndexJobHandle != null) ttlIndexJobHandle.cancel(true);
         if (ttlJobHandle != null) ttlJobHandle.cancel(true);
+        EXPIRIES.remove(db);
     }
 }
@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 /**
  * @author mh
@@ -39,6 +40,11 @@ public class FileUtils {
                 return Util.openInputStream(fileName,null,null).asReader();
             }
         }
+        if (fileName.toLowerCase().endsWith(".gz")) {
+            // urls of .gz files are already decompressed by Util.openInputStream
+            CountingInputStream stream = readFileStream(fileName);
+            return new CountingReader(new InputStreamReader(new GZIPInputStream(stream), "UTF-8"), stream.getTotal());
+        }
         return readFile(fileName);
     }
     public static CountingInputStream inputStreamFor(String fileName) throws IOException {
@@ -0,0 +1,108 @@
+package apoc.util;
+
+import apoc.ApocConfiguration;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Shared cache of compiled regular expressions for functions that get the regex as an argument, e.g. apoc.text.regreplace,
+ * which otherwise compile the same expression again for every row.
+ *
+ * Lookups don't lock, when the cache grows beyond `apoc.regex.cache.size` (default 1000) entries
+ * arbitrary entries are evicted, patterns are immutable and can be shared by all threads.
+ */
+public class PatternCache {
+    static final String CONFIG_REGEX_CACHE_SIZE = "regex.cache.size";
+    public static final int DEFAULT_SIZE = 1000;
+
+    private static final ConcurrentMap<String, Pattern> patterns = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Key, Pattern> flaggedPatterns = new ConcurrentHashMap<>();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private PatternCache() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static Pattern compile(String regex) {
+        Pattern pattern = patterns.get(regex);
+        if (pattern != null) return pattern;
+        pattern = Pattern.compile(regex);
+        misses.incrementAndGet();
+        patterns.put(regex, pattern);
+        evict(patterns);
+        return pattern;
+    }
+
+    public static Pattern compile(String regex, int flags) {
+        if (flags == 0) return compile(regex);
+        Key key = new Key(regex, flags);
+        Pattern pattern = flaggedPatterns.get(key);
+        if (pattern != null) return pattern;
+        pattern = Pattern.compile(regex, flags);
+        misses.incrementAndGet();
+        flaggedPatterns.put(key, pattern);
+        evict(flaggedPatterns);
+        return pattern;
+    }
+
+    private static void evict(ConcurrentMap<?, Pattern> cache) {
+        int maxSize = maxSize();
+        Iterator<?> it = cache.keySet().iterator();
+        while (cache.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static int maxSize() {
+        Integer size = Util.toInteger(ApocConfiguration.get(CONFIG_REGEX_CACHE_SIZE, DEFAULT_SIZE));
+        return size == null ? DEFAULT_SIZE : Math.max(1, size);
+    }
+
+    public static void clear() {
+        patterns.clear();
+        flaggedPatterns.clear();
+    }
+
+    public static long size() {
+        return patterns.size() + flaggedPatterns.size();
+    }
+
+    public static long misses() {
+        return misses.get();
+    }
+
+    public static long evictions() {
+        return evictions.get();
+    }
+
+    private static class Key {
+        private final String regex;
+        private final int flags;
+
+        Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return flags == key.flags && regex.equals(key.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(regex, flags);
+        }
+    }
+}
@@ -22,7 +22,7 @@ public class Uuid {
     public GraphDatabaseService db;
 
     @Procedure(mode = Mode.DBMS)
-    @Description("CALL apoc.uuid.install(label, {addToExistingNodes: true/false, uuidProperty: 'uuid'}) yield label, installed, properties, batchComputationResult | it will add the uuid transaction handler\n" +
+    @Description("CALL apoc.uuid.install(label, {addToExistingNodes: true/false, uuidProperty: 'uuid', generator: 'random'/'time'}) yield label, installed, properties, batchComputationResult | it will add the uuid transaction handler\n" +
             "for the provided `label` and `uuidProperty`, in case the UUID handler is already present it will be replaced by the new one")
     public Stream<UuidInfo> install(@Name("label") String label, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
         UuidConfig uuidConfig = new UuidConfig(config);
@@ -73,6 +73,12 @@ public class Uuid {
                 .map((e) -> new UuidInfo(e.getKey(),true, JsonUtil.OBJECT_MAPPER.convertValue(e.getValue(), Map.class)));
     }
 
+    @Procedure(mode = Mode.READ)
+    @Description("CALL apoc.uuid.stats() yield nodes, commits, totalMillis, avgMicrosPerCommit, maxMicrosPerCommit, lastMicrosPerCommit | counters of the uuid handler since the start of the database")
+    public Stream<UuidStatsResult> stats() {
+        return Stream.of(UuidHandler.STATS.snapshot());
+    }
+
     private UuidInfo uuidInfo(Map.Entry<String, Object> e) {
         String label = e.getKey();
         try {
@@ -114,6 +120,24 @@ public class Uuid {
 
     }
 
+    public static class UuidStatsResult {
+        public final long nodes;
+        public final long commits;
+        public final long totalMillis;
+        public final long avgMicrosPerCommit;
+        public final long maxMicrosPerCommit;
+        public final long lastMicrosPerCommit;
+
+        UuidStatsResult(long nodes, long commits, long totalMillis, long avgMicrosPerCommit, long maxMicrosPerCommit, long lastMicrosPerCommit) {
+            this.nodes = nodes;
+            this.commits = commits;
+            this.totalMillis = totalMillis;
+            this.avgMicrosPerCommit = avgMicrosPerCommit;
+            this.maxMicrosPerCommit = maxMicrosPerCommit;
+            this.lastMicrosPerCommit = lastMicrosPerCommit;
+        }
+    }
+
     public static class UuidLifeCycle {
         private final GraphDatabaseAPI db;
         private final Log log;
@@ -1,5 +1,7 @@
 package apoc.uuid;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.Collections;
 import java.util.Map;
 
@@ -9,9 +11,11 @@ public class UuidConfig {
 
     private boolean addToExistingNodes;
     private String uuidProperty;
+    private String generator;
 
     private static final String DEFAULT_UUID_PROPERTY = "uuid";
     private static final boolean DEFAULT_ADD_TO_EXISTING_NODES = true;
+    private static final String DEFAULT_GENERATOR = "random";
 
 
     public UuidConfig(Map<String, Object> config) {
@@ -20,7 +24,8 @@ public class UuidConfig {
         }
         this.addToExistingNodes = toBoolean(config.getOrDefault("addToExistingNodes", DEFAULT_ADD_TO_EXISTING_NODES));
         this.uuidProperty = config.getOrDefault("uuidProperty", DEFAULT_UUID_PROPERTY).toString();
-
+        Object generator = config.get("generator");
+        this.generator = generator == null ? null : UuidGenerator.of(generator.toString()).name().toLowerCase();
     }
 
     public UuidConfig() {} // for Jackson deserialization
@@ -41,4 +46,17 @@ public class UuidConfig {
         this.uuidProperty = uuidProperty;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getGenerator() {
+        return generator;
+    }
+
+    public UuidGenerator generator() {
+        return UuidGenerator.of(generator == null ? DEFAULT_GENERATOR : generator);
+    }
+
+    public void setGenerator(String generator) {
+        this.generator = generator;
+    }
+
 }
@@ -0,0 +1,57 @@
+package apoc.uuid;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generators for the uuids of the handler, both draw their random bits from a {@link SecureRandom} per thread,
+ * so concurrent transactions don't contend on the shared instance behind {@link UUID#randomUUID()}.
+ */
+public enum UuidGenerator {
+    /** random (version 4) uuids */
+    RANDOM {
+        @Override
+        public String next() {
+            SecureRandom random = RANDOMS.get();
+            long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            return new UUID(msb, lsb).toString();
+        }
+    },
+    /** time ordered (version 7) uuids, the first 48 bits are the unix time in milliseconds, which keeps index inserts local */
+    TIME {
+        @Override
+        public String next() {
+            SecureRandom random = RANDOMS.get();
+            long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextInt() & 0x0FFFL);
+            long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            return new UUID(msb, lsb).toString();
+        }
+    };
+
+    private static final ThreadLocal<SecureRandom> RANDOMS = ThreadLocal.withInitial(UuidGenerator::newRandom);
+
+    public abstract String next();
+
+    public static UuidGenerator of(String name) {
+        try {
+            return valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown uuid generator " + name + ", use one of 'random' or 'time'");
+        }
+    }
+
+    private static SecureRandom newRandom() {
+        // the default NativePRNG synchronizes all instances on one lock, SHA1PRNG only on its own instance
+        try {
+            SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+            byte[] seed = new byte[32];
+            new SecureRandom().nextBytes(seed);
+            random.setSeed(seed);
+            return random;
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
@@ -7,6 +7,12 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.LabelSet;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.graphdb.event.PropertyEntry;
 import org.neo4j.graphdb.event.TransactionData;
 import org.neo4j.graphdb.event.TransactionEventHandler;
@@ -14,14 +20,16 @@ import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.kernel.impl.core.EmbeddedProxySPI;
 import org.neo4j.kernel.impl.core.GraphProperties;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
+import org.neo4j.values.storable.Values;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Predicate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -30,6 +38,9 @@ public class UuidHandler implements TransactionEventHandler {
     private static final String APOC_UUID = "apoc.uuid";
     static ConcurrentHashMap<String, UuidConfig> uuid = new ConcurrentHashMap();
     private static GraphProperties properties;
+    private static volatile Stamp[] compiled = new Stamp[0];
+    static final UuidStats STATS = new UuidStats();
+    private final ThreadToStatementContextBridge bridge;
     private final Log log;
 
 
@@ -40,7 +51,18 @@ public class UuidHandler implements TransactionEventHandler {
 
     UuidHandler(GraphDatabaseAPI api, Log log) {
         properties = api.getDependencyResolver().resolveDependency(EmbeddedProxySPI.class).newGraphPropertiesProxy();
+        this.bridge = api.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
         this.log = log;
+        compile();
+    }
+
+    /**
+     * rebuilds the stamps from the installed labels, the token ids are resolved again as they belong to one database
+     */
+    private static void compile() {
+        compiled = uuid.entrySet().stream()
+                .map(e -> new Stamp(e.getKey(), e.getValue()))
+                .toArray(Stamp[]::new);
     }
 
     private static void checkEnabled() {
@@ -69,6 +91,7 @@ public class UuidHandler implements TransactionEventHandler {
                     properties.setProperty(APOC_UUID, Util.toJson(uuid));
                 }
             }
+            compile();
             tx.success();
             return previous;
         } catch (Exception e) {
@@ -76,53 +99,93 @@ public class UuidHandler implements TransactionEventHandler {
         }
     }
 
+    /**
+     * Stamps the created nodes in a single pass, the labels of each node are read once as token ids and matched
+     * against the installed labels, whose token ids are resolved on first use and kept as tokens never change.
+     */
     @Override
     public Object beforeCommit(TransactionData txData) {
-        GraphDatabaseService db = properties.getGraphDatabase();
-        Map<String, String> exceptions = new LinkedHashMap<>();
-        Iterable<Node> createdNodes = txData.createdNodes();
-        Iterable<PropertyEntry<Node>> assignedNodeProperties = txData.assignedNodeProperties();
-        Iterable<PropertyEntry<Node>> removedNodeProperties = txData.removedNodeProperties();
-
-        uuid.forEach((label, config) -> {
-            try (Transaction tx = db.beginTx()) {
-                if (createdNodes.iterator().hasNext()) {
-                    createdNodes.forEach(node -> {
-                        if (node.hasLabel(Label.label(label)) && !node.hasProperty(config.getUuidProperty())) {
-                            String uuid = UUID.randomUUID().toString();
-                            node.setProperty(config.getUuidProperty(), uuid);
-                        }
-                    });
-                }
-                checkAndRestoreUuidProperty(assignedNodeProperties, label, config.getUuidProperty(),
-                        (nodePropertyEntry) -> nodePropertyEntry.value() == null || nodePropertyEntry.value().equals(""));
-                checkAndRestoreUuidProperty(removedNodeProperties, label, config.getUuidProperty());
-                tx.success();
-            } catch (Exception e) {
-                log.warn("Error executing uuid " + label + " in phase before", e);
-                exceptions.put(label, e.getMessage());
+        Stamp[] stamps = compiled;
+        if (stamps.length == 0) return null;
+        long start = System.nanoTime();
+        long stamped = 0;
+        try {
+            KernelTransaction ktx = bridge.getKernelTransactionBoundToThisThread(true);
+            if (resolve(ktx, stamps)) {
+                stamped = stampCreatedNodes(ktx, stamps, txData.createdNodes());
             }
-        });
+            restoreUuidProperties(stamps, txData.assignedNodeProperties(), true);
+            restoreUuidProperties(stamps, txData.removedNodeProperties(), false);
+        } catch (Exception e) {
+            log.warn("Error executing uuid handler in phase before", e);
+        }
+        STATS.record(stamped, System.nanoTime() - start);
         return null;
     }
 
-    private void checkAndRestoreUuidProperty(Iterable<PropertyEntry<Node>> nodeProperties, String label, String uuidProperty) {
-        checkAndRestoreUuidProperty(nodeProperties, label, uuidProperty, null);
+    /**
+     * @return if any of the labels exists, otherwise no node of the transaction can have one of them
+     */
+    private boolean resolve(KernelTransaction ktx, Stamp[] stamps) throws KernelException {
+        boolean any = false;
+        for (Stamp stamp : stamps) {
+            if (stamp.labelId == TokenRead.NO_TOKEN) {
+                stamp.labelId = ktx.tokenRead().nodeLabel(stamp.label);
+            }
+            if (stamp.labelId == TokenRead.NO_TOKEN) continue;
+            if (stamp.propertyId == TokenRead.NO_TOKEN) {
+                stamp.propertyId = ktx.tokenWrite().propertyKeyGetOrCreateForName(stamp.property);
+            }
+            any = true;
+        }
+        return any;
     }
 
-    private void checkAndRestoreUuidProperty(Iterable<PropertyEntry<Node>> nodeProperties, String label, String uuidProperty, Predicate<PropertyEntry<Node>> predicate) {
-        if (nodeProperties.iterator().hasNext()) {
-            nodeProperties.forEach(nodePropertyEntry -> {
-                if (predicate == null) {
-                    if (nodePropertyEntry.entity().hasLabel(Label.label(label)) && nodePropertyEntry.key().equals(uuidProperty)) {
-                        nodePropertyEntry.entity().setProperty(uuidProperty, nodePropertyEntry.previouslyCommitedValue());
-                    }
-                } else {
-                    if (nodePropertyEntry.entity().hasLabel(Label.label(label)) && nodePropertyEntry.key().equals(uuidProperty) && predicate.test(nodePropertyEntry)) {
-                        nodePropertyEntry.entity().setProperty(uuidProperty, nodePropertyEntry.previouslyCommitedValue());
-                    }
+    private long stampCreatedNodes(KernelTransaction ktx, Stamp[] stamps, Iterable<Node> createdNodes) throws KernelException {
+        long stamped = 0;
+        try (NodeCursor nodeCursor = ktx.cursors().allocateNodeCursor();
+             PropertyCursor propertyCursor = ktx.cursors().allocatePropertyCursor()) {
+            for (Node node : createdNodes) {
+                long id = node.getId();
+                ktx.dataRead().singleNode(id, nodeCursor);
+                if (!nodeCursor.next()) continue;
+                LabelSet labels = nodeCursor.labels();
+                if (labels.numberOfLabels() == 0) continue;
+                boolean changed = false;
+                for (Stamp stamp : stamps) {
+                    if (stamp.labelId == TokenRead.NO_TOKEN || !labels.contains(stamp.labelId)) continue;
+                    if (hasProperty(nodeCursor, propertyCursor, stamp.propertyId)) continue;
+                    ktx.dataWrite().nodeSetProperty(id, stamp.propertyId, Values.stringValue(stamp.generator.next()));
+                    changed = true;
                 }
-            });
+                if (changed) stamped++;
+            }
+        }
+        return stamped;
+    }
+
+    private static boolean hasProperty(NodeCursor nodeCursor, PropertyCursor propertyCursor, int propertyId) {
+        nodeCursor.properties(propertyCursor);
+        while (propertyCursor.next()) {
+            if (propertyCursor.propertyKey() == propertyId) return true;
+        }
+        return false;
+    }
+
+    /**
+     * puts back the previous value of uuid properties that were removed, or set to null or "" if {@code blankOnly}
+     */
+    private void restoreUuidProperties(Stamp[] stamps, Iterable<PropertyEntry<Node>> nodeProperties, boolean blankOnly) {
+        for (PropertyEntry<Node> entry : nodeProperties) {
+            String key = entry.key();
+            for (Stamp stamp : stamps) {
+                if (!stamp.property.equals(key)) continue;
+                if (blankOnly && !(entry.value() == null || entry.value().equals(""))) continue;
+                if (entry.entity().hasLabel(stamp.labelObject)) {
+                    entry.entity().setProperty(key, entry.previouslyCommitedValue());
+                    break;
+                }
+            }
         }
     }
 
@@ -165,6 +228,7 @@ public class UuidHandler implements TransactionEventHandler {
     public synchronized static Map<String, Object> removeAll() {
         try (Transaction tx = properties.getGraphDatabase().beginTx()) {
             uuid.clear();
+            compile();
             String previous = (String) properties.removeProperty(APOC_UUID);
             tx.success();
             return previous == null ? null : Util.fromJson(previous, Map.class);
@@ -172,4 +236,43 @@ public class UuidHandler implements TransactionEventHandler {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    private static class Stamp {
+        final String label;
+        final Label labelObject;
+        final String property;
+        final UuidGenerator generator;
+        volatile int labelId = TokenRead.NO_TOKEN;
+        volatile int propertyId = TokenRead.NO_TOKEN;
+
+        Stamp(String label, UuidConfig config) {
+            this.label = label;
+            this.labelObject = Label.label(label);
+            this.property = config.getUuidProperty();
+            this.generator = config.generator();
+        }
+    }
+
+    public static class UuidStats {
+        private final LongAdder nodes = new LongAdder();
+        private final LongAdder commits = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile long lastNanos;
+
+        void record(long stamped, long time) {
+            nodes.add(stamped);
+            commits.increment();
+            nanos.add(time);
+            maxNanos.accumulateAndGet(time, Math::max);
+            lastNanos = time;
+        }
+
+        public Uuid.UuidStatsResult snapshot() {
+            long count = commits.sum(), total = nanos.sum();
+            return new Uuid.UuidStatsResult(nodes.sum(), count, TimeUnit.NANOSECONDS.toMillis(total),
+                    count == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(total / count),
+                    TimeUnit.NANOSECONDS.toMicros(maxNanos.get()), TimeUnit.NANOSECONDS.toMicros(lastNanos));
+        }
+    }
+}
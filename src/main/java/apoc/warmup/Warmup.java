@@ -2,9 +2,16 @@ package apoc.warmup;
 
 import apoc.Pools;
 import apoc.util.Util;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 import org.neo4j.kernel.impl.store.RecordStore;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.store.record.RecordLoad;
@@ -15,10 +22,17 @@ import org.neo4j.procedure.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Sascha Peukert
@@ -28,6 +42,7 @@ public class Warmup {
 
     private static final int BATCH_SIZE = 100_000;
     private static final int PAGE_SIZE = 1 << 13;
+    private static final long PAGES_PER_RANGE = 1 << 14;
     @Context
     public GraphDatabaseAPI db;
     @Context
@@ -43,13 +58,68 @@ public class Warmup {
         public final String error;
         public final long time;
 
-        public PageResult(String file, boolean index, long fileSize, long pages, String error, long start) {
+        public PageResult(String file, boolean index, long fileSize, long pages, String error, long time) {
             this.file = file;
             this.index = index;
             this.fileSize = fileSize;
             this.pages = pages;
             this.error = error;
-            this.time = System.currentTimeMillis() - start;
+            this.time = time;
+        }
+    }
+
+    /**
+     * pages of one mapped file that were touched so far by its concurrently running page ranges
+     */
+    static class FileProgress {
+        final PagedFile pagedFile;
+        final String name;
+        final boolean index;
+        final long fileSize;
+        final long totalPages;
+        final AtomicLong pages = new AtomicLong();
+        final AtomicLong start = new AtomicLong();
+        final AtomicInteger remainingRanges = new AtomicInteger();
+        volatile long time;
+        volatile String error;
+
+        FileProgress(PagedFile pagedFile, String name, boolean index, long fileSize, long totalPages) {
+            this.pagedFile = pagedFile;
+            this.name = name;
+            this.index = index;
+            this.fileSize = fileSize;
+            this.totalPages = totalPages;
+        }
+
+        PageResult toPageResult() {
+            return new PageResult(name, index, error == null ? fileSize : -1L, pages.get(), error, time);
+        }
+    }
+
+    /**
+     * progress of a store file in pages, or of a label in nodes
+     */
+    public static class WarmupProgress {
+        public final String store;
+        public final long stage;
+        public final long pages;
+        public final long totalPages;
+        public final long nodes;
+        public final double pagesPerSecond;
+        public final long time;
+        public final boolean done;
+        public final String error;
+
+        public WarmupProgress(String store, long stage, long pages, long totalPages, long nodes, long time, boolean done, String error) {
+            this.store = store;
+            this.stage = stage;
+            this.pages = pages;
+            this.totalPages = totalPages;
+            this.nodes = nodes;
+            this.pagesPerSecond = time == 0 ? pages * 1000d : pages * 1000d / time;
+            this.time = time;
+            this.done = done;
+            this.error = error;
         }
     }
 
@@ -69,41 +139,18 @@ public class Warmup {
     public Stream<WarmupResult> run(@Name(value = "loadProperties", defaultValue = "false") boolean loadProperties, @Name(value = "loadDynamicProperties", defaultValue = "false") boolean loadDynamicProperties, @Name(value = "loadIndexes", defaultValue = "false") boolean loadIndexes) throws IOException {
         PageCache pageCache = db.getDependencyResolver().resolveDependency(PageCache.class);
 
-        List<PagedFile> pagedFiles = pageCache.listExistingMappings();
-
-        Map<String, PageResult> records = pagedFiles.parallelStream()
-                .filter(pF -> {
-                    String name = pF.file().getName();
-                    if (isSchema(pF.file()) && !loadIndexes) return false;
-                    if ((name.endsWith("propertystore.db.strings") || name.endsWith("propertystore.db.arrays")) && !loadDynamicProperties) return false;
-                    if ((name.startsWith("propertystore.db")) && !loadProperties) return false;
-                    return true;
-                })
-                .map((pagedFile -> {
-                    File file = pagedFile.file();
-                    boolean index = isSchema(file);
-                    String fileName = index ? subPath(file, "schema") : file.getName();
-                    long pages = 0;
-                    long start = System.currentTimeMillis();
-                    try {
-                        if (pagedFile.fileSize() > 0) {
-                            PageCursor cursor = pagedFile.io(0L, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK);
-                            while (cursor.next()) {
-                                cursor.getByte();
-                                pages++;
-                                if (pages % 1000 == 0 && Util.transactionIsTerminated(guard)) {
-                                    break;
-                                }
-                            }
-                        }
-                        return new PageResult(fileName, index, pagedFile.fileSize(), pages, null, start);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                        return new PageResult(fileName, index, -1L, pages, e.getMessage(), start);
-                    } finally {
-                        pageCache.reportEvents();
-                    }
-                })).collect(Collectors.toMap(r -> r.file, r -> r));
+        long start = System.currentTimeMillis();
+        List<FileProgress> files = files(pageCache, loadProperties, loadDynamicProperties, loadIndexes);
+        List<Callable<WarmupProgress>> tasks = new ArrayList<>();
+        for (FileProgress file : files) {
+            tasks.addAll(rangeTasks(file, PAGES_PER_RANGE, 0));
+        }
+        warm(Collections.singletonList(tasks)).forEach(progress -> {
+            if (progress.error != null) log.warn("Error warming up %s: %s", progress.store, progress.error);
+        });
+        pageCache.reportEvents();
+
+        Map<String, PageResult> records = files.stream().map(FileProgress::toPageResult).collect(Collectors.toMap(r -> r.file, r -> r));
 
         WarmupResult result = new WarmupResult(
                 pageCache.pageSize(),
@@ -114,7 +161,7 @@ public class Warmup {
                 records.get("neostore.relationshipgroupstore.db"),
                 loadProperties,
                 records.get("neostore.propertystore.db"),
-                records.values().stream().mapToLong((r)->r.time).sum(),
+                System.currentTimeMillis() - start,
                 Util.transactionIsTerminated(guard),
                 loadDynamicProperties,
                 records.get("neostore.propertystore.db.strings"),
@@ -125,6 +172,185 @@ public class Warmup {
         return Stream.of(result);
     }
 
+    @Procedure
+    @Description("apoc.warmup.stream({loadProperties:false, loadDynamicProperties:false, loadIndexes:false, priority:['relationshipgroupstore','nodestore',':Label'], pagesPerRange:16384}) - " +
+            "warms up the page cache in concurrent page ranges per store, in the order of the priority profile, and streams the progress")
+    public Stream<WarmupProgress> stream(@Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws IOException {
+        PageCache pageCache = db.getDependencyResolver().resolveDependency(PageCache.class);
+        long pagesPerRange = Math.max(1, Util.toLong(config.getOrDefault("pagesPerRange", PAGES_PER_RANGE)));
+        List<FileProgress> files = files(pageCache, Util.toBoolean(config.get("loadProperties")),
+                Util.toBoolean(config.get("loadDynamicProperties")), Util.toBoolean(config.get("loadIndexes")));
+        List<String> priority = (List<String>) config.get("priority");
+
+        List<List<Callable<WarmupProgress>>> stages = new ArrayList<>();
+        if (priority == null || priority.isEmpty()) {
+            List<Callable<WarmupProgress>> tasks = new ArrayList<>();
+            for (FileProgress file : files) {
+                tasks.addAll(rangeTasks(file, pagesPerRange, 0));
+            }
+            stages.add(tasks);
+        } else {
+            // only the entries of the profile are warmed, so that a page cache that is too small keeps them
+            for (String entry : priority) {
+                int stage = stages.size();
+                List<Callable<WarmupProgress>> tasks = new ArrayList<>();
+                if (entry.startsWith(":")) {
+                    tasks.add(() -> labelProperties(entry.substring(1), stage));
+                } else {
+                    for (FileProgress file : files) {
+                        if (file.name.contains(entry) && file.remainingRanges.get() == 0) tasks.addAll(rangeTasks(file, pagesPerRange, stage));
+                    }
+                }
+                if (!tasks.isEmpty()) stages.add(tasks);
+            }
+        }
+        return warm(stages).onClose(pageCache::reportEvents);
+    }
+
+    private List<FileProgress> files(PageCache pageCache, boolean loadProperties, boolean loadDynamicProperties, boolean loadIndexes) throws IOException {
+        List<FileProgress> files = new ArrayList<>();
+        for (PagedFile pagedFile : pageCache.listExistingMappings()) {
+            File file = pagedFile.file();
+            String name = file.getName();
+            boolean index = isSchema(file);
+            if (index && !loadIndexes) continue;
+            if ((name.endsWith("propertystore.db.strings") || name.endsWith("propertystore.db.arrays")) && !loadDynamicProperties) continue;
+            if (name.endsWith("propertystore.db") && !loadProperties) continue;
+            long fileSize = pagedFile.fileSize();
+            long totalPages = fileSize > 0 ? pagedFile.getLastPageId() + 1 : 0;
+            files.add(new FileProgress(pagedFile, index ? subPath(file, "schema") : name, index, fileSize, totalPages));
+        }
+        return files;
+    }
+
+    /**
+     * splits the file into ranges of pages that are touched concurrently, each task reports the pages of the whole file so far
+     */
+    private List<Callable<WarmupProgress>> rangeTasks(FileProgress file, long pagesPerRange, int stage) {
+        List<Callable<WarmupProgress>> tasks = new ArrayList<>();
+        for (long from = 0; from < Math.max(1, file.totalPages); from += pagesPerRange) {
+            long rangeStart = from, rangeEnd = Math.min(from + pagesPerRange, file.totalPages);
+            tasks.add(() -> {
+                file.start.compareAndSet(0, System.currentTimeMillis());
+                try {
+                    file.pages.addAndGet(touchPages(file.pagedFile, rangeStart, rangeEnd));
+                } catch (IOException | RuntimeException e) {
+                    file.error = e.getMessage();
+                }
+                boolean done = file.remainingRanges.decrementAndGet() == 0;
+                long time = System.currentTimeMillis() - file.start.get();
+                if (done) file.time = time;
+                return new WarmupProgress(file.name, stage, file.pages.get(), file.totalPages, 0, time, done, file.error);
+            });
+        }
+        file.remainingRanges.set(tasks.size());
+        return tasks;
+    }
+
+    private long touchPages(PagedFile pagedFile, long from, long to) throws IOException {
+        long pages = 0;
+        if (from >= to) return pages;
+        try (PageCursor cursor = pagedFile.io(from, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK)) {
+            for (long page = from; page < to && cursor.next(page); page++) {
+                cursor.getByte();
+                pages++;
+                if (pages % 1000 == 0 && Util.transactionIsTerminated(guard)) {
+                    break;
+                }
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * reads the property records of the nodes with the label, reports the number of nodes read, as the pages are not known
+     */
+    private WarmupProgress labelProperties(String label, int stage) {
+        long start = System.currentTimeMillis();
+        long nodes = 0;
+        try (Transaction tx = db.beginTx()) {
+            KernelTransaction ktx = db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class).getKernelTransactionBoundToThisThread(true);
+            int labelId = ktx.tokenRead().nodeLabel(label);
+            if (labelId != TokenRead.NO_TOKEN) {
+                try (NodeLabelIndexCursor labelCursor = ktx.cursors().allocateNodeLabelIndexCursor();
+                     NodeCursor node = ktx.cursors().allocateNodeCursor();
+                     PropertyCursor properties = ktx.cursors().allocatePropertyCursor()) {
+                    ktx.dataRead().nodeLabelScan(labelId, labelCursor);
+                    while (labelCursor.next()) {
+                        labelCursor.node(node);
+                        if (node.next()) {
+                            node.properties(properties);
+                            while (properties.next()) {
+                                properties.propertyKey();
+                            }
+                        }
+                        if (++nodes % 1000 == 0 && Util.transactionIsTerminated(guard)) break;
+                    }
+                }
+            }
+            tx.success();
+        } catch (RuntimeException e) {
+            return new WarmupProgress(":" + label, stage, 0, 0, nodes, System.currentTimeMillis() - start, true, e.getMessage());
+        }
+        return new WarmupProgress(":" + label, stage, 0, 0, nodes, System.currentTimeMillis() - start, true, null);
+    }
+
+    /**
+     * runs the stages one after the other, the tasks of a stage concurrently in the warmup pool,
+     * the returned stream yields the progress of each task when it finishes
+     */
+    private Stream<WarmupProgress> warm(List<List<Callable<WarmupProgress>>> stages) {
+        ExecutorService pool = Pools.pool(Pools.WARMUP);
+        BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        Iterator<List<Callable<WarmupProgress>>> remainingStages = stages.iterator();
+        Iterator<WarmupProgress> progress = new Iterator<WarmupProgress>() {
+            int pending = 0;
+            WarmupProgress next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (pending == 0) {
+                        if (!remainingStages.hasNext()) return false;
+                        List<Callable<WarmupProgress>> stage = remainingStages.next();
+                        pending = stage.size();
+                        for (Callable<WarmupProgress> task : stage) {
+                            pool.submit(() -> {
+                                try {
+                                    queue.add(task.call());
+                                } catch (Throwable t) {
+                                    // the failure takes the place of the progress, so the consumer is never left waiting
+                                    queue.add(t);
+                                }
+                            });
+                        }
+                    }
+                    try {
+                        Object taken = queue.take();
+                        pending--;
+                        if (taken instanceof Throwable) {
+                            throw new RuntimeException("Error warming up", (Throwable) taken);
+                        }
+                        next = (WarmupProgress) taken;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while warming up", e);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public WarmupProgress next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                WarmupProgress result = next;
+                next = null;
+                return result;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(progress, Spliterator.ORDERED), false);
+    }
+
     public boolean isSchema(File file) {
         return file.getAbsolutePath().contains(File.separator+"schema"+File.separator);
     }
@@ -139,13 +365,13 @@ public class Warmup {
             if (idx == BATCH_SIZE) {
                 long[] submitted = ids.clone();
                 idx = 0;
-                futures.add(Util.inTxFuture(Pools.DEFAULT, db, () -> loadRecords(submitted, record, recordStore, guard)));
+                futures.add(Util.inTxFuture(Pools.pool(Pools.WARMUP), db, () -> loadRecords(submitted, record, recordStore, guard)));
             }
             pages += removeDone(futures, false);
         }
         if (idx > 0) {
             long[] submitted = Arrays.copyOf(ids, idx);
-            futures.add(Util.inTxFuture(Pools.DEFAULT, db, () -> loadRecords(submitted, record, recordStore, guard)));
+            futures.add(Util.inTxFuture(Pools.pool(Pools.WARMUP), db, () -> loadRecords(submitted, record, recordStore, guard)));
         }
         pages += removeDone(futures, true);
         return pages;
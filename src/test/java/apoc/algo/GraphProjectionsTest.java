@@ -0,0 +1,110 @@
+package apoc.algo;
+
+import apoc.algo.graph.CsrGraph;
+import apoc.algo.graph.GraphRegistry;
+import apoc.algo.pagerank.PageRankAlgoTest;
+import apoc.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.Map;
+
+import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testCallEmpty;
+import static org.junit.Assert.*;
+
+public class GraphProjectionsTest {
+
+    private GraphDatabaseService db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        TestUtil.registerProcedure(db, GraphProjections.class, PageRank.class, Centrality.class);
+    }
+
+    @After
+    public void tearDown() {
+        GraphRegistry.list().forEach(graph -> GraphRegistry.remove(graph.getName()));
+        db.shutdown();
+    }
+
+    @Test
+    public void testLoadListRemove() throws Exception {
+        db.execute("CREATE (a:Person)-[:KNOWS {weight:3}]->(b:Person)-[:KNOWS]->(c:Person), (a)-[:LIKES]->(c), (b)-[:KNOWS]->(:Robot)").close();
+
+        testCall(db, "CALL apoc.algo.graph.load('people', {label:'Person', relationshipType:'KNOWS', weight:'weight', defaultWeight:2, partitionSize:2})", row -> {
+            assertEquals("people", row.get("name"));
+            assertEquals(3L, row.get("nodes"));
+            assertEquals(2L, row.get("relationships"));
+            assertEquals("OUTGOING", row.get("direction"));
+            assertTrue((long) row.get("bytes") > 0);
+        });
+        testCall(db, "CALL apoc.algo.graph.list()", row -> assertEquals("people", row.get("name")));
+
+        try (CsrGraph graph = GraphRegistry.acquire("people")) {
+            Map<String, Object> ids = db.execute("MATCH (a:Person)-[:KNOWS]->(b)-[:KNOWS]->(c:Person) RETURN id(a) as a, id(b) as b, id(c) as c").next();
+            int a = graph.toDenseId((Long) ids.get("a")), b = graph.toDenseId((Long) ids.get("b")), c = graph.toDenseId((Long) ids.get("c"));
+            assertEquals(1, graph.degree(a));
+            assertEquals(b, graph.target(graph.offset(a)));
+            assertEquals(3, graph.weight(graph.offset(a)));
+            assertEquals(c, graph.target(graph.offset(b)));
+            assertEquals(2, graph.weight(graph.offset(b)));
+            assertEquals(0, graph.degree(c));
+            assertEquals((long) (Long) ids.get("c"), graph.toNodeId(c));
+        }
+
+        testCall(db, "CALL apoc.algo.graph.remove('people')", row -> assertEquals("people", row.get("name")));
+        testCallEmpty(db, "CALL apoc.algo.graph.list()", null);
+        testCallEmpty(db, "CALL apoc.algo.graph.remove('people')", null);
+    }
+
+    @Test
+    public void testPageRankOnGraph() throws Exception {
+        db.execute(PageRankTest.COMPANIES_QUERY).close();
+        testCall(db, "CALL apoc.algo.graph.load('companies')", row -> assertEquals(16L, row.get("relationships")));
+
+        testCall(db, "CALL apoc.algo.pageRankWithCypher({iterations:20, write:true, graph:'companies'})", row -> {
+            assertEquals(11L, row.get("nodes"));
+            assertEquals(16L, row.get("relationships"));
+        });
+        Result result = db.execute("MATCH (n) RETURN n.pagerank as score ORDER BY score DESC LIMIT 1");
+        assertEquals(PageRankAlgoTest.EXPECTED, (double) result.next().get("score"), 0.1D);
+        result.close();
+    }
+
+    @Test
+    public void testPageRankWithConfigOnGraph() throws Exception {
+        db.execute(PageRankTest.COMPANIES_QUERY).close();
+        db.execute("CALL apoc.algo.graph.load('companies')").close();
+
+        Result result = db.execute("MATCH (n) WITH collect(n) AS nodes CALL apoc.algo.pageRankWithConfig(nodes, {iterations:20, graph:'companies'}) YIELD score RETURN max(score) AS score");
+        assertEquals(PageRankAlgoTest.EXPECTED, (double) result.next().get("score"), 0.1D);
+        result.close();
+
+        testCall(db, "CALL apoc.algo.pageRankStats({iterations:20, write:true, graph:'companies'})", row -> assertEquals(11L, row.get("nodes")));
+        result = db.execute("MATCH (n) RETURN n.pagerank as score ORDER BY score DESC LIMIT 1");
+        assertEquals(PageRankAlgoTest.EXPECTED, (double) result.next().get("score"), 0.1D);
+        result.close();
+    }
+
+    @Test
+    public void testBetweennessOnGraph() throws Exception {
+        db.execute(CentralityTest.STAR_GRAPH).close();
+        db.execute("CALL apoc.algo.graph.load('star')").close();
+
+        db.execute("CALL apoc.algo.betweennessCypher({write:true, graph:'star'})").close();
+        Result result = db.execute("MATCH (n) RETURN n.betweenness_centrality as score ORDER BY score DESC LIMIT 1");
+        assertEquals(CentralityTest.STAR_GRAPH_EXPECTED, (double) result.next().get("score"), 0.1D);
+        result.close();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnknownGraph() throws Exception {
+        testCall(db, "CALL apoc.algo.pageRankWithCypher({graph:'unknown'})", row -> {});
+    }
+}
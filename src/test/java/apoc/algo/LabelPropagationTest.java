@@ -8,6 +8,9 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
 import static apoc.util.TestUtil.testCall;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertThat;
 
@@ -43,4 +46,27 @@ public class LabelPropagationTest {
             (r) -> assertThat(r.get("partition"), equalTo(2L))
         );
     }
+
+    @Test
+    public void testLabelPropagation() {
+        db.execute("CREATE (a:Node {id: 0})-[:X]->(b:Node {id: 1})-[:X]->(c:Node {id: 2})-[:X]->(a) " +
+                   "CREATE (d:Node {id: 3})-[:X]->(e:Node {id: 4})-[:X]->(f:Node {id: 5})-[:X]->(d) " +
+                   "CREATE (c)-[:X]->(d)"
+        ).close();
+
+        testCall(db, "CALL apoc.algo.labelPropagation({label:'Node', relationshipType:'X', partitionProperty:'community'})", (r) -> {
+            assertEquals(6L, r.get("nodes"));
+            assertEquals(2L, r.get("communities"));
+            assertEquals(true, r.get("converged"));
+            assertEquals("community", r.get("property"));
+        });
+        testCall(db, "MATCH (n:Node) WITH n.id < 3 AS left, collect(DISTINCT n.community) AS communities " +
+                     "RETURN collect(size(communities)) AS sizes",
+            (r) -> assertEquals(asList(1L, 1L), r.get("sizes")));
+
+        testCall(db, "CALL apoc.algo.labelPropagation({relationshipType:'X', mode:'async', write:false})", (r) -> {
+            assertTrue((Long) r.get("communities") <= 2L);
+            assertEquals(0L, r.get("writeMillis"));
+        });
+    }
 }
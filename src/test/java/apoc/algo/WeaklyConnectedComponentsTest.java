@@ -3,9 +3,15 @@ package apoc.algo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static apoc.util.MapUtil.map;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.Before;
@@ -13,6 +19,7 @@ import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import apoc.algo.graph.GraphRegistry;
 import apoc.util.TestUtil;
 
 public class WeaklyConnectedComponentsTest {
@@ -33,14 +40,19 @@ public class WeaklyConnectedComponentsTest {
             "CREATE (m:Node {name:'M'})-[:LINK]->(o)  "+
             "CREATE (n:Node {name:'N'})-[:LINK]->(o)";
 
+	private static final Set<Set<String>> EXPECTED_COMPONENTS = new HashSet<>(asList(
+			new HashSet<>(asList("A")), new HashSet<>(asList("B")), new HashSet<>(asList("C", "D", "E")),
+			new HashSet<>(asList("F", "G")), new HashSet<>(asList("H", "I", "J", "K", "L", "M", "N", "O"))));
+
 	@Before
 	public void setUp() throws Exception {
 		db = new TestGraphDatabaseFactory().newImpermanentDatabase();
-		TestUtil.registerProcedure(db, WeaklyConnectedComponents.class);
+		TestUtil.registerProcedure(db, WeaklyConnectedComponents.class, GraphProjections.class);
 	}
 
 	@After
 	public void tearDown() {
+		GraphRegistry.remove("cc");
 		db.shutdown();
 	}
 
@@ -60,6 +72,54 @@ public class WeaklyConnectedComponentsTest {
     	assertExpectedResultOfType( Long.class, "CALL apoc.algo.wcc()" + "" );
     }
     
+    @Test
+    public void shouldStreamComponentsOfNodes()
+    {
+        db.execute(CC_GRAPH).close();
+        TestUtil.testResult( db, "CALL apoc.algo.wcc.stream() YIELD nodeId, componentId " +
+                "MATCH (n) WHERE id(n) = nodeId WITH componentId, collect(n.name) as names, min(id(n)) as minId " +
+                "RETURN componentId = minId as minIdIsComponent, names", ( result ) -> {
+            Set<Set<String>> components = new HashSet<>();
+            while (result.hasNext()) {
+                Map<String, Object> row = result.next();
+                assertEquals(true, row.get("minIdIsComponent"));
+                components.add(new HashSet<>((List<String>) row.get("names")));
+            }
+            assertEquals(EXPECTED_COMPONENTS, components);
+        } );
+    }
+
+    @Test
+    public void shouldComputeSizesOnGraphProjection()
+    {
+        db.execute(CC_GRAPH + " CREATE (:Other)-[:LINK]->(:Other)").close();
+        db.execute("CALL apoc.algo.graph.load('cc', {label:'Node', relationshipType:'LINK'})").close();
+        TestUtil.testResult( db, "CALL apoc.algo.wcc.sizes({graph:'cc'}) YIELD componentId, size " +
+                "MATCH (n) WHERE id(n) = componentId RETURN n.name as name, size ORDER BY name", ( result ) -> {
+            Map<String, Object> sizes = new HashMap<>();
+            result.forEachRemaining(row -> sizes.put((String) row.get("name"), row.get("size")));
+            assertEquals(map("A", 1L, "B", 1L, "C", 3L, "F", 2L, "O", 8L), sizes);
+        } );
+    }
+
+    @Test
+    public void shouldWriteComponents()
+    {
+        db.execute(CC_GRAPH + " CREATE (:Other)-[:LINK]->(:Other)").close();
+        TestUtil.testCall( db, "CALL apoc.algo.wcc.write({label:'Node', relationshipType:'LINK', batchSize:3, partitionSize:4})", ( row ) -> {
+            assertEquals(15L, row.get("nodes"));
+            assertEquals(5L, row.get("components"));
+            assertEquals(8L, row.get("largestComponent"));
+            assertEquals("component", row.get("property"));
+        } );
+        TestUtil.testResult( db, "MATCH (n:Node) RETURN n.component as component, collect(n.name) as names", ( result ) -> {
+            Set<Set<String>> components = new HashSet<>();
+            result.forEachRemaining(row -> components.add(new HashSet<>((List<String>) row.get("names"))));
+            assertEquals(EXPECTED_COMPONENTS, components);
+        } );
+        TestUtil.testCallCount( db, "MATCH (n:Other) WHERE exists(n.component) RETURN n", null, 0 );
+    }
+
     private void assertExpected( int expectedResultCount, String query )
     {
         TestUtil.testCallCount( db, query, null,5 );
@@ -302,6 +302,24 @@ public class BoltTest {
                     });
     }
 
+    @Test
+    public void testExecuteBatch() throws Exception {
+            TestUtil.testResult(db, "call apoc.bolt.executeBatch(" + BOLT_URL + ",'create(n:BatchNode {name:row.name})', [{name:'Node1'},{name:'Node2'},{name:'Node3'}], {batchSize:2})",
+                    r -> {
+                        Map<String, Object> row = (Map<String, Object>) r.next().get("row");
+                        assertEquals(0L, row.get("batch"));
+                        assertEquals(2L, row.get("rows"));
+                        assertEquals(2L, (long) Util.toLong(row.get("nodesCreated")));
+                        row = (Map<String, Object>) r.next().get("row");
+                        assertEquals(1L, row.get("batch"));
+                        assertEquals(1L, row.get("rows"));
+                        assertEquals(1L, (long) Util.toLong(row.get("nodesCreated")));
+                        assertEquals(false, r.hasNext());
+                    });
+            TestUtil.testCall(db, "call apoc.bolt.load(" + BOLT_URL + ",'match(n:BatchNode) return count(*) as count', {})",
+                    r -> assertEquals(3L, ((Map<String, Object>) r.get("row")).get("count")));
+    }
+
     @Test
     public void testExecuteCreateVirtualNode() throws Exception {
             TestUtil.testCall(db, "call apoc.bolt.execute(" + BOLT_URL + ",'create(n:Node {name:{name}}) return n', {name:'Node1'}, {virtual:true})",
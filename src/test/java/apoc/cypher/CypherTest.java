@@ -73,6 +73,22 @@ public class CypherTest {
                 r -> assertEquals(10L, ((Map) r.get("value")).get("b")));
     }
     @Test
+    public void testStatementCache() throws Exception {
+        // the cache is shared by all tests of the jvm, only the changes caused by the statements of this test are checked
+        Map<String, Object> before = db.execute("CALL apoc.cypher.statementCache()").<Map<String, Object>>columnAs("value").next();
+        testResult(db, "UNWIND range(1,10) as a CALL apoc.cypher.run('RETURN {a} + 7 as b',{a:a}) YIELD value RETURN sum(value.b) as b",
+                r -> assertEquals(125L, r.next().get("b")));
+        testResult(db, "CALL apoc.cypher.mapParallel('RETURN _ as b',{},range(1,10))", r -> assertEquals(10, Iterators.count(r)));
+        testResult(db, "CALL apoc.cypher.mapParallel('RETURN _ as b',{},range(1,10))", r -> assertEquals(10, Iterators.count(r)));
+        testCall(db, "CALL apoc.cypher.statementCache()", r -> {
+            Map<String, Object> stats = (Map<String, Object>) r.get("value");
+            assertEquals(3L, (long) stats.get("size") - (long) before.get("size"));
+            assertEquals(1L, (long) stats.get("plans") - (long) before.get("plans"));
+            assertEquals(3L, (long) stats.get("misses") - (long) before.get("misses"));
+            assertEquals(11L, (long) stats.get("hits") - (long) before.get("hits"));
+        });
+    }
+    @Test
     public void testRunNullParams() throws Exception {
         testCall(db, "CALL apoc.cypher.run('RETURN 42 as b',null)",
                 r -> assertEquals(42L, ((Map) r.get("value")).get("b")));
@@ -348,4 +348,45 @@ public class ElasticSearchTest {
         assertNotEquals(queryUrl, es.getQueryUrl(host, index, type, id, new HashMap<String, String>()));
         assertTrue(!es.getQueryUrl(host, index, type, id, new HashMap<String, String>()).endsWith("?"));
     }
+
+    @Test
+    public void testBulkAndScroll() {
+        Map<String, Object> params = Util.merge(defaultParams, Util.map("index", "bulk-index"));
+        TestUtil.testResult(db, "UNWIND range(1,5) AS n WITH collect({n:n, name:'doc'+n}) AS docs " +
+                "CALL apoc.es.bulk({host},{index},{type},docs,{batchSize:2, idKey:'n', query:{refresh:'true'}}) yield value RETURN value", params, r -> {
+            for (long batch = 0; batch < 3; batch++) {
+                Map<String, Object> value = (Map<String, Object>) r.next().get("value");
+                assertEquals(batch, value.get("batch"));
+                assertEquals(0L, value.get("errors"));
+            }
+            assertFalse(r.hasNext());
+        });
+        TestUtil.testCall(db, "CALL apoc.es.scroll({host},{index},{type},null,{query:{match_all:{}}},{batchSize:2}) yield value RETURN count(*) AS count", params,
+                r -> assertEquals(5L, r.get("count")));
+        TestUtil.testCall(db, "CALL apoc.es.scroll({host},{index},{type},null,{sort:[{n:'asc'}]},{batchSize:2, searchAfter:true}) yield value RETURN collect(value._source.n) AS ns", params,
+                r -> assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), r.get("ns")));
+    }
+
+    @Test
+    public void testBulkSendsAllBatchesWhenConsumerStopsEarly() {
+        Map<String, Object> params = Util.merge(defaultParams, Util.map("index", "bulk-limit-index"));
+        TestUtil.testCall(db, "UNWIND range(1,5) AS n WITH collect({n:n}) AS docs " +
+                "CALL apoc.es.bulk({host},{index},{type},docs,{batchSize:2, idKey:'n', query:{refresh:'true'}}) yield value RETURN value LIMIT 1", params,
+                r -> assertEquals(0L, ((Map<String, Object>) r.get("value")).get("batch")));
+        TestUtil.testCall(db, "CALL apoc.es.scroll({host},{index},{type},null,{query:{match_all:{}}},{batchSize:2}) yield value RETURN count(*) AS count", params,
+                r -> assertEquals(5L, r.get("count")));
+    }
+
+    @Test
+    public void testBulkReportsFailedItems() {
+        Map<String, Object> params = Util.merge(defaultParams, Util.map("index", "bulk-index"));
+        TestUtil.testCall(db, "CALL apoc.es.bulk({host},{index},{type},[{n:'missing'}],{action:'update', idKey:'n'}) yield value", params, r -> {
+            Map<String, Object> value = (Map<String, Object>) r.get("value");
+            assertEquals(1L, value.get("errors"));
+            Map<String, Object> failed = ((List<Map<String, Object>>) value.get("failed")).get(0);
+            assertEquals(0L, failed.get("item"));
+            assertEquals("missing", failed.get("id"));
+            assertEquals(404L, failed.get("status"));
+        });
+    }
 }
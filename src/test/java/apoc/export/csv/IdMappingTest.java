@@ -0,0 +1,45 @@
+package apoc.export.csv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IdMappingTest {
+
+    @Test
+    public void testStringIdDoesNotMatchNumericIdOfItsHash() {
+        IdMapping mapping = new IdMapping(false);
+        mapping.put("abc", 1L);
+        long hash = 0xcbf29ce484222325L;
+        for (char c : "abc".toCharArray()) {
+            hash ^= c;
+            hash *= 0x100000001b3L;
+        }
+        String numeric = String.valueOf(hash);
+
+        assertEquals(-1L, mapping.get(numeric));
+        assertEquals(-1L, mapping.putIfAbsent(numeric, 2L));
+        assertEquals(1L, mapping.get("abc"));
+        assertEquals(2L, mapping.get(numeric));
+        assertEquals(2L, mapping.size());
+    }
+
+    @Test
+    public void testManyIds() {
+        IdMapping strings = new IdMapping(true);
+        IdMapping numbers = new IdMapping(false);
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            assertEquals(-1L, strings.putIfAbsent("id" + i, IdMapping.PENDING));
+            strings.put("id" + i, i);
+            numbers.put(String.valueOf(i), i);
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, strings.get("id" + i));
+            assertEquals(i, numbers.get(" " + i));
+        }
+        assertEquals(-1L, strings.get("id" + count));
+        assertEquals(count, strings.size());
+        assertEquals(count, numbers.size());
+    }
+}
@@ -21,6 +21,7 @@ import java.util.stream.Stream;
 
 import static apoc.util.MapUtil.map;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class ImportCsvTest {
 
@@ -421,6 +422,20 @@ public class ImportCsvTest {
                 )).close();
     }
 
+    @Test
+    public void testFailedImportIsRolledBack() {
+        try {
+            db.execute("CALL apoc.import.csv([{fileName: {nodeFile}, labels: ['Person']}], [{fileName: {relFile}, type: 'KNOWS'}], {config})",
+                    map("nodeFile", "file:/persons.csv",
+                        "relFile", "file:/knows.csv",
+                        "config", map("stringIds", false, "batchSize", 1))).close();
+            fail("the import should fail on the missing endpoints");
+        } catch (QueryExecutionException e) {
+            // expected
+        }
+        TestUtil.testCall(db, "MATCH (n) RETURN count(n) AS nodes", (r) -> assertEquals(0L, r.get("nodes")));
+    }
+
     @Test
     public void testLoadDuplicateNodes() {
         TestUtil.testCall(
@@ -443,4 +458,44 @@ public class ImportCsvTest {
         Assert.assertEquals(1L, resultId.next().get("id"));
     }
 
+    @Test
+    public void testManyBatches() throws IOException {
+        testManyBatches(false);
+    }
+
+    @Test
+    public void testManyBatchesParallel() throws IOException {
+        testManyBatches(true);
+    }
+
+    private void testManyBatches(boolean parallel) throws IOException {
+        StringBuilder nodes = new StringBuilder("id:ID,name:STRING\n");
+        StringBuilder rels = new StringBuilder(":START_ID,:END_ID\n");
+        for (int i = 0; i < 1000; i++) {
+            nodes.append("p").append(i).append(",Person ").append(i).append("\n");
+            if (i > 0) rels.append("p").append(i - 1).append(",p").append(i).append("\n");
+        }
+        CsvTestUtil.saveCsvFile("many-persons", nodes.toString());
+        CsvTestUtil.saveCsvFile("many-knows", rels.toString());
+
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv([{fileName: {nodeFile}, labels: ['Person']}], [{fileName: {relFile}, type: 'KNOWS'}], {config})",
+                map(
+                        "nodeFile", "file:/many-persons.csv",
+                        "relFile", "file:/many-knows.csv",
+                        "config", map("batchSize", 10, "parallel", parallel)
+                ),
+                (r) -> {
+                    assertEquals(1000L, r.get("nodes"));
+                    assertEquals(999L, r.get("relationships"));
+                }
+        );
+
+        TestUtil.testCall(db, "MATCH (a:Person)-[:KNOWS]->(b:Person) WHERE toInteger(substring(b.id, 1)) <> toInteger(substring(a.id, 1)) + 1 RETURN count(*) AS wrong",
+                (r) -> assertEquals(0L, r.get("wrong")));
+        TestUtil.testCall(db, "MATCH (a:Person {id: 'p0'})-[:KNOWS*999]->(b) RETURN b.name AS name",
+                (r) -> assertEquals("Person 999", r.get("name")));
+    }
+
 }
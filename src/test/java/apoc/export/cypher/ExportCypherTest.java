@@ -1,5 +1,6 @@
 package apoc.export.cypher;
 
+import apoc.cypher.Cypher;
 import apoc.graph.Graphs;
 import apoc.util.TestUtil;
 import org.junit.*;
@@ -10,7 +11,10 @@ import org.neo4j.test.TestGraphDatabaseFactory;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static apoc.export.cypher.ExportCypherTest.ExportCypherResults.*;
 import static apoc.export.util.ExportFormat.*;
@@ -42,8 +46,9 @@ public class ExportCypherTest {
         db = new TestGraphDatabaseFactory().newImpermanentDatabaseBuilder()
                 .setConfig(GraphDatabaseSettings.load_csv_file_url_root, directory.getAbsolutePath())
                 .setConfig("apoc.export.file.enabled", "true")
+                .setConfig("apoc.import.file.enabled", "true")
                 .newGraphDatabase();
-        TestUtil.registerProcedure(db, ExportCypher.class, Graphs.class);
+        TestUtil.registerProcedure(db, ExportCypher.class, Graphs.class, Cypher.class);
         if (testName.getMethodName().endsWith(OPTIMIZED)) {
             db.execute("CREATE INDEX ON :Foo(name)").close();
             db.execute("CREATE INDEX ON :Bar(first_name, last_name)").close();
@@ -112,6 +117,48 @@ public class ExportCypherTest {
         assertEquals(EXPECTED_NEO4J_SHELL.replace("LIMIT 20000", "LIMIT 3"), sb.toString());
     }
 
+    @Test
+    public void testExportAllCypherPartitioned() throws Exception {
+        String fileName = "allPartitioned.cypher";
+        TestUtil.testCall(db, "CALL apoc.export.cypher.all({file},{config})",
+                map("file", fileName, "config", map("format", "cypher-shell", "partitionSize", 2)),
+                (r) -> assertResults(fileName, r, "database"));
+        assertEquals("[[\"allPartitioned.schema.cypher\"],[\"allPartitioned.nodes.0.cypher\",\"allPartitioned.nodes.1.cypher\"]," +
+                "[\"allPartitioned.relationships.0.cypher\"],[\"allPartitioned.cleanup.cypher\"]]", readFile("allPartitioned.manifest.json"));
+        assertReplay("allPartitioned.manifest.json");
+    }
+
+    @Test
+    public void testExportAllCypherPartitionedGzip() throws Exception {
+        String fileName = "allPartitionedGzip.cypher";
+        TestUtil.testCall(db, "CALL apoc.export.cypher.all({file},{config})",
+                map("file", fileName, "config", map("format", "cypher-shell", "partitionSize", 2, "compression", "gzip", "useOptimizations", map("type", "none"))),
+                (r) -> assertResults(fileName, r, "database"));
+        assertEquals("[[\"allPartitionedGzip.nodes.0.cypher.gz\",\"allPartitionedGzip.nodes.1.cypher.gz\"],[\"allPartitionedGzip.schema.cypher.gz\"]," +
+                "[\"allPartitionedGzip.relationships.0.cypher.gz\"],[\"allPartitionedGzip.cleanup.cypher.gz\"]]", readFile("allPartitionedGzip.manifest.json"));
+        assertReplay("allPartitionedGzip.manifest.json");
+    }
+
+    private void assertReplay(String manifest) {
+        List<String> expected = graphRows();
+        db.execute("MATCH (n) DETACH DELETE n").close();
+        TestUtil.testResult(db, "CALL apoc.cypher.runFiles([{file}])", map("file", manifest), (r) -> r.forEachRemaining(row -> {}));
+        assertEquals(expected, graphRows());
+    }
+
+    private List<String> graphRows() {
+        List<String> rows = new ArrayList<>();
+        TestUtil.testResult(db, "MATCH (n) OPTIONAL MATCH (n)-[r]->(m) " +
+                        "RETURN labels(n) AS labels, properties(n) AS properties, type(r) AS type, properties(r) AS relProperties, properties(m) AS endProperties",
+                (r) -> r.forEachRemaining(row -> {
+                    Map<String, Object> sorted = new TreeMap<>();
+                    row.forEach((key, value) -> sorted.put(key, value instanceof Map ? new TreeMap<>((Map<String, Object>) value) : value));
+                    rows.add(sorted.toString());
+                }));
+        rows.sort(null);
+        return rows;
+    }
+
     // -- Whole file test -- //
     @Test
     public void testExportAllCypherDefault() throws Exception {
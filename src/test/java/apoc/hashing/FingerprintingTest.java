@@ -106,6 +106,26 @@ public class FingerprintingTest {
         compareGraph("CREATE (:Person{name:'ABC', created:timestamp()})", singletonList("created"), true);
     }
 
+    @Test
+    public void graphChecksum() {
+        db.execute("CREATE (a:Person{name:'ABC', created:1})-[:KNOWS{since:12345}]->(b:Person:Admin{name:'DEF'}), (b)-[:KNOWS]->(:Person{name:'GHI'})").close();
+        Map<String, Object> row = Iterators.single(db.execute("CALL apoc.hashing.graphChecksum({partitionSize: 2})"));
+        assertEquals(3L, row.get("nodes"));
+        assertEquals(2L, row.get("relationships"));
+
+        db.execute("MATCH (n) DETACH DELETE n").close();
+        db.execute("CREATE (c:Person{name:'GHI'}), (b:Admin:Person{name:'DEF'}), (a:Person{created:1, name:'ABC'}), (b)-[:KNOWS]->(c), (a)-[:KNOWS{since:12345}]->(b)").close();
+        assertEquals(row.get("checksum"), cypherSingleResult("CALL apoc.hashing.graphChecksum() YIELD checksum RETURN checksum"));
+
+        db.execute("MATCH (:Person{name:'DEF'})-[r:KNOWS]->(c), (a:Person{name:'ABC'}) DELETE r CREATE (c)-[:KNOWS]->(a)").close();
+        assertNotEquals(row.get("checksum"), cypherSingleResult("CALL apoc.hashing.graphChecksum() YIELD checksum RETURN checksum"));
+
+        db.execute("MATCH (n:Person{name:'ABC'}) SET n.created = 2").close();
+        String excluded = cypherSingleResult("CALL apoc.hashing.graphChecksum({propertyExcludes: ['created']}) YIELD checksum RETURN checksum");
+        db.execute("MATCH (n:Person{name:'ABC'}) SET n.created = 3").close();
+        assertEquals(excluded, cypherSingleResult("CALL apoc.hashing.graphChecksum({propertyExcludes: ['created']}) YIELD checksum RETURN checksum"));
+    }
+
     private void compareGraph(String cypher, List<String> excludes, boolean shouldBeEqual) {
         Map<String, Object> params = singletonMap("excludes", excludes);
 
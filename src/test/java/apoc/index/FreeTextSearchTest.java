@@ -376,6 +376,28 @@ public class FreeTextSearchTest {
         });
     }
 
+    @Test
+    public void shouldPageAndCountSearchResults() throws Exception {
+        // given
+        execute("UNWIND range(1,25) AS i CREATE (:Person{name:'Person ' + i, nick: CASE WHEN i <= 5 THEN 'person person' ELSE 'someone' END})");
+        execute("CALL apoc.index.addAllNodes('people', {Person:['name','nick']})");
+
+        // then
+        TestUtil.testCall(db, "RETURN apoc.index.search.count('people', 'Person') AS count", (row) -> assertEquals(25L, row.get("count")));
+        TestUtil.testCall(db, "CALL apoc.index.search('people', 'Person', 5) YIELD node RETURN collect(node.name) AS names", (row) -> {
+            List<String> names = (List<String>) row.get("names");
+            assertEquals(5, names.size());
+            assertTrue(names.stream().allMatch(name -> Integer.parseInt(name.substring(7)) <= 5));
+        });
+        TestUtil.testCall(db, "CALL apoc.index.search('people', 'Person', 5, 20) YIELD node RETURN count(*) AS count", (row) -> assertEquals(5L, row.get("count")));
+        TestUtil.testCall(db, "CALL apoc.index.search('people', 'Person', -1, 20) YIELD node RETURN count(*) AS count", (row) -> assertEquals(5L, row.get("count")));
+        List<Object> first = Iterators.asList(db.execute("CALL apoc.index.search('people', 'Person', 10, 0) YIELD node RETURN id(node) AS id").columnAs("id"));
+        List<Object> second = Iterators.asList(db.execute("CALL apoc.index.search('people', 'Person', 10, 10) YIELD node RETURN id(node) AS id").columnAs("id"));
+        assertEquals(10, first.size());
+        assertEquals(10, second.size());
+        assertTrue(Collections.disjoint(first, second));
+    }
+
         private ResourceIterator<Node> search(String index, String value) {
         return db.execute("CALL apoc.index.search({index}, {value}) YIELD node RETURN node",
                 map("index", index, "value", value)).columnAs("node");
@@ -67,6 +67,15 @@ public class FulltextIndexTest {
                 });
     }
 
+    @Test
+    public void testNodesSkipLimit() throws Exception {
+        db.execute("UNWIND range(1,20) AS i CREATE (p:Person {name:'Jo' + i}) WITH p CALL apoc.index.addNode(p, ['name']) RETURN count(*)").close();
+        testCall(db, "RETURN apoc.index.nodes.count('Person', 'name:Jo*') AS count", (row) -> assertEquals(20L, row.get("count")));
+        testCall(db, "CALL apoc.index.nodes('Person', 'name:Jo*', {skip: 5, limit: 10}) YIELD node RETURN count(*) AS count", (row) -> assertEquals(10L, row.get("count")));
+        testCall(db, "CALL apoc.index.nodes('Person', 'name:Jo*', {skip: 15}) YIELD node RETURN count(*) AS count", (row) -> assertEquals(5L, row.get("count")));
+        testCall(db, "CALL apoc.index.nodes('Person', 'name:Jo*', {limit: 0}) YIELD node RETURN count(*) AS count", (row) -> assertEquals(0L, row.get("count")));
+    }
+
     @Test
     @Ignore("until this is sorted out: Write operations are not allowed for AUTH_DISABLED with FULL restricted to READ - LegacyIndexProxy.internalRemove ")
     public void testNodesDeletion() throws Exception {
@@ -12,7 +12,9 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -35,8 +37,6 @@ import static org.junit.Assert.assertTrue;
  * @author mh
  * @since 23.05.16
  */
-@Ignore
-// the access to the internal lucene backed index readers is not easily possible anymore, kinda giving up on this, waiting for index backed order by in 3.5
 public class SchemaIndexTest {
 
     private static GraphDatabaseService db;
@@ -67,7 +67,7 @@ public class SchemaIndexTest {
         personIds = IntStream.range(firstPerson, lastPerson+1).mapToObj(Long::new).collect(Collectors.toList());
         personNames = IntStream.range(firstPerson, lastPerson+1).mapToObj(Integer::toString).map(i -> "name"+i).sorted().collect(Collectors.toList());
         personAddresses = IntStream.range(firstPerson, lastPerson+1).mapToObj(Integer::toString).map(i -> i+"Main St.").sorted().collect(Collectors.toList());
-        personAges = IntStream.range(firstPerson, lastPerson+1).map(i -> i % 100).sorted().mapToObj(Long::new).collect(Collectors.toList());
+        personAges = IntStream.range(firstPerson, lastPerson+1).map(i -> i % 100).distinct().sorted().mapToObj(Long::new).collect(Collectors.toList());
 
         try (Transaction tx=db.beginTx()) {
             db.schema().awaitIndexesOnline(2,TimeUnit.SECONDS);
@@ -144,6 +144,7 @@ public class SchemaIndexTest {
         });
     }
 
+    @Ignore("the access to the internal lucene backed index readers is not easily possible anymore, kinda giving up on this, waiting for index backed order by in 3.5")
     @Test
     public void testOrderedRangeText() throws Exception {
         testResult(db, "CALL apoc.index.orderedRange('Person','name','name10','name30',false,10)", r -> {
@@ -155,6 +156,7 @@ public class SchemaIndexTest {
             assertEquals(false, r.hasNext());
         });
     }
+    @Ignore("the access to the internal lucene backed index readers is not easily possible anymore, kinda giving up on this, waiting for index backed order by in 3.5")
     @Test
     public void testOrderByText() throws Exception {
         testResult(db, "CALL apoc.index.orderedByText('Person','name','STARTS WITH','name1',false,10)", r -> {
@@ -224,10 +226,9 @@ public class SchemaIndexTest {
                 map("label",label,"key",""),
                 (result) -> {
                     assertDistinctCountProperties("Person", "address", personAddresses, () -> 1L, result);
+                    assertDistinctCountProperties("Person", "age", personAges, () -> 2L, result);
+                    assertDistinctCountProperties("Person", "id", personIds, () -> 1L, result);
                     assertDistinctCountProperties("Person", "name", personNames, () -> 1L, result);
-                    //todo: update when number terms are supported
-                    //assertDistinctCountProperties("Person", "id", personIds, () -> 1L, result);
-                    //assertDistinctCountProperties("Person", "age", personAges, () -> 1L, result);
                     assertFalse(result.hasNext());
                 });
     }
@@ -241,14 +242,75 @@ public class SchemaIndexTest {
                     assertEquals(map("label","Foo","key","bar","value","four","count",2L),result.next());
                     assertEquals(map("label","Foo","key","bar","value","three","count",1L),result.next());
                     assertDistinctCountProperties("Person", "address", personAddresses, () -> 1L, result);
+                    assertDistinctCountProperties("Person", "age", personAges, () -> 2L, result);
+                    assertDistinctCountProperties("Person", "id", personIds, () -> 1L, result);
                     assertDistinctCountProperties("Person", "name", personNames, () -> 1L, result);
-                    //todo: update when number terms are supported
-                    //assertDistinctCountProperties("Person", "id", personIds, () -> 1L, result);
-                    //assertDistinctCountProperties("Person", "age", personAges, () -> 1L, result);
                     assertFalse(result.hasNext());
                 });
     }
 
+    @Test
+    public void testDistinctPropertiesOfNumbers() throws Exception {
+        testCall(db,"CALL apoc.schema.properties.distinct({label}, {key})",
+                map("label", "Person","key", "age"),
+                (row) -> assertEquals(personAges, row.get("value"))
+        );
+    }
+
+    @Test
+    public void testDistinctPropertiesWithPrefixAndLimit() throws Exception {
+        testCall(db,"CALL apoc.schema.properties.distinct('Person', 'name', {prefix:'name1', limit:3})",
+                (row) -> assertEquals(personNames.stream().filter(n -> n.startsWith("name1")).limit(3).collect(Collectors.toList()), row.get("value"))
+        );
+        testCall(db,"CALL apoc.schema.properties.distinct('Person', 'age', {prefix:'name1'})",
+                (row) -> assertEquals(Collections.emptyList(), row.get("value"))
+        );
+    }
+
+    @Test
+    public void testDistinctCountPropertiesTop() throws Exception {
+        testResult(db,"CALL apoc.schema.properties.distinctCount('Foo', 'bar', {top:1})",
+                (result) -> {
+                    assertEquals(map("label","Foo","key","bar","value","four","count",2L),result.next());
+                    assertFalse(result.hasNext());
+                });
+    }
+
+    @Test
+    public void testDistinctCountPropertiesOfLuceneSegments() throws Exception {
+        GraphDatabaseService lucene = new TestGraphDatabaseFactory()
+                .newImpermanentDatabaseBuilder()
+                .setConfig(GraphDatabaseSettings.default_schema_provider, GraphDatabaseSettings.SchemaIndex.LUCENE10.providerName())
+                .newGraphDatabase();
+        try {
+            TestUtil.registerProcedure(lucene, SchemaIndex.class);
+            lucene.execute("CREATE INDEX ON :Item(value)").close();
+            try (Transaction tx = lucene.beginTx()) {
+                lucene.schema().awaitIndexesOnline(2, TimeUnit.SECONDS);
+                tx.success();
+            }
+            // every transaction adds to the lucene index, which ends up in several segments
+            for (int batch = 0; batch < 5; batch++) {
+                lucene.execute("UNWIND range(0,99) as id CREATE (:Item {value:'v'+(id % 10)}), (:Item {value:id % 3}), (:Item {value:id % 2 = 0})").close();
+            }
+            lucene.execute("MATCH (i:Item) WHERE i.value = 'v0' WITH i LIMIT 10 DELETE i").close();
+            testResult(lucene, "CALL apoc.schema.properties.distinctCount('Item', 'value') YIELD value, count RETURN *",
+                    (result) -> {
+                        Map<Object, Object> counts = result.stream().collect(Collectors.toMap(row -> row.get("value"), row -> row.get("count")));
+                        assertEquals(40L, counts.get("v0"));
+                        assertEquals(50L, counts.get("v9"));
+                        assertEquals(170L, counts.get(0L));
+                        assertEquals(165L, counts.get(2L));
+                        assertEquals(250L, counts.get(true));
+                        assertEquals(15, counts.size());
+                    });
+            testCall(lucene, "CALL apoc.schema.properties.distinct('Item', 'value', {prefix:'v', limit:2})",
+                    (row) -> assertEquals(Arrays.asList("v0", "v1"), row.get("value")));
+        } finally {
+            lucene.shutdown();
+        }
+    }
+
     private <T> void assertDistinctCountProperties(String label, String key, Collection<T> values, Supplier<Long> counts, Result result) {
         Iterator<T> valueIterator = values.iterator();
 
@@ -24,6 +24,7 @@ import static apoc.util.TestUtil.testCall;
 import static apoc.util.TestUtil.testResult;
 import static java.util.Collections.emptyList;
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertEquals;
 
 public class JdbcTest extends AbstractJdbcTest {
@@ -160,6 +161,35 @@ public class JdbcTest extends AbstractJdbcTest {
                 (row) -> assertEquals(Util.map("count", 1 ), row.get("row")));
     }
 
+    @Test
+    public void testLoadJdbcUpdateBatch() throws Exception {
+        testResult(db, "CALL apoc.load.jdbcUpdateBatch('jdbc:derby:derbyDB','INSERT INTO PERSON (NAME, SURNAME) VALUES(?, ?)',[['Jane','Doe'],['Jim','Doe'],['Joe','Doe']],{batchSize:2})",
+                (result) -> {
+                    assertEquals(Util.map("batch", 0, "rows", 2, "count", 2L), result.next().get("row"));
+                    assertEquals(Util.map("batch", 1, "rows", 1, "count", 1L), result.next().get("row"));
+                    assertFalse(result.hasNext());
+                });
+        testCall(db, "CALL apoc.load.jdbc('jdbc:derby:derbyDB','SELECT count(*) AS COUNT FROM PERSON WHERE SURNAME = ?',['Doe'])",
+                (row) -> assertEquals(Util.map("COUNT", 3), row.get("row")));
+    }
+
+    @Test
+    public void testLoadJdbcReusesPooledConnections() throws Exception {
+        String pools = "CALL apoc.load.jdbcPools() YIELD url, user, active, created, borrowed WHERE url = 'jdbc:derby:derbyDB' AND user IS NULL RETURN active, created, borrowed";
+        testCall(db, "CALL apoc.load.jdbc('jdbc:derby:derbyDB','PERSON')", (row) -> assertResult(row));
+        Map<String, Object> before = db.execute(pools).next();
+        testCall(db, "CALL apoc.load.jdbc('jdbc:derby:derbyDB','PERSON')", (row) -> assertResult(row));
+        testCall(db, "CALL apoc.load.jdbcUpdate('jdbc:derby:derbyDB','UPDATE PERSON SET SURNAME = ? WHERE NAME = ?', ['DOE', 'John'])",
+                (row) -> assertEquals(Util.map("count", 1 ), row.get("row")));
+        testCall(db, pools, (row) -> {
+            assertEquals(0L, row.get("active"));
+            assertEquals(before.get("created"), row.get("created"));
+            assertEquals((long) before.get("borrowed") + 2, row.get("borrowed"));
+        });
+        testCall(db, "CALL apoc.load.jdbc('jdbc:derby:derbyDB','PERSON',[],{pool:false})", (row) -> assertEquals("John", ((Map) row.get("row")).get("NAME")));
+        testCall(db, pools, (row) -> assertEquals((long) before.get("borrowed") + 2, row.get("borrowed")));
+    }
+
     @Test
     public void testLoadJdbcWithSpecialCharWithAuthentication() {
         db.execute("CALL apoc.load.jdbc({url}, 'PERSON',[],{credentials:{user:'apoc',password:'Ap0c!#Db'}})", Util.map("url","jdbc:derby:derbyDB")).next();
@@ -8,6 +8,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.graphdb.*;
 import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.values.storable.*;
 
 import java.time.Clock;
@@ -652,4 +653,55 @@ public class MetaTest {
         });
     }
 
+    private List<String> metaData(String config) {
+        List<String> rows = new ArrayList<>();
+        TestUtil.testResult(db, "CALL apoc.meta.data(" + config + ")",
+                (r) -> r.forEachRemaining(row -> rows.add(row.get("label") + "." + row.get("property") + ":" + row.get("type") + ":" + row.get("elementType") + ":" + row.get("other"))));
+        rows.sort(null);
+        return rows;
+    }
+
+    @Test
+    public void testMetaDataCacheRefreshesChangedLabels() {
+        db.execute("CREATE (a:A {name:'a'})-[:R {since:1}]->(b:B {name:'b'}), (:C {name:'c'})").close();
+        List<String> first = metaData("");
+        assertEquals(first, metaData(""));
+        assertEquals(first, metaData("{cache:false}"));
+
+        db.execute("MATCH (a:A)-[r:R]->(b:B) SET a.age = 42 DELETE r CREATE (a)-[:S]->(b)").close();
+        List<String> changed = metaData("");
+        assertEquals(metaData("{cache:false}"), changed);
+        Assert.assertTrue(changed.contains("A.age:INTEGER:node:[]"));
+        Assert.assertTrue(changed.contains("A.S:RELATIONSHIP:node:[B]"));
+        Assert.assertFalse(changed.contains("A.R:RELATIONSHIP:node:[B]"));
+        Assert.assertTrue(changed.contains("C.name:STRING:node:[]"));
+
+        db.execute("MATCH (b:B) SET b:D").close();
+        assertEquals(metaData("{cache:false}"), metaData(""));
+    }
+
+    @Test
+    public void testMetaDataCacheDeregistersWhenIdle() {
+        db.execute("CREATE (:A {name:'a'})").close();
+        metaData("");
+        MetaCache cache = MetaCache.of((GraphDatabaseAPI) db);
+        cache.lastUsed -= MetaCache.IDLE_MILLIS + 1;
+
+        db.execute("MATCH (a:A) SET a.age = 42").close();
+        Assert.assertNotSame(cache, MetaCache.of((GraphDatabaseAPI) db));
+        Assert.assertTrue(metaData("").contains("A.age:INTEGER:node:[]"));
+    }
+
+    @Test
+    public void testMetaDataSeesChangesOfTheCurrentTransaction() {
+        db.execute("CREATE (:A {name:'a'})").close();
+        metaData("");
+        try (Transaction tx = db.beginTx()) {
+            db.execute("CREATE (:B {name:'b'})").close();
+            Assert.assertTrue(metaData("").contains("B.name:STRING:node:[]"));
+            tx.failure();
+        }
+        Assert.assertFalse(metaData("").contains("B.name:STRING:node:[]"));
+    }
+
 }
@@ -90,6 +90,8 @@ public class MongoDBTest {
                 .newGraphDatabase();
         TestUtil.registerProcedure(db, MongoDB.class);
         mongoClient.close();
+        // the procedures share one client per url, open its connections before the tests count them
+        db.execute("CALL apoc.mongodb.count({host},{db},{collection},null)", params).close();
     }
 
     @AfterClass
@@ -241,6 +243,31 @@ public class MongoDBTest {
         });
     }
 
+    @Test
+    public void testGetBatchSize() throws Exception {
+        TestUtil.testCall(db, "CALL apoc.mongodb.get({host},{db},{collection},null,false,0,0,10) YIELD value RETURN count(*) AS count", params,
+                r -> assertEquals(NUM_OF_RECORDS, r.get("count")));
+    }
+
+    @Test
+    public void testBulkUpdate() throws Exception {
+        TestUtil.testResult(db, "CALL apoc.mongodb.insert({host},{db},{collection},[{bulk:1},{bulk:2},{bulk:2}])", params, (r) -> {
+            assertFalse("should be empty", r.hasNext());
+        });
+        TestUtil.testCall(db, "CALL apoc.mongodb.bulkUpdate({host},{db},{collection},[{query:{bulk:1},update:{`$set`:{done:true}}},{query:{bulk:2},update:{`$set`:{done:true}}}])", params, r -> {
+            assertEquals(3L, r.get("value"));
+        });
+        TestUtil.testCall(db, "CALL apoc.mongodb.count({host},{db},{collection},{done:true})", params, r -> {
+            assertEquals(3L, r.get("value"));
+        });
+        TestUtil.testCall(db, "CALL apoc.mongodb.bulkDelete({host},{db},{collection},[{bulk:1},{bulk:2}],false)", params, r -> {
+            assertEquals(3L, r.get("value"));
+        });
+        TestUtil.testResult(db, "CALL apoc.mongodb.first({host},{db},{collection},{done:true})", params, r -> {
+            assertFalse("should be empty", r.hasNext());
+        });
+    }
+
     @Test
     public void testInsertFailsDupKey() {
         // Three apoc.mongodb.insert each call gets the error: E11000 duplicate key error collection
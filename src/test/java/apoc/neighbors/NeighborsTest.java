@@ -5,6 +5,12 @@ import org.junit.*;
 import org.neo4j.graphdb.*;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static apoc.util.MapUtil.map;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertFalse;
 
 import static org.junit.Assert.assertEquals;
 
@@ -42,6 +48,18 @@ public class NeighborsTest {
                 });
     }
 
+    @Test
+    public void getNeighborsOfAnyType() {
+        TestUtil.testCall(db, "MATCH (n:First) WITH n " +
+                        "CALL apoc.neighbors.tohop.count(n,'>', 3) YIELD value AS outgoing " +
+                        "CALL apoc.neighbors.tohop.count(n,'<', 1) YIELD value AS incoming " +
+                        "RETURN outgoing, incoming",
+                (row) -> {
+                    assertEquals(3L, row.get("outgoing"));
+                    assertEquals(1L, row.get("incoming"));
+                });
+    }
+
     @Test
     public void getNeighbors3Hops() {
         TestUtil.testCall(db, "MATCH (n:First) WITH n " +
@@ -150,4 +168,53 @@ public class NeighborsTest {
                         "RETURN number",
                 (row) -> assertEquals(1L, row.get("number")));
     }
+
+    @Test
+    public void getNeighborsOfEachNode() {
+        TestUtil.testResult(db, "MATCH (n:First), (m:Neighbor) WHERE (n)-->(m) WITH [n,m] AS nodes " +
+                        "CALL apoc.neighbors.tohop.each(nodes,'KNOWS>', 2) YIELD node, nodes AS neighbors " +
+                        "RETURN labels(node) AS labels, size(neighbors) AS count",
+                (result) -> {
+                    assertEquals(map("labels", singletonList("First"), "count", 2L), result.next());
+                    assertEquals(map("labels", singletonList("Neighbor"), "count", 3L), result.next());
+                    assertFalse(result.hasNext());
+                });
+        TestUtil.testResult(db, "MATCH (n:First), (m:Neighbor) WHERE (n)-->(m) WITH [n,m] AS nodes " +
+                        "CALL apoc.neighbors.tohop.each.count(nodes,'KNOWS>', 2) YIELD node, value " +
+                        "RETURN labels(node) AS labels, value",
+                (result) -> {
+                    assertEquals(map("labels", singletonList("First"), "value", 2L), result.next());
+                    assertEquals(map("labels", singletonList("Neighbor"), "value", 3L), result.next());
+                    assertFalse(result.hasNext());
+                });
+    }
+
+    @Test
+    public void getNeighborsOfAllNodes() {
+        TestUtil.testCall(db, "MATCH (n:First), (m:Neighbor) WHERE (n)-->(m) WITH [n,m] AS nodes " +
+                        "CALL apoc.neighbors.tohop.union(nodes,'KNOWS>', 2) YIELD node " +
+                        "RETURN count(*) AS count",
+                (row) -> assertEquals(2L, row.get("count")));
+        TestUtil.testCall(db, "MATCH (n:First), (m:Neighbor) WHERE (n)-->(m) WITH [n,m] AS nodes " +
+                        "CALL apoc.neighbors.tohop.union.count(nodes,'KNOWS>', 1) YIELD value " +
+                        "RETURN value",
+                (row) -> assertEquals(1L, row.get("value")));
+    }
+
+    @Test
+    public void getNeighborsOfManyNodesInParallel() {
+        db.execute("UNWIND range(0,199) AS i CREATE (:Chain {i:i}) WITH collect(i) AS ids " +
+                "MATCH (a:Chain), (b:Chain) WHERE b.i = a.i + 1 CREATE (a)-[:NEXT]->(b)").close();
+        TestUtil.testCall(db, "MATCH (n:Chain) WITH n ORDER BY n.i WITH collect(n) AS nodes " +
+                        "CALL apoc.neighbors.tohop.each.count(nodes,'NEXT>', 3, {batchSize:1}) YIELD node, value " +
+                        "RETURN collect(node.i) AS ids, sum(value) AS total",
+                (row) -> {
+                    assertEquals(LongStream.range(0, 200).boxed().collect(Collectors.toList()), row.get("ids"));
+                    assertEquals(197L * 3 + 2 + 1, row.get("total"));
+                });
+        TestUtil.testCall(db, "MATCH (n:Chain) WHERE n.i < 2 WITH collect(n) AS nodes " +
+                        "CALL apoc.neighbors.tohop.union.count(nodes,'NEXT>|<NEXT', 100, {batchSize:1}) YIELD value " +
+                        "RETURN value",
+                (row) -> assertEquals(100L, row.get("value")));
+    }
 }
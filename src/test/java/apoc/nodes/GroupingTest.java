@@ -200,4 +200,47 @@ public class GroupingTest {
         it.next();
         assertFalse(it.hasNext());
     }
+
+    @Test
+    public void testGroupWithDistinctInPartitions() throws Exception {
+        createGraph();
+        db.execute("MATCH (bob:Person {name:'Bob'}) SET bob:Forum").close();
+        for (long batchSize : new long[]{1L, 100000L}) {
+            Map<String, Map<String, Object>> groups = new java.util.HashMap<>();
+            testResult(db, "CALL apoc.nodes.group(['Person','Forum'],['gender'],[" +
+                            "{`*`:'count', age:['sum','distinct'], name:'distinct'}," +
+                            "{`*`:'count', since:'max'}" +
+                            "], {batchSize:$batchSize}) YIELD node, relationship " +
+                            "RETURN node, relationship",
+                    map("batchSize", batchSize),
+                    (result) -> result.forEachRemaining(row -> {
+                        Node node = (Node) row.get("node");
+                        String group = node.getLabels().iterator().next().name() + "." + node.getProperty("gender", "");
+                        groups.put(group, node.getAllProperties());
+                        Relationship rel = (Relationship) row.get("relationship");
+                        if (rel != null && rel.isType(RelationshipType.withName("KNOWS"))) {
+                            assertEquals("Person.female", group);
+                            assertEquals(2L, rel.getProperty("count_*"));
+                            assertEquals(2018L, rel.getProperty("max_since"));
+                        }
+                    }));
+            assertEquals(map("gender", "female", "count_*", 2L, "sum_age", 60L, "distinct_age", 2L, "distinct_name", 2L), groups.get("Person.female"));
+            assertEquals(map("gender", "male", "count_*", 1L, "sum_age", 42L, "distinct_age", 1L, "distinct_name", 1L), groups.get("Person.male"));
+            // bob is in a group of each label
+            assertEquals(map("gender", "male", "count_*", 1L, "sum_age", 42L, "distinct_age", 1L, "distinct_name", 1L), groups.get("Forum.male"));
+            assertEquals(map("gender", null, "count_*", 2L, "distinct_name", 2L), groups.get("Forum."));
+        }
+    }
+
+    @Test
+    public void testApproximateDistinct() throws Exception {
+        GroupAggregator.HyperLogLog sketch = new GroupAggregator.HyperLogLog();
+        GroupAggregator.HyperLogLog other = new GroupAggregator.HyperLogLog();
+        for (long i = 0; i < 100_000; i++) {
+            sketch.add(i);
+            other.add(i + 50_000);
+        }
+        sketch.merge(other);
+        assertEquals(150_000, sketch.estimate(), 150_000 * 0.05);
+    }
 }
@@ -10,6 +10,7 @@ import java.util.Map;
 import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -236,4 +237,74 @@ public class SubgraphTest {
 			assertTrue(subgraph.containsAll(subgraphNodes));
 		});
 	}
+
+	@Test
+	public void testKernelEngineShouldReturnSameNodesAsTraversal() throws Throwable {
+		String[] configs = {
+				"{}",
+				"{maxLevel:3}",
+				"{maxLevel:3, labelFilter:'+Person|Movie'}",
+				"{labelFilter:'-BigBrother', relationshipFilter:'ACTED_IN>|<DIRECTED'}",
+				"{labelFilter:'>Movie', maxLevel:4}",
+				"{labelFilter:'/Movie', maxLevel:4}",
+				"{sequence:'Person, ACTED_IN>, Movie, <DIRECTED', beginSequenceAtStart:false, filterStartNode:false}",
+				"{maxLevel:4, blacklistNodes:[keanu]}",
+				"{maxLevel:4, whitelistNodes:[keanu, laurence], endNodes:[keanu]}",
+				"{terminatorNodes:[keanu], endNodes:[laurence]}",
+				"{maxLevel:4, parallel:true, batchSize:1}",
+				"{labelFilter:'+Person|Movie', parallel:true, batchSize:2}"
+		};
+		for (String config : configs) {
+			assertEquals(config, subgraphNodeIds(config.replace("{", "{engine:'traversal', ").replace(", }", "}")),
+					subgraphNodeIds(config.replace("{", "{engine:'kernel', ").replace(", }", "}")));
+		}
+	}
+
+	private List<Long> subgraphNodeIds(String config) {
+		String query = "MATCH (m:Movie {title: 'The Matrix'}), (keanu:Person {name: 'Keanu Reeves'}), (laurence:Person {name: 'Laurence Fishburne'}) " +
+				"CALL apoc.path.subgraphNodes(m, " + config + ") yield node with node order by id(node) return collect(id(node)) as ids";
+		try (Transaction tx = db.beginTx()) {
+			return (List<Long>) db.execute(query).next().get("ids");
+		}
+	}
+
+	@Test
+	public void testKernelEngineSpanningTreeShouldHaveOnlyOnePathToEachNode() throws Throwable {
+		List<Long> subgraph = subgraphNodeIds("{maxLevel:4}");
+		String query =
+				"MATCH (m:Movie {title: 'The Matrix'}) " +
+						"CALL apoc.path.spanningTree(m,{maxLevel:4, engine:'kernel', parallel:true, batchSize:5}) yield path " +
+						"with m, collect(path) as paths " +
+						"with paths, size(paths) as pathCount, all(path in paths where nodes(path)[0] = m and length(path) <= 4) as fromStart " +
+						"unwind paths as path " +
+						"with pathCount, fromStart, last(nodes(path)) as node order by id(node) " +
+						"return pathCount, fromStart, collect(distinct id(node)) as subgraphNodes";
+		TestUtil.testCall(db, query, (row) -> {
+			assertEquals(subgraph, row.get("subgraphNodes"));
+			assertEquals((long) subgraph.size(), row.get("pathCount"));
+			assertEquals(true, row.get("fromStart"));
+		});
+	}
+
+	@Test
+	public void testKernelEngineSubgraphAllAndLimits() throws Throwable {
+		String query = "MATCH (m:Movie {title: 'The Matrix'}) CALL apoc.path.subgraphAll(m,{maxLevel:2, engine:$engine}) yield nodes, relationships " +
+				"return size(nodes) as nodes, size(relationships) as relationships";
+		Map<String, Object> traversal;
+		try (Transaction tx = db.beginTx()) {
+			traversal = db.execute(query, Util.map("engine", "traversal")).next();
+		}
+		TestUtil.testCall(db, query, Util.map("engine", "kernel"), (row) -> assertEquals(traversal, row));
+
+		TestUtil.testCall(db, "MATCH (m:Movie {title: 'The Matrix'}) CALL apoc.path.subgraphNodes(m,{engine:'kernel', limit:5}) yield node return count(*) as cnt",
+				(row) -> assertEquals(5L, row.get("cnt")));
+		TestUtil.testCall(db, "MATCH (k:Person {name: 'Keanu Reeves'}) CALL apoc.path.subgraphNodes(k,{engine:'kernel', labelFilter:'+nonExistent', filterStartNode:true, optional:true}) yield node return node",
+				(row) -> assertEquals(null, row.get("node")));
+		try {
+			TestUtil.testCall(db, "MATCH (m:Movie {title: 'The Matrix'}) CALL apoc.path.subgraphNodes(m,{engine:'kernel', maxNodes:10}) yield node return count(*)", (row) -> {});
+			fail("maxNodes should have been exceeded");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("maxNodes"));
+		}
+	}
 }
@@ -21,6 +21,7 @@ import java.util.stream.StreamSupport;
 import static apoc.util.TestUtil.testCall;
 import static apoc.util.TestUtil.testResult;
 import static apoc.util.Util.map;
+import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -299,6 +300,80 @@ System.out.println("call list" + db.execute(callList).resultAsString());
         });
     }
 
+    @Test
+    public void testIterateAdaptive() throws Exception {
+        db.execute("UNWIND range(1,1000) AS x CREATE (:Person{name:'Person_'+x})").close();
+
+        testResult(db, "CALL apoc.periodic.iterate('match (p:Person) return p', 'SET p.lastname = p.name REMOVE p.name', {batchSize:10, parallel:true, adaptive:true, maxBatchSize:100})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(1000L, row.get("total"));
+            assertEquals(0L, row.get("failedOperations"));
+            Map<String, Object> adaptive = (Map<String, Object>) row.get("adaptive");
+            assertEquals(100L, ((Number)adaptive.get("maxBatchSize")).longValue());
+            long batchSize = ((Number) adaptive.get("batchSize")).longValue();
+            assertTrue(batchSize > 10 && batchSize <= 100);
+            List<Map<String, Object>> adjustments = (List<Map<String, Object>>) adaptive.get("adjustments");
+            assertEquals("initial", adjustments.get(0).get("reason"));
+            assertTrue((Long) row.get("batches") < 100L);
+        });
+
+        testCall(db,
+                "MATCH (p:Person) where p.lastname is not null return count(p) as count",
+                row -> assertEquals(1000L, row.get("count"))
+        );
+    }
+
+    @Test
+    public void testIterateAdaptiveShrinksOnFailure() throws Exception {
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1,1000) as id RETURN id', 'CREATE null', {batchSize:100, iterateList:true, adaptive:true, concurrency:1})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(1000L, row.get("total"));
+            Map<String, Object> adaptive = (Map<String, Object>) row.get("adaptive");
+            assertTrue(((Number) adaptive.get("batchSize")).longValue() < 10L);
+            assertTrue((Long) row.get("batches") > 10L);
+        });
+    }
+
+    @Test
+    public void testIterateScan() throws Exception {
+        db.execute("UNWIND range(1,1000) AS x CREATE (:Person{name:'Person_'+x}), (:Other{name:'Other_'+x})").close();
+
+        testResult(db, "CALL apoc.periodic.iterateScan('Person', 'SET n.lastname = n.name REMOVE n.name', {batchSize:10, partitionSize:100})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(1000L, row.get("total"));
+            assertEquals(1000L, row.get("committedOperations"));
+            assertEquals(0L, row.get("failedBatches"));
+        });
+
+        testCall(db,
+                "MATCH (p:Person) where p.lastname is not null return count(p) as count",
+                row -> assertEquals(1000L, row.get("count"))
+        );
+        testCall(db,
+                "MATCH (p:Other) where p.lastname is not null return count(p) as count",
+                row -> assertEquals(0L, row.get("count"))
+        );
+    }
+
+    @Test
+    public void testIterateScanRelationships() throws Exception {
+        db.execute("UNWIND range(1,100) AS x CREATE (:Person)-[:KNOWS]->(:Person)-[:LIKES]->(:Person)").close();
+
+        testResult(db, "CALL apoc.periodic.iterateScan('KNOWS', 'SET r.seen = true', {batchSize:7, relationships:true})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(100L, row.get("total"));
+            assertEquals(100L, row.get("committedOperations"));
+        });
+
+        testCall(db,
+                "MATCH ()-[r]->() WHERE r.seen RETURN collect(distinct type(r)) as types, count(*) as count",
+                row -> {
+                    assertEquals(100L, row.get("count"));
+                    assertEquals(asList("KNOWS"), row.get("types"));
+                }
+        );
+    }
+
     @Test
     public void testIterateRetries() throws Exception {
         testResult(db, "CALL apoc.periodic.iterate('return 1', 'CREATE (n {prop: 1/{_retry}})', {retries:1})", result -> {
@@ -0,0 +1,87 @@
+package apoc.pools;
+
+import apoc.Pools;
+import apoc.util.TestUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static apoc.util.TestUtil.testResult;
+import static org.junit.Assert.*;
+
+public class ThreadPoolsTest {
+
+    private static GraphDatabaseService db;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        TestUtil.registerProcedure(db, ThreadPools.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testListPools() throws Exception {
+        // the pools are shared with the other tests of the jvm, so only the changes caused by this test are checked,
+        // the pool is created lazily and only listed from then on
+        assertSame(Pools.pool(Pools.PERIODIC), Pools.pool(Pools.PERIODIC));
+        Map<String, Object> before = pools().get(Pools.PERIODIC);
+        assertNotNull(before);
+        Pools.pool(Pools.PERIODIC).submit(() -> 42).get();
+        ForkJoinPool algo = Pools.forkJoinPool(Pools.ALGO);
+        algo.submit(() -> 42).get();
+
+        Map<String, Map<String, Object>> pools = pools();
+        assertTrue(pools.keySet().containsAll(Arrays.asList("default", "single", "scheduled", Pools.PERIODIC, Pools.ALGO)));
+
+        Map<String, Object> periodic = pools.get(Pools.PERIODIC);
+        assertEquals("threadpool", periodic.get("type"));
+        assertEquals(Pools.POLICY_BLOCK, periodic.get("policy"));
+        assertTrue(delta(before, periodic, "submitted") >= 1);
+        assertTrue(waitTimeCount(periodic) - waitTimeCount(before) >= 1);
+        assertEquals(0L, periodic.get("rejected"));
+
+        // the completed count is only updated after the future of the task resolved
+        long deadline = System.currentTimeMillis() + 5000;
+        while (delta(before, periodic, "completed") < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            periodic = pools().get(Pools.PERIODIC);
+        }
+        assertTrue(delta(before, periodic, "completed") >= 1);
+
+        Map<String, Object> forkJoin = pools.get(Pools.ALGO);
+        assertEquals("forkjoin", forkJoin.get("type"));
+        assertEquals((long) algo.getParallelism(), forkJoin.get("maxThreads"));
+    }
+
+    private static Map<String, Map<String, Object>> pools() {
+        Map<String, Map<String, Object>> pools = new HashMap<>();
+        testResult(db, "CALL apoc.pools.list()", result -> result.forEachRemaining(row -> pools.put((String) row.get("name"), row)));
+        return pools;
+    }
+
+    private static long delta(Map<String, Object> before, Map<String, Object> after, String key) {
+        return (long) after.get(key) - (long) before.get(key);
+    }
+
+    private static long waitTimeCount(Map<String, Object> pool) {
+        return (long) ((Map) pool.get("waitTime")).get("count");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForkJoinPoolNameClash() {
+        Pools.pool(Pools.GROUPING);
+        Pools.forkJoinPool(Pools.GROUPING);
+    }
+}
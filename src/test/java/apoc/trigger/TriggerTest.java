@@ -12,6 +12,7 @@ import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.neo4j.helpers.collection.MapUtil.map;
 
 /**
@@ -226,6 +227,28 @@ public class TriggerTest {
         });
     }
 
+    @Test
+    public void testSelectorLabelsAndPropertyKeys() throws Exception {
+        db.execute("CREATE (:Counter {count:0})").close();
+        db.execute("CALL apoc.trigger.add('count-person-names','MATCH (c:Counter) SET c.count = c.count + 1',{labels:['Person'], propertyKeys:['name']})").close();
+        db.execute("CREATE (:Foo {name:'Michael'})").close();
+        db.execute("CREATE (:Person {age:42})").close();
+        db.execute("CREATE (:Person {name:'Michael'})").close();
+        TestUtil.testCall(db, "MATCH (c:Counter) RETURN c.count as count", (row) -> {
+            assertEquals(1L, row.get("count"));
+        });
+    }
 
+    @Test
+    public void testAsyncAfterTrigger() throws Exception {
+        db.execute("CALL apoc.trigger.add('async','UNWIND {createdNodes} AS n SET n.txId = {transactionId}',{phase:'after', labels:['Foo'], async:true})").close();
+        db.execute("CREATE (f:Foo {name:'Michael'})").close();
+        long txId = -1;
+        for (int i = 0; i < 100 && txId == -1; i++) {
+            Thread.sleep(50);
+            txId = db.execute("MATCH (f:Foo) RETURN coalesce(f.txId, -1) AS txId").<Long>columnAs("txId").next();
+        }
+        assertTrue(txId > -1);
+    }
 
 }
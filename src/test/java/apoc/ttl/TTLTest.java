@@ -0,0 +1,69 @@
+package apoc.ttl;
+
+import apoc.date.Date;
+import apoc.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static apoc.util.TestUtil.testCall;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TTLTest {
+
+    private GraphDatabaseService db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = new TestGraphDatabaseFactory()
+                .newImpermanentDatabaseBuilder()
+                .setConfig("apoc.ttl.batch_size", "5")
+                .setConfig("apoc.ttl.dense_node_threshold", "10")
+                .newGraphDatabase();
+        TestUtil.registerProcedure(db, TTL.class, Date.class);
+        db.execute("CREATE INDEX ON :TTL(ttl)").close();
+        try (Transaction tx = db.beginTx()) {
+            db.schema().awaitIndexesOnline(10, TimeUnit.SECONDS);
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testExpireNodes() throws Exception {
+        db.execute("UNWIND range(1,23) AS i CREATE (:Foo:TTL {ttl: timestamp() - i * 1000})").close();
+        db.execute("CREATE (d:Dense:TTL {ttl: timestamp() - 100}) WITH d UNWIND range(1,25) AS i CREATE (d)-[:X]->(:Other)").close();
+        db.execute("CREATE (:Bar:TTL {ttl: timestamp() + 100000})").close();
+
+        testCall(db, "CALL apoc.ttl.stats()", (row) -> {
+            assertEquals(24L, row.get("expiredNodes"));
+            assertTrue((Long) row.get("lagMillis") >= 23000L);
+        });
+        testCall(db, "CALL apoc.ttl.expire()", (row) -> {
+            assertEquals(0L, row.get("expiredNodes"));
+            assertEquals(24L, row.get("deletedNodes"));
+            assertEquals(25L, row.get("deletedRelationships"));
+        });
+        testCall(db, "MATCH (n:TTL) RETURN n:Bar AS bar", (row) -> assertEquals(true, row.get("bar")));
+        testCall(db, "MATCH (n:Other) RETURN count(*) AS count", (row) -> assertEquals(25L, row.get("count")));
+    }
+
+    @Test
+    public void testExpireRelationships() throws Exception {
+        db.execute("CREATE (a:Foo)-[r1:X]->(b:Foo), (a)-[r2:X]->(b) " +
+                "WITH r1, r2 CALL apoc.date.expireRelationshipIn(r1, -1, 's') CALL apoc.date.expireRelationshipIn(r2, 1, 'h') RETURN count(*)").close();
+        testCall(db, "CALL apoc.ttl.stats()", (row) -> assertEquals(1L, row.get("expiredRelationships")));
+        testCall(db, "CALL apoc.ttl.expire()", (row) -> assertEquals(1L, row.get("deletedRelationships")));
+        testCall(db, "MATCH (:Foo)-[r:X]->(:Foo) RETURN count(*) AS count", (row) -> assertEquals(1L, row.get("count")));
+    }
+}
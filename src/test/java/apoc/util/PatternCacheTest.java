@@ -0,0 +1,38 @@
+package apoc.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PatternCacheTest {
+
+    @After
+    public void tearDown() {
+        PatternCache.clear();
+    }
+
+    @Test
+    public void testCompileOnce() {
+        Pattern pattern = PatternCache.compile("a+b");
+        assertSame(pattern, PatternCache.compile("a+b"));
+        assertEquals(Pattern.CASE_INSENSITIVE, PatternCache.compile("a+b", Pattern.CASE_INSENSITIVE).flags());
+        assertNotSame(pattern, PatternCache.compile("a+b", Pattern.CASE_INSENSITIVE));
+        assertSame(pattern, PatternCache.compile("a+b", 0));
+    }
+
+    @Test
+    public void testBounded() {
+        long evictions = PatternCache.evictions();
+        for (int i = 0; i < PatternCache.DEFAULT_SIZE + 10; i++) {
+            PatternCache.compile("x{" + i + "}");
+        }
+        assertTrue(PatternCache.size() <= PatternCache.DEFAULT_SIZE);
+        assertTrue(PatternCache.evictions() - evictions >= 10);
+    }
+}
@@ -273,6 +273,36 @@ public class UUIDTest {
         }
     }
 
+    @Test
+    public void testTimeOrderedUuidAndStats() {
+        // given
+        db.execute("CREATE CONSTRAINT ON (test:Test) ASSERT test.uuid IS UNIQUE").close();
+        db.execute("CREATE CONSTRAINT ON (bar:Bar) ASSERT bar.id IS UNIQUE").close();
+        db.execute("CALL apoc.uuid.install('Test', {generator: 'time'})").close();
+        db.execute("CALL apoc.uuid.install('Bar', {uuidProperty: 'id'})").close();
+        long before = (long) db.execute("CALL apoc.uuid.stats() YIELD nodes RETURN nodes").next().get("nodes");
+
+        // when
+        db.execute("UNWIND range(1,100) AS i CREATE (:Test:Bar {i: i})").close();
+        db.execute("CREATE (:Foo)").close();
+
+        // then
+        List<String> uuids = db.execute("MATCH (n:Test) RETURN n.uuid AS uuid ORDER BY n.i").<String>columnAs("uuid")
+                .stream().collect(Collectors.toList());
+        assertEquals(100, uuids.size());
+        assertTrue(uuids.stream().allMatch(uuid -> uuid.matches("^[0-9a-f]{8}-[0-9a-f]{4}-7[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}$")));
+        long millis = Long.parseLong(uuids.get(0).replace("-", "").substring(0, 12), 16);
+        assertTrue(Math.abs(System.currentTimeMillis() - millis) < 60_000);
+        TestUtil.testCall(db, "MATCH (n:Bar) RETURN count(DISTINCT n.id) AS ids, count(*) AS nodes",
+                (row) -> assertEquals(row.get("nodes"), row.get("ids")));
+        TestUtil.testCall(db, "CALL apoc.uuid.stats()", (row) -> {
+            assertEquals(before + 100L, row.get("nodes"));
+            assertTrue((long) row.get("commits") >= 2L);
+        });
+        TestUtil.testCall(db, "CALL apoc.uuid.list() YIELD label, properties WHERE label = 'Test' RETURN properties",
+                (row) -> assertEquals(Util.map("addToExistingNodes", true, "uuidProperty", "uuid", "generator", "time"), row.get("properties")));
+    }
+
     private void assertResult(Map<String, Object> row, String labels, boolean installed, Map<String, Object> conf) {
         assertEquals(labels, row.get("label"));
         assertEquals(installed, row.get("installed"));
@@ -7,7 +7,13 @@ import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Sascha Peukert
@@ -72,4 +78,33 @@ public class WarmupTest {
             assertEquals(21L, r.get("indexPages"));
         });
     }
+
+    @Test
+    public void testWarmupStreamInPageRanges() throws Exception {
+        TestUtil.testResult(db, "CALL apoc.warmup.stream({pagesPerRange:1}) YIELD store, pages, done WHERE done RETURN store, pages", r -> {
+            Map<String, Object> pages = r.stream().collect(Collectors.toMap(row -> (String) row.get("store"), row -> row.get("pages")));
+            assertEquals(2L, pages.get("neostore.nodestore.db"));
+            assertEquals(2L, pages.get("neostore.relationshipstore.db"));
+            assertFalse(pages.containsKey("neostore.propertystore.db"));
+        });
+    }
+
+    @Test
+    public void testWarmupStreamPriority() throws Exception {
+        TestUtil.testResult(db, "CALL apoc.warmup.stream({loadProperties:true, priority:['relationshipgroupstore','nodestore',':Foo']})", r -> {
+            List<Map<String, Object>> rows = r.stream().collect(Collectors.toList());
+            assertEquals("neostore.relationshipgroupstore.db", rows.get(0).get("store"));
+            assertEquals(0L, rows.get(0).get("stage"));
+            // the node store and its label store
+            assertEquals(1L, rows.get(1).get("stage"));
+            assertEquals(1L, rows.get(2).get("stage"));
+            assertTrue(rows.subList(1, 3).stream().allMatch(row -> ((String) row.get("store")).startsWith("neostore.nodestore.db")));
+            assertEquals(4, rows.size());
+            assertEquals(":Foo", rows.get(3).get("store"));
+            assertEquals(2L, rows.get(3).get("stage"));
+            assertEquals(2L, rows.get(3).get("nodes"));
+            assertEquals(0L, rows.get(3).get("pages"));
+            assertTrue(rows.stream().allMatch(row -> (Boolean) row.get("done")));
+        });
+    }
 }